@@ -0,0 +1,84 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the shared instrumentation: a bare filter chain against the same chain
+ * behind {@link ServletRouteMetricsFilter}, plus the raw histogram record and a contended record.
+ * <pre>
+ *   mvn -Pjmh verify -DskipTests
+ * </pre>
+ * The filter should stay well under a microsecond per request and allocate nothing of its own; the
+ * 40 B/op {@code -prof gc} reports comes from the mock request recording the filtered attribute.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentationOverheadBenchmark {
+
+    private static final FilterChain NOOP = (req, res) -> { };
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private ServletRouteMetricsFilter filter;
+    private LatencyHistogram histogram;
+    private long value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter = new ServletRouteMetricsFilter(new HttpRouteMetrics(registry, 60_000, 2, 60_000, 256));
+        histogram = new LatencyHistogram(60_000, 2, 60_000);
+        request = new MockHttpServletRequest("GET", "/products/42");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/products/{productId}");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void bareChain() throws Exception {
+        NOOP.doFilter(request, response);
+    }
+
+    @Benchmark
+    public void instrumentedChain() throws Exception {
+        filter.doFilter(request, response, NOOP);
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.recordNanos(value += 1_337);
+        if (value > 50_000_000_000L) value = 0;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final LatencyHistogram histogram = new LatencyHistogram(60_000, 2, 60_000);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void histogramRecordContended(Shared shared) {
+        shared.histogram.recordNanos(250_000);
+    }
+}
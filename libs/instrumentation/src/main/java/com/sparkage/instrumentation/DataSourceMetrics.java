@@ -0,0 +1,76 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Connection-acquire and per-operation query timings for one data source.
+ * <ul>
+ *   <li>{@code db.connection.acquire.latency{datasource,quantile}} - time spent waiting for the pool</li>
+ *   <li>{@code db.query.latency{datasource,operation,quantile}} - statement execution time</li>
+ *   <li>{@code db.query.errors{datasource,operation}} - statements that threw</li>
+ * </ul>
+ * Operations are derived from the leading SQL keyword: select, insert, update, delete or other,
+ * so the series count is fixed regardless of how many distinct statements run.
+ */
+public class DataSourceMetrics {
+
+    public static final String ACQUIRE_LATENCY = "db.connection.acquire.latency";
+    public static final String QUERY_LATENCY = "db.query.latency";
+    public static final String QUERY_ERRORS = "db.query.errors";
+
+    enum Operation {
+        SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+        final String tag = name().toLowerCase();
+
+        static Operation of(String sql) {
+            if (sql == null) return OTHER;
+            int i = 0;
+            int n = sql.length();
+            while (i < n && (Character.isWhitespace(sql.charAt(i)) || sql.charAt(i) == '(')) i++;
+            if (sql.regionMatches(true, i, "select", 0, 6) || sql.regionMatches(true, i, "with", 0, 4)) return SELECT;
+            if (sql.regionMatches(true, i, "insert", 0, 6)) return INSERT;
+            if (sql.regionMatches(true, i, "update", 0, 6)) return UPDATE;
+            if (sql.regionMatches(true, i, "delete", 0, 6)) return DELETE;
+            return OTHER;
+        }
+    }
+
+    private final LatencyHistogram acquire;
+    private final LatencyHistogram[] queries = new LatencyHistogram[Operation.values().length];
+    private final Counter[] errors = new Counter[Operation.values().length];
+
+    public DataSourceMetrics(MeterRegistry registry, String dataSourceName, long maxLatencyMillis,
+                             int significantDigits, long intervalMillis) {
+        Tags tags = Tags.of("datasource", dataSourceName);
+        this.acquire = new LatencyHistogram(maxLatencyMillis, significantDigits, intervalMillis)
+                .register(registry, ACQUIRE_LATENCY, "Time to obtain a connection from the pool", tags);
+        for (Operation op : Operation.values()) {
+            Tags opTags = tags.and("operation", op.tag);
+            queries[op.ordinal()] = new LatencyHistogram(maxLatencyMillis, significantDigits, intervalMillis)
+                    .register(registry, QUERY_LATENCY, "JDBC statement execution time", opTags);
+            errors[op.ordinal()] = registry.counter(QUERY_ERRORS, opTags);
+        }
+    }
+
+    void recordAcquire(long nanos) {
+        acquire.recordNanos(nanos);
+    }
+
+    void recordQuery(Operation op, long nanos, boolean failed) {
+        queries[op.ordinal()].recordNanos(nanos);
+        if (failed) {
+            errors[op.ordinal()].increment();
+        }
+    }
+
+    LatencyHistogram query(Operation op) {
+        return queries[op.ordinal()];
+    }
+
+    LatencyHistogram acquire() {
+        return acquire;
+    }
+}
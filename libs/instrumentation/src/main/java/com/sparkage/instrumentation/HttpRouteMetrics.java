@@ -0,0 +1,132 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Server-side request metrics shared by the servlet and reactive filters.
+ * <ul>
+ *   <li>{@code http.server.inflight} - requests currently being handled</li>
+ *   <li>{@code http.server.route.latency{method,uri,quantile}} - HdrHistogram quantiles per route</li>
+ *   <li>{@code http.server.route.requests{method,uri,status}} - request count per route and status</li>
+ * </ul>
+ * Routes are identified by their template ({@code /products/{productId}}), never by the raw path.
+ * At most {@code maxRoutes} (method, template) pairs get their own series; anything beyond that is
+ * folded into {@code uri=OTHER}, so a misbehaving handler cannot grow the registry without bound.
+ */
+public class HttpRouteMetrics {
+
+    public static final String INFLIGHT = "http.server.inflight";
+    public static final String ROUTE_LATENCY = "http.server.route.latency";
+    public static final String ROUTE_REQUESTS = "http.server.route.requests";
+
+    // Same fallbacks as Spring's own http.server.requests tags
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String REDIRECTION = "REDIRECTION";
+    public static final String UNKNOWN = "UNKNOWN";
+    public static final String OTHER = "OTHER";
+
+    private static final Set<String> KNOWN_METHODS = Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+    private final MeterRegistry registry;
+    private final long maxLatencyMillis;
+    private final int significantDigits;
+    private final long intervalMillis;
+    private final int maxRoutes;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger routeCount = new AtomicInteger();
+    // template -> method -> route
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Route>> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Route> overflow = new ConcurrentHashMap<>();
+
+    public HttpRouteMetrics(MeterRegistry registry, long maxLatencyMillis, int significantDigits,
+                            long intervalMillis, int maxRoutes) {
+        this.registry = registry;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.significantDigits = significantDigits;
+        this.intervalMillis = intervalMillis;
+        this.maxRoutes = maxRoutes;
+        Gauge.builder(INFLIGHT, inflight, AtomicInteger::get)
+                .description("HTTP requests currently in flight")
+                .register(registry);
+    }
+
+    /** Marks a request as started and returns the start timestamp to hand back to {@link #end}. */
+    public long begin() {
+        inflight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a finished request. {@code template} may be {@code null} when no handler matched; the
+     * status then decides between {@code NOT_FOUND}, {@code REDIRECTION} and {@code UNKNOWN}.
+     */
+    public void end(long startNanos, String method, String template, int status) {
+        long elapsed = System.nanoTime() - startNanos;
+        inflight.decrementAndGet();
+        Route route = route(method, template != null ? template : fallback(status));
+        route.latency.recordNanos(elapsed);
+        route.forStatus(status).increment();
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    static String fallback(int status) {
+        if (status == 404) return NOT_FOUND;
+        if (status >= 300 && status < 400) return REDIRECTION;
+        return UNKNOWN;
+    }
+
+    Route route(String method, String template) {
+        String m = method != null && KNOWN_METHODS.contains(method) ? method : OTHER;
+        ConcurrentHashMap<String, Route> byMethod = routes.get(template);
+        if (byMethod != null) {
+            Route route = byMethod.get(m);
+            if (route != null) return route;
+        }
+        if (routeCount.get() >= maxRoutes) {
+            return overflow.computeIfAbsent(m, k -> new Route(k, OTHER));
+        }
+        return routes.computeIfAbsent(template, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(m, k -> {
+                    routeCount.incrementAndGet();
+                    return new Route(k, template);
+                });
+    }
+
+    final class Route {
+        private final String method;
+        private final String template;
+        final LatencyHistogram latency;
+        // index = HTTP status (100-599); slot 0 collects anything outside that range
+        private final AtomicReferenceArray<Counter> byStatus = new AtomicReferenceArray<>(600);
+
+        Route(String method, String template) {
+            this.method = method;
+            this.template = template;
+            this.latency = new LatencyHistogram(maxLatencyMillis, significantDigits, intervalMillis)
+                    .register(registry, ROUTE_LATENCY, "Request latency per route", Tags.of("method", method, "uri", template));
+        }
+
+        Counter forStatus(int status) {
+            int slot = status >= 100 && status < 600 ? status : 0;
+            Counter counter = byStatus.get(slot);
+            if (counter == null) {
+                String tag = slot == 0 ? UNKNOWN : String.valueOf(status);
+                // registry lookups are idempotent, so a lost race only costs a duplicate lookup
+                counter = registry.counter(ROUTE_REQUESTS, "method", method, "uri", template, "status", tag);
+                byStatus.compareAndSet(slot, null, counter);
+            }
+            return counter;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Registers the shared service metrics: per-route latency histograms and in-flight requests for
+ * servlet and reactive apps, JDBC acquire/query timings for every {@link DataSource} bean, and the
+ * JVM allocation rate. Everything is switched off with {@code sparkage.instrumentation.enabled=false};
+ * the individual parts have their own {@code enabled} flags.
+ * <p>
+ * Histogram settings ({@code sparkage.instrumentation.histogram.*}) bound the memory of every
+ * latency series: {@code max-latency-ms} is the largest value tracked (larger values are clamped)
+ * and {@code significant-digits} the precision.
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"})
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(name = "sparkage.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class InstrumentationAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "sparkage.instrumentation.jvm.enabled", havingValue = "true", matchIfMissing = true)
+    public JvmAllocationMetrics jvmAllocationMetrics(
+            @Value("${sparkage.instrumentation.jvm.min-sample-interval-ms:1000}") long minSampleIntervalMillis) {
+        return new JvmAllocationMetrics(minSampleIntervalMillis);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnProperty(name = "sparkage.instrumentation.http.enabled", havingValue = "true", matchIfMissing = true)
+    static class HttpConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        HttpRouteMetrics httpRouteMetrics(MeterRegistry registry,
+                                          @Value("${sparkage.instrumentation.histogram.max-latency-ms:60000}") long maxLatencyMillis,
+                                          @Value("${sparkage.instrumentation.histogram.significant-digits:2}") int significantDigits,
+                                          @Value("${sparkage.instrumentation.histogram.interval-ms:60000}") long intervalMillis,
+                                          @Value("${sparkage.instrumentation.http.max-routes:256}") int maxRoutes) {
+            return new HttpRouteMetrics(registry, maxLatencyMillis, significantDigits, intervalMillis, maxRoutes);
+        }
+
+        // Split by stack so that neither side needs the other's classes on the classpath
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        @ConditionalOnClass(name = "org.springframework.web.servlet.HandlerMapping")
+        static class ServletConfiguration {
+
+            @Bean
+            FilterRegistrationBean<ServletRouteMetricsFilter> servletRouteMetricsFilter(HttpRouteMetrics metrics) {
+                FilterRegistrationBean<ServletRouteMetricsFilter> registration =
+                        new FilterRegistrationBean<>(new ServletRouteMetricsFilter(metrics));
+                // Outermost, so the latency includes every other filter (security, logging, rate limits)
+                registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+                return registration;
+            }
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+        @ConditionalOnClass(name = "org.springframework.web.reactive.HandlerMapping")
+        static class ReactiveConfiguration {
+
+            @Bean
+            ReactiveRouteMetricsFilter reactiveRouteMetricsFilter(HttpRouteMetrics metrics,
+                                                                  ObjectProvider<RouteTemplateResolver> resolver) {
+                return new ReactiveRouteMetricsFilter(metrics, resolver.getIfAvailable());
+            }
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({DataSource.class, DelegatingDataSource.class})
+    @ConditionalOnProperty(name = "sparkage.instrumentation.jdbc.enabled", havingValue = "true", matchIfMissing = true)
+    @ImportRuntimeHints(InstrumentedDataSource.Hints.class)
+    static class JdbcConfiguration {
+
+        // static: post-processors are created before regular beans, and before placeholders can be
+        // resolved in @Value, hence the direct Environment lookups
+        @Bean
+        static BeanPostProcessor instrumentedDataSourcePostProcessor(ObjectProvider<MeterRegistry> registry,
+                                                                     Environment environment) {
+            long maxLatencyMillis = environment.getProperty("sparkage.instrumentation.histogram.max-latency-ms", Long.class, 60_000L);
+            int significantDigits = environment.getProperty("sparkage.instrumentation.histogram.significant-digits", Integer.class, 2);
+            long intervalMillis = environment.getProperty("sparkage.instrumentation.histogram.interval-ms", Long.class, 60_000L);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource) || bean instanceof InstrumentedDataSource) {
+                        return bean;
+                    }
+                    MeterRegistry meterRegistry = registry.getIfAvailable();
+                    if (meterRegistry == null) {
+                        return bean;
+                    }
+                    return new InstrumentedDataSource(dataSource, new DataSourceMetrics(meterRegistry, beanName,
+                            maxLatencyMillis, significantDigits, intervalMillis));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.sparkage.instrumentation;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Times connection acquisition and statement execution on top of an existing (pooled) data source.
+ * Connections and statements are wrapped in JDK proxies; only the {@code execute*} calls are timed,
+ * everything else is passed straight through. Pool-level gauges (active, idle, pending) still come
+ * from Spring Boot's Hikari metrics, which unwrap this delegate.
+ * <p>
+ * In a native image the proxies and the reflective pass-through calls need the {@link Hints}.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Class<?>[] CONNECTION = {Connection.class};
+    private static final Class<?>[] STATEMENT = {Statement.class};
+    private static final Class<?>[] PREPARED = {PreparedStatement.class};
+    private static final Class<?>[] CALLABLE = {CallableStatement.class};
+
+    private final DataSourceMetrics metrics;
+
+    public InstrumentedDataSource(DataSource target, DataSourceMetrics metrics) {
+        super(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        metrics.recordAcquire(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), CONNECTION,
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return statement(STATEMENT, (Statement) result, null);
+                case "prepareStatement":
+                    return statement(PREPARED, (Statement) result, DataSourceMetrics.Operation.of((String) args[0]));
+                case "prepareCall":
+                    return statement(CALLABLE, (Statement) result, DataSourceMetrics.Operation.OTHER);
+                default:
+                    return result;
+            }
+        }
+
+        private Object statement(Class<?>[] type, Statement statement, DataSourceMetrics.Operation prepared) {
+            return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), type,
+                    new StatementHandler(statement, prepared));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        // null for plain statements, whose SQL arrives with each execute call
+        private final DataSourceMetrics.Operation prepared;
+
+        StatementHandler(Statement target, DataSourceMetrics.Operation prepared) {
+            this.target = target;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return InstrumentedDataSource.invoke(target, method, args);
+            }
+            DataSourceMetrics.Operation op = prepared != null ? prepared
+                    : args != null && args.length > 0 && args[0] instanceof String sql
+                    ? DataSourceMetrics.Operation.of(sql) : DataSourceMetrics.Operation.OTHER;
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = InstrumentedDataSource.invoke(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                metrics.recordQuery(op, System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    /** Proxy classes and reflective invocation for the wrapped JDBC interfaces. */
+    static class Hints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?>[] type : List.of(CONNECTION, STATEMENT, PREPARED, CALLABLE)) {
+                hints.proxies().registerJdkProxy(type);
+                hints.reflection().registerType(type[0], MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+    }
+}
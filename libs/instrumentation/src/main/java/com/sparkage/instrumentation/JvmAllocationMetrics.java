@@ -0,0 +1,94 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Heap allocation measured from the per-thread allocation counters
+ * ({@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes}), independent of GC activity.
+ * <ul>
+ *   <li>{@code jvm.allocation.bytes} - bytes allocated since start (counter)</li>
+ *   <li>{@code jvm.allocation.rate} - bytes per second over the last sampling period</li>
+ * </ul>
+ * Java 17 has no process-wide total, so each sample walks the live threads and accumulates their
+ * deltas; bytes a thread allocates after the previous sample and before it exits are missed. The
+ * walk happens only when a meter is read, at most once per {@code minSampleIntervalMillis}.
+ */
+public class JvmAllocationMetrics implements MeterBinder {
+
+    public static final String ALLOCATED_BYTES = "jvm.allocation.bytes";
+    public static final String ALLOCATION_RATE = "jvm.allocation.rate";
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final long minSampleIntervalNanos;
+    private Map<Long, Long> lastByThread = new HashMap<>();
+    private long total;
+    private long lastSampleNanos;
+    private double rate;
+
+    public JvmAllocationMetrics(long minSampleIntervalMillis) {
+        this.threads = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                && t.isThreadAllocatedMemorySupported() ? t : null;
+        this.minSampleIntervalNanos = minSampleIntervalMillis * 1_000_000L;
+    }
+
+    public boolean isSupported() {
+        return threads != null && threads.isThreadAllocatedMemoryEnabled();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!isSupported()) {
+            return;
+        }
+        FunctionCounter.builder(ALLOCATED_BYTES, this, JvmAllocationMetrics::allocatedBytes)
+                .description("Bytes allocated on the heap by all threads since the metric was bound")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(ALLOCATION_RATE, this, JvmAllocationMetrics::bytesPerSecond)
+                .description("Heap allocation rate over the last sampling period")
+                .baseUnit("bytes")
+                .register(registry);
+        sample(true);
+    }
+
+    public synchronized long allocatedBytes() {
+        sample(false);
+        return total;
+    }
+
+    public synchronized double bytesPerSecond() {
+        sample(false);
+        return rate;
+    }
+
+    private void sample(boolean force) {
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        if (!force && elapsed < minSampleIntervalNanos) {
+            return;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> current = new HashMap<>(ids.length * 2);
+        long delta = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] < 0) continue; // thread exited between the two calls
+            Long previous = lastByThread.get(ids[i]);
+            delta += previous == null ? (force ? 0 : bytes[i]) : bytes[i] - previous;
+            current.put(ids[i], bytes[i]);
+        }
+        if (!force) {
+            total += delta;
+            rate = delta * 1e9 / elapsed;
+        }
+        lastByThread = current;
+        lastSampleNanos = now;
+    }
+}
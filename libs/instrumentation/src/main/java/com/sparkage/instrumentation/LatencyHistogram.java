@@ -0,0 +1,108 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution backed by an HdrHistogram {@link Recorder}: recording is wait-free and
+ * allocation-free, and memory is fixed up front by the value range and precision, whatever the
+ * request rate.
+ * <p>
+ * Values are kept in microseconds and clamped to {@code maxLatencyMillis}. Readers see the
+ * interval that finished last; a new interval starts lazily on the first read made after
+ * {@code intervalMillis}, so an idle scrape loop costs nothing.
+ * Quantiles are exported as gauges, one series per quantile, plus {@code .max} and {@code .count}.
+ */
+public final class LatencyHistogram {
+
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Recorder recorder;
+    private final long highestTrackableMicros;
+    private final long intervalNanos;
+    private final Object rotationLock = new Object();
+    private Histogram recycled;
+    private volatile Histogram interval;
+    private volatile long intervalStartNanos;
+    private final LongAdder count = new LongAdder();
+
+    public LatencyHistogram(long maxLatencyMillis, int significantDigits, long intervalMillis) {
+        this.highestTrackableMicros = TimeUnit.MILLISECONDS.toMicros(maxLatencyMillis);
+        this.recorder = new Recorder(highestTrackableMicros, significantDigits);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        // Must come from the recorder: only its own histograms can be handed back for recycling
+        this.interval = recorder.getIntervalHistogram();
+        this.intervalStartNanos = System.nanoTime();
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = nanos / 1_000;
+        if (micros < 0) micros = 0;
+        if (micros > highestTrackableMicros) micros = highestTrackableMicros;
+        recorder.recordValue(micros);
+        count.increment();
+    }
+
+    /** Total values recorded since creation. */
+    public long count() {
+        return count.sum();
+    }
+
+    /** Value at {@code quantile} (0..1) of the last completed interval, in milliseconds. */
+    public double quantileMillis(double quantile) {
+        return snapshot().getValueAtPercentile(quantile * 100.0) / 1_000.0;
+    }
+
+    public double maxMillis() {
+        return snapshot().getMaxValue() / 1_000.0;
+    }
+
+    /**
+     * Bytes held by the recorder's two buffers plus the published and recycled snapshots; fixed for
+     * the lifetime of the instance.
+     */
+    public int footprintBytes() {
+        return interval.getEstimatedFootprintInBytes() * 4;
+    }
+
+    /**
+     * Registers {@code <name>{quantile=...}}, {@code <name>.max} and {@code <name>.count} gauges.
+     * The registry holds the histogram strongly, so callers need not keep a reference.
+     */
+    public LatencyHistogram register(MeterRegistry registry, String name, String description, Tags tags) {
+        for (double q : QUANTILES) {
+            Gauge.builder(name, this, h -> h.quantileMillis(q))
+                    .tags(tags).tag("quantile", Double.toString(q))
+                    .description(description).baseUnit("milliseconds")
+                    .strongReference(true).register(registry);
+        }
+        Gauge.builder(name + ".max", this, LatencyHistogram::maxMillis)
+                .tags(tags).description(description).baseUnit("milliseconds")
+                .strongReference(true).register(registry);
+        Gauge.builder(name + ".count", this, LatencyHistogram::count)
+                .tags(tags).description(description)
+                .strongReference(true).register(registry);
+        return this;
+    }
+
+    Histogram snapshot() {
+        long now = System.nanoTime();
+        if (now - intervalStartNanos >= intervalNanos) {
+            synchronized (rotationLock) {
+                if (now - intervalStartNanos >= intervalNanos) {
+                    Histogram next = recorder.getIntervalHistogram(recycled);
+                    recycled = interval;
+                    interval = next;
+                    intervalStartNanos = now;
+                }
+            }
+        }
+        return interval;
+    }
+}
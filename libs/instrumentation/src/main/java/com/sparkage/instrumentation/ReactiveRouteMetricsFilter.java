@@ -0,0 +1,51 @@
+package com.sparkage.instrumentation;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+/**
+ * Feeds {@link HttpRouteMetrics} from WebFlux. The request is recorded when the filter chain
+ * terminates, whether it completes, fails or is cancelled by the client.
+ */
+public class ReactiveRouteMetricsFilter implements WebFilter, Ordered {
+
+    private final HttpRouteMetrics metrics;
+    private final RouteTemplateResolver resolver;
+
+    public ReactiveRouteMetricsFilter(HttpRouteMetrics metrics, RouteTemplateResolver resolver) {
+        this.metrics = metrics;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = metrics.begin();
+        return chain.filter(exchange).doFinally(signal -> record(start, exchange));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+
+    private void record(long start, ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        metrics.end(start, exchange.getRequest().getMethod().name(), template(exchange),
+                status != null ? status.value() : 200);
+    }
+
+    private String template(ServerWebExchange exchange) {
+        if (resolver != null) {
+            String resolved = resolver.resolve(exchange);
+            if (resolved != null) return resolved;
+        }
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern instanceof PathPattern p ? p.getPatternString() : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sparkage.instrumentation;
+
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Supplies the route tag for reactive exchanges that are not handled by an annotated controller,
+ * e.g. the gateway's proxied routes. Return {@code null} to fall back to the default resolution.
+ */
+@FunctionalInterface
+public interface RouteTemplateResolver {
+
+    String resolve(ServerWebExchange exchange);
+}
@@ -0,0 +1,95 @@
+package com.sparkage.instrumentation;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Feeds {@link HttpRouteMetrics} from Spring MVC. Requests that go async (streaming bodies,
+ * {@code DeferredResult}) are recorded when the async cycle completes, not when the first
+ * dispatch returns.
+ */
+public class ServletRouteMetricsFilter extends OncePerRequestFilter {
+
+    private static final String FILTERED_ATTRIBUTE = ServletRouteMetricsFilter.class.getName() + ".FILTERED";
+
+    private final HttpRouteMetrics metrics;
+
+    public ServletRouteMetricsFilter(HttpRouteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = metrics.begin();
+        boolean async = false;
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(start, request, response));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                record(start, request, response, failed);
+            }
+        }
+    }
+
+    // The default builds this name by string concatenation on every request
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return FILTERED_ATTRIBUTE;
+    }
+
+    private void record(long start, HttpServletRequest request, HttpServletResponse response, boolean failed) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        int status = response.getStatus();
+        // An exception escaping the chain becomes a 500 on the error dispatch, after this filter has returned
+        if (failed && status < 400) {
+            status = 500;
+        }
+        metrics.end(start, request.getMethod(), pattern instanceof String s ? s : null, status);
+    }
+
+    private final class CompletionListener implements AsyncListener {
+        private final long start;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        CompletionListener(long start, HttpServletRequest request, HttpServletResponse response) {
+            this.start = start;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(start, request, response, false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register when the application restarts async processing on the same request
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpRouteMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void tracksInflightAndCountsPerRouteAndStatus() {
+        HttpRouteMetrics metrics = new HttpRouteMetrics(registry, 60_000, 2, 60_000, 16);
+
+        long first = metrics.begin();
+        long second = metrics.begin();
+        assertEquals(2.0, registry.get(HttpRouteMetrics.INFLIGHT).gauge().value());
+
+        metrics.end(first, "GET", "/items/{id}", 200);
+        metrics.end(second, "GET", "/items/{id}", 404);
+
+        assertEquals(0.0, registry.get(HttpRouteMetrics.INFLIGHT).gauge().value());
+        assertEquals(1.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("method", "GET", "uri", "/items/{id}", "status", "200").counter().count());
+        assertEquals(1.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("method", "GET", "uri", "/items/{id}", "status", "404").counter().count());
+        assertEquals(2.0, registry.get(HttpRouteMetrics.ROUTE_LATENCY + ".count")
+                .tags("method", "GET", "uri", "/items/{id}").gauge().value());
+    }
+
+    @Test
+    void unmatchedRequestsAndUnknownMethodsUseFallbackTags() {
+        HttpRouteMetrics metrics = new HttpRouteMetrics(registry, 60_000, 2, 60_000, 16);
+
+        metrics.end(metrics.begin(), "GET", null, 404);
+        metrics.end(metrics.begin(), "GET", null, 302);
+        metrics.end(metrics.begin(), "BREW", null, 500);
+
+        assertNotNull(registry.find(HttpRouteMetrics.ROUTE_REQUESTS).tags("uri", HttpRouteMetrics.NOT_FOUND).counter());
+        assertNotNull(registry.find(HttpRouteMetrics.ROUTE_REQUESTS).tags("uri", HttpRouteMetrics.REDIRECTION).counter());
+        assertNotNull(registry.find(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("method", HttpRouteMetrics.OTHER, "uri", HttpRouteMetrics.UNKNOWN).counter());
+    }
+
+    @Test
+    void routesBeyondTheCapAreFoldedIntoOther() {
+        HttpRouteMetrics metrics = new HttpRouteMetrics(registry, 60_000, 2, 60_000, 3);
+
+        for (int i = 0; i < 50; i++) {
+            metrics.end(metrics.begin(), "GET", "/raw/" + i, 200);
+        }
+
+        assertEquals(4, registry.find(HttpRouteMetrics.ROUTE_REQUESTS).counters().size());
+        assertEquals(47.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("uri", HttpRouteMetrics.OTHER).counter().count());
+        // already-known routes keep their own series after the cap is reached
+        metrics.end(metrics.begin(), "GET", "/raw/0", 200);
+        assertEquals(2.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS).tags("uri", "/raw/0").counter().count());
+    }
+}
@@ -0,0 +1,75 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstrumentationAutoConfigurationTest {
+
+    private final WebApplicationContextRunner servlet = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(InstrumentationAutoConfiguration.class))
+            .withUserConfiguration(Infrastructure.class);
+
+    @Test
+    void servletAppGetsFilterDataSourceWrapperAndJvmMetrics() {
+        servlet.run(context -> {
+            assertThat(context).hasSingleBean(HttpRouteMetrics.class);
+            assertThat(context).hasSingleBean(FilterRegistrationBean.class);
+            assertThat(context).doesNotHaveBean(ReactiveRouteMetricsFilter.class);
+            assertThat(context).hasSingleBean(JvmAllocationMetrics.class);
+            assertThat(context.getBean(DataSource.class)).isInstanceOf(InstrumentedDataSource.class);
+            assertThat(context.getBean(MeterRegistry.class).find(HttpRouteMetrics.INFLIGHT).gauge()).isNotNull();
+        });
+    }
+
+    @Test
+    void reactiveAppGetsWebFilter() {
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(InstrumentationAutoConfiguration.class))
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withBean(RouteTemplateResolver.class, () -> exchange -> "route")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(ReactiveRouteMetricsFilter.class);
+                    assertThat(context).doesNotHaveBean(FilterRegistrationBean.class);
+                });
+    }
+
+    @Test
+    void canBeSwitchedOff() {
+        servlet.withPropertyValues("sparkage.instrumentation.enabled=false").run(context -> {
+            assertThat(context).doesNotHaveBean(HttpRouteMetrics.class);
+            assertThat(context.getBean(DataSource.class)).isNotInstanceOf(InstrumentedDataSource.class);
+        });
+        servlet.withPropertyValues("sparkage.instrumentation.jdbc.enabled=false").run(context -> {
+            assertThat(context).hasSingleBean(HttpRouteMetrics.class);
+            assertThat(context.getBean(DataSource.class)).isNotInstanceOf(InstrumentedDataSource.class);
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class Infrastructure {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        DataSource dataSource() {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:autoconfig");
+            return h2;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedDataSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DataSourceMetrics metrics;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:instrumented;DB_CLOSE_DELAY=-1");
+        metrics = new DataSourceMetrics(registry, "dataSource", 60_000, 2, 60_000);
+        jdbc = new JdbcTemplate(new InstrumentedDataSource(h2, metrics));
+        jdbc.execute("DROP TABLE IF EXISTS items");
+        jdbc.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+    }
+
+    @Test
+    void timesStatementsByOperation() {
+        jdbc.update("INSERT INTO items (id, name) VALUES (?, ?)", 1, "a");
+        jdbc.batchUpdate("INSERT INTO items (id, name) VALUES (?, ?)", List.of(new Object[]{2, "b"}, new Object[]{3, "c"}));
+        jdbc.update("update items SET name = 'z' WHERE id = 1");
+        assertEquals(3, jdbc.queryForObject("  SELECT COUNT(*) FROM items", Integer.class));
+        jdbc.update("DELETE FROM items WHERE id = ?", 3);
+
+        assertEquals(2, metrics.query(DataSourceMetrics.Operation.INSERT).count());
+        assertEquals(1, metrics.query(DataSourceMetrics.Operation.UPDATE).count());
+        assertEquals(1, metrics.query(DataSourceMetrics.Operation.SELECT).count());
+        assertEquals(1, metrics.query(DataSourceMetrics.Operation.DELETE).count());
+        assertEquals(2, metrics.query(DataSourceMetrics.Operation.OTHER).count()); // DDL in setUp
+        assertTrue(metrics.acquire().count() >= 7);
+        assertNotNull(registry.find(DataSourceMetrics.QUERY_LATENCY)
+                .tags("datasource", "dataSource", "operation", "insert", "quantile", "0.99").gauge());
+    }
+
+    @Test
+    void countsFailedStatements() {
+        assertThrows(BadSqlGrammarException.class, () -> jdbc.queryForList("SELECT nope FROM items"));
+
+        assertEquals(1.0, registry.get(DataSourceMetrics.QUERY_ERRORS).tags("operation", "select").counter().count());
+        assertEquals(1, metrics.query(DataSourceMetrics.Operation.SELECT).count());
+    }
+
+    @Test
+    void classifiesLeadingKeyword() {
+        assertEquals(DataSourceMetrics.Operation.SELECT, DataSourceMetrics.Operation.of("\n (select 1)"));
+        assertEquals(DataSourceMetrics.Operation.SELECT, DataSourceMetrics.Operation.of("WITH x AS (SELECT 1) SELECT * FROM x"));
+        assertEquals(DataSourceMetrics.Operation.OTHER, DataSourceMetrics.Operation.of("ALTER SEQUENCE s RESTART WITH 1"));
+        assertEquals(DataSourceMetrics.Operation.OTHER, DataSourceMetrics.Operation.of(null));
+    }
+
+    @Test
+    void registersNativeImageHintsForTheProxies() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new InstrumentedDataSource.Hints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(Connection.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(PreparedStatement.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(Connection.class.getMethod("prepareStatement", String.class)).invoke().test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(Statement.class.getMethod("executeQuery", String.class)).invoke().test(hints));
+    }
+}
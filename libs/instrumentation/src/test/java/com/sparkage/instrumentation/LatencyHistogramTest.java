@@ -0,0 +1,68 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void quantilesComeFromTheLastCompletedInterval() {
+        LatencyHistogram histogram = new LatencyHistogram(60_000, 2, 0);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordNanos(i * 1_000_000L); // 1..1000 ms
+        }
+
+        Histogram snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getTotalCount());
+        assertEquals(500.0, snapshot.getValueAtPercentile(50) / 1000.0, 5.0);
+        assertEquals(990.0, snapshot.getValueAtPercentile(99) / 1000.0, 10.0);
+        assertEquals(1000, histogram.count());
+
+        // nothing recorded since, so the next interval is empty but the lifetime count is kept
+        assertEquals(0, histogram.snapshot().getTotalCount());
+        assertEquals(1000, histogram.count());
+    }
+
+    @Test
+    void valuesAboveTheRangeAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000, 2, 0);
+
+        histogram.recordNanos(3_600_000_000_000L); // one hour
+        histogram.recordNanos(-5);
+
+        Histogram snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getTotalCount());
+        assertEquals(1_000.0, snapshot.getMaxValue() / 1000.0, 10.0);
+        assertEquals(0, snapshot.getMinValue());
+    }
+
+    @Test
+    void footprintDoesNotGrowWithTheNumberOfSamples() {
+        LatencyHistogram histogram = new LatencyHistogram(60_000, 2, 0);
+        int before = histogram.footprintBytes();
+        for (int i = 0; i < 100_000; i++) {
+            histogram.recordNanos((i % 60_000) * 1_000_000L);
+        }
+        histogram.snapshot();
+
+        assertEquals(before, histogram.footprintBytes());
+        assertTrue(before < 256 * 1024, "footprint " + before);
+    }
+
+    @Test
+    void registersOneGaugePerQuantilePlusMaxAndCount() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LatencyHistogram histogram = new LatencyHistogram(60_000, 2, 60_000)
+                .register(registry, "test.latency", "test", Tags.of("k", "v"));
+        histogram.recordNanos(1_000_000);
+
+        assertEquals(LatencyHistogram.QUANTILES.length, registry.find("test.latency").gauges().size());
+        assertNotNull(registry.find("test.latency").tag("quantile", "0.99").tag("k", "v").gauge());
+        assertNotNull(registry.find("test.latency.max").gauge());
+        assertEquals(1.0, registry.get("test.latency.count").gauge().value());
+    }
+}
@@ -0,0 +1,52 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveRouteMetricsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HttpRouteMetrics metrics = new HttpRouteMetrics(registry, 60_000, 2, 60_000, 16);
+
+    @Test
+    void usesTheResolverBeforeTheHandlerPattern() {
+        ReactiveRouteMetricsFilter filter = new ReactiveRouteMetricsFilter(metrics,
+                exchange -> exchange.getRequest().getPath().value().startsWith("/api/") ? "route:product-service" : null);
+
+        MockServerWebExchange proxied = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products/7"));
+        filter.filter(proxied, ex -> Mono.empty()).block();
+
+        MockServerWebExchange local = MockServerWebExchange.from(MockServerHttpRequest.get("/fallback/product"));
+        filter.filter(local, ex -> {
+            ex.getAttributes().put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                    PathPatternParser.defaultInstance.parse("/fallback/{service}"));
+            ex.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return Mono.empty();
+        }).block();
+
+        assertEquals(1.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("uri", "route:product-service", "status", "200").counter().count());
+        assertEquals(1.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("uri", "/fallback/{service}", "status", "503").counter().count());
+        assertEquals(0, metrics.inflight());
+    }
+
+    @Test
+    void cancelledExchangesLeaveNoInflightRequest() {
+        ReactiveRouteMetricsFilter filter = new ReactiveRouteMetricsFilter(metrics, null);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/slow"));
+
+        filter.filter(exchange, ex -> Mono.never()).subscribe().dispose();
+
+        assertEquals(0, metrics.inflight());
+        assertNotNull(registry.find(HttpRouteMetrics.ROUTE_REQUESTS).tags("uri", HttpRouteMetrics.UNKNOWN).counter());
+    }
+}
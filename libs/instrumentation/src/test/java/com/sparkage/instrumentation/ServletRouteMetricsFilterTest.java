@@ -0,0 +1,75 @@
+package com.sparkage.instrumentation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServletRouteMetricsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HttpRouteMetrics metrics = new HttpRouteMetrics(registry, 60_000, 2, 60_000, 16);
+    private final ServletRouteMetricsFilter filter = new ServletRouteMetricsFilter(metrics);
+
+    @Test
+    void tagsRequestsWithTheMatchedTemplate() throws Exception {
+        for (int id = 1; id <= 3; id++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/carts/" + id);
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/carts/{userId}");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+        }
+
+        assertEquals(3.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("method", "GET", "uri", "/carts/{userId}", "status", "200").counter().count());
+        assertEquals(1, registry.find(HttpRouteMetrics.ROUTE_REQUESTS).counters().size());
+        assertEquals(0, metrics.inflight());
+    }
+
+    @Test
+    void exceptionsEscapingTheChainAreCountedAsServerErrors() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/payments");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/payments");
+        MockFilterChain failing = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+            @Override
+            protected void service(jakarta.servlet.http.HttpServletRequest req, jakarta.servlet.http.HttpServletResponse resp)
+                    throws ServletException {
+                throw new ServletException("boom");
+            }
+        });
+
+        assertThrows(ServletException.class, () -> filter.doFilter(request, new MockHttpServletResponse(), failing));
+
+        assertEquals(1.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS)
+                .tags("uri", "/payments", "status", "500").counter().count());
+        assertEquals(0, metrics.inflight());
+    }
+
+    @Test
+    void asyncRequestsAreRecordedOnCompletion() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/stream");
+        request.setAsyncSupported(true);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/orders/stream");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain startsAsync = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+            @Override
+            protected void service(jakarta.servlet.http.HttpServletRequest req, jakarta.servlet.http.HttpServletResponse resp) {
+                req.startAsync();
+            }
+        });
+
+        filter.doFilter(request, response, startsAsync);
+        assertEquals(1, metrics.inflight());
+        assertNull(registry.find(HttpRouteMetrics.ROUTE_REQUESTS).counter());
+
+        request.getAsyncContext().complete();
+
+        assertEquals(0, metrics.inflight());
+        assertEquals(1.0, registry.get(HttpRouteMetrics.ROUTE_REQUESTS).tags("uri", "/orders/stream").counter().count());
+    }
+}
@@ -0,0 +1,114 @@
+package com.sparkage.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The client against an in-process server with a long tail: every request takes {@code FAST_MS},
+ * except {@code TAIL_RATIO} of them, which take {@code TAIL_MS} (a GC pause, a cold cache, a busy
+ * instance). Each request draws independently, so a hedge is very likely to be fast.
+ * <pre>
+ *   mvn -Pjmh verify -DskipTests
+ * </pre>
+ * Sample mode reports percentiles: without hedging p99 sits at the tail latency; with hedging at
+ * p95 it should drop to a fraction of it, for about {@code TAIL_RATIO} extra requests (on one CPU,
+ * 43 ms to 16 ms for {@code single} over HTTP/1.1).
+ * {@code burst} sends 32 requests at once, which is where the pool size (HTTP/1.1) or stream
+ * multiplexing (h2c) shows.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlowServerBenchmark {
+
+    private static final long FAST_MS = 1;
+    private static final long TAIL_MS = 40;
+    private static final double TAIL_RATIO = 0.03;
+    private static final byte[] BODY = "{\"id\":1,\"name\":\"hammer\",\"price\":10.50}".getBytes();
+
+    public static class Product {
+        public Long id;
+        public String name;
+        public Double price;
+    }
+
+    @Param({"off", "p95"})
+    public String hedging;
+
+    @Param({"http11", "h2c"})
+    public String protocol;
+
+    private DisposableServer server;
+    private ServiceClient client;
+    private ServiceRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean h2c = "h2c".equals(protocol);
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .protocol(h2c ? new HttpProtocol[]{HttpProtocol.HTTP11, HttpProtocol.H2C} : new HttpProtocol[]{HttpProtocol.HTTP11})
+                .handle((req, res) -> {
+                    long delay = ThreadLocalRandom.current().nextDouble() < TAIL_RATIO ? TAIL_MS : FAST_MS;
+                    return res.header("Content-Type", "application/json")
+                            .sendByteArray(Mono.just(BODY).delayElement(Duration.ofMillis(delay)));
+                })
+                .bindNow();
+        client = ServiceClient.builder("product", URI.create("http://127.0.0.1:" + server.port()))
+                .meterRegistry(new SimpleMeterRegistry())
+                .maxConnections(16)
+                .http2(h2c)
+                .timeout(Duration.ofSeconds(2))
+                .hedging("p95".equals(hedging)
+                        ? HedgePolicy.atPercentile(0.95).delayBounds(Duration.ofMillis(1), Duration.ofMillis(100))
+                        : HedgePolicy.disabled())
+                .build();
+        request = ServiceRequest.get("products.get", "/products/1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.disposeNow();
+    }
+
+    @Benchmark
+    public Product single() {
+        return client.send(request, Product.class).block();
+    }
+
+    @Benchmark
+    public List<Product> burst() {
+        return Flux.range(0, 32)
+                .flatMap(i -> client.send(request, Product.class), 32)
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,85 @@
+package com.sparkage.client;
+
+import java.time.Duration;
+
+/**
+ * When to send a second copy of an idempotent request that is taking longer than usual.
+ * <p>
+ * The hedge goes out once the first attempt has been outstanding for the route's recent
+ * {@code percentile} latency (clamped to {@code minDelay}..{@code maxDelay}); whichever attempt
+ * answers first wins and the other is cancelled. Until a route has {@code minSamples} latencies
+ * {@code initialDelay} is used. Hedges are capped at {@code budgetPercent} of the hedgeable
+ * requests, so a downstream that is slow across the board sees at most that much extra load
+ * instead of double.
+ */
+public final class HedgePolicy {
+
+    private static final HedgePolicy DISABLED = new HedgePolicy(false, 0.95, Duration.ofMillis(50),
+            Duration.ofMillis(5), Duration.ofSeconds(1), 20, 0);
+
+    private final boolean enabled;
+    private final double percentile;
+    private final Duration initialDelay;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final int minSamples;
+    private final double budgetPercent;
+
+    private HedgePolicy(boolean enabled, double percentile, Duration initialDelay, Duration minDelay,
+                        Duration maxDelay, int minSamples, double budgetPercent) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1): " + percentile);
+        }
+        if (minDelay.compareTo(maxDelay) > 0) {
+            throw new IllegalArgumentException("minDelay " + minDelay + " exceeds maxDelay " + maxDelay);
+        }
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.initialDelay = initialDelay;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.minSamples = minSamples;
+        this.budgetPercent = budgetPercent;
+    }
+
+    public static HedgePolicy disabled() {
+        return DISABLED;
+    }
+
+    /** Hedge after the route's {@code percentile} (e.g. 0.95) latency, with a 10% budget. */
+    public static HedgePolicy atPercentile(double percentile) {
+        return new HedgePolicy(true, percentile, DISABLED.initialDelay, DISABLED.minDelay, DISABLED.maxDelay,
+                DISABLED.minSamples, 10);
+    }
+
+    public HedgePolicy initialDelay(Duration initialDelay) {
+        return new HedgePolicy(enabled, percentile, initialDelay, minDelay, maxDelay, minSamples, budgetPercent);
+    }
+
+    public HedgePolicy delayBounds(Duration minDelay, Duration maxDelay) {
+        return new HedgePolicy(enabled, percentile, initialDelay, minDelay, maxDelay, minSamples, budgetPercent);
+    }
+
+    public HedgePolicy minSamples(int minSamples) {
+        return new HedgePolicy(enabled, percentile, initialDelay, minDelay, maxDelay, minSamples, budgetPercent);
+    }
+
+    public HedgePolicy budgetPercent(double budgetPercent) {
+        return new HedgePolicy(enabled, percentile, initialDelay, minDelay, maxDelay, minSamples, budgetPercent);
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public double getPercentile() { return percentile; }
+    public Duration getInitialDelay() { return initialDelay; }
+    public Duration getMinDelay() { return minDelay; }
+    public Duration getMaxDelay() { return maxDelay; }
+    public int getMinSamples() { return minSamples; }
+    public double getBudgetPercent() { return budgetPercent; }
+
+    @Override
+    public String toString() {
+        return enabled
+                ? "hedge at p" + (percentile * 100) + " [" + minDelay.toMillis() + ".." + maxDelay.toMillis() + "ms], budget " + budgetPercent + "%"
+                : "no hedging";
+    }
+}
@@ -0,0 +1,61 @@
+package com.sparkage.client;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recent latency of one route, reduced to the single number hedging needs: the delay after which
+ * an attempt counts as slow.
+ * <p>
+ * Attempts are recorded into an HdrHistogram {@link Recorder} (wait-free, fixed memory). The delay
+ * is recomputed lazily, at most once per {@code refreshNanos}, from everything recorded since the
+ * last recomputation that had at least {@code minSamples} values; a quiet route keeps its previous
+ * delay rather than deriving one from a handful of requests.
+ */
+final class RouteLatency {
+
+    private static final long MAX_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final HedgePolicy policy;
+    private final long refreshNanos;
+    private final Recorder recorder = new Recorder(MAX_MICROS, 2);
+    private final Histogram window = new Histogram(MAX_MICROS, 2);
+    private Histogram interval;
+    private volatile long delayNanos;
+    private volatile long lastRefreshNanos;
+
+    RouteLatency(HedgePolicy policy, long refreshNanos) {
+        this.policy = policy;
+        this.refreshNanos = refreshNanos;
+        this.delayNanos = policy.getInitialDelay().toNanos();
+        this.lastRefreshNanos = System.nanoTime();
+    }
+
+    void record(long nanos) {
+        long micros = Math.max(0, Math.min(nanos / 1_000, MAX_MICROS));
+        recorder.recordValue(micros);
+    }
+
+    /** How long the first attempt may take before a hedge is sent. */
+    long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        if (now - lastRefreshNanos >= refreshNanos) {
+            refresh(now);
+        }
+        return delayNanos;
+    }
+
+    synchronized void refresh(long now) {
+        lastRefreshNanos = now;
+        interval = recorder.getIntervalHistogram(interval);
+        window.add(interval);
+        if (window.getTotalCount() < policy.getMinSamples()) {
+            return;
+        }
+        long nanos = TimeUnit.MICROSECONDS.toNanos(window.getValueAtPercentile(policy.getPercentile() * 100.0));
+        delayNanos = Math.max(policy.getMinDelay().toNanos(), Math.min(nanos, policy.getMaxDelay().toNanos()));
+        window.reset();
+    }
+}
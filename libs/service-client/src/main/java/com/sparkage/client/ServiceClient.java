@@ -0,0 +1,369 @@
+package com.sparkage.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking JSON client for one downstream service, on Reactor Netty.
+ * <ul>
+ *   <li>Connections come from a pool of the client's own (LIFO, so idle connections are the ones
+ *   that age out), bounded in size, pending acquires, idle time and lifetime. With
+ *   {@code http2(true)} the client negotiates HTTP/2 (h2c upgrade, or ALPN for https) and
+ *   multiplexes requests over those connections, falling back to HTTP/1.1.</li>
+ *   <li>Every logical request has one deadline covering pool acquire, all attempts and the body:
+ *   {@code routeTimeout(route, ...)} or the client's default.</li>
+ *   <li>Idempotent requests are hedged as described by {@link HedgePolicy}. Any answer, including a
+ *   4xx or 5xx, ends the request; only slowness triggers the hedge.</li>
+ * </ul>
+ * Failures, non-2xx statuses and timeouts surface as {@link ServiceClientException}.
+ * <p>
+ * Metrics: {@code service.client.requests} (timer: service, route, method, status, outcome) for
+ * logical requests, {@code service.client.hedges} (counter: service, route, result = sent, won or
+ * over_budget), and Reactor Netty's {@code reactor.netty.connection.provider.*} pool gauges for
+ * pool {@code service-client.<name>}.
+ */
+public final class ServiceClient implements AutoCloseable {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final long LATENCY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String name;
+    private final HttpClient http;
+    private final ConnectionProvider pool;
+    private final ObjectMapper mapper;
+    private final MeterRegistry registry;
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> routeTimeouts;
+    private final HedgePolicy hedging;
+    private final Map<String, RouteLatency> latencies = new ConcurrentHashMap<>();
+    private final LongAdder hedgeableRequests = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+
+    private ServiceClient(Builder builder) {
+        this.name = builder.name;
+        this.mapper = builder.mapper;
+        this.registry = builder.registry;
+        this.defaultTimeout = builder.timeout;
+        this.routeTimeouts = Map.copyOf(builder.routeTimeouts);
+        this.hedging = builder.hedging;
+        this.pool = ConnectionProvider.builder("service-client." + name)
+                .maxConnections(builder.maxConnections)
+                .pendingAcquireMaxCount(builder.pendingAcquireMaxCount)
+                .pendingAcquireTimeout(builder.pendingAcquireTimeout)
+                .maxIdleTime(builder.maxIdleTime)
+                .maxLifeTime(builder.maxLifeTime)
+                .evictInBackground(builder.maxIdleTime)
+                .lifo()
+                .metrics(true)
+                .build();
+        boolean secure = "https".equalsIgnoreCase(builder.baseUri.getScheme());
+        HttpClient client = HttpClient.create(pool)
+                .baseUrl(builder.baseUri.toString())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) builder.connectTimeout.toMillis())
+                .headers(h -> h.set(HttpHeaderNames.ACCEPT, "application/json"));
+        if (builder.http2) {
+            client = client.protocol(secure ? HttpProtocol.H2 : HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        this.http = secure ? client.secure() : client;
+    }
+
+    public static Builder builder(String name, URI baseUri) {
+        return new Builder(name, baseUri);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sends the request and decodes a 2xx body as {@code type}; {@code Void.class} ignores the body
+     * and completes empty. Nothing is sent until the result is subscribed to.
+     */
+    public <T> Mono<T> send(ServiceRequest request, Class<T> type) {
+        String call = request.getMethod() + " " + request.getPath();
+        return exchange(request, call).flatMap(reply -> {
+            if (reply.status / 100 != 2) {
+                return Mono.error(new ServiceClientException(name, request.getRoute(), reply.status, false,
+                        call + " returned " + reply.status));
+            }
+            if (type == Void.class || reply.body.length == 0) {
+                return Mono.empty();
+            }
+            try {
+                return Mono.just(mapper.readValue(reply.body, type));
+            } catch (IOException e) {
+                return Mono.error(new ServiceClientException(name, request.getRoute(), 0, false,
+                        call + " returned an unreadable body: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * {@link #send} for callers built on CompletableFuture. The future completes on a
+     * bounded-elastic thread rather than the Netty event loop, so its continuations may block
+     * (JDBC, for one).
+     */
+    public <T> CompletableFuture<T> sendAsync(ServiceRequest request, Class<T> type) {
+        return send(request, type).publishOn(Schedulers.boundedElastic()).toFuture();
+    }
+
+    @Override
+    public void close() {
+        pool.dispose();
+    }
+
+    private static final class Reply {
+        final int status;
+        final byte[] body;
+        final boolean hedge;
+        final Throwable failure;
+
+        Reply(int status, byte[] body, boolean hedge, Throwable failure) {
+            this.status = status;
+            this.body = body;
+            this.hedge = hedge;
+            this.failure = failure;
+        }
+    }
+
+    private Mono<Reply> exchange(ServiceRequest request, String call) {
+        Duration timeout = routeTimeouts.getOrDefault(request.getRoute(), defaultTimeout);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            byte[] body = encode(request);
+            return hedged(request, body)
+                    .flatMap(reply -> reply.failure != null ? Mono.error(reply.failure) : Mono.just(reply))
+                    .timeout(timeout)
+                    .onErrorMap(e -> !(e instanceof ServiceClientException), e -> {
+                        Throwable cause = firstFailure(e);
+                        return cause instanceof TimeoutException
+                                ? new ServiceClientException(name, request.getRoute(), 0, true, call + " timed out after " + timeout.toMillis() + "ms")
+                                : new ServiceClientException(name, request.getRoute(), call + " failed: " + cause, cause);
+                    })
+                    .doOnSuccess(reply -> {
+                        record(request, start, Integer.toString(reply.status), outcome(reply.status));
+                        if (reply.hedge) {
+                            registry.counter("service.client.hedges", hedgeTags(request, "won")).increment();
+                        }
+                    })
+                    .doOnError(e -> record(request, start, "NONE", ((ServiceClientException) e).isTimeout() ? "TIMEOUT" : "UNKNOWN"));
+        });
+    }
+
+    private Mono<Reply> hedged(ServiceRequest request, byte[] body) {
+        RouteLatency latency = latencies.computeIfAbsent(request.getRoute(), r -> new RouteLatency(hedging, LATENCY_REFRESH_NANOS));
+        Mono<Reply> primary = attempt(request, body, latency, false);
+        if (!hedging.isEnabled() || !request.isHedgeable()) {
+            return primary;
+        }
+        hedgeableRequests.increment();
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+        // A primary that fails before the hedge went out ends the request: hedging is for slowness,
+        // and a refused connection should not turn into a delayed retry. Once both are out, the
+        // request fails only if both do.
+        Mono<Reply> guardedPrimary = primary.onErrorResume(e -> hedgeSent.get()
+                ? Mono.error(e)
+                : Mono.just(new Reply(0, EMPTY, false, e)));
+        Mono<Reply> hedge = Mono.delay(Duration.ofNanos(latency.hedgeDelayNanos()))
+                .filter(tick -> {
+                    if (hedgesSent.sum() * 100.0 >= hedgeableRequests.sum() * hedging.getBudgetPercent()) {
+                        registry.counter("service.client.hedges", hedgeTags(request, "over_budget")).increment();
+                        return false;
+                    }
+                    hedgeSent.set(true);
+                    hedgesSent.increment();
+                    registry.counter("service.client.hedges", hedgeTags(request, "sent")).increment();
+                    return true;
+                })
+                .flatMap(tick -> attempt(request, body, latency, true));
+        // The loser is cancelled, which closes its connection if it was still waiting for an answer
+        return Mono.firstWithValue(guardedPrimary, hedge);
+    }
+
+    private Mono<Reply> attempt(ServiceRequest request, byte[] body, RouteLatency latency, boolean hedge) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            HttpClient.RequestSender sender = http
+                    .headers(h -> {
+                        if (body != null) {
+                            h.set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                        }
+                        request.getHeaders().forEach(h::set);
+                    })
+                    .request(HttpMethod.valueOf(request.getMethod()))
+                    .uri(request.getPath());
+            HttpClient.ResponseReceiver<?> receiver = body == null
+                    ? sender
+                    : sender.send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)));
+            return receiver.responseSingle((response, content) -> content.asByteArray()
+                            .defaultIfEmpty(EMPTY)
+                            .map(bytes -> new Reply(response.status().code(), bytes, hedge, null)))
+                    .doOnSuccess(reply -> latency.record(System.nanoTime() - start));
+        });
+    }
+
+    private byte[] encode(ServiceRequest request) {
+        Object body = request.getBody();
+        if (body == null || body instanceof byte[]) {
+            return (byte[]) body;
+        }
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("cannot serialize request body", e);
+        }
+    }
+
+    /** When both attempts fail, firstWithValue reports "no source had a value"; callers need the reason. */
+    private static Throwable firstFailure(Throwable e) {
+        Throwable failure = e instanceof NoSuchElementException && e.getCause() != null ? e.getCause() : e;
+        List<Throwable> failures = Exceptions.unwrapMultiple(failure);
+        return failures.isEmpty() ? failure : failures.get(0);
+    }
+
+    private void record(ServiceRequest request, long startNanos, String status, String outcome) {
+        Timer.builder("service.client.requests")
+                .description("Calls to other services; a hedged call is timed once, from the first attempt to the answer used")
+                .tags("service", name, "route", request.getRoute(), "method", request.getMethod(),
+                        "status", status, "outcome", outcome)
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Tags hedgeTags(ServiceRequest request, String result) {
+        return Tags.of("service", name, "route", request.getRoute(), "result", result);
+    }
+
+    private static String outcome(int status) {
+        switch (status / 100) {
+            case 1: return "INFORMATIONAL";
+            case 2: return "SUCCESS";
+            case 3: return "REDIRECTION";
+            case 4: return "CLIENT_ERROR";
+            case 5: return "SERVER_ERROR";
+            default: return "UNKNOWN";
+        }
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final URI baseUri;
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private boolean http2;
+        private Duration timeout = Duration.ofSeconds(5);
+        private final Map<String, Duration> routeTimeouts = new HashMap<>();
+        private HedgePolicy hedging = HedgePolicy.disabled();
+        private ObjectMapper mapper;
+        private MeterRegistry registry = Metrics.globalRegistry;
+
+        private Builder(String name, URI baseUri) {
+            this.name = name;
+            this.baseUri = baseUri;
+        }
+
+        /** Connections per host; with HTTP/2 each one carries many concurrent streams. */
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /** Requests that may wait for a connection; beyond that they fail at once. */
+        public Builder pendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+            return this;
+        }
+
+        public Builder pendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+            return this;
+        }
+
+        /** Also the interval of the background eviction sweep. */
+        public Builder maxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        /** Bounds how long a connection stays pinned to one instance behind a load balancer. */
+        public Builder maxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /** Deadline of routes without a {@link #routeTimeout}. */
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Builder routeTimeout(String route, Duration timeout) {
+            this.routeTimeouts.put(route, timeout);
+            return this;
+        }
+
+        public Builder hedging(HedgePolicy hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper mapper) {
+            this.mapper = mapper;
+            return this;
+        }
+
+        public Builder meterRegistry(MeterRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        public ServiceClient build() {
+            if (mapper == null) {
+                mapper = new ObjectMapper().findAndRegisterModules();
+            }
+            return new ServiceClient(this);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.sparkage.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+/**
+ * Provides {@link ServiceClients} with defaults from {@code sparkage.service-client.*}. Each service
+ * still chooses base URIs and per-route timeouts for the clients it creates. Switched off with
+ * {@code sparkage.service-client.enabled=false}.
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"})
+@ConditionalOnClass(HttpClient.class)
+@ConditionalOnProperty(name = "sparkage.service-client.enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ServiceClients serviceClients(ObjectProvider<ObjectMapper> mapper,
+                                         ObjectProvider<MeterRegistry> registry,
+                                         @Value("${sparkage.service-client.max-connections:100}") int maxConnections,
+                                         @Value("${sparkage.service-client.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+                                         @Value("${sparkage.service-client.pending-acquire-timeout-ms:2000}") long pendingAcquireTimeoutMillis,
+                                         @Value("${sparkage.service-client.max-idle-time-ms:30000}") long maxIdleTimeMillis,
+                                         @Value("${sparkage.service-client.max-life-time-ms:300000}") long maxLifeTimeMillis,
+                                         @Value("${sparkage.service-client.connect-timeout-ms:1000}") long connectTimeoutMillis,
+                                         @Value("${sparkage.service-client.http2:false}") boolean http2,
+                                         @Value("${sparkage.service-client.timeout-ms:5000}") long timeoutMillis,
+                                         @Value("${sparkage.service-client.hedging.enabled:true}") boolean hedgingEnabled,
+                                         @Value("${sparkage.service-client.hedging.percentile:0.95}") double hedgePercentile,
+                                         @Value("${sparkage.service-client.hedging.initial-delay-ms:50}") long hedgeInitialDelayMillis,
+                                         @Value("${sparkage.service-client.hedging.min-delay-ms:5}") long hedgeMinDelayMillis,
+                                         @Value("${sparkage.service-client.hedging.max-delay-ms:1000}") long hedgeMaxDelayMillis,
+                                         @Value("${sparkage.service-client.hedging.budget-percent:10}") double hedgeBudgetPercent) {
+        HedgePolicy hedging = hedgingEnabled
+                ? HedgePolicy.atPercentile(hedgePercentile)
+                        .initialDelay(Duration.ofMillis(hedgeInitialDelayMillis))
+                        .delayBounds(Duration.ofMillis(hedgeMinDelayMillis), Duration.ofMillis(hedgeMaxDelayMillis))
+                        .budgetPercent(hedgeBudgetPercent)
+                : HedgePolicy.disabled();
+        ObjectMapper objectMapper = mapper.getIfAvailable();
+        MeterRegistry meterRegistry = registry.getIfAvailable(() -> Metrics.globalRegistry);
+        return new ServiceClients(builder -> builder
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMillis))
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .http2(http2)
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .hedging(hedging)
+                .objectMapper(objectMapper)
+                .meterRegistry(meterRegistry));
+    }
+}
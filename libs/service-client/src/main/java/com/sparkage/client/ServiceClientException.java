@@ -0,0 +1,35 @@
+package com.sparkage.client;
+
+/**
+ * A call to another service did not produce a usable 2xx answer. {@code status} is the HTTP status
+ * the service answered with, or 0 when there was no answer (timeout, connection failure, unreadable
+ * body).
+ */
+public class ServiceClientException extends RuntimeException {
+
+    private final String service;
+    private final String route;
+    private final int status;
+    private final boolean timeout;
+
+    public ServiceClientException(String service, String route, int status, boolean timeout, String message) {
+        super(message);
+        this.service = service;
+        this.route = route;
+        this.status = status;
+        this.timeout = timeout;
+    }
+
+    public ServiceClientException(String service, String route, String message, Throwable cause) {
+        super(message, cause);
+        this.service = service;
+        this.route = route;
+        this.status = 0;
+        this.timeout = false;
+    }
+
+    public String getService() { return service; }
+    public String getRoute() { return route; }
+    public int getStatus() { return status; }
+    public boolean isTimeout() { return timeout; }
+}
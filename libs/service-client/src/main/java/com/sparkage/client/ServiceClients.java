@@ -0,0 +1,43 @@
+package com.sparkage.client;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Creates {@link ServiceClient}s that start from the application-wide defaults (pool sizes,
+ * timeouts, hedging, the application's ObjectMapper and MeterRegistry) and closes their connection
+ * pools when the context shuts down.
+ */
+public class ServiceClients implements DisposableBean {
+
+    private final Consumer<ServiceClient.Builder> defaults;
+    private final List<ServiceClient> clients = new CopyOnWriteArrayList<>();
+
+    public ServiceClients(Consumer<ServiceClient.Builder> defaults) {
+        this.defaults = defaults;
+    }
+
+    public ServiceClient create(String name, URI baseUri) {
+        return create(name, baseUri, builder -> { });
+    }
+
+    /** {@code customizer} runs after the defaults, so it overrides them for this client only. */
+    public ServiceClient create(String name, URI baseUri, Consumer<ServiceClient.Builder> customizer) {
+        ServiceClient.Builder builder = ServiceClient.builder(name, baseUri);
+        defaults.accept(builder);
+        customizer.accept(builder);
+        ServiceClient client = builder.build();
+        clients.add(client);
+        return client;
+    }
+
+    @Override
+    public void destroy() {
+        clients.forEach(ServiceClient::close);
+        clients.clear();
+    }
+}
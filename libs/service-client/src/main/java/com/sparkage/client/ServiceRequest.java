@@ -0,0 +1,77 @@
+package com.sparkage.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One logical call: method, path relative to the client's base URI, optional JSON body and headers.
+ * {@code route} names the call for timeouts, latency tracking and metrics, so use a template such as
+ * {@code "products.get"} rather than the concrete path.
+ * <p>
+ * GET and HEAD requests are hedged when the client's {@link HedgePolicy} allows it; {@link #hedge}
+ * overrides that for requests that are known to be (or not to be) safe to send twice.
+ */
+public final class ServiceRequest {
+
+    private final String method;
+    private final String route;
+    private final String path;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private Object body;
+    private Boolean hedge;
+
+    private ServiceRequest(String method, String route, String path) {
+        this.method = method;
+        this.route = route;
+        this.path = path;
+    }
+
+    public static ServiceRequest get(String route, String path) {
+        return new ServiceRequest("GET", route, path);
+    }
+
+    public static ServiceRequest post(String route, String path) {
+        return new ServiceRequest("POST", route, path);
+    }
+
+    public static ServiceRequest put(String route, String path) {
+        return new ServiceRequest("PUT", route, path);
+    }
+
+    public static ServiceRequest delete(String route, String path) {
+        return new ServiceRequest("DELETE", route, path);
+    }
+
+    public static ServiceRequest of(String method, String route, String path) {
+        return new ServiceRequest(method, route, path);
+    }
+
+    /** Serialized as JSON, unless it is a {@code byte[]}, which is sent as is. */
+    public ServiceRequest body(Object body) {
+        this.body = body;
+        return this;
+    }
+
+    /** Ignored when {@code value} is null. */
+    public ServiceRequest header(String name, String value) {
+        if (value != null) {
+            headers.put(name, value);
+        }
+        return this;
+    }
+
+    public ServiceRequest hedge(boolean hedge) {
+        this.hedge = hedge;
+        return this;
+    }
+
+    public String getMethod() { return method; }
+    public String getRoute() { return route; }
+    public String getPath() { return path; }
+    public Map<String, String> getHeaders() { return headers; }
+    public Object getBody() { return body; }
+
+    boolean isHedgeable() {
+        return hedge != null ? hedge : "GET".equals(method) || "HEAD".equals(method);
+    }
+}
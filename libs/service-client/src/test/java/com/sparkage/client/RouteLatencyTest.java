@@ -0,0 +1,77 @@
+package com.sparkage.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteLatencyTest {
+
+    private static final HedgePolicy POLICY = HedgePolicy.atPercentile(0.9)
+            .initialDelay(Duration.ofMillis(50))
+            .delayBounds(Duration.ofMillis(5), Duration.ofMillis(500))
+            .minSamples(10);
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+
+    @Test
+    void usesInitialDelay_untilEnoughSamples() {
+        RouteLatency latency = new RouteLatency(POLICY, 0);
+        for (int i = 0; i < 9; i++) {
+            latency.record(millis(10));
+        }
+
+        assertThat(latency.hedgeDelayNanos()).isEqualTo(millis(50));
+    }
+
+    @Test
+    void followsThePercentile_onceEnoughSamples() {
+        RouteLatency latency = new RouteLatency(POLICY, 0);
+        for (int i = 1; i <= 100; i++) {
+            latency.record(millis(i));
+        }
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(latency.hedgeDelayNanos())).isBetween(89L, 91L);
+    }
+
+    @Test
+    void clampsToTheConfiguredBounds() {
+        RouteLatency fast = new RouteLatency(POLICY, 0);
+        RouteLatency slow = new RouteLatency(POLICY, 0);
+        for (int i = 0; i < 20; i++) {
+            fast.record(TimeUnit.MICROSECONDS.toNanos(200));
+            slow.record(millis(5_000));
+        }
+
+        assertThat(fast.hedgeDelayNanos()).isEqualTo(millis(5));
+        assertThat(slow.hedgeDelayNanos()).isEqualTo(millis(500));
+    }
+
+    @Test
+    void keepsSamplesAcrossRefreshes_untilThereAreEnough() {
+        RouteLatency latency = new RouteLatency(POLICY, 0);
+        for (int i = 0; i < 5; i++) {
+            latency.record(millis(20));
+        }
+        assertThat(latency.hedgeDelayNanos()).isEqualTo(millis(50));
+        for (int i = 0; i < 5; i++) {
+            latency.record(millis(20));
+        }
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(latency.hedgeDelayNanos())).isEqualTo(20L);
+    }
+
+    @Test
+    void waitsForTheRefreshInterval() {
+        RouteLatency latency = new RouteLatency(POLICY, TimeUnit.HOURS.toNanos(1));
+        for (int i = 0; i < 100; i++) {
+            latency.record(millis(20));
+        }
+
+        assertThat(latency.hedgeDelayNanos()).isEqualTo(millis(50));
+    }
+}
@@ -0,0 +1,34 @@
+package com.sparkage.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceClientAutoConfigurationTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ServiceClientAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    void providesServiceClients() {
+        runner.withPropertyValues("sparkage.service-client.max-connections=8", "sparkage.service-client.hedging.percentile=0.99")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(ServiceClients.class);
+                    ServiceClient client = context.getBean(ServiceClients.class).create("cart", URI.create("http://localhost:1"));
+                    assertThat(client.getName()).isEqualTo("cart");
+                });
+    }
+
+    @Test
+    void canBeSwitchedOff() {
+        runner.withPropertyValues("sparkage.service-client.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(ServiceClients.class));
+    }
+}
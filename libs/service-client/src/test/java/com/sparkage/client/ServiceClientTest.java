@@ -0,0 +1,224 @@
+package com.sparkage.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServiceClientTest {
+
+    public static class Item {
+        private Long id;
+        private String name;
+
+        public Item() { }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    private static final AtomicInteger slowFirstCalls = new AtomicInteger();
+    private static DisposableServer server;
+
+    private SimpleMeterRegistry registry;
+    private ServiceClient client;
+
+    @BeforeAll
+    static void startServer() {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .get("/items/1", (req, res) -> res.header("Content-Type", "application/json")
+                                .sendString(Mono.just("{\"id\":1,\"name\":\"hammer\"}")))
+                        .post("/echo", (req, res) -> res.header("Content-Type", "application/json")
+                                .sendString(req.receive().aggregate().asString()
+                                        .map(body -> "{\"id\":" + req.requestHeaders().get("X-Item-Id") + ",\"name\":" + body + "}")))
+                        .get("/missing", (req, res) -> res.status(404).send())
+                        .get("/slow", (req, res) -> res.sendString(Mono.just("{}").delayElement(Duration.ofSeconds(2))))
+                        // Only the first call of each pair is slow, like one stalled instance behind a balancer
+                        .route(req -> req.uri().startsWith("/slow-first"), (req, res) -> {
+                            Duration delay = slowFirstCalls.getAndIncrement() % 2 == 0 ? Duration.ofSeconds(1) : Duration.ZERO;
+                            return res.header("Content-Type", "application/json")
+                                    .sendString(Mono.just("{\"id\":2,\"name\":\"nails\"}").delayElement(delay));
+                        }))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+    }
+
+    @BeforeEach
+    void setup() {
+        slowFirstCalls.set(0);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void closeClient() {
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private ServiceClient.Builder builder() {
+        return ServiceClient.builder("catalog", URI.create("http://127.0.0.1:" + server.port()))
+                .meterRegistry(registry)
+                .timeout(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void get_decodesJsonBody() {
+        client = builder().build();
+
+        Item item = client.send(ServiceRequest.get("items.get", "/items/1"), Item.class).block();
+
+        assertThat(item.getId()).isEqualTo(1L);
+        assertThat(item.getName()).isEqualTo("hammer");
+    }
+
+    @Test
+    void post_sendsJsonBodyAndHeaders() {
+        client = builder().build();
+
+        Item item = client.send(ServiceRequest.post("echo", "/echo").header("X-Item-Id", "7").body("nails"), Item.class).block();
+
+        assertThat(item.getId()).isEqualTo(7L);
+        assertThat(item.getName()).isEqualTo("nails");
+    }
+
+    @Test
+    void voidType_ignoresBody() {
+        client = builder().build();
+
+        assertThat(client.send(ServiceRequest.get("items.get", "/items/1"), Void.class).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void sendAsync_completesOffTheEventLoop() throws Exception {
+        client = builder().build();
+
+        String thread = client.sendAsync(ServiceRequest.get("items.get", "/items/1"), Item.class)
+                .thenApply(item -> Thread.currentThread().getName())
+                .get(3, TimeUnit.SECONDS);
+
+        assertThat(thread).startsWith("boundedElastic");
+    }
+
+    @Test
+    void non2xx_failsWithStatus() {
+        client = builder().build();
+
+        assertThatThrownBy(() -> client.send(ServiceRequest.get("missing", "/missing"), Item.class).block())
+                .isInstanceOfSatisfying(ServiceClientException.class, e -> {
+                    assertThat(e.getService()).isEqualTo("catalog");
+                    assertThat(e.getStatus()).isEqualTo(404);
+                    assertThat(e.isTimeout()).isFalse();
+                });
+    }
+
+    @Test
+    void routeTimeout_overridesDefaultForThatRouteOnly() {
+        client = builder().routeTimeout("slow", Duration.ofMillis(200)).build();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.send(ServiceRequest.get("slow", "/slow"), Item.class).block())
+                .isInstanceOfSatisfying(ServiceClientException.class, e -> {
+                    assertThat(e.isTimeout()).isTrue();
+                    assertThat(e.getStatus()).isZero();
+                });
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(registry.get("service.client.requests").tags("route", "slow", "outcome", "TIMEOUT").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void connectionRefused_failsWithoutStatus_andIsNotHedged() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        client = ServiceClient.builder("gone", URI.create("http://127.0.0.1:" + closedPort))
+                .meterRegistry(registry)
+                .hedging(HedgePolicy.atPercentile(0.95).initialDelay(Duration.ofSeconds(2)).budgetPercent(100))
+                .build();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.send(ServiceRequest.get("items.get", "/items/1"), Item.class).block())
+                .isInstanceOfSatisfying(ServiceClientException.class, e -> {
+                    assertThat(e.getStatus()).isZero();
+                    assertThat(e.isTimeout()).isFalse();
+                });
+        // failed right away instead of waiting for the hedge delay
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(registry.find("service.client.hedges").counter()).isNull();
+    }
+
+    @Test
+    void slowGet_isHedged_andTheFasterAnswerWins() {
+        client = builder()
+                .hedging(HedgePolicy.atPercentile(0.95).initialDelay(Duration.ofMillis(50)).budgetPercent(100))
+                .build();
+
+        long start = System.nanoTime();
+        Item item = client.send(ServiceRequest.get("slow-first", "/slow-first"), Item.class).block();
+
+        assertThat(item.getName()).isEqualTo("nails");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(800));
+        assertThat(slowFirstCalls).hasValue(2);
+        assertThat(registry.get("service.client.hedges").tags("result", "sent").counter().count()).isEqualTo(1);
+        assertThat(registry.get("service.client.hedges").tags("result", "won").counter().count()).isEqualTo(1);
+        assertThat(registry.get("service.client.requests").tags("route", "slow-first", "status", "200").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void post_isNotHedged() {
+        client = builder()
+                .hedging(HedgePolicy.atPercentile(0.95).initialDelay(Duration.ofMillis(50)).budgetPercent(100))
+                .build();
+
+        client.send(ServiceRequest.post("slow-first", "/slow-first").body(Map.of("id", 2)), Item.class).block();
+
+        assertThat(slowFirstCalls).hasValue(1);
+        assertThat(registry.find("service.client.hedges").counter()).isNull();
+    }
+
+    @Test
+    void hedgesBeyondTheBudget_areNotSent() {
+        client = builder()
+                .hedging(HedgePolicy.atPercentile(0.95).initialDelay(Duration.ofMillis(50)).budgetPercent(0))
+                .build();
+
+        client.send(ServiceRequest.get("slow-first", "/slow-first"), Item.class).block();
+
+        assertThat(slowFirstCalls).hasValue(1);
+        assertThat(registry.get("service.client.hedges").tags("result", "over_budget").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void http2_fallsBackToHttp11_whenTheServerOnlySpeaksThat() {
+        client = builder().http2(true).build();
+
+        Item item = client.send(ServiceRequest.get("items.get", "/items/1"), Item.class).block();
+
+        assertThat(item.getName()).isEqualTo("hammer");
+    }
+}
@@ -0,0 +1,69 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Compare full-body GETs against ETag revalidations on the product endpoints.
+# Usage:
+#   scripts/bench_conditional_get.sh
+#   BASE_URL=http://localhost:9001 REQUESTS=500 PRODUCT_ID=1 scripts/bench_conditional_get.sh
+#
+# Behavior:
+# - For each endpoint, fetches the current ETag once, then issues REQUESTS unconditional GETs
+#   and REQUESTS GETs with If-None-Match.
+# - Reports response bytes on the wire (headers + body) and mean/p95 latency for both modes.
+
+BASE_URL="${BASE_URL:-http://localhost:9001}"
+REQUESTS="${REQUESTS:-200}"
+PRODUCT_ID="${PRODUCT_ID:-1}"
+CURL_TIMEOUT="${CURL_TIMEOUT:-10}"
+
+if ! command -v curl >/dev/null 2>&1; then
+  echo "[ERR] curl is required in PATH" >&2
+  exit 1
+fi
+
+fetch_etag() {
+  curl --max-time "$CURL_TIMEOUT" -fsS -o /dev/null -D - "$1" | awk 'tolower($1)=="etag:" {sub(/\r$/,"",$2); print $2}'
+}
+
+# Prints "<bytes> <seconds>" per request
+run_mode() {
+  local url=$1 etag=${2:-}
+  local i
+  for ((i = 0; i < REQUESTS; i++)); do
+    if [[ -n "$etag" ]]; then
+      curl --max-time "$CURL_TIMEOUT" -sS -o /dev/null -H "If-None-Match: $etag" \
+        -w '%{size_header} %{size_download} %{time_total}\n' "$url"
+    else
+      curl --max-time "$CURL_TIMEOUT" -sS -o /dev/null \
+        -w '%{size_header} %{size_download} %{time_total}\n' "$url"
+    fi
+  done | awk '{print $1 + $2, $3}'
+}
+
+summarize() {
+  local label=$1
+  sort -k2 -n | awk -v label="$label" '
+    { bytes += $1; t[NR] = $2; sum += $2 }
+    END {
+      if (NR == 0) { print label ": no samples"; exit }
+      p95 = t[int((NR * 95 + 99) / 100)]
+      printf "  %-14s requests=%d bytes=%d avg_bytes=%.0f mean_ms=%.2f p95_ms=%.2f\n",
+        label, NR, bytes, bytes / NR, (sum / NR) * 1000, p95 * 1000
+    }'
+}
+
+bench() {
+  local name=$1 url=$2
+  local etag
+  etag=$(fetch_etag "$url" || true)
+  echo "[INFO] $name ($url)"
+  if [[ -z "$etag" ]]; then
+    echo "[WARN] No ETag returned; skipping conditional run"
+    run_mode "$url" | summarize "full"
+    return
+  fi
+  run_mode "$url" | summarize "full"
+  run_mode "$url" "$etag" | summarize "if-none-match"
+}
+
+bench "get_product" "${BASE_URL}/products/${PRODUCT_ID}"
+bench "list_products" "${BASE_URL}/products?page=0&size=50"
@@ -0,0 +1,153 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# End-to-end load test: all six services as local processes on in-memory H2, driven through the
+# real api-gateway by the open-loop generator in tools/load-test.
+# Usage:
+#   scripts/bench_e2e.sh
+#   RATE=50 DURATION=2m WARMUP=30s scripts/bench_e2e.sh
+#   LOAD_ARGS="--arrivals=constant --think-time=0 --checkout-ratio=1" scripts/bench_e2e.sh
+#
+# Behavior:
+# - Builds any missing jar (services and tools/load-test, with -DskipTests). Rebuild yourself after
+#   code changes: the script only checks that a jar exists.
+# - Starts identity, product, cart, order and payment on ports 9000-9004 (the gateway's default
+#   upstreams) with the H2 driver added through Spring Boot's PropertiesLauncher (loader.path), so the
+#   jars are the ones that ship. Schemas come from ddl-auto=create-drop; nothing persists between runs.
+# - Services run with the default profile (no SQL logging) and DB_POOL_SIZE connections; the gateway
+#   runs its default configuration with a loose rate limit so the limiter is not what gets measured.
+# - Sessions arrive at RATE per second (Poisson by default) and walk browse -> cart -> login -> order
+#   -> pay; see ShopperScenario for the funnel. The report lists coordinated-omission corrected
+#   latency percentiles per route and is written to REPORT.
+# - Logs of every process are kept in LOG_DIR.
+#
+# Every process shares this machine's CPUs with the generator, so absolute numbers are for comparing
+# runs on the same machine, not for capacity planning.
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+RATE="${RATE:-20}"
+WARMUP="${WARMUP:-15s}"
+DURATION="${DURATION:-60s}"
+LOAD_ARGS="${LOAD_ARGS:-}"
+GATEWAY_PORT="${GATEWAY_PORT:-8080}"
+API_KEY="${API_KEY:-load-test-key}"
+DB_POOL_SIZE="${DB_POOL_SIZE:-10}"
+H2_VERSION="${H2_VERSION:-2.2.224}"
+JAVA_OPTS="${JAVA_OPTS:--Xmx256m}"
+LOAD_JAVA_OPTS="${LOAD_JAVA_OPTS:--Xmx512m}"
+LOG_DIR="${LOG_DIR:-e2e-logs}"
+REPORT="${REPORT:-$LOG_DIR/report.json}"
+STARTUP_TIMEOUT="${STARTUP_TIMEOUT:-180}"
+
+SERVICES=(identity product cart order payment)
+declare -A PORTS=([identity]=9000 [product]=9001 [cart]=9002 [order]=9003 [payment]=9004)
+
+for tool in java mvn curl; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 1
+  fi
+done
+for port in "${PORTS[@]}" "$GATEWAY_PORT"; do
+  if curl -s -o /dev/null "http://localhost:$port/" 2>/dev/null; then
+    echo "[ERR] Port $port is already in use; stop whatever is listening there first" >&2
+    exit 1
+  fi
+done
+
+jar_of() {
+  ls "$ROOT/$1"/target/*-SNAPSHOT.jar 2>/dev/null | head -1 || true
+}
+
+build_if_missing() {
+  local module="$1"
+  if [[ -z "$(jar_of "$module")" ]]; then
+    echo "[INFO] Building $module"
+    mvn -B -q -f "$ROOT/$module/pom.xml" -DskipTests package
+  fi
+}
+
+declare -A LIB_ARTIFACTS=([instrumentation]=service-instrumentation [service-client]=service-client)
+for lib in "${!LIB_ARTIFACTS[@]}"; do
+  artifact="${LIB_ARTIFACTS[$lib]}"
+  if [[ -z "$(ls "$HOME"/.m2/repository/com/sparkage/"$artifact"/*/"$artifact"-*.jar 2>/dev/null)" ]]; then
+    echo "[INFO] Installing libs/$lib"
+    mvn -B -q -f "$ROOT/libs/$lib/pom.xml" -DskipTests install
+  fi
+done
+for svc in "${SERVICES[@]}" api-gateway; do
+  build_if_missing "services/$svc"
+done
+build_if_missing tools/load-test
+
+mkdir -p "$LOG_DIR"
+rm -f "$LOG_DIR"/*.log
+work=$(mktemp -d)
+pids=()
+cleanup() {
+  for pid in "${pids[@]}"; do kill "$pid" 2>/dev/null || true; done
+  wait 2>/dev/null || true
+  rm -rf "$work"
+}
+trap cleanup EXIT
+
+mvn -B -q dependency:copy -Dartifact="com.h2database:h2:$H2_VERSION" -DoutputDirectory="$work"
+h2_jar="$work/h2-$H2_VERSION.jar"
+
+for svc in "${SERVICES[@]}"; do
+  echo "[INFO] Starting $svc on port ${PORTS[$svc]}"
+  # shellcheck disable=SC2086
+  java $JAVA_OPTS -Dloader.path="$h2_jar" -cp "$(jar_of "services/$svc")" \
+    org.springframework.boot.loader.launch.PropertiesLauncher \
+    --server.port="${PORTS[$svc]}" \
+    --spring.profiles.active=default \
+    --spring.datasource.url="jdbc:h2:mem:$svc;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH" \
+    --spring.datasource.driver-class-name=org.h2.Driver \
+    --spring.datasource.username=sa \
+    --spring.datasource.password= \
+    --spring.datasource.hikari.maximum-pool-size="$DB_POOL_SIZE" \
+    --spring.datasource.hikari.minimum-idle="$DB_POOL_SIZE" \
+    --spring.jpa.database-platform=org.hibernate.dialect.H2Dialect \
+    --spring.jpa.hibernate.ddl-auto=create-drop \
+    > "$LOG_DIR/$svc.log" 2>&1 &
+  pids+=($!)
+done
+
+echo "[INFO] Starting api-gateway on port $GATEWAY_PORT"
+# shellcheck disable=SC2086
+SERVER_PORT="$GATEWAY_PORT" SECURITY_API_KEYS="$API_KEY" \
+  RATE_LIMIT_REPLENISH_PER_SEC=1000000 RATE_LIMIT_BURST_CAPACITY=1000000 \
+  java $JAVA_OPTS -jar "$(jar_of services/api-gateway)" > "$LOG_DIR/api-gateway.log" 2>&1 &
+pids+=($!)
+
+wait_healthy() {
+  local name="$1" port="$2" pid="$3"
+  for _ in $(seq 1 "$STARTUP_TIMEOUT"); do
+    if curl -fs "http://localhost:$port/actuator/health" >/dev/null 2>&1; then return 0; fi
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "[ERR] $name exited during startup; see output below" >&2
+      tail -40 "$LOG_DIR/$name.log" >&2
+      exit 1
+    fi
+    sleep 1
+  done
+  echo "[ERR] $name not healthy after ${STARTUP_TIMEOUT}s; see $LOG_DIR/$name.log" >&2
+  exit 1
+}
+
+i=0
+for svc in "${SERVICES[@]}"; do
+  wait_healthy "$svc" "${PORTS[$svc]}" "${pids[$i]}"
+  i=$((i + 1))
+done
+wait_healthy api-gateway "$GATEWAY_PORT" "${pids[$i]}"
+echo "[INFO] All services healthy"
+
+# shellcheck disable=SC2086
+java $LOAD_JAVA_OPTS -jar "$(jar_of tools/load-test)" \
+  --gateway="http://localhost:$GATEWAY_PORT" \
+  --api-key="$API_KEY" \
+  --rate="$RATE" \
+  --warmup="$WARMUP" \
+  --duration="$DURATION" \
+  --out="$REPORT" \
+  $LOAD_ARGS
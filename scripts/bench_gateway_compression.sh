@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Measure bytes on the wire and gateway CPU per request for each response encoding.
+# Usage:
+#   scripts/bench_gateway_compression.sh
+#   BASE_URL=http://localhost:8080 API_KEY=dev-key-change-me PATHS="/api/products /api/orders/user/1" REQUESTS=500 scripts/bench_gateway_compression.sh
+#
+# Behavior:
+# - For every path and every encoding in ENCODINGS (identity, gzip, br), sends REQUESTS GETs through
+#   the gateway over one keep-alive connection with that Accept-Encoding.
+# - Reports the Content-Encoding actually served, mean bytes on the wire (headers + body as sent),
+#   p50/p99 latency, and gateway CPU time per request.
+# - CPU is read from /proc for GATEWAY_PID (default: the local java process running api-gateway),
+#   so run it on the gateway host, with as little else hitting the gateway as possible.
+
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+API_KEY="${API_KEY:-dev-key-change-me}"
+PATHS="${PATHS:-/api/products /api/orders/user/1}"
+ENCODINGS="${ENCODINGS:-identity gzip br}"
+REQUESTS="${REQUESTS:-500}"
+GATEWAY_PID="${GATEWAY_PID:-$(pgrep -f 'api-gateway.*\.jar|ApiGatewayApplication' | head -1 || true)}"
+
+for tool in curl awk sort getconf; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 1
+  fi
+done
+if [[ -z "$GATEWAY_PID" || ! -r "/proc/$GATEWAY_PID/stat" ]]; then
+  echo "[ERR] Gateway process not found; set GATEWAY_PID" >&2
+  exit 1
+fi
+ticks=$(getconf CLK_TCK)
+
+work=$(mktemp -d)
+trap 'rm -rf "$work"' EXIT
+
+# utime + stime of the gateway, in clock ticks
+cpu_ticks() { awk '{print $14 + $15}' "/proc/$GATEWAY_PID/stat"; }
+
+bench() {
+  local path=$1 encoding=$2
+  local config="$work/curl.cfg" out="$work/out"
+  : > "$config"
+  for ((n = 0; n < REQUESTS; n++)); do
+    printf 'url = "%s%s"\noutput = "/dev/null"\n' "$BASE_URL" "$path" >> "$config"
+  done
+  # warm the connection and the JIT for this encoding before measuring
+  curl -fsS -o /dev/null -H "X-API-Key: $API_KEY" -H "Accept-Encoding: $encoding" "$BASE_URL$path"
+
+  local before after
+  before=$(cpu_ticks)
+  curl -sS -K "$config" -H "X-API-Key: $API_KEY" -H "Accept-Encoding: $encoding" \
+    -w '%{http_code} %{size_header} %{size_download} %{time_total}\n' > "$out"
+  after=$(cpu_ticks)
+
+  local served
+  served=$(curl -fsS -o /dev/null -D - -H "X-API-Key: $API_KEY" -H "Accept-Encoding: $encoding" "$BASE_URL$path" \
+    | awk 'tolower($1) == "content-encoding:" {sub(/\r$/, "", $2); print $2}')
+  sort -k4 -n "$out" | awk -v path="$path" -v asked="$encoding" -v served="${served:-identity}" \
+      -v cpu=$((after - before)) -v ticks="$ticks" '
+    $1 != 200 {errors++}
+    {bytes += $2 + $3; t[NR] = $4}
+    END {
+      printf "[INFO] %-22s %-8s served=%-8s %8.0f B/req  p50=%6.2f ms p99=%6.2f ms  gateway cpu=%6.3f ms/req%s\n",
+        path, asked, served, bytes / NR, t[int(NR * 0.5)] * 1000, t[int(NR * 0.99)] * 1000,
+        cpu * 1000 / ticks / NR, errors ? sprintf("  (%d non-200)", errors) : ""
+    }'
+}
+
+echo "[INFO] $REQUESTS requests per case against $BASE_URL (gateway pid $GATEWAY_PID)"
+for path in $PATHS; do
+  for encoding in $ENCODINGS; do
+    bench "$path" "$encoding"
+  done
+done
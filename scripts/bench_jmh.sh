@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Run the JMH suites (src/jmh/java, jmh profile) of every module and collect the JSON results.
+# Usage:
+#   scripts/bench_jmh.sh
+#   MODULES="services/cart services/identity" JMH_INCLUDE=Cart JMH_ARGS="-prof gc -f 2" scripts/bench_jmh.sh
+#   cp -r jmh-results jmh-baseline                          # keep a run as the baseline
+#   BASELINE_DIR=jmh-baseline THRESHOLD=10 scripts/bench_jmh.sh
+#
+# Behavior:
+# - MODULES defaults to every module with a src/jmh directory. The shared libraries are installed
+#   first, since the services build against them.
+# - Runs mvn -Pjmh verify -DskipTests in each module and copies target/jmh-result.json to
+#   RESULTS_DIR/<module>.json.
+# - With BASELINE_DIR, compares each result with BASELINE_DIR/<module>.json using jmh_compare.sh
+#   (THRESHOLD / ALLOC_THRESHOLD apply) and exits 1 if any module regressed.
+# - Compare on the same machine with nothing else running; a regression threshold is only as good
+#   as the noise between two runs of the baseline.
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MODULES="${MODULES:-$(cd "$ROOT" && for d in libs/* services/*; do [[ -d "$d/src/jmh" ]] && echo "$d"; done)}"
+RESULTS_DIR="${RESULTS_DIR:-jmh-results}"
+BASELINE_DIR="${BASELINE_DIR:-}"
+JMH_INCLUDE="${JMH_INCLUDE:-.*Benchmark.*}"
+JMH_ARGS="${JMH_ARGS:--prof gc}"
+
+if ! command -v mvn >/dev/null 2>&1; then
+  echo "[ERR] mvn is required in PATH" >&2
+  exit 1
+fi
+mkdir -p "$RESULTS_DIR"
+
+for lib in instrumentation service-client; do
+  echo "[INFO] Installing libs/$lib"
+  mvn -B -q -f "$ROOT/libs/$lib/pom.xml" -DskipTests install
+done
+
+failed=()
+for module in $MODULES; do
+  name=$(basename "$module")
+  echo "[INFO] Running JMH in $module"
+  rm -f "$ROOT/$module/target/jmh-result.json"
+  mvn -B -q -f "$ROOT/$module/pom.xml" -Pjmh verify -DskipTests -Djmh.include="$JMH_INCLUDE" -Djmh.args="$JMH_ARGS"
+  if [[ ! -s "$ROOT/$module/target/jmh-result.json" ]]; then
+    echo "[WARN] $module produced no results (nothing matched $JMH_INCLUDE?)" >&2
+    continue
+  fi
+  cp "$ROOT/$module/target/jmh-result.json" "$RESULTS_DIR/$name.json"
+
+  if [[ -n "$BASELINE_DIR" ]]; then
+    if [[ ! -s "$BASELINE_DIR/$name.json" ]]; then
+      echo "[WARN] No baseline for $name in $BASELINE_DIR" >&2
+    elif ! "$ROOT/scripts/jmh_compare.sh" "$BASELINE_DIR/$name.json" "$RESULTS_DIR/$name.json"; then
+      failed+=("$name")
+    fi
+  fi
+done
+
+echo "[INFO] Results in $RESULTS_DIR/"
+if (( ${#failed[@]} )); then
+  echo "[ERR] Regressions in: ${failed[*]}" >&2
+  exit 1
+fi
@@ -0,0 +1,112 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Compare a service's JVM build with its GraalVM native binary: startup, memory and throughput.
+# Usage:
+#   scripts/bench_native.sh
+#   SERVICE=payment PORT=9004 URL_PATH=/payments?orderId=1 scripts/bench_native.sh
+#
+# Behavior:
+# - Needs wrk, curl, java, the service jar and the native binary, built with:
+#     (cd services/$SERVICE && mvn -DskipTests package && mvn -Pnative -DskipTests native:compile)
+#   native:compile needs a GraalVM JDK; it leaves the jar in place, so both builds sit in target/.
+# - Starts each build with PROFILES and APP_ARGS and measures the time until the first response
+#   to URL_PATH, and RSS at that point.
+# - Then drives GET URL_PATH with wrk: WARMUP first (not measured; lets the JIT reach steady state),
+#   then DURATION measured. Reports requests/s, p50/p99 latency, and steady and peak RSS.
+# - The defaults start without a database (the JPA settings from the image training runs), because
+#   the native binary is built for the production profile (aot.profiles) and cart keeps its carts in
+#   memory. Payment endpoints that write need a real database in APP_ARGS.
+
+SERVICE="${SERVICE:-cart}"
+PORT="${PORT:-9002}"
+PROFILES="${PROFILES:-production}"
+DEFAULT_APP_ARGS="--spring.jpa.hibernate.ddl-auto=none --spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false --spring.datasource.url=jdbc:postgresql://127.0.0.1:1/bench"
+APP_ARGS="${APP_ARGS:-$DEFAULT_APP_ARGS}"
+URL_PATH="${URL_PATH:-/carts/1}"
+SEED_PATH="${SEED_PATH:-/carts/1/items}"
+DEFAULT_SEED_BODY='{"productId":10,"quantity":2}'
+SEED_BODY="${SEED_BODY:-$DEFAULT_SEED_BODY}"
+CONNECTIONS="${CONNECTIONS:-64}"
+THREADS="${THREADS:-4}"
+WARMUP="${WARMUP:-30s}"
+DURATION="${DURATION:-30s}"
+JAVA_OPTS="${JAVA_OPTS:--Xmx512m}"
+# native executables take the same heap flags
+NATIVE_OPTS="${NATIVE_OPTS:--Xmx512m}"
+
+for tool in java wrk curl awk; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 1
+  fi
+done
+jar=$(ls services/"$SERVICE"/target/*-SNAPSHOT.jar 2>/dev/null | head -1 || true)
+binary="${NATIVE_BIN:-services/$SERVICE/target/$SERVICE-service}"
+if [[ -z "$jar" ]]; then
+  echo "[ERR] No jar for $SERVICE; build it with: (cd services/$SERVICE && mvn -DskipTests package)" >&2
+  exit 1
+fi
+if [[ ! -x "$binary" ]]; then
+  echo "[ERR] No native binary at $binary; build it with: (cd services/$SERVICE && mvn -Pnative -DskipTests native:compile)" >&2
+  exit 1
+fi
+
+work=$(mktemp -d)
+pid=""
+cleanup() {
+  if [[ -n "$pid" ]]; then kill "$pid" 2>/dev/null || true; fi
+  rm -rf "$work"
+}
+trap cleanup EXIT
+
+now_ms() { date +%s%3N; }
+rss_mb() { awk -v f="$2" '$1 == f":" {printf "%.0f", $2 / 1024}' /proc/"$1"/status; }
+
+run() {
+  local mode=$1
+  shift
+  local log="$work/$mode.log" begin ready
+  echo "[INFO] Starting $SERVICE ($mode)"
+  begin=$(now_ms)
+  # shellcheck disable=SC2086
+  "$@" --server.port="$PORT" --spring.profiles.active="$PROFILES" $APP_ARGS > "$log" 2>&1 &
+  pid=$!
+  until [[ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT$URL_PATH" || true)" != "000" ]]; do
+    if ! kill -0 "$pid" 2>/dev/null || (( $(now_ms) - begin > 120000 )); then
+      echo "[ERR] $SERVICE ($mode) did not start; see output below" >&2
+      tail -40 "$log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  ready=$(( $(now_ms) - begin ))
+  local rss_start
+  rss_start=$(rss_mb "$pid" VmRSS)
+  if [[ -n "$SEED_PATH" ]]; then
+    curl -fsS -o /dev/null -H 'Content-Type: application/json' -d "$SEED_BODY" "http://localhost:$PORT$SEED_PATH"
+  fi
+
+  wrk -t"$THREADS" -c"$CONNECTIONS" -d"$WARMUP" "http://localhost:$PORT$URL_PATH" > /dev/null
+  wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --latency "http://localhost:$PORT$URL_PATH" > "$work/$mode.wrk"
+  local rss_steady rss_peak
+  rss_steady=$(rss_mb "$pid" VmRSS)
+  rss_peak=$(rss_mb "$pid" VmHWM)
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  pid=""
+
+  local rps p50 p99 errors
+  rps=$(awk '/^Requests\/sec:/ {print $2}' "$work/$mode.wrk")
+  p50=$(awk '$1 == "50%" {print $2}' "$work/$mode.wrk")
+  p99=$(awk '$1 == "99%" {print $2}' "$work/$mode.wrk")
+  errors=$(awk '/Non-2xx|Socket errors/ {sub(/^ +/, ""); printf "%s; ", $0}' "$work/$mode.wrk")
+  printf '%-7s first response=%6d ms  RSS at start=%4s MB  %10s req/s  p50=%-9s p99=%-9s RSS steady=%4s MB peak=%4s MB  %s\n' \
+    "$mode" "$ready" "$rss_start" "$rps" "$p50" "$p99" "$rss_steady" "$rss_peak" "${errors:-no errors}" >> "$work/summary"
+}
+
+# shellcheck disable=SC2086
+run jvm java $JAVA_OPTS -jar "$jar"
+# shellcheck disable=SC2086
+run native "$binary" $NATIVE_OPTS
+
+echo "[INFO] $SERVICE GET $URL_PATH, $CONNECTIONS connections, $DURATION after $WARMUP warm-up:"
+sed 's/^/[INFO]   /' "$work/summary"
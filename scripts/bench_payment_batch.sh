@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Compare POST /payments/batch with the same payments sent as individual POST /payments calls.
+# Usage:
+#   scripts/bench_payment_batch.sh
+#   BASE_URL=http://localhost:8080 COUNT=20000 CONCURRENCY=32 scripts/bench_payment_batch.sh
+#
+# Behavior:
+# - Generates COUNT payment requests as NDJSON.
+# - Sends them one per request with CONCURRENCY parallel curl clients and reports payments/s.
+# - Sends them as one batch and reports time to first result, total time and payments/s.
+# - Point BASE_URL at the gateway to include the extra hop a settlement job pays per call.
+
+BASE_URL="${BASE_URL:-http://localhost:9004}"
+COUNT="${COUNT:-20000}"
+CONCURRENCY="${CONCURRENCY:-32}"
+
+for tool in curl awk xargs; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 1
+  fi
+done
+
+feed=$(mktemp)
+results=$(mktemp)
+trap 'rm -f "$feed" "$results"' EXIT
+
+awk -v n="$COUNT" 'BEGIN {
+  for (i = 1; i <= n; i++) {
+    printf "{\"orderId\":%d,\"paymentMethod\":\"%s\",\"amount\":%d.50,\"paymentDetails\":\"tok_bench_%d\"}\n", 900000 + i, (i % 2 ? "CARD" : "UPI"), 1 + i % 200, i
+  }
+}' > "$feed"
+echo "[INFO] Generated $COUNT payment requests ($(wc -c < "$feed") bytes)"
+
+start=$(date +%s.%N)
+# One curl per payment, CONCURRENCY at a time; each prints its HTTP status
+tr '\n' '\0' < "$feed" | xargs -0 -P "$CONCURRENCY" -I{} \
+  curl -sS -o /dev/null -w '%{http_code}\n' -H 'Content-Type: application/json' -d '{}' "${BASE_URL}/payments" > "$results"
+finished=$(date +%s.%N)
+failed=$(grep -vc '^200$' "$results" || true)
+awk -v a="$start" -v b="$finished" -v n="$COUNT" -v c="$CONCURRENCY" -v f="$failed" \
+  'BEGIN {printf "[INFO] single calls: %d clients total=%.2f s throughput=%.0f payments/s non-200=%d\n", c, b - a, n / (b - a), f}'
+
+timing=$(curl -sS -o "$results" -w '%{http_code} %{time_starttransfer} %{time_total}' \
+  -H 'Content-Type: application/x-ndjson' --data-binary @"$feed" "${BASE_URL}/payments/batch")
+read -r code first total <<< "$timing"
+if [[ "$code" != "200" ]]; then
+  echo "[ERR] Batch returned HTTP $code" >&2
+  exit 1
+fi
+lines=$(wc -l < "$results")
+rejected=$(grep -c '"error"' "$results" || true)
+awk -v f="$first" -v t="$total" -v n="$COUNT" -v l="$lines" -v r="$rejected" \
+  'BEGIN {printf "[INFO] batch: first result=%.3f s total=%.2f s throughput=%.0f payments/s results=%d rejected=%d\n", f, t, n / t, l, r}'
+if [[ "$lines" -ne "$COUNT" ]]; then
+  echo "[WARN] Expected $COUNT result lines, got $lines" >&2
+  exit 1
+fi
@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Generate a supplier feed and time a catalog import through the product service.
+# Usage:
+#   scripts/bench_product_import.sh
+#   BASE_URL=http://localhost:9001 ROWS=500000 FORMAT=ndjson scripts/bench_product_import.sh
+#
+# Behavior:
+# - Writes ROWS products as CSV (default) or NDJSON to a temp file; every 1000th row is invalid.
+# - Uploads it to POST /products/imports, polls the returned location until the job finishes.
+# - Reports upload time, total time, rows/s and the final counters.
+
+BASE_URL="${BASE_URL:-http://localhost:9001}"
+ROWS="${ROWS:-500000}"
+FORMAT="${FORMAT:-csv}"
+POLL_INTERVAL="${POLL_INTERVAL:-1}"
+
+for tool in curl awk; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 1
+  fi
+done
+
+feed=$(mktemp)
+trap 'rm -f "$feed"' EXIT
+
+case "$FORMAT" in
+  csv)
+    content_type="text/csv"
+    awk -v rows="$ROWS" 'BEGIN {
+      print "sku,name,description,category,price,stock"
+      for (i = 1; i <= rows; i++) {
+        price = (i % 1000 == 0) ? "n/a" : sprintf("%d.99", i % 500)
+        printf "SKU-%d,Bench product %d,\"Generated, row %d\",Category %d,%s,%d\n", i, i, i, i % 50, price, i % 200
+      }
+    }' > "$feed"
+    ;;
+  ndjson)
+    content_type="application/x-ndjson"
+    awk -v rows="$ROWS" 'BEGIN {
+      for (i = 1; i <= rows; i++) {
+        price = (i % 1000 == 0) ? "\"n/a\"" : sprintf("%d.99", i % 500)
+        printf "{\"name\":\"Bench product %d\",\"description\":\"Generated row %d\",\"category\":\"Category %d\",\"price\":%s,\"stock\":%d}\n", i, i, i % 50, price, i % 200
+      }
+    }' > "$feed"
+    ;;
+  *)
+    echo "[ERR] FORMAT must be csv or ndjson" >&2
+    exit 1
+    ;;
+esac
+echo "[INFO] Generated $ROWS $FORMAT rows ($(wc -c < "$feed") bytes)"
+
+start=$(date +%s.%N)
+location=$(curl -fsS -o /dev/null -D - -H "Content-Type: $content_type" --data-binary @"$feed" \
+  "${BASE_URL}/products/imports" | awk 'tolower($1)=="location:" {sub(/\r$/,"",$2); print $2}')
+uploaded=$(date +%s.%N)
+if [[ -z "$location" ]]; then
+  echo "[ERR] Import was not accepted" >&2
+  exit 1
+fi
+echo "[INFO] Upload accepted after $(awk -v a="$start" -v b="$uploaded" 'BEGIN {printf "%.2f", b - a}') s: $location"
+
+while true; do
+  body=$(curl -fsS "${BASE_URL}${location}")
+  status=$(printf '%s' "$body" | sed -n 's/.*"status":"\([A-Z]*\)".*/\1/p')
+  if [[ "$status" == "COMPLETED" || "$status" == "FAILED" ]]; then
+    break
+  fi
+  sleep "$POLL_INTERVAL"
+done
+finished=$(date +%s.%N)
+
+counter() { printf '%s' "$body" | sed -n "s/.*\"$1\":\([0-9]*\).*/\1/p"; }
+imported=$(counter rowsImported)
+echo "[INFO] status=$status read=$(counter rowsRead) imported=$imported failed=$(counter rowsFailed)"
+awk -v a="$start" -v b="$finished" -v n="$ROWS" 'BEGIN {printf "[INFO] total=%.2f s throughput=%.0f rows/s\n", b - a, n / (b - a)}'
+if [[ "$status" != "COMPLETED" ]]; then
+  echo "[WARN] Import did not complete" >&2
+  exit 1
+fi
@@ -0,0 +1,127 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Compare service startup as a plain fat jar, as an extracted jar with an AppCDS archive, and (when
+# the jar was built with -Paot) with Spring AOT on top.
+# Usage:
+#   scripts/bench_startup.sh
+#   SERVICE=payment PORT=9004 URL_PATH=/payments?orderId=1 RUNS=5 scripts/bench_startup.sh
+#
+# Behavior:
+# - Needs java, curl and the service jar: (cd services/$SERVICE && mvn -DskipTests package), or
+#   mvn -Paot -DskipTests package to include the AOT mode. PROFILES must be startable locally
+#   (the development profiles need their database running).
+# - Extracts the jar into a temp directory and records a CDS archive with one training run that
+#   refreshes the context and exits, exactly as the Dockerfiles do.
+# - Each mode is started RUNS times. Reports time until HEALTH_PATH answers 200, the startup time
+#   Spring logs, and the latency of the first request to URL_PATH, as medians.
+# - The aot mode runs the bean set fixed at build time (aot.profiles in the pom, production unless
+#   overridden), so PROFILES should match what the jar was built with.
+
+SERVICE="${SERVICE:-product}"
+PORT="${PORT:-9001}"
+PROFILES="${PROFILES:-development}"
+APP_ARGS="${APP_ARGS:-}"
+URL_PATH="${URL_PATH:-/products}"
+HEALTH_PATH="${HEALTH_PATH:-/actuator/health}"
+RUNS="${RUNS:-3}"
+TIMEOUT="${TIMEOUT:-120}"
+JAVA_OPTS="${JAVA_OPTS:--Xmx512m}"
+
+for tool in java jar curl awk; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 1
+  fi
+done
+jar=$(ls services/"$SERVICE"/target/*-SNAPSHOT.jar 2>/dev/null | head -1 || true)
+if [[ -z "$jar" ]]; then
+  echo "[ERR] No jar for $SERVICE; build it with: (cd services/$SERVICE && mvn -DskipTests package)" >&2
+  exit 1
+fi
+
+work=$(mktemp -d)
+pid=""
+cleanup() {
+  if [[ -n "$pid" ]]; then kill "$pid" 2>/dev/null || true; fi
+  rm -rf "$work"
+}
+trap cleanup EXIT
+
+now_ms() { date +%s%3N; }
+
+# start <label> <run> <java args...>: prints "<ready ms> <spring startup s> <first request ms>"
+start() {
+  local label=$1 run=$2
+  shift 2
+  local log="$work/$label-$run.log" begin ready first
+  begin=$(now_ms)
+  java $JAVA_OPTS "$@" --server.port="$PORT" --spring.profiles.active="$PROFILES" $APP_ARGS > "$log" 2>&1 &
+  pid=$!
+  until curl -fs -o /dev/null "http://localhost:$PORT$HEALTH_PATH"; do
+    if ! kill -0 "$pid" 2>/dev/null || (( $(now_ms) - begin > TIMEOUT * 1000 )); then
+      echo "[ERR] $label did not become healthy; see the log below" >&2
+      tail -20 "$log" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  ready=$(( $(now_ms) - begin ))
+  first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT$URL_PATH" || true)
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  pid=""
+  local spring
+  spring=$(awk 'match($0, /Started .* in [0-9.]+ seconds/) {s = substr($0, RSTART, RLENGTH); sub(/ seconds/, "", s); sub(/.* in /, "", s); print s}' "$log")
+  echo "$ready ${spring:-0} $(awk -v t="$first" 'BEGIN {printf "%.1f", t * 1000}')"
+}
+
+bench() {
+  local label=$1
+  shift
+  local results="$work/$label.txt"
+  : > "$results"
+  for ((run = 1; run <= RUNS; run++)); do
+    start "$label" "$run" "$@" >> "$results"
+  done
+  awk -v label="$label" '
+    {ready[NR] = $1; spring[NR] = $2; first[NR] = $3}
+    function median(a, n,   i, j, t) {
+      for (i = 1; i <= n; i++) for (j = i + 1; j <= n; j++) if (a[j] < a[i]) {t = a[i]; a[i] = a[j]; a[j] = t}
+      return a[int((n + 1) / 2)]
+    }
+    END {
+      printf "[INFO] %-8s ready=%6d ms  spring started in %6.2f s  first request=%7.1f ms  (median of %d)\n",
+        label, median(ready, NR), median(spring, NR), median(first, NR), NR
+    }' "$results"
+}
+
+echo "[INFO] Extracting $jar"
+java -Djarmode=tools -jar "$jar" extract --layers --application-filename app.jar --destination "$work/extracted"
+mkdir "$work/app"
+for layer in dependencies spring-boot-loader snapshot-dependencies application; do
+  cp -r "$work/extracted/$layer/." "$work/app/"
+done
+app="$work/app/app.jar"
+
+aot=false
+if jar tf "$jar" | grep -q '__ApplicationContextInitializer'; then
+  aot=true
+else
+  echo "[WARN] $jar has no AOT classes; build with -Paot to include the aot mode" >&2
+fi
+
+# train <archive> <aot>: the same training run as the images; refresh the context, archive what was loaded, exit
+train() {
+  java -XX:ArchiveClassesAtExit="$1" -Xlog:cds=off -Dspring.aot.enabled="$2" -Dspring.context.exit=onRefresh \
+    -jar "$app" --spring.profiles.active="$PROFILES" $APP_ARGS > "$work/training.log" 2>&1 \
+    || { echo "[ERR] CDS training run failed" >&2; tail -20 "$work/training.log" >&2; exit 1; }
+}
+
+echo "[INFO] $SERVICE ($PROFILES): $RUNS starts per mode, first request GET $URL_PATH"
+bench jar -jar "$jar"
+train "$work/app.jsa" false
+bench cds -XX:SharedArchiveFile="$work/app.jsa" -jar "$app"
+if [[ "$aot" == true ]]; then
+  train "$work/app-aot.jsa" true
+  bench aot+cds -XX:SharedArchiveFile="$work/app-aot.jsa" -Dspring.aot.enabled=true -jar "$app"
+fi
@@ -0,0 +1,119 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Load-test one service on platform threads and then on virtual threads at the same concurrency.
+# Usage:
+#   scripts/bench_virtual_threads.sh
+#   SERVICE=product PORT=9001 PROFILES=development URL_PATH=/products METHOD=GET scripts/bench_virtual_threads.sh
+#
+# Behavior:
+# - Needs a Java 21 runtime, wrk, and the service jar built with: mvn -Pjava21 -DskipTests package
+#   (plus whatever the chosen profiles need, e.g. the development database).
+# - Starts the jar with PROFILES, runs wrk with CONNECTIONS open connections for DURATION, stops it,
+#   then repeats with the virtual-threads profile added.
+# - The virtual-thread run uses -Djdk.tracePinnedThreads=short; pinned stacks are counted from its log.
+# - Reports requests/s, p50/p99 latency, errors, peak JVM threads and RSS for both runs.
+#
+# The default drives POST /payments on the payment service with simulated provider latency, so that
+# requests spend their time blocked, which is where thread-per-request runs out of threads. The
+# WALLET bulkhead is widened so it does not reject the load; it runs provider calls on platform
+# threads in the first run and on virtual threads in the second, like the request threads, so the
+# comparison covers every thread a request blocks.
+
+SERVICE="${SERVICE:-payment}"
+PORT="${PORT:-9004}"
+PROFILES="${PROFILES:-development,simulated-latency}"
+APP_ARGS="${APP_ARGS:---payment.processors.methods.WALLET.max-concurrent=6000 --payment.processors.methods.WALLET.queue-capacity=0}"
+URL_PATH="${URL_PATH:-/payments}"
+METHOD="${METHOD:-POST}"
+DEFAULT_BODY='{"orderId":1,"paymentMethod":"WALLET","amount":10.00,"paymentDetails":"tok_vt"}'
+BODY="${BODY:-$DEFAULT_BODY}"
+CONNECTIONS="${CONNECTIONS:-5000}"
+THREADS="${THREADS:-8}"
+DURATION="${DURATION:-30s}"
+JAVA_OPTS="${JAVA_OPTS:--Xmx1g}"
+
+for tool in java wrk curl awk; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 1
+  fi
+done
+java_major=$(java -version 2>&1 | awk -F'"' '/version/ {split($2, v, "."); print v[1]}')
+if (( java_major < 21 )); then
+  echo "[ERR] Java 21+ is required for virtual threads (found $java_major)" >&2
+  exit 1
+fi
+jar=$(ls services/"$SERVICE"/target/*-SNAPSHOT.jar 2>/dev/null | head -1 || true)
+if [[ -z "$jar" ]]; then
+  echo "[ERR] No jar for $SERVICE; build it with: (cd services/$SERVICE && mvn -Pjava21 -DskipTests package)" >&2
+  exit 1
+fi
+if (( $(ulimit -n) < CONNECTIONS + 1024 )); then
+  ulimit -n $((CONNECTIONS + 1024)) 2>/dev/null || echo "[WARN] Open-file limit $(ulimit -n) is below $((CONNECTIONS + 1024)); wrk will report socket errors" >&2
+fi
+
+work=$(mktemp -d)
+pid=""
+cleanup() {
+  if [[ -n "$pid" ]]; then kill "$pid" 2>/dev/null || true; fi
+  rm -rf "$work"
+}
+trap cleanup EXIT
+
+cat > "$work/request.lua" <<EOF
+wrk.method = "$METHOD"
+wrk.headers["Content-Type"] = "application/json"
+$( [[ "$METHOD" != "GET" ]] && printf 'wrk.body = [[%s]]' "$BODY" )
+EOF
+
+run() {
+  local mode="$1" profiles="$2" jvm_flags="$3"
+  local log="$work/$mode.log"
+  echo "[INFO] Starting $SERVICE on $mode threads (profiles: $profiles)"
+  # shellcheck disable=SC2086
+  java $JAVA_OPTS $jvm_flags -jar "$jar" --server.port="$PORT" --spring.profiles.active="$profiles" $APP_ARGS > "$log" 2>&1 &
+  pid=$!
+  for _ in $(seq 1 90); do
+    if curl -fs "http://localhost:$PORT/actuator/health" >/dev/null 2>&1; then break; fi
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "[ERR] $SERVICE exited during startup; see output below" >&2
+      tail -40 "$log" >&2
+      exit 1
+    fi
+    sleep 1
+  done
+
+  # Sample thread count and RSS once a second while wrk runs
+  (while kill -0 "$pid" 2>/dev/null; do
+     awk '/^Threads:/ {t=$2} /^VmRSS:/ {r=$2} END {print t, r}' /proc/"$pid"/status 2>/dev/null
+     sleep 1
+   done) > "$work/$mode.samples" &
+  local sampler=$!
+
+  wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --latency -s "$work/request.lua" "http://localhost:$PORT$URL_PATH" > "$work/$mode.wrk"
+  kill "$sampler" 2>/dev/null || true
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  pid=""
+
+  local rps p50 p99 errors threads rss pinned
+  rps=$(awk '/^Requests\/sec:/ {print $2}' "$work/$mode.wrk")
+  p50=$(awk '$1 == "50%" {print $2}' "$work/$mode.wrk")
+  p99=$(awk '$1 == "99%" {print $2}' "$work/$mode.wrk")
+  errors=$(awk '/Non-2xx|Socket errors/ {sub(/^ +/, ""); printf "%s; ", $0}' "$work/$mode.wrk")
+  threads=$(awk '$1 > m {m = $1} END {print m + 0}' "$work/$mode.samples")
+  rss=$(awk '$2 > m {m = $2} END {printf "%.0f", m / 1024}' "$work/$mode.samples")
+  # each pinned-thread trace starts with the virtual thread's name
+  pinned=$(grep -c '^VirtualThread\[#' "$log" || true)
+  printf '%-9s %10s req/s  p50=%-9s p99=%-9s peak threads=%-6s peak RSS=%s MB  pinned=%s  %s\n' \
+    "$mode" "$rps" "$p50" "$p99" "$threads" "$rss" "$pinned" "${errors:-no errors}" >> "$work/summary"
+  if [[ "$pinned" != "0" ]]; then
+    cp "$log" "$mode-pinning.log"
+    echo "[WARN] Virtual threads were pinned during the run; stacks kept in $mode-pinning.log" >&2
+  fi
+}
+
+run platform "$PROFILES" ""
+run virtual "$PROFILES,virtual-threads" "-Djdk.tracePinnedThreads=short"
+
+echo "[INFO] $SERVICE $METHOD $URL_PATH, $CONNECTIONS connections, $DURATION:"
+sed 's/^/[INFO]   /' "$work/summary"
@@ -17,6 +17,8 @@ set -euo pipefail
 #  - IMAGE_NAME (default: same as SERVICE)
 #  - TAG (default: latest)
 #  - PLATFORM (optional; e.g., linux/amd64 for Apple Silicon cross-build)
+#  - JAVA_VERSION (default: 17) — 21 for images that can run the virtual-threads profile
+#  - SPRING_AOT (default: false) — true to build with Spring AOT (mvn -Paot) and start with it enabled
 #
 # Resulting image: ghcr.io/${GHCR_OWNER}/${IMAGE_NAME}:${TAG}
 
@@ -41,6 +43,11 @@ if [[ ! -d "$SERVICE_DIR" ]]; then
 fi
 
 IMAGE="ghcr.io/${GHCR_OWNER}/${IMAGE_NAME}:${TAG}"
+# Shared libraries are handed to the service builds as named build contexts
+LIBS_DIR="$(pwd)/libs"
+BUILD_ARGS=(--build-context "instrumentation=$LIBS_DIR/instrumentation"
+  --build-context "service-client=$LIBS_DIR/service-client" --build-arg "JAVA_VERSION=${JAVA_VERSION:-17}"
+  --build-arg "SPRING_AOT=${SPRING_AOT:-false}")
 
 echo "[INFO] Logging in to GHCR as ${GITHUB_ACTOR:-$GHCR_OWNER}"
 echo "$GHCR_TOKEN" | docker login ghcr.io -u "${GITHUB_ACTOR:-$GHCR_OWNER}" --password-stdin
@@ -60,10 +67,10 @@ fi
 if [[ -n "${PLATFORM:-}" ]]; then
   echo "[INFO] Using buildx for platform: $PLATFORM"
   # Buildx cross-build and push in one step (requires buildx and QEMU installed via Docker Desktop)
-  docker buildx build --platform "$PLATFORM" -t "$IMAGE" --push .
+  docker buildx build --platform "$PLATFORM" "${BUILD_ARGS[@]}" -t "$IMAGE" --push .
   PUSHED=1
 else
-  docker build -t "$IMAGE" .
+  docker build "${BUILD_ARGS[@]}" -t "$IMAGE" .
   echo "[INFO] Pushing image: $IMAGE"
   docker push "$IMAGE"
   PUSHED=1
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+set -euo pipefail
+# Compare two JMH JSON results (-rf json) and fail when a benchmark regressed beyond a threshold.
+# Usage:
+#   scripts/jmh_compare.sh baseline.json current.json
+#   THRESHOLD=5 ALLOC_THRESHOLD=0 scripts/jmh_compare.sh jmh-baseline/cart.json services/cart/target/jmh-result.json
+#
+# Behavior:
+# - Matches benchmarks by name and @Param values and compares the primary score. Lower is better for
+#   time modes (avgt, sample, ss), higher for throughput (thrpt).
+# - A benchmark regresses when it is more than THRESHOLD percent worse (default 10) and the change
+#   is larger than the two runs' combined score error, so noisy results within their own error bars
+#   do not fail the build.
+# - When both runs used -prof gc, allocation per operation (gc.alloc.rate.norm) must not grow by more
+#   than ALLOC_THRESHOLD percent (default: THRESHOLD) plus 16 bytes.
+# - Exits 1 if anything regressed. Benchmarks only present on one side are reported, not failed.
+
+THRESHOLD="${THRESHOLD:-10}"
+ALLOC_THRESHOLD="${ALLOC_THRESHOLD:-$THRESHOLD}"
+
+if [[ $# -ne 2 ]]; then
+  echo "[ERR] Usage: $0 <baseline.json> <current.json>" >&2
+  exit 2
+fi
+for tool in jq awk; do
+  if ! command -v "$tool" >/dev/null 2>&1; then
+    echo "[ERR] $tool is required in PATH" >&2
+    exit 2
+  fi
+done
+for file in "$1" "$2"; do
+  if [[ ! -s "$file" ]]; then
+    echo "[ERR] No JMH result at $file" >&2
+    exit 2
+  fi
+done
+
+# one line per benchmark: key, mode, score, error, unit, allocated bytes/op (empty without -prof gc)
+rows() {
+  jq -r '.[] | [
+      .benchmark + (if (.params // {}) == {} then "" else
+        " [" + (.params | to_entries | sort_by(.key) | map("\(.key)=\(.value)") | join(",")) + "]" end),
+      .mode,
+      .primaryMetric.score,
+      (.primaryMetric.scoreError | tostring),
+      .primaryMetric.scoreUnit,
+      (.secondaryMetrics["gc.alloc.rate.norm"].score // "" | tostring)
+    ] | @tsv' "$1"
+}
+
+awk -F'\t' -v threshold="$THRESHOLD" -v alloc_threshold="$ALLOC_THRESHOLD" '
+  function err(e) { return e ~ /^[0-9.eE+-]+$/ ? e + 0 : 0 }
+  NR == FNR { base[$1] = $3; base_err[$1] = err($4); base_alloc[$1] = $6; next }
+  {
+    key = $1; mode = $2; score = $3; unit = $5
+    seen[key] = 1
+    if (!(key in base)) { printf "[INFO] new       %s: %.3f %s\n", key, score, unit; next }
+    b = base[key]
+    change = b == 0 ? 0 : (score - b) * 100 / b
+    worse = mode == "thrpt" ? -change : change
+    noise = base_err[key] + err($4)
+    status = "ok"
+    if (worse > threshold && (score > b ? score - b : b - score) > noise) { status = "REGRESSED"; failed++ }
+    else if (worse < -threshold) { status = "improved" }
+    printf "[%s] %-9s %s: %.3f -> %.3f %s (%+.1f%%)\n", status == "REGRESSED" ? "FAIL" : "INFO", status, key, b, score, unit, change
+    if ($6 != "" && base_alloc[key] != "") {
+      ab = base_alloc[key] + 0; ac = $6 + 0
+      if (ac > ab * (1 + alloc_threshold / 100) + 16) {
+        printf "[FAIL] REGRESSED %s: allocation %.0f -> %.0f B/op\n", key, ab, ac
+        failed++
+      }
+    }
+  }
+  END {
+    for (key in base) if (!(key in seen)) printf "[WARN] missing   %s (in baseline only)\n", key
+    if (failed) { printf "[ERR] %d regression(s) beyond %s%%\n", failed, threshold; exit 1 }
+    printf "[INFO] No regressions beyond %s%%\n", threshold
+  }' <(rows "$1") <(rows "$2")
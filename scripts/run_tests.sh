@@ -10,6 +10,14 @@ MVN_IMAGE="maven:3.9.8-eclipse-temurin-17"
 # Reuse the local Maven repository for speed if available
 M2_DIR="$HOME/.m2"
 
+# Shared libraries the services depend on; installed into the local repository first
+install_libs() {
+    echo "[INFO] Installing shared instrumentation library"
+    mvn -B -q -f "$ROOT_DIR/libs/instrumentation/pom.xml" install -DskipTests
+    echo "[INFO] Installing shared service client library"
+    mvn -B -q -f "$ROOT_DIR/libs/service-client/pom.xml" install -DskipTests
+}
+
 run_tests() {
     local svc=$1
     echo "[INFO] Running tests (H2) for service: $svc"
@@ -27,6 +35,8 @@ run_tests() {
         -Dspring.datasource.driver-class-name=org.h2.Driver
 }
 
+install_libs
+
 if [[ -n "$SERVICE" ]]; then
     # Run tests for single service
     run_tests "$SERVICE"
@@ -0,0 +1,72 @@
+package com.sparkage.gateway.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fallback bodies per second during a retry storm, four threads answering at once: the Map that
+ * FallbackController used to build per call, encoded by the Jackson encoder WebFlux uses, against
+ * {@link FallbackResponses}. Both write into pooled Netty buffers, as the server does. A storm of
+ * 50k rps needs each body well under 20us of CPU on one core, next to the rest of the exchange.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class FallbackResponsesBenchmark {
+
+    private static final ResolvableType MAP = ResolvableType.forClass(Map.class);
+
+    private final NettyDataBufferFactory buffers = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper);
+    private final FallbackResponses responses = new FallbackResponses(List.of("identity", "product", "cart", "order", "payment"),
+            objectMapper, new SimpleMeterRegistry());
+
+    @Benchmark
+    public int encodedPerCall() {
+        Map<String, Object> body = Map.of(
+                "error", "Service Unavailable",
+                "message", "Product service is temporarily unavailable",
+                "timestamp", Instant.now().toString(),
+                "status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        DataBuffer buffer = encoder.encodeValue(body, buffers, MAP, MediaType.APPLICATION_JSON, null);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    @Benchmark
+    public int precomputed() {
+        DataBuffer buffer = responses.render("product", buffers);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
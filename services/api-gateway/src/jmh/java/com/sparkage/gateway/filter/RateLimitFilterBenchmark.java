@@ -0,0 +1,93 @@
+package com.sparkage.gateway.filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the gateway rate limiter per request: {@link RateLimitFilter.WindowCounter#allow} on its
+ * own, the same counter shared by four threads (one hot API key), and the whole filter including
+ * key resolution and the counter lookup over {@code keys} distinct API keys. Limits are set high
+ * enough that every request is admitted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    private RateLimitFilter.WindowCounter counter;
+
+    @State(Scope.Benchmark)
+    public static class SharedCounter {
+        final RateLimitFilter.WindowCounter counter = new RateLimitFilter.WindowCounter();
+    }
+
+    @State(Scope.Thread)
+    public static class Requests {
+        @Param({"1", "10000"})
+        int keys;
+
+        RateLimitFilter filter;
+        MockServerWebExchange[] exchanges;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            filter = new RateLimitFilter(UNLIMITED, UNLIMITED, 10);
+            exchanges = new MockServerWebExchange[keys];
+            for (int i = 0; i < keys; i++) {
+                exchanges[i] = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products")
+                        .header("X-API-Key", "key-" + i));
+            }
+        }
+
+        MockServerWebExchange next() {
+            MockServerWebExchange exchange = exchanges[next];
+            next = next + 1 == exchanges.length ? 0 : next + 1;
+            return exchange;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        counter = new RateLimitFilter.WindowCounter();
+    }
+
+    @Benchmark
+    public boolean windowCounter() {
+        return counter.allow(UNLIMITED, UNLIMITED);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean windowCounterShared(SharedCounter shared) {
+        return shared.counter.allow(UNLIMITED, UNLIMITED);
+    }
+
+    @Benchmark
+    public Void filter(Requests requests) {
+        return requests.filter.filter(requests.next(), CHAIN).block();
+    }
+}
@@ -0,0 +1,62 @@
+package com.sparkage.gateway.config;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Proxied bodies are never aggregated: each upstream read is a pooled Netty buffer that is handed
+ * to the client connection (through the compressor, if any) and released once written. This pins
+ * the pooled allocator on both sides and bounds how much of a body can sit in memory per
+ * connection: reads are sized adaptively between {@code read-min} and {@code read-max}, and once
+ * {@code write-high-water-mark} bytes are waiting for a slow client the channel turns unwritable,
+ * which stops reads from the upstream until it drains below {@code write-low-water-mark}.
+ */
+@Configuration
+public class GatewayBufferConfig {
+
+    private final int readMin;
+    private final int readInitial;
+    private final int readMax;
+    private final WriteBufferWaterMark waterMark;
+
+    public GatewayBufferConfig(
+            @Value("${gateway.buffers.read-min:1KB}") DataSize readMin,
+            @Value("${gateway.buffers.read-initial:16KB}") DataSize readInitial,
+            @Value("${gateway.buffers.read-max:64KB}") DataSize readMax,
+            @Value("${gateway.buffers.write-low-water-mark:32KB}") DataSize lowWaterMark,
+            @Value("${gateway.buffers.write-high-water-mark:128KB}") DataSize highWaterMark
+    ) {
+        this.readMin = (int) readMin.toBytes();
+        this.readInitial = (int) readInitial.toBytes();
+        this.readMax = (int) readMax.toBytes();
+        this.waterMark = new WriteBufferWaterMark((int) lowWaterMark.toBytes(), (int) highWaterMark.toBytes());
+    }
+
+    @Bean
+    public NettyServerCustomizer gatewayServerBuffers() {
+        return server -> server
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, recvAllocator())
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, waterMark);
+    }
+
+    @Bean
+    public HttpClientCustomizer gatewayClientBuffers() {
+        return client -> client
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.RCVBUF_ALLOCATOR, recvAllocator())
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, waterMark);
+    }
+
+    private AdaptiveRecvByteBufAllocator recvAllocator() {
+        return new AdaptiveRecvByteBufAllocator(readMin, readInitial, readMax);
+    }
+}
@@ -0,0 +1,60 @@
+package com.sparkage.gateway.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Response compression itself is Netty's ({@code server.compression.*}); this keeps it to a single
+ * negotiation at the edge. Upstream hops are asked for identity bodies, so services on the cluster
+ * network do not spend CPU compressing and the gateway never has to decode and re-encode, and
+ * every proxied response is marked as varying by {@code Accept-Encoding} for caches in front of us.
+ * <p>
+ * These are header filters rather than route filters on purpose: route filters edit the inbound
+ * request in place, which would hide the client's {@code Accept-Encoding} from the compressor too.
+ */
+@Configuration
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class GatewayCompressionConfig {
+
+    @Bean
+    public HttpHeadersFilter identityUpstreamEncoding() {
+        return (headers, exchange) -> {
+            if (!headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+                return headers;
+            }
+            HttpHeaders filtered = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (!HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name)) {
+                    filtered.put(name, values);
+                }
+            });
+            return filtered;
+        };
+    }
+
+    @Bean
+    public HttpHeadersFilter varyOnAcceptEncoding() {
+        return new HttpHeadersFilter() {
+            @Override
+            public HttpHeaders filter(HttpHeaders headers, ServerWebExchange exchange) {
+                boolean present = headers.getVary().stream().anyMatch(HttpHeaders.ACCEPT_ENCODING::equalsIgnoreCase);
+                if (present) {
+                    return headers;
+                }
+                HttpHeaders filtered = new HttpHeaders();
+                filtered.addAll(headers);
+                filtered.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                return filtered;
+            }
+
+            @Override
+            public boolean supports(Type type) {
+                return type == Type.RESPONSE;
+            }
+        };
+    }
+}
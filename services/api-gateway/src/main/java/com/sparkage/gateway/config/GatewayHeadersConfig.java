@@ -0,0 +1,40 @@
+package com.sparkage.gateway.config;
+
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Keeps the upstream's {@code Server} header from reaching clients. A header filter applies it as
+ * the proxied response is copied, where a RemoveResponseHeader route filter edits the headers after
+ * the chain completes, by which time a fallback, stale or shed answer has already committed them.
+ */
+@Configuration
+public class GatewayHeadersConfig {
+
+    @Bean
+    public HttpHeadersFilter hideUpstreamServer() {
+        return new HttpHeadersFilter() {
+            @Override
+            public HttpHeaders filter(HttpHeaders headers, ServerWebExchange exchange) {
+                if (!headers.containsKey(HttpHeaders.SERVER)) {
+                    return headers;
+                }
+                HttpHeaders filtered = new HttpHeaders();
+                headers.forEach((name, values) -> {
+                    if (!HttpHeaders.SERVER.equalsIgnoreCase(name)) {
+                        filtered.put(name, values);
+                    }
+                });
+                return filtered;
+            }
+
+            @Override
+            public boolean supports(Type type) {
+                return type == Type.RESPONSE;
+            }
+        };
+    }
+}
@@ -1,58 +1,32 @@
 package com.sparkage.gateway.controller;
 
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-import java.util.Map;
-
+/**
+ * Target of the CircuitBreaker fallbackUri and of requests shed by AdaptiveConcurrencyFilter:
+ * a 503 for any method, with the body precomputed by {@link FallbackResponses}.
+ */
 @RestController
 @RequestMapping("/fallback")
 public class FallbackController {
 
-    @GetMapping("/identity")
-    @PostMapping("/identity")
-    public Mono<ResponseEntity<Map<String, Object>>> identityFallback() {
-        return createFallbackResponse("Identity service is temporarily unavailable");
-    }
+    private final FallbackResponses responses;
 
-    @GetMapping("/product")
-    @PostMapping("/product")
-    public Mono<ResponseEntity<Map<String, Object>>> productFallback() {
-        return createFallbackResponse("Product service is temporarily unavailable");
+    public FallbackController(FallbackResponses responses) {
+        this.responses = responses;
     }
 
-    @GetMapping("/cart")
-    @PostMapping("/cart")
-    public Mono<ResponseEntity<Map<String, Object>>> cartFallback() {
-        return createFallbackResponse("Cart service is temporarily unavailable");
-    }
-
-    @GetMapping("/order")
-    @PostMapping("/order")
-    public Mono<ResponseEntity<Map<String, Object>>> orderFallback() {
-        return createFallbackResponse("Order service is temporarily unavailable");
-    }
-
-    @GetMapping("/payment")
-    @PostMapping("/payment")
-    public Mono<ResponseEntity<Map<String, Object>>> paymentFallback() {
-        return createFallbackResponse("Payment service is temporarily unavailable");
-    }
-
-    private Mono<ResponseEntity<Map<String, Object>>> createFallbackResponse(String message) {
-        Map<String, Object> response = Map.of(
-            "error", "Service Unavailable",
-            "message", message,
-            "timestamp", Instant.now().toString(),
-            "status", HttpStatus.SERVICE_UNAVAILABLE.value()
-        );
-
-        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response));
+    @RequestMapping("/{service}")
+    public Mono<Void> fallback(@PathVariable String service, ServerHttpResponse response) {
+        if (!responses.has(service)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }
+        return responses.write(service, response);
     }
 }
@@ -0,0 +1,130 @@
+package com.sparkage.gateway.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 503 bodies of {@link FallbackController}, serialized once per service at startup around a slot
+ * for the timestamp. The timestamp has second precision and its bytes are rebuilt only when the
+ * second changes, so answering a retry storm costs one copy into a buffer from the response's
+ * factory (pooled under Netty) and no JSON encoding.
+ */
+@Component
+public class FallbackResponses {
+
+    private static final String TIMESTAMP_SLOT = "@timestamp@";
+
+    private final Map<String, Template> templates = new LinkedHashMap<>();
+    private volatile Stamp stamp = new Stamp(Long.MIN_VALUE, new byte[0]);
+
+    public FallbackResponses(
+            @Value("${gateway.fallback.services:identity,product,cart,order,payment}") List<String> services,
+            ObjectMapper objectMapper,
+            MeterRegistry meters
+    ) {
+        for (String service : services) {
+            String name = service.substring(0, 1).toUpperCase(Locale.ROOT) + service.substring(1);
+            templates.put(service, new Template(objectMapper, name + " service is temporarily unavailable",
+                    Counter.builder("gateway.fallback.responses").tag("service", service).register(meters)));
+        }
+    }
+
+    boolean has(String service) {
+        return templates.containsKey(service);
+    }
+
+    Mono<Void> write(String service, ServerHttpResponse response) {
+        Template template = templates.get(service);
+        template.served.increment();
+        DataBuffer body = render(template, response.bufferFactory());
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.readableByteCount());
+        return response.writeWith(Mono.just(body));
+    }
+
+    DataBuffer render(String service, DataBufferFactory buffers) {
+        return render(templates.get(service), buffers);
+    }
+
+    private DataBuffer render(Template template, DataBufferFactory buffers) {
+        byte[] timestamp = timestamp();
+        DataBuffer body = buffers.allocateBuffer(template.prefix.length + timestamp.length + template.suffix.length);
+        return body.write(template.prefix).write(timestamp).write(template.suffix);
+    }
+
+    private byte[] timestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        Stamp current = stamp;
+        if (current.second != second) {
+            // Racing threads build the same bytes; whichever write lands is fine
+            current = new Stamp(second, Instant.ofEpochSecond(second).toString().getBytes(StandardCharsets.US_ASCII));
+            stamp = current;
+        }
+        return current.bytes;
+    }
+
+    private static final class Template {
+        final byte[] prefix;
+        final byte[] suffix;
+        final Counter served;
+
+        Template(ObjectMapper objectMapper, String message, Counter served) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", "Service Unavailable");
+            body.put("message", message);
+            body.put("timestamp", TIMESTAMP_SLOT);
+            body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(body);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize fallback body for " + message, e);
+            }
+            byte[] slot = TIMESTAMP_SLOT.getBytes(StandardCharsets.US_ASCII);
+            int at = indexOf(json, slot);
+            this.prefix = Arrays.copyOfRange(json, 0, at);
+            this.suffix = Arrays.copyOfRange(json, at + slot.length, json.length);
+            this.served = served;
+        }
+
+        private static int indexOf(byte[] haystack, byte[] needle) {
+            outer:
+            for (int i = 0; i <= haystack.length - needle.length; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (haystack[i + j] != needle[j]) continue outer;
+                }
+                return i;
+            }
+            throw new IllegalStateException("Timestamp slot not found in fallback body");
+        }
+    }
+
+    private static final class Stamp {
+        final long second;
+        final byte[] bytes;
+
+        Stamp(long second, byte[] bytes) {
+            this.second = second;
+            this.bytes = bytes;
+        }
+    }
+}
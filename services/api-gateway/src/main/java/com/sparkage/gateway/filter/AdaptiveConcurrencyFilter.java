@@ -0,0 +1,127 @@
+package com.sparkage.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limit per route for the routes in {@code gateway.concurrency.routes}. Each
+ * route gets an {@link AdaptiveConcurrencyLimit} fed with the latency of its proxied requests;
+ * a request over the limit is shed at once, forwarded to {@code /fallback/<route id>} (503 from
+ * {@code FallbackController}) with {@code Retry-After}, instead of queueing at an upstream that is
+ * already slowing down.
+ * <p>
+ * Runs after the route filters, so ResponseCache hits, coalesced followers and calls refused by an
+ * open circuit never take a permit, and latency covers the upstream exchange and writing the
+ * response. Calls that fail, answer 502/503/504 or are cancelled (a CircuitBreaker time limit, or
+ * the client giving up) count as drops.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    private final Set<String> routes;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Duration window;
+    private final int minWindowSamples;
+    private final ObjectProvider<DispatcherHandler> dispatcherHandler;
+    private final MeterRegistry meters;
+    private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyFilter(
+            @Value("${gateway.concurrency.routes:identity,product,cart,order,payment}") Set<String> routes,
+            @Value("${gateway.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${gateway.concurrency.min-limit:4}") int minLimit,
+            @Value("${gateway.concurrency.max-limit:500}") int maxLimit,
+            @Value("${gateway.concurrency.window:500ms}") Duration window,
+            @Value("${gateway.concurrency.min-window-samples:10}") int minWindowSamples,
+            // The dispatcher depends on the route handler mapping, which depends on the global filters
+            ObjectProvider<DispatcherHandler> dispatcherHandler,
+            MeterRegistry meters
+    ) {
+        this.routes = routes;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.window = window;
+        this.minWindowSamples = minWindowSamples;
+        this.dispatcherHandler = dispatcherHandler;
+        this.meters = meters;
+    }
+
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || !routes.contains(route.getId())) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+        AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(routeId, this::register);
+        int inFlight = limit.tryAcquire();
+        if (inFlight == 0) {
+            rejected.computeIfAbsent(routeId, id -> Counter.builder("gateway.concurrency.rejected")
+                    .tag("route", id).register(meters)).increment();
+            return shed(exchange, routeId);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    long now = System.nanoTime();
+                    // Cancelled is mostly the CircuitBreaker's time limit giving up on a stalled upstream
+                    boolean dropped = signal != SignalType.ON_COMPLETE || overloaded(exchange.getResponse().getStatusCode());
+                    limit.release(now - start, inFlight, dropped, now);
+                });
+    }
+
+    private AdaptiveConcurrencyLimit register(String routeId) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                window.toNanos(), minWindowSamples, System.nanoTime());
+        Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .tag("route", routeId).register(meters);
+        Gauge.builder("gateway.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("route", routeId).register(meters);
+        return limit;
+    }
+
+    /** Same forward the CircuitBreaker filter does for its fallbackUri. */
+    private Mono<Void> shed(ServerWebExchange exchange, String routeId) {
+        ServerWebExchangeUtils.reset(exchange);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        ServerHttpRequest request = exchange.getRequest().mutate().path("/fallback/" + routeId).build();
+        return dispatcherHandler.getObject().handle(exchange.mutate().request(request).build());
+    }
+
+    private static boolean overloaded(HttpStatusCode status) {
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+}
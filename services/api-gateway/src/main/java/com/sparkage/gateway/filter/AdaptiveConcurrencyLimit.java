@@ -0,0 +1,119 @@
+package com.sparkage.gateway.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP Vegas applied to one upstream: how many requests may be in flight, adjusted from the latency
+ * they see.
+ * <p>
+ * {@code rttNoLoad} is the lowest latency seen (re-probed every {@value #PROBE_WINDOWS} windows, so it
+ * can rise when the upstream gets slower for good). Once per window the average latency gives the
+ * estimated queue at the upstream, {@code limit * (1 - rttNoLoad / rtt)}: the limit grows while
+ * that queue is short, holds while it is moderate and shrinks when it is long. Dropped calls
+ * cut the limit by {@value #BACKOFF_RATIO}x, and windows that never
+ * used half of the limit leave it alone, since an idle upstream says nothing about its capacity.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final int PROBE_WINDOWS = 60;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Current window; guarded by this
+    private long windowStartNanos;
+    private int samples;
+    private long rttSumNanos;
+    private long rttMinNanos = Long.MAX_VALUE;
+    private int maxInFlight;
+    private boolean dropped;
+    private long rttNoLoadNanos;
+    private long windows;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long windowNanos, int minWindowSamples,
+                             long nowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.windowStartNanos = nowNanos;
+    }
+
+    /** Requests in flight including this one, or 0 when the limit is reached and it must be shed. */
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /** Ends a request and feeds its latency and outcome to the limit. */
+    void release(long rttNanos, int inFlightAtStart, boolean didDrop, long nowNanos) {
+        inFlight.decrementAndGet();
+        sample(rttNanos, inFlightAtStart, didDrop, nowNanos);
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void sample(long rttNanos, int inFlightAtStart, boolean didDrop, long nowNanos) {
+        samples++;
+        rttSumNanos += rttNanos;
+        rttMinNanos = Math.min(rttMinNanos, rttNanos);
+        maxInFlight = Math.max(maxInFlight, inFlightAtStart);
+        dropped |= didDrop;
+        if (samples < minWindowSamples || nowNanos - windowStartNanos < windowNanos) {
+            return;
+        }
+        update((double) rttSumNanos / samples);
+        windowStartNanos = nowNanos;
+        samples = 0;
+        rttSumNanos = 0;
+        rttMinNanos = Long.MAX_VALUE;
+        maxInFlight = 0;
+        dropped = false;
+    }
+
+    private void update(double rttNanos) {
+        windows++;
+        if (rttNoLoadNanos == 0 || rttMinNanos < rttNoLoadNanos || windows % PROBE_WINDOWS == 0) {
+            rttNoLoadNanos = rttMinNanos;
+        }
+        double current = limit;
+        double next;
+        if (dropped) {
+            next = current * BACKOFF_RATIO;
+        } else if (maxInFlight * 2 < current) {
+            return;
+        } else {
+            double log = Math.max(1, Math.log10(current));
+            double queue = current * (1 - rttNoLoadNanos / rttNanos);
+            if (queue <= log) {
+                next = current + 6 * log;
+            } else if (queue < 3 * log) {
+                next = current + log;
+            } else if (queue > 6 * log) {
+                next = current - log;
+            } else {
+                return;
+            }
+        }
+        limit = Math.max(minLimit, Math.min(next, maxLimit));
+    }
+}
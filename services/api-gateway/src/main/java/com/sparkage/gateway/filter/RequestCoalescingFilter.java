@@ -0,0 +1,200 @@
+package com.sparkage.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-flight for identical concurrent GETs on the routes in {@code gateway.coalescing.routes}:
+ * the first request for a key (the leader) goes upstream, requests for the same key that arrive
+ * while it is in flight (followers) wait for it and get a copy of its status, upstream headers and
+ * body; CORS headers and the CORS tokens of {@code Vary} stay the ones computed for each follower's
+ * own request.
+ * Keys are built like {@link ResponseCacheGatewayFilterFactory}'s, from route, path, sorted query
+ * and {@code key-headers}.
+ * <p>
+ * A follower stops waiting after {@code max-wait} and goes upstream on its own, as it does when the
+ * leader's response cannot be shared: over {@code max-body-size}, carrying {@code Set-Cookie} or
+ * {@code Cache-Control: private}, a 304, or never written (the leader failed or was cancelled).
+ * Requests with {@code Authorization} are never coalesced, nor are conditional ones
+ * ({@code If-None-Match}, {@code If-Modified-Since}): their answer may be a bodiless 304 that only
+ * means something to a caller holding the same copy. Nothing is kept once the leader's response is
+ * complete; reuse after that is the ResponseCache filter's job.
+ * <p>
+ * Runs after authentication and rate limiting, so every follower is still checked and counted, and
+ * ahead of the route filters, so a ResponseCache hit is shared like any other response.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    static final String COALESCED_HEADER = "X-Coalesced";
+    private static final SharedResponse UNSHAREABLE = new SharedResponse(null, null, null);
+
+    private final Set<String> routes;
+    private final Duration maxWait;
+    private final int maxBodySize;
+    private final List<String> keyHeaders;
+    private final MeterRegistry meters;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> requestCounters = new ConcurrentHashMap<>();
+
+    public RequestCoalescingFilter(
+            @Value("${gateway.coalescing.routes:product}") Set<String> routes,
+            @Value("${gateway.coalescing.max-wait:2s}") Duration maxWait,
+            @Value("${gateway.coalescing.max-body-size:1MB}") DataSize maxBodySize,
+            @Value("${gateway.coalescing.key-headers:Accept}") List<String> keyHeaders,
+            MeterRegistry meters
+    ) {
+        this.routes = routes;
+        this.maxWait = maxWait;
+        this.maxBodySize = (int) maxBodySize.toBytes();
+        this.keyHeaders = keyHeaders;
+        this.meters = meters;
+        Gauge.builder("gateway.coalescing.in.flight", inFlight, Map::size).register(meters);
+    }
+
+    @Override
+    public int getOrder() {
+        // Decorates the response, so must come before NettyWriteResponseFilter writes it
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || !routes.contains(route.getId()) || request.getMethod() != HttpMethod.GET
+                || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION) || isConditional(request.getHeaders())) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+        String key = ResponseCacheGatewayFilterFactory.cacheKey(routeId, request, keyHeaders);
+        Flight flight = new Flight();
+        Flight leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            count(routeId, "leader");
+            return lead(exchange, chain, key, flight);
+        }
+        return leader.result.asMono()
+                .timeout(maxWait)
+                .onErrorResume(TimeoutException.class, e -> Mono.just(UNSHAREABLE))
+                .flatMap(shared -> {
+                    if (shared == UNSHAREABLE) {
+                        count(routeId, "fallback");
+                        return chain.filter(exchange);
+                    }
+                    count(routeId, "follower");
+                    return write(exchange, shared);
+                });
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, String key, Flight flight) {
+        SharingResponse response = new SharingResponse(exchange.getResponse(), flight);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    inFlight.remove(key, flight);
+                    // Errors, cancellation and bodiless responses release the followers to go upstream
+                    flight.complete(UNSHAREABLE);
+                });
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, SharedResponse shared) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(shared.status);
+        ResponseCapture.replay(shared.headers, response.getHeaders());
+        response.getHeaders().set(COALESCED_HEADER, "true");
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body)));
+    }
+
+    private void count(String routeId, String result) {
+        requestCounters.computeIfAbsent(routeId + ':' + result, k -> Counter.builder("gateway.coalescing.requests")
+                .tag("route", routeId).tag("result", result).register(meters)).increment();
+    }
+
+    private static boolean isConditional(HttpHeaders headers) {
+        return headers.containsKey(HttpHeaders.IF_NONE_MATCH) || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    private boolean shareable(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() == HttpStatus.NOT_MODIFIED.value() || headers.containsKey(HttpHeaders.SET_COOKIE) || headers.getContentLength() > maxBodySize) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !cacheControl.toLowerCase(Locale.ROOT).contains("private");
+    }
+
+    private static final class Flight {
+        final Sinks.One<SharedResponse> result = Sinks.one();
+
+        void complete(SharedResponse response) {
+            // Only the first outcome counts; later attempts fail quietly
+            result.tryEmitValue(response);
+        }
+    }
+
+    private final class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final Flight flight;
+
+        SharingResponse(ServerHttpResponse delegate, Flight flight) {
+            super(delegate);
+            this.flight = flight;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (!shareable(status, getHeaders())) {
+                flight.complete(UNSHAREABLE);
+                return super.writeWith(body);
+            }
+            ResponseCapture capture = new ResponseCapture(getHeaders(), maxBodySize);
+            return super.writeWith(capture.tee(body)).doOnSuccess(done -> flight.complete(capture.isComplete()
+                    ? new SharedResponse(status, capture.getHeaders(), capture.getBody())
+                    : UNSHAREABLE));
+        }
+    }
+
+    private static final class SharedResponse {
+        final HttpStatusCode status;
+        final HttpHeaders headers;
+        final byte[] body;
+
+        SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
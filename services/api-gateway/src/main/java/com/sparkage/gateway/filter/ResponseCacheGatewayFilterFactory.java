@@ -0,0 +1,374 @@
+package com.sparkage.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves repeated GETs on a route from memory: {@code - name: ResponseCache, args: {ttl: 10s}}.
+ * <p>
+ * Entries hold status, upstream headers and body of 200 responses and are keyed by route, path,
+ * query parameters in sorted order and the values of {@code key-headers}. CORS headers and
+ * {@code Vary} are not stored: a hit keeps the ones computed for its own request's Origin. All routes share one store,
+ * bounded by {@code gateway.response-cache.max-size} of body bytes. Requests carrying
+ * {@code Authorization} and responses with {@code Set-Cookie}, {@code no-store} or {@code private}
+ * are never cached. {@code no-cache} from the upstream is left for clients to honour: the gateway
+ * runs on the upstream's behalf, and a ttl on the route is the decision to reuse its responses. A request with
+ * {@code Cache-Control: no-cache} skips the lookup and refreshes the entry. A successful POST, PUT,
+ * PATCH or DELETE through the route drops that route's entries.
+ * <p>
+ * Bodies are copied while they stream to the client, and entries are stored only once the whole
+ * body was written; bodies over {@code max-entry-size} and streamed media types pass through.
+ * <p>
+ * With {@code stale-if-error} an entry is kept that much longer after its ttl. A GET that misses
+ * then goes upstream as usual, but if the answer is a 500, 502, 503 or 504 (including the 503 of a
+ * CircuitBreaker fallback, when the circuit is open or the call timed out, or of a request shed by
+ * {@link AdaptiveConcurrencyFilter}) the stale entry is served in its place, marked
+ * {@code X-Cache: STALE} and with a {@code Warning: 110} header.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    static final String CACHE_HEADER = "X-Cache";
+    private static final Set<HttpMethod> WRITES = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+    private static final Set<Integer> STALE_IF = Set.of(500, 502, 503, 504);
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final Cache<String, CachedResponse> cache;
+    private final int maxEntrySize;
+    private final MeterRegistry meters;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<String, Counter> requestCounters = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCacheGatewayFilterFactory(
+            @Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${gateway.response-cache.max-entry-size:1MB}") DataSize maxEntrySize,
+            MeterRegistry meters
+    ) {
+        super(Config.class);
+        this.maxEntrySize = (int) maxEntrySize.toBytes();
+        this.meters = meters;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse value) -> value.body.length + key.length() + ENTRY_OVERHEAD)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return value.ttlNanos + value.staleNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return value.ttlNanos + value.staleNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((String key, CachedResponse value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) evictions.increment();
+                })
+                .build();
+        Gauge.builder("gateway.response.cache.entries", cache, Cache::estimatedSize).register(meters);
+        Gauge.builder("gateway.response.cache.size", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .baseUnit("bytes").register(meters);
+        FunctionCounter.builder("gateway.response.cache.evictions", evictions, LongAdder::sum).register(meters);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        long ttlNanos = config.getTtl().toNanos();
+        long staleNanos = config.getStaleIfError().toNanos();
+        List<String> keyHeaders = config.getKeyHeaders();
+        // Ahead of NettyWriteResponseFilter, so the body it writes goes through the decorated response
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String routeId = routeId(exchange);
+            if (WRITES.contains(request.getMethod())) {
+                // Before the response goes out, so the client cannot read its own write stale
+                ServerHttpResponse response = exchange.getResponse();
+                response.beforeCommit(() -> Mono.fromRunnable(() -> {
+                    HttpStatusCode status = response.getStatusCode();
+                    if (status != null && status.is2xxSuccessful()) invalidate(routeId);
+                }));
+                return chain.filter(exchange);
+            }
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            if (request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+                count(routeId, "bypass");
+                return chain.filter(exchange);
+            }
+            String key = cacheKey(routeId, request, keyHeaders);
+            CachedResponse stale = null;
+            if (!hasNoCache(request.getHeaders())) {
+                CachedResponse hit = cache.getIfPresent(key);
+                if (hit != null && hit.isFresh(System.nanoTime())) {
+                    count(routeId, "hit");
+                    return writeCached(exchange, hit);
+                }
+                stale = hit;
+            }
+            count(routeId, "miss");
+            exchange.getResponse().getHeaders().set(CACHE_HEADER, "MISS");
+            long generation = generation(routeId).get();
+            CachingResponse response = new CachingResponse(exchange.getResponse(), routeId, key, generation, ttlNanos,
+                    staleNanos, stale);
+            return chain.filter(exchange.mutate().response(response).build());
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    /**
+     * Route id, path as sent, query parameters sorted by name, then each key header's values.
+     * Names and values are percent-decoded and encoded again, so every spelling of a parameter
+     * shares an entry ({@code ?b=2&a=1} and {@code ?a=1&b=%32}) while an escaped {@code &} or
+     * {@code =} stays distinct from a real one ({@code ?a=1%26b%3D2} is not {@code ?a=1&b=2}).
+     */
+    static String cacheKey(String routeId, ServerHttpRequest request, List<String> keyHeaders) {
+        StringBuilder key = new StringBuilder(routeId).append(' ').append(request.getPath().value());
+        Map<String, List<String>> params = new TreeMap<>();
+        request.getQueryParams().forEach((name, values) -> {
+            List<String> canonical = params.computeIfAbsent(canonical(name), n -> new ArrayList<>());
+            for (String value : values) {
+                canonical.add(value != null ? canonical(value) : null);
+            }
+        });
+        char separator = '?';
+        for (Map.Entry<String, List<String>> param : params.entrySet()) {
+            for (String value : param.getValue()) {
+                key.append(separator).append(param.getKey());
+                if (value != null) key.append('=').append(value);
+                separator = '&';
+            }
+        }
+        for (String header : keyHeaders) {
+            key.append('\n').append(header.toLowerCase(Locale.ROOT)).append(':');
+            List<String> values = request.getHeaders().get(header);
+            if (values != null) key.append(String.join(",", values));
+        }
+        return key.toString();
+    }
+
+    private static String canonical(String component) {
+        return UriUtils.encode(UriUtils.decode(component, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    void invalidate(String routeId) {
+        generation(routeId).incrementAndGet();
+        String prefix = routeId + ' ';
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        ResponseCapture.replay(cached.headers, headers);
+        headers.set(CACHE_HEADER, "HIT");
+        headers.set(HttpHeaders.AGE, cached.age());
+        String etag = cached.headers.getETag();
+        if (etag != null && matches(exchange.getRequest().getHeaders().getIfNoneMatch(), etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body)));
+    }
+
+    private void store(String routeId, String key, long generation, CachedResponse entry) {
+        AtomicLong current = generation(routeId);
+        if (current.get() != generation) return;
+        cache.put(key, entry);
+        // A write may have invalidated the route while this entry was being put
+        if (current.get() != generation) cache.invalidate(key);
+    }
+
+    private AtomicLong generation(String routeId) {
+        return generations.computeIfAbsent(routeId, id -> new AtomicLong());
+    }
+
+    private void count(String routeId, String result) {
+        requestCounters.computeIfAbsent(routeId + ':' + result, k -> Counter.builder("gateway.response.cache.requests")
+                .tag("route", routeId).tag("result", result).register(meters)).increment();
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    private static boolean hasNoCache(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-cache");
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate)) return true;
+            String other = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (other.equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    private boolean storable(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        if (headers.getContentLength() > maxEntrySize) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return true;
+        }
+        String directives = cacheControl.toLowerCase(Locale.ROOT);
+        return !directives.contains("no-store") && !directives.contains("private");
+    }
+
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final String routeId;
+        private final String key;
+        private final long generation;
+        private final long ttlNanos;
+        private final long staleNanos;
+        private final CachedResponse stale;
+
+        CachingResponse(ServerHttpResponse delegate, String routeId, String key, long generation, long ttlNanos,
+                        long staleNanos, CachedResponse stale) {
+            super(delegate);
+            this.routeId = routeId;
+            this.key = key;
+            this.generation = generation;
+            this.ttlNanos = ttlNanos;
+            this.staleNanos = staleNanos;
+            this.stale = stale;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (stale != null && status != null && STALE_IF.contains(status.value())) {
+                return writeStale(body);
+            }
+            if (!storable(status, getHeaders())) {
+                return super.writeWith(body);
+            }
+            ResponseCapture capture = new ResponseCapture(getHeaders(), maxEntrySize);
+            return super.writeWith(capture.tee(body)).doOnSuccess(done -> {
+                if (capture.isComplete()) {
+                    store(routeId, key, generation, new CachedResponse(status, capture.getHeaders(), capture.getBody(),
+                            ttlNanos, staleNanos, System.nanoTime()));
+                }
+            });
+        }
+
+        /** Drops the error body (fallback JSON or the upstream's) and writes the stale entry instead. */
+        private Mono<Void> writeStale(Publisher<? extends DataBuffer> errorBody) {
+            count(routeId, "stale");
+            HttpHeaders headers = getHeaders();
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            headers.remove(HttpHeaders.RETRY_AFTER);
+            ResponseCapture.replay(stale.headers, headers);
+            headers.set(CACHE_HEADER, "STALE");
+            headers.set(HttpHeaders.AGE, stale.age());
+            headers.set(HttpHeaders.WARNING, STALE_WARNING);
+            setStatusCode(stale.status);
+            return Flux.from(errorBody).doOnNext(DataBufferUtils::release)
+                    .then(super.writeWith(Mono.fromSupplier(() -> bufferFactory().wrap(stale.body))));
+        }
+    }
+
+    private static final class CachedResponse {
+        final HttpStatusCode status;
+        final HttpHeaders headers;
+        final byte[] body;
+        final long ttlNanos;
+        final long staleNanos;
+        final long storedAtNanos;
+
+        CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, long ttlNanos, long staleNanos,
+                       long storedAtNanos) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.ttlNanos = ttlNanos;
+            this.staleNanos = staleNanos;
+            this.storedAtNanos = storedAtNanos;
+        }
+
+        boolean isFresh(long nowNanos) {
+            return nowNanos - storedAtNanos < ttlNanos;
+        }
+
+        String age() {
+            return String.valueOf(Duration.ofNanos(System.nanoTime() - storedAtNanos).toSeconds());
+        }
+    }
+
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(10);
+        private Duration staleIfError = Duration.ZERO;
+        private List<String> keyHeaders = List.of(HttpHeaders.ACCEPT);
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+        public Duration getStaleIfError() { return staleIfError; }
+        public void setStaleIfError(Duration staleIfError) { this.staleIfError = staleIfError; }
+        public List<String> getKeyHeaders() { return keyHeaders; }
+        public void setKeyHeaders(List<String> keyHeaders) { this.keyHeaders = keyHeaders; }
+    }
+}
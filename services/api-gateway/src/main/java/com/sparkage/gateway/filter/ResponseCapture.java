@@ -0,0 +1,111 @@
+package com.sparkage.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Copy of a response for replaying to other callers, taken as it is written: the upstream headers
+ * when the body starts, and the body bytes teed off the buffers as they stream to the client, up
+ * to {@code maxSize}. Used by {@link ResponseCacheGatewayFilterFactory} and
+ * {@link RequestCoalescingFilter}; read {@link #getBody()} only once the write has completed.
+ */
+final class ResponseCapture {
+
+    // Hop-by-hop, or set by the gateway for the request at hand
+    private static final Set<String> PER_REQUEST_HEADERS = Set.of(
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT),
+            ResponseCacheGatewayFilterFactory.CACHE_HEADER.toLowerCase(Locale.ROOT));
+
+    // Vary tokens added with the CORS headers; the rest (Accept-Encoding, Accept) describe the body
+    private static final Set<String> CORS_VARY = Set.of(
+            HttpHeaders.ORIGIN.toLowerCase(Locale.ROOT),
+            HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD.toLowerCase(Locale.ROOT),
+            HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS.toLowerCase(Locale.ROOT));
+
+    private final HttpHeaders headers = new HttpHeaders();
+    private final ByteArrayOutputStream body;
+    private final int maxSize;
+    private boolean tooLarge;
+
+    ResponseCapture(HttpHeaders responseHeaders, int maxSize) {
+        responseHeaders.forEach((name, values) -> {
+            if (isUpstreamHeader(name)) headers.put(name, List.copyOf(values));
+        });
+        List<String> vary = new ArrayList<>();
+        for (String token : responseHeaders.getVary()) {
+            if (!CORS_VARY.contains(token.toLowerCase(Locale.ROOT))) vary.add(token);
+        }
+        if (!vary.isEmpty()) headers.setVary(vary);
+        long length = responseHeaders.getContentLength();
+        this.body = new ByteArrayOutputStream(length > 0 ? (int) Math.min(length, maxSize) : 8192);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Whether a response header belongs to the upstream's answer and so may be replayed to other
+     * callers. CORS headers depend on the caller's Origin (with credentials, Access-Control-Allow-Origin
+     * echoes it), so each response keeps the ones the gateway computed for its own request. Vary is
+     * taken apart separately: only its CORS tokens are per request.
+     */
+    private static boolean isUpstreamHeader(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return !PER_REQUEST_HEADERS.contains(lower) && !lower.startsWith("access-control-")
+                && !HttpHeaders.VARY.equalsIgnoreCase(name);
+    }
+
+    /**
+     * Writes captured headers onto a response, adding their Vary tokens to the ones already set for
+     * this request instead of replacing them.
+     */
+    static void replay(HttpHeaders captured, HttpHeaders target) {
+        List<String> vary = new ArrayList<>(target.getVary());
+        captured.forEach((name, values) -> {
+            if (!HttpHeaders.VARY.equalsIgnoreCase(name)) target.put(name, values);
+        });
+        for (String token : captured.getVary()) {
+            if (vary.stream().noneMatch(token::equalsIgnoreCase)) vary.add(token);
+        }
+        if (!vary.isEmpty()) target.setVary(vary);
+    }
+
+    /** {@code body} unchanged, copying each buffer's readable bytes without moving its read position. */
+    Flux<DataBuffer> tee(Publisher<? extends DataBuffer> body) {
+        return Flux.from(body).map(buffer -> {
+            if (!tooLarge) {
+                int count = buffer.readableByteCount();
+                if (this.body.size() + count > maxSize) {
+                    tooLarge = true;
+                } else {
+                    byte[] bytes = new byte[count];
+                    int position = buffer.readPosition();
+                    buffer.read(bytes);
+                    buffer.readPosition(position);
+                    this.body.write(bytes, 0, count);
+                }
+            }
+            return buffer;
+        });
+    }
+
+    /** False once the body outgrew {@code maxSize}; the copy is then incomplete. */
+    boolean isComplete() {
+        return !tooLarge;
+    }
+
+    HttpHeaders getHeaders() {
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    byte[] getBody() {
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,181 @@
+package com.sparkage.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chaos against an in-process upstream that can be told to stall: requests under a stalled prefix
+ * are accepted and never answered, like a service stuck on a lock or a dead database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "security.api-keys=itest",
+        "ratelimit.replenish-rate=1000",
+        "ratelimit.burst-capacity=1000",
+        "gateway.coalescing.enabled=false",
+        "gateway.concurrency.enabled=false",
+        "resilience4j.timelimiter.configs.default.timeout-duration=300ms",
+        "resilience4j.circuitbreaker.configs.default.sliding-window-size=4",
+        "resilience4j.circuitbreaker.configs.default.minimum-number-of-calls=4",
+        "resilience4j.circuitbreaker.configs.default.wait-duration-in-open-state=1m"
+    })
+@ExtendWith(OutputCaptureExtension.class)
+class GatewayCircuitBreakerIntegrationTest {
+
+    private static final Set<String> stalled = ConcurrentHashMap.newKeySet();
+    private static final Map<String, AtomicInteger> upstreamCalls = new ConcurrentHashMap<>();
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .route(req -> true, (req, res) -> {
+                        String prefix = req.uri().split("/")[1];
+                        upstreamCalls.computeIfAbsent(prefix, k -> new AtomicInteger()).incrementAndGet();
+                        if (stalled.contains(prefix)) {
+                            return Mono.never();
+                        }
+                        return res.header("Content-Type", "application/json").header("Server", "upstream")
+                                .sendString(Mono.just("{\"uri\":\"" + req.uri() + "\"}"));
+                    }))
+            .bindNow();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private WebClient client;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        String cart = "spring.cloud.gateway.routes[0]";
+        registry.add(cart + ".id", () -> "cart");
+        registry.add(cart + ".uri", () -> "http://localhost:" + upstream.port());
+        registry.add(cart + ".predicates[0]", () -> "Path=/api/cart/**");
+        registry.add(cart + ".filters[0]", () -> "StripPrefix=1");
+        registry.add(cart + ".filters[1].name", () -> "CircuitBreaker");
+        registry.add(cart + ".filters[1].args.name", () -> "cart-cb");
+        registry.add(cart + ".filters[1].args.fallbackUri", () -> "forward:/fallback/cart");
+
+        String product = "spring.cloud.gateway.routes[1]";
+        registry.add(product + ".id", () -> "product");
+        registry.add(product + ".uri", () -> "http://localhost:" + upstream.port());
+        registry.add(product + ".predicates[0]", () -> "Path=/api/product/**");
+        registry.add(product + ".filters[0]", () -> "StripPrefix=1");
+        registry.add(product + ".filters[1].name", () -> "ResponseCache");
+        registry.add(product + ".filters[1].args.ttl", () -> "200ms");
+        registry.add(product + ".filters[1].args.stale-if-error", () -> "1m");
+        registry.add(product + ".filters[2].name", () -> "CircuitBreaker");
+        registry.add(product + ".filters[2].args.name", () -> "product-cb");
+        registry.add(product + ".filters[2].args.fallbackUri", () -> "forward:/fallback/product");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void setup() {
+        client = WebClient.builder().baseUrl("http://localhost:" + port).defaultHeader("X-API-Key", "itest").build();
+    }
+
+    private ResponseEntity<String> get(String uri) {
+        return client.get().uri(uri).exchangeToMono(response -> response.toEntity(String.class)).block(Duration.ofSeconds(10));
+    }
+
+    private double breakerState(String name, String state) {
+        return meterRegistry.get("resilience4j.circuitbreaker.state").tags("name", name, "state", state).gauge().value();
+    }
+
+    @Test
+    void stalledUpstreamTimesOutToTheFallback_thenTheCircuitOpensAndStopsCallingIt(CapturedOutput output) {
+        ResponseEntity<String> healthy = get("/api/cart/items");
+        assertThat(healthy.getStatusCode().value()).isEqualTo(200);
+        assertThat(healthy.getHeaders().containsKey("Server")).isFalse();
+        assertThat(breakerState("cart-cb", "closed")).isEqualTo(1);
+        stalled.add("cart");
+
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            ResponseEntity<String> response = get("/api/cart/items");
+
+            assertThat(response.getStatusCode().value()).isEqualTo(503);
+            assertThat(response.getBody()).contains("Cart service is temporarily unavailable");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        }
+
+        // 3 timeouts out of the last 4 calls is over the 50% failure rate
+        assertThat(breakerState("cart-cb", "open")).isEqualTo(1);
+        int callsWhenOpened = upstreamCalls.get("cart").get();
+        long start = System.nanoTime();
+        ResponseEntity<String> shortCircuited = get("/api/cart/items");
+
+        assertThat(shortCircuited.getStatusCode().value()).isEqualTo(503);
+        assertThat(shortCircuited.getBody()).contains("Cart service is temporarily unavailable");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(300));
+        assertThat(upstreamCalls.get("cart").get()).isEqualTo(callsWhenOpened);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.not.permitted.calls").tags("name", "cart-cb")
+                .counter().count()).isGreaterThanOrEqualTo(1);
+        assertNoErrorsLogged(output);
+    }
+
+    @Test
+    void staleCachedGetsAreServedWhileTheUpstreamIsDown(CapturedOutput output) throws InterruptedException {
+        ResponseEntity<String> fresh = get("/api/product/items/1");
+        assertThat(fresh.getStatusCode().value()).isEqualTo(200);
+        Thread.sleep(300);
+        stalled.add("product");
+
+        // Past its ttl the entry is not a hit any more, but beats the fallback once the call times out
+        ResponseEntity<String> stale = get("/api/product/items/1");
+        assertThat(stale.getStatusCode().value()).isEqualTo(200);
+        assertThat(stale.getBody()).isEqualTo(fresh.getBody());
+        assertThat(stale.getHeaders().getFirst("X-Cache")).isEqualTo("STALE");
+        assertThat(stale.getHeaders().getFirst("Warning")).startsWith("110");
+        assertThat(stale.getHeaders().getFirst("Retry-After")).isNull();
+
+        // Nothing cached for this one, so the fallback answers
+        ResponseEntity<String> uncached = get("/api/product/items/2");
+        assertThat(uncached.getStatusCode().value()).isEqualTo(503);
+        assertThat(uncached.getBody()).contains("Product service is temporarily unavailable");
+
+        // Open circuit: no upstream call at all, and still the stale copy
+        get("/api/product/items/3");
+        assertThat(breakerState("product-cb", "open")).isEqualTo(1);
+        ResponseEntity<String> whileOpen = get("/api/product/items/1");
+        assertThat(whileOpen.getStatusCode().value()).isEqualTo(200);
+        assertThat(whileOpen.getHeaders().getFirst("X-Cache")).isEqualTo("STALE");
+        assertThat(meterRegistry.get("gateway.response.cache.requests").tags("route", "product", "result", "stale")
+                .counter().count()).isEqualTo(2);
+        assertNoErrorsLogged(output);
+    }
+
+    // Fallback and stale answers are complete responses, not failures surfacing after the fact
+    static void assertNoErrorsLogged(CapturedOutput output) {
+        assertThat(output.getAll()).doesNotContain(" ERROR ").doesNotContain("already committed");
+    }
+}
@@ -0,0 +1,200 @@
+package com.sparkage.gateway;
+
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import io.netty.handler.codec.compression.Brotli;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Proxies to an in-process upstream to check what goes on the wire: negotiated encodings, the
+ * size threshold, content types that are left alone, and that bodies stream through the gateway
+ * instead of being collected first.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "security.api-keys=itest",
+        "ratelimit.replenish-rate=1000",
+        "ratelimit.burst-capacity=1000",
+        "server.compression.min-response-size=1KB"
+    })
+class GatewayCompressionIntegrationTest {
+
+    private static final byte[] LARGE_JSON = json(2_000);
+    private static final byte[] SMALL_JSON = json(3);
+    private static final byte[] CHUNK = new byte[64 * 1024];
+    private static final int STREAM_CHUNKS = 64;
+    private static final AtomicReference<String> upstreamAcceptEncoding = new AtomicReference<>("unset");
+    private static final Sinks.Empty<Void> releaseStream = Sinks.empty();
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .get("/large", (req, res) -> {
+                        upstreamAcceptEncoding.set(req.requestHeaders().get("Accept-Encoding"));
+                        return res.header("Content-Type", "application/json")
+                                .header("Content-Length", String.valueOf(LARGE_JSON.length))
+                                .sendByteArray(Mono.just(LARGE_JSON));
+                    })
+                    .get("/small", (req, res) -> res.header("Content-Type", "application/json")
+                            .header("Content-Length", String.valueOf(SMALL_JSON.length))
+                            .sendByteArray(Mono.just(SMALL_JSON)))
+                    .get("/binary", (req, res) -> res.header("Content-Type", "application/octet-stream")
+                            .header("Content-Length", String.valueOf(LARGE_JSON.length))
+                            .sendByteArray(Mono.just(LARGE_JSON)))
+                    // First chunk right away, the rest only once the test has seen it arrive
+                    .get("/stream", (req, res) -> res.header("Content-Type", "application/octet-stream")
+                            .sendByteArray(Flux.concat(Mono.just(CHUNK),
+                                    releaseStream.asMono().thenMany(Flux.range(1, STREAM_CHUNKS - 1).map(i -> CHUNK))))))
+            .bindNow();
+
+    @LocalServerPort
+    int port;
+
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.gateway.routes[0].id", () -> "stub");
+        registry.add("spring.cloud.gateway.routes[0].uri", () -> "http://localhost:" + upstream.port());
+        registry.add("spring.cloud.gateway.routes[0].predicates[0]", () -> "Path=/api/stub/**");
+        registry.add("spring.cloud.gateway.routes[0].filters[0]", () -> "StripPrefix=2");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    // The default connector asks for gzip and decodes it transparently; this one shows the bytes as sent
+    @BeforeEach
+    void client() {
+        webTestClient = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build();
+    }
+
+    @Test
+    void gzipWhenRequested() throws Exception {
+        byte[] body = get("/api/stub/large", "gzip")
+                .expectHeader().valueEquals("Content-Encoding", "gzip")
+                .expectHeader().values("Vary", vary -> assertThat(vary).contains("Accept-Encoding"))
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertThat(body.length).isLessThan(LARGE_JSON.length / 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(in.readAllBytes()).isEqualTo(LARGE_JSON);
+        }
+        // The upstream hop is not asked to compress; the gateway does it once for the client
+        assertThat(upstreamAcceptEncoding.get()).isNull();
+    }
+
+    @Test
+    void brotliPreferredWhenAvailable() throws Exception {
+        assumeTrue(Brotli.isAvailable(), "Brotli native library not available on this platform");
+        byte[] body = get("/api/stub/large", "gzip, deflate, br")
+                .expectHeader().valueEquals("Content-Encoding", "br")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertThat(body.length).isLessThan(LARGE_JSON.length / 4);
+        assertThat(Decoder.decompress(body).getDecompressedData()).isEqualTo(LARGE_JSON);
+    }
+
+    @Test
+    void identityWithoutAcceptEncoding() {
+        byte[] body = get("/api/stub/large", null)
+                .expectHeader().doesNotExist("Content-Encoding")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertThat(body).isEqualTo(LARGE_JSON);
+    }
+
+    @Test
+    void smallResponsesAreNotCompressed() {
+        byte[] body = get("/api/stub/small", "gzip, br")
+                .expectHeader().doesNotExist("Content-Encoding")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertThat(body).isEqualTo(SMALL_JSON);
+    }
+
+    @Test
+    void nonTextContentIsNotCompressed() {
+        get("/api/stub/binary", "gzip, br")
+                .expectHeader().doesNotExist("Content-Encoding")
+                .expectHeader().contentLength(LARGE_JSON.length);
+    }
+
+    @Test
+    void bodyStreamsThroughWithoutBeingCollected() throws Exception {
+        CountDownLatch firstChunk = new CountDownLatch(1);
+        AtomicLong received = new AtomicLong();
+        CompletableFuture<Void> done = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build()
+                .get().uri("/api/stub/stream")
+                .header("X-API-Key", "itest")
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .doOnNext(buffer -> {
+                    received.addAndGet(buffer.readableByteCount());
+                    DataBufferUtils.release(buffer);
+                    firstChunk.countDown();
+                })
+                .then()
+                .toFuture();
+
+        // The upstream is still holding back the rest of the body, so anything seen here was forwarded as it arrived
+        assertThat(firstChunk.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(done).isNotDone();
+
+        releaseStream.tryEmitEmpty();
+        done.get(30, TimeUnit.SECONDS);
+        assertThat(received.get()).isEqualTo((long) CHUNK.length * STREAM_CHUNKS);
+    }
+
+    private WebTestClient.ResponseSpec get(String path, String acceptEncoding) {
+        WebTestClient.RequestHeadersSpec<?> request = webTestClient.get().uri(path).header("X-API-Key", "itest");
+        if (acceptEncoding != null) {
+            request = request.header("Accept-Encoding", acceptEncoding);
+        }
+        return request.exchange().expectStatus().isOk();
+    }
+
+    private static byte[] json(int items) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(i)
+                    .append(",\"name\":\"Product ").append(i)
+                    .append("\",\"description\":\"Sample catalog entry\",\"price\":19.99,\"stock\":")
+                    .append(i % 50).append('}');
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
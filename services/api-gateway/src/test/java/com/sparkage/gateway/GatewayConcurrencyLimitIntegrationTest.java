@@ -0,0 +1,188 @@
+package com.sparkage.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Closed-loop overload against an in-process upstream that behaves like a service with a few
+ * workers: every request costs {@code BASE_LATENCY}, multiplied by how many requests it shares the
+ * workers with, so latency grows with concurrency. "product" is limited, "cart" is not.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "security.api-keys=itest",
+        "ratelimit.replenish-rate=100000",
+        "ratelimit.burst-capacity=100000",
+        "gateway.coalescing.enabled=false",
+        "gateway.concurrency.routes=product",
+        "gateway.concurrency.initial-limit=20",
+        "gateway.concurrency.min-limit=2",
+        "gateway.concurrency.window=200ms"
+    })
+@ExtendWith(OutputCaptureExtension.class)
+class GatewayConcurrencyLimitIntegrationTest {
+
+    private static final Duration BASE_LATENCY = Duration.ofMillis(50);
+    private static final int WORKERS = 2;
+    private static final int CLIENTS = 32;
+    private static final Duration LOAD = Duration.ofSeconds(5);
+
+    private static final Map<String, AtomicInteger> upstreamInFlight = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> upstreamPeak = new ConcurrentHashMap<>();
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .route(req -> true, (req, res) -> {
+                        String route = req.uri().startsWith("/product") ? "product" : "cart";
+                        AtomicInteger inFlight = upstreamInFlight.computeIfAbsent(route, k -> new AtomicInteger());
+                        int concurrent = inFlight.incrementAndGet();
+                        upstreamPeak.computeIfAbsent(route, k -> new AtomicInteger()).accumulateAndGet(concurrent, Math::max);
+                        Duration latency = BASE_LATENCY.multipliedBy(Math.max(1, (concurrent + WORKERS - 1) / WORKERS));
+                        return res.header("Content-Type", "application/json")
+                                .sendString(Mono.just("{}").delayElement(latency).doFinally(s -> inFlight.decrementAndGet()));
+                    }))
+            .bindNow();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private WebClient client;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        route(registry, 0, "product");
+        route(registry, 1, "cart");
+    }
+
+    private static void route(DynamicPropertyRegistry registry, int index, String id) {
+        String route = "spring.cloud.gateway.routes[" + index + "]";
+        registry.add(route + ".id", () -> id);
+        registry.add(route + ".uri", () -> "http://localhost:" + upstream.port());
+        registry.add(route + ".predicates[0]", () -> "Path=/api/" + id + "/**");
+        registry.add(route + ".filters[0]", () -> "StripPrefix=1");
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    private static boolean warm;
+
+    @BeforeEach
+    void setup() {
+        client = WebClient.builder().baseUrl("http://localhost:" + port).defaultHeader("X-API-Key", "itest").build();
+        if (!warm) {
+            // A cold gateway on a small machine is slower than the upstream it fronts
+            load("GET", "/api/cart/carts/0", Duration.ofSeconds(3));
+            Flux.range(0, 200).flatMap(i -> call("GET", "/fallback/product"), 8).blockLast();
+            // Light traffic first, so the limit knows the product upstream's unloaded latency
+            Flux.range(0, 20).concatMap(i -> call("GET", "/api/product/items/0")).blockLast();
+            upstreamPeak.clear();
+            warm = true;
+        }
+    }
+
+    /** Each client sends its next request as soon as the previous one is answered. */
+    private List<Timed> load(String method, String uri, Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+        return Flux.range(0, CLIENTS)
+                .flatMap(c -> Flux.defer(() -> call(method, uri))
+                        // shed answers come back immediately; back off a little, as Retry-After asks
+                        .delayUntil(t -> t.status() == 503 ? Mono.delay(Duration.ofMillis(100)) : Mono.empty())
+                        .repeat(() -> System.nanoTime() < end), CLIENTS)
+                .collectList()
+                .block(duration.plusSeconds(20));
+    }
+
+    private Mono<Timed> call(String method, String uri) {
+        long start = System.nanoTime();
+        return client.method(HttpMethod.valueOf(method)).uri(uri)
+                .exchangeToMono(response -> response.toEntity(String.class))
+                .map(response -> new Timed(response, Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    @Test
+    void overloadIsShedWithFallbackResponses_andUpstreamConcurrencyStaysNearItsCapacity(CapturedOutput output) {
+        List<Timed> limited = load("GET", "/api/product/items/1", LOAD);
+        List<Timed> unlimited = load("GET", "/api/cart/carts/1", LOAD);
+
+        // Without a limit the clients pile up at the upstream
+        assertThat(upstreamPeak.get("cart").get()).isGreaterThan(upstreamPeak.get("product").get());
+        assertThat(unlimited).allSatisfy(t -> assertThat(t.status()).isEqualTo(200));
+
+        // With one it sees about the initial limit at most, and the limit moves down from there
+        assertThat(upstreamPeak.get("product").get()).isLessThanOrEqualTo(22);
+        double limit = meterRegistry.get("gateway.concurrency.limit").tags("route", "product").gauge().value();
+        assertThat(limit).isLessThan(12);
+
+        List<Timed> shed = limited.stream().filter(t -> t.status() == 503).toList();
+        assertThat(shed).isNotEmpty().allSatisfy(t -> {
+            assertThat(t.response().getBody()).contains("Product service is temporarily unavailable");
+            assertThat(t.response().getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        });
+        assertThat(meterRegistry.get("gateway.concurrency.rejected").tags("route", "product").counter().count())
+                .isEqualTo(shed.size());
+        assertThat(limited).filteredOn(t -> t.status() == 200).isNotEmpty();
+
+        // Rejections are fast, and admitted requests wait far less than everyone does without the limit
+        assertThat(median(shed)).isLessThan(median(unlimited));
+        assertThat(median(limited.stream().filter(t -> t.status() == 200).toList())).isLessThan(median(unlimited));
+        GatewayCircuitBreakerIntegrationTest.assertNoErrorsLogged(output);
+    }
+
+    @Test
+    void shedPostsAreAnsweredByTheFallbackToo(CapturedOutput output) {
+        List<Timed> responses = load("POST", "/api/product/items", Duration.ofSeconds(2));
+
+        assertThat(responses).filteredOn(t -> t.status() == 503).isNotEmpty()
+                .allSatisfy(t -> assertThat(t.response().getBody()).contains("Product service is temporarily unavailable"));
+        GatewayCircuitBreakerIntegrationTest.assertNoErrorsLogged(output);
+    }
+
+    private static Duration median(List<Timed> timings) {
+        return timings.stream().map(Timed::elapsed).sorted().toList().get(timings.size() / 2);
+    }
+
+    private static final class Timed {
+        final ResponseEntity<String> response;
+        final Duration elapsed;
+
+        Timed(ResponseEntity<String> response, Duration elapsed) {
+            this.response = response;
+            this.elapsed = elapsed;
+        }
+
+        ResponseEntity<String> response() { return response; }
+        Duration elapsed() { return elapsed; }
+        int status() { return response.getStatusCode().value(); }
+    }
+}
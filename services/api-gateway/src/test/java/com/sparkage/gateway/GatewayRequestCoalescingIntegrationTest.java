@@ -0,0 +1,198 @@
+package com.sparkage.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Thundering herds through the gateway against an in-process upstream that answers slowly and
+ * counts how often each URI reaches it. Each test uses its own query string so the counts do not mix.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "security.api-keys=itest",
+        "ratelimit.replenish-rate=1000",
+        "ratelimit.burst-capacity=1000",
+        "gateway.coalescing.routes=herd",
+        "gateway.coalescing.max-wait=1500ms",
+        "spring.cloud.gateway.globalcors.cors-configurations.[/**].allowed-origins=",
+        "spring.cloud.gateway.globalcors.cors-configurations.[/**].allowed-origin-patterns=https://*.example.com",
+        "spring.cloud.gateway.globalcors.cors-configurations.[/**].allow-credentials=true"
+    })
+class GatewayRequestCoalescingIntegrationTest {
+
+    private static final Duration UPSTREAM_DELAY = Duration.ofMillis(800);
+    private static final Map<String, AtomicInteger> upstreamCalls = new ConcurrentHashMap<>();
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .get("/items/{id}", (req, res) -> {
+                        int call = calls(req.uri()).incrementAndGet();
+                        return res.header("Content-Type", "application/json")
+                                .sendString(Mono.just("{\"id\":" + req.param("id") + ",\"call\":" + call + "}").delayElement(UPSTREAM_DELAY));
+                    })
+                    .get("/versioned", (req, res) -> {
+                        calls(req.uri()).incrementAndGet();
+                        if (req.requestHeaders().contains("If-None-Match")) {
+                            return Mono.delay(UPSTREAM_DELAY).then(res.status(304).header("ETag", "\"v1\"").send());
+                        }
+                        return res.header("ETag", "\"v1\"")
+                                .sendString(Mono.just("{\"v\":1}").delayElement(UPSTREAM_DELAY));
+                    })
+                    .get("/private", (req, res) -> {
+                        calls(req.uri()).incrementAndGet();
+                        return res.header("Cache-Control", "private")
+                                .sendString(Mono.just("{}").delayElement(UPSTREAM_DELAY));
+                    })
+                    .get("/slow", (req, res) -> {
+                        calls(req.uri()).incrementAndGet();
+                        return res.sendString(Mono.just("{}").delayElement(Duration.ofSeconds(3)));
+                    }))
+            .bindNow();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private WebClient client;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        route(registry, 0, "herd");
+        route(registry, 1, "plain");
+    }
+
+    private static void route(DynamicPropertyRegistry registry, int index, String id) {
+        String route = "spring.cloud.gateway.routes[" + index + "]";
+        registry.add(route + ".id", () -> id);
+        registry.add(route + ".uri", () -> "http://localhost:" + upstream.port());
+        registry.add(route + ".predicates[0]", () -> "Path=/api/" + id + "/**");
+        registry.add(route + ".filters[0]", () -> "StripPrefix=2");
+    }
+
+    private static AtomicInteger calls(String uri) {
+        return upstreamCalls.computeIfAbsent(uri, k -> new AtomicInteger());
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @BeforeEach
+    void warmUp() {
+        client = WebClient.builder().baseUrl("http://localhost:" + port).defaultHeader("X-API-Key", "itest").build();
+        // First requests through a fresh gateway are slow enough to spread a herd over the upstream delay
+        herd(2, "/api/herd/items/0?t=warmup");
+    }
+
+    private List<ResponseEntity<String>> herd(int size, String uri) {
+        return Flux.range(0, size)
+                .flatMap(i -> client.get().uri(uri).retrieve().toEntity(String.class), size)
+                .collectList()
+                .block(Duration.ofSeconds(20));
+    }
+
+    @Test
+    void identicalConcurrentGetsShareOneUpstreamCall() {
+        List<ResponseEntity<String>> responses = herd(40, "/api/herd/items/1?t=herd");
+
+        assertThat(upstreamCalls.get("/items/1?t=herd").get()).isEqualTo(1);
+        assertThat(responses).allSatisfy(response -> {
+            assertThat(response.getStatusCode().value()).isEqualTo(200);
+            assertThat(response.getBody()).isEqualTo("{\"id\":1,\"call\":1}");
+        });
+        assertThat(responses).filteredOn(r -> "true".equals(r.getHeaders().getFirst("X-Coalesced"))).hasSize(39);
+        assertThat(meterRegistry.get("gateway.coalescing.requests").tags("route", "herd", "result", "follower")
+                .counter().count()).isGreaterThanOrEqualTo(39);
+    }
+
+    @Test
+    void followersKeepTheCorsHeadersOfTheirOwnOrigin() {
+        List<Map.Entry<String, ResponseEntity<String>>> responses = Flux.range(0, 6)
+                .map(i -> "https://" + (char) ('a' + i % 3) + ".example.com")
+                .flatMap(origin -> client.get().uri("/api/herd/items/1?t=cors").header("Origin", origin)
+                        .retrieve().toEntity(String.class).map(response -> Map.entry(origin, response)), 6)
+                .collectList()
+                .block(Duration.ofSeconds(20));
+
+        assertThat(upstreamCalls.get("/items/1?t=cors").get()).isEqualTo(1);
+        assertThat(responses).allSatisfy(entry -> assertThat(entry.getValue().getHeaders().get("Access-Control-Allow-Origin"))
+                .containsExactly(entry.getKey()));
+        assertThat(responses).allSatisfy(entry -> assertThat(entry.getValue().getHeaders().getVary())
+                .contains("Origin", "Accept-Encoding").doesNotHaveDuplicates());
+    }
+
+    @Test
+    void conditionalLeaderDoesNotHandItsNotModifiedToFollowers() {
+        Mono<ResponseEntity<String>> conditional = client.get().uri("/api/herd/versioned?t=conditional")
+                .header("If-None-Match", "\"v1\"")
+                .exchangeToMono(response -> response.toEntity(String.class));
+        // Followers without a validator arrive while the conditional request is upstream
+        Flux<ResponseEntity<String>> plain = Flux.range(0, 3)
+                .flatMap(i -> client.get().uri("/api/herd/versioned?t=conditional").retrieve().toEntity(String.class))
+                .delaySubscription(Duration.ofMillis(200));
+        List<ResponseEntity<String>> responses = Flux.merge(conditional, plain).collectList().block(Duration.ofSeconds(20));
+
+        assertThat(responses).filteredOn(r -> r.getStatusCode().value() == 304).hasSize(1);
+        assertThat(responses).filteredOn(r -> r.getStatusCode().value() == 200).hasSize(3)
+                .allSatisfy(response -> assertThat(response.getBody()).isEqualTo("{\"v\":1}"));
+    }
+
+    @Test
+    void routesNotListedAreNotCoalesced() {
+        herd(10, "/api/plain/items/1?t=plain");
+
+        assertThat(upstreamCalls.get("/items/1?t=plain").get()).isEqualTo(10);
+    }
+
+    @Test
+    void differentRequestsAreNotCoalesced() {
+        Flux.merge(
+                client.get().uri("/api/herd/items/1?t=distinct").retrieve().toEntity(String.class),
+                client.get().uri("/api/herd/items/2?t=distinct").retrieve().toEntity(String.class),
+                client.get().uri("/api/herd/items/1?t=distinct").header("Accept", "text/plain").retrieve().toEntity(String.class))
+                .collectList().block(Duration.ofSeconds(20));
+
+        assertThat(upstreamCalls.get("/items/1?t=distinct").get()).isEqualTo(2);
+        assertThat(upstreamCalls.get("/items/2?t=distinct").get()).isEqualTo(1);
+    }
+
+    @Test
+    void privateResponsesAreNotShared() {
+        List<ResponseEntity<String>> responses = herd(5, "/api/herd/private?t=private");
+
+        assertThat(upstreamCalls.get("/private?t=private").get()).isEqualTo(5);
+        assertThat(responses).allSatisfy(response -> assertThat(response.getHeaders().containsKey("X-Coalesced")).isFalse());
+    }
+
+    @Test
+    void followersStopWaitingAfterMaxWait() {
+        List<ResponseEntity<String>> responses = herd(3, "/api/herd/slow?t=slow");
+
+        assertThat(responses).allSatisfy(response -> assertThat(response.getStatusCode().value()).isEqualTo(200));
+        assertThat(upstreamCalls.get("/slow?t=slow").get()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,223 @@
+package com.sparkage.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the ResponseCache route filter against an in-process upstream that counts how often each
+ * URI reaches it. Each test uses its own query string so the counts do not mix.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "security.api-keys=itest",
+        "ratelimit.replenish-rate=1000",
+        "ratelimit.burst-capacity=1000",
+        // As in production: the allowed origin is echoed back, so it differs per caller
+        "spring.cloud.gateway.globalcors.cors-configurations.[/**].allowed-origins=",
+        "spring.cloud.gateway.globalcors.cors-configurations.[/**].allowed-origin-patterns=https://*.example.com",
+        "spring.cloud.gateway.globalcors.cors-configurations.[/**].allow-credentials=true"
+    })
+class GatewayResponseCacheIntegrationTest {
+
+    private static final Map<String, AtomicInteger> upstreamCalls = new ConcurrentHashMap<>();
+    private static final AtomicInteger version = new AtomicInteger(1);
+    private static final DisposableServer upstream = HttpServer.create()
+            .port(0)
+            .route(routes -> routes
+                    .get("/items", (req, res) -> {
+                        int call = calls(req.uri()).incrementAndGet();
+                        String accept = req.requestHeaders().get("Accept", "");
+                        String body = "{\"call\":" + call + ",\"version\":" + version.get() + ",\"accept\":\"" + accept + "\"}";
+                        return res.header("Content-Type", "application/json")
+                                .header("ETag", "\"v" + version.get() + "\"")
+                                .header("Cache-Control", "no-cache")
+                                .sendString(Mono.just(body));
+                    })
+                    .post("/items", (req, res) -> {
+                        version.incrementAndGet();
+                        return res.status(201).send();
+                    })
+                    .get("/no-store", (req, res) -> {
+                        calls(req.uri()).incrementAndGet();
+                        return res.header("Cache-Control", "no-store").sendString(Mono.just("{}"));
+                    })
+                    .get("/cookie", (req, res) -> {
+                        calls(req.uri()).incrementAndGet();
+                        return res.header("Set-Cookie", "session=1").sendString(Mono.just("{}"));
+                    })
+                    .get("/missing", (req, res) -> {
+                        calls(req.uri()).incrementAndGet();
+                        return res.status(404).sendString(Mono.just("{}"));
+                    }))
+            .bindNow();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void routes(DynamicPropertyRegistry registry) {
+        route(registry, 0, "cached", "60s");
+        route(registry, 1, "short-lived", "300ms");
+    }
+
+    private static void route(DynamicPropertyRegistry registry, int index, String id, String ttl) {
+        String route = "spring.cloud.gateway.routes[" + index + "]";
+        registry.add(route + ".id", () -> id);
+        registry.add(route + ".uri", () -> "http://localhost:" + upstream.port());
+        registry.add(route + ".predicates[0]", () -> "Path=/api/" + id + "/**");
+        registry.add(route + ".filters[0]", () -> "StripPrefix=2");
+        registry.add(route + ".filters[1].name", () -> "ResponseCache");
+        registry.add(route + ".filters[1].args.ttl", () -> ttl);
+    }
+
+    private static AtomicInteger calls(String uri) {
+        return upstreamCalls.computeIfAbsent(uri, k -> new AtomicInteger());
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void repeatedGetIsServedFromCache() {
+        double hitsBefore = hits("cached");
+        EntityExchangeResult<String> first = get("/api/cached/items?page=1&size=20", null);
+        EntityExchangeResult<String> second = get("/api/cached/items?size=20&page=1", null);
+
+        assertThat(upstreamCalls.get("/items?page=1&size=20").get()).isEqualTo(1);
+        assertThat(first.getResponseHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(second.getResponseHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(second.getResponseHeaders().getFirst("Age")).isNotNull();
+        assertThat(second.getResponseHeaders().getETag()).isEqualTo(first.getResponseHeaders().getETag());
+        assertThat(second.getResponseBody()).isEqualTo(first.getResponseBody());
+        assertThat(hits("cached")).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    void acceptHeaderSeparatesEntries() {
+        String json = webTestClient.get().uri("/api/cached/items?t=accept").header("X-API-Key", "itest")
+                .header("Accept", "application/json").exchange().expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+        String text = webTestClient.get().uri("/api/cached/items?t=accept").header("X-API-Key", "itest")
+                .header("Accept", "text/plain").exchange().expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(upstreamCalls.get("/items?t=accept").get()).isEqualTo(2);
+        assertThat(json).contains("application/json");
+        assertThat(text).contains("text/plain");
+    }
+
+    @Test
+    void entriesExpireAfterTheRouteTtl() throws Exception {
+        get("/api/short-lived/items?t=ttl", null);
+        assertThat(get("/api/short-lived/items?t=ttl", null).getResponseHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+
+        Thread.sleep(600);
+        assertThat(get("/api/short-lived/items?t=ttl", null).getResponseHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(upstreamCalls.get("/items?t=ttl").get()).isEqualTo(2);
+    }
+
+    @Test
+    void uncacheableResponsesAlwaysGoUpstream() {
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get().uri("/api/cached/no-store").header("X-API-Key", "itest").exchange().expectStatus().isOk();
+            webTestClient.get().uri("/api/cached/cookie").header("X-API-Key", "itest").exchange().expectStatus().isOk();
+            webTestClient.get().uri("/api/cached/missing").header("X-API-Key", "itest").exchange().expectStatus().isNotFound();
+            webTestClient.get().uri("/api/cached/items?t=auth").header("X-API-Key", "itest")
+                    .header("Authorization", "Bearer user-" + i).exchange().expectStatus().isOk();
+        }
+
+        assertThat(upstreamCalls.get("/no-store").get()).isEqualTo(2);
+        assertThat(upstreamCalls.get("/cookie").get()).isEqualTo(2);
+        assertThat(upstreamCalls.get("/missing").get()).isEqualTo(2);
+        assertThat(upstreamCalls.get("/items?t=auth").get()).isEqualTo(2);
+    }
+
+    @Test
+    void writeThroughTheRouteDropsItsEntries() {
+        String before = get("/api/cached/items?t=write", null).getResponseBody();
+        get("/api/cached/items?t=write", null);
+
+        webTestClient.post().uri("/api/cached/items").header("X-API-Key", "itest").exchange().expectStatus().isCreated();
+
+        EntityExchangeResult<String> after = get("/api/cached/items?t=write", null);
+        assertThat(after.getResponseHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(after.getResponseBody()).isNotEqualTo(before);
+        assertThat(upstreamCalls.get("/items?t=write").get()).isEqualTo(2);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredFromCache() {
+        String etag = get("/api/cached/items?t=etag", null).getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/api/cached/items?t=etag").header("X-API-Key", "itest")
+                .header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("X-Cache", "HIT")
+                .expectHeader().valueEquals("ETag", etag);
+        assertThat(upstreamCalls.get("/items?t=etag").get()).isEqualTo(1);
+    }
+
+    @Test
+    void hitsCarryTheCorsHeadersOfTheirOwnOrigin() {
+        EntityExchangeResult<String> first = webTestClient.get().uri("/api/cached/items?t=cors").header("X-API-Key", "itest")
+                .header("Origin", "https://a.example.com").exchange().expectStatus().isOk()
+                .expectBody(String.class).returnResult();
+        EntityExchangeResult<String> second = webTestClient.get().uri("/api/cached/items?t=cors").header("X-API-Key", "itest")
+                .header("Origin", "https://b.example.com").exchange().expectStatus().isOk()
+                .expectBody(String.class).returnResult();
+
+        assertThat(second.getResponseHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(first.getResponseHeaders().get("Access-Control-Allow-Origin")).containsExactly("https://a.example.com");
+        assertThat(second.getResponseHeaders().get("Access-Control-Allow-Origin")).containsExactly("https://b.example.com");
+        assertThat(first.getResponseHeaders().getVary()).contains("Origin", "Accept-Encoding").doesNotHaveDuplicates();
+        assertThat(second.getResponseHeaders().getVary()).contains("Origin", "Accept-Encoding").doesNotHaveDuplicates();
+        assertThat(upstreamCalls.get("/items?t=cors").get()).isEqualTo(1);
+    }
+
+    @Test
+    void requestNoCacheRefreshesTheEntry() {
+        get("/api/cached/items?t=refresh", null);
+        EntityExchangeResult<String> refreshed = get("/api/cached/items?t=refresh", "no-cache");
+        EntityExchangeResult<String> cached = get("/api/cached/items?t=refresh", null);
+
+        assertThat(refreshed.getResponseHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(cached.getResponseHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(cached.getResponseBody()).isEqualTo(refreshed.getResponseBody());
+        assertThat(upstreamCalls.get("/items?t=refresh").get()).isEqualTo(2);
+    }
+
+    private EntityExchangeResult<String> get(String uri, String cacheControl) {
+        WebTestClient.RequestHeadersSpec<?> request = webTestClient.get().uri(uri).header("X-API-Key", "itest");
+        if (cacheControl != null) {
+            request = request.header("Cache-Control", cacheControl);
+        }
+        return request.exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+    }
+
+    private double hits(String route) {
+        var counter = meterRegistry.find("gateway.response.cache.requests").tag("route", route).tag("result", "hit").counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,55 @@
+package com.sparkage.gateway.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FallbackResponsesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FallbackResponses responses = new FallbackResponses(List.of("product", "cart"), objectMapper, registry);
+
+    @Test
+    void bodyIsTheJsonTheControllerUsedToEncode() throws Exception {
+        DataBuffer buffer = responses.render("product", DefaultDataBufferFactory.sharedInstance);
+        JsonNode body = objectMapper.readTree(buffer.toString(StandardCharsets.UTF_8));
+
+        assertThat(body.get("error").asText()).isEqualTo("Service Unavailable");
+        assertThat(body.get("message").asText()).isEqualTo("Product service is temporarily unavailable");
+        assertThat(body.get("status").asInt()).isEqualTo(503);
+        assertThat(Duration.between(Instant.parse(body.get("timestamp").asText()), Instant.now()))
+                .isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void writeSetsStatusHeadersAndCountsTheService() {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+
+        responses.write("cart", response).block();
+
+        assertThat(response.getStatusCode().value()).isEqualTo(503);
+        assertThat(response.getHeaders().getContentType().toString()).isEqualTo("application/json");
+        String body = response.getBodyAsString().block();
+        assertThat(body).contains("\"message\":\"Cart service is temporarily unavailable\"");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(body.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(registry.get("gateway.fallback.responses").tags("service", "cart").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyConfiguredServicesHaveAFallback() {
+        assertThat(responses.has("product")).isTrue();
+        assertThat(responses.has("payment")).isFalse();
+    }
+}
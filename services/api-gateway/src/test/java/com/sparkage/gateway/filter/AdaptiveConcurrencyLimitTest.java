@@ -0,0 +1,92 @@
+package com.sparkage.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private long now;
+
+    /** One full window of samples taken with the given latency and concurrency. */
+    private void window(AdaptiveConcurrencyLimit limit, long rttMillis, int inFlight, boolean dropped) {
+        now += WINDOW;
+        for (int i = 0; i < 10; i++) {
+            limit.sample(TimeUnit.MILLISECONDS.toNanos(rttMillis), inFlight, dropped, now);
+        }
+    }
+
+    @Test
+    void acquireStopsAtTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, WINDOW, 10, 0);
+
+        assertThat(limit.tryAcquire()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isEqualTo(2);
+        assertThat(limit.tryAcquire()).isZero();
+
+        limit.release(1, 2, false, 0);
+        assertThat(limit.tryAcquire()).isEqualTo(2);
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtTheBaseline() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 500, WINDOW, 10, 0);
+
+        for (int i = 0; i < 5; i++) {
+            window(limit, 10, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(40);
+    }
+
+    @Test
+    void shrinksWhenLatencyShowsAQueue() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 500, WINDOW, 10, 0);
+        window(limit, 10, 20, false);
+        int grown = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            window(limit, 50, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(grown).isLessThan(15);
+    }
+
+    @Test
+    void backsOffOnFailures() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 4, 500, WINDOW, 10, 0);
+
+        window(limit, 10, 1, true);
+
+        assertThat(limit.getLimit()).isEqualTo(90);
+    }
+
+    @Test
+    void ignoresWindowsThatUsedLessThanHalfTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 500, WINDOW, 10, 0);
+
+        window(limit, 10, 2, false);
+        window(limit, 500, 2, false);
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void staysWithinBounds() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 30, WINDOW, 10, 0);
+
+        for (int i = 0; i < 10; i++) {
+            window(limit, 10, limit.getLimit(), false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(30);
+
+        for (int i = 0; i < 50; i++) {
+            window(limit, 10, limit.getLimit(), true);
+        }
+        assertThat(limit.getLimit()).isEqualTo(4);
+    }
+}
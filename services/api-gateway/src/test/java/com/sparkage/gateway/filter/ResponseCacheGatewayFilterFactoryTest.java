@@ -0,0 +1,68 @@
+package com.sparkage.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final List<String> ACCEPT = List.of("Accept");
+
+    private static String key(MockServerHttpRequest request) {
+        return ResponseCacheGatewayFilterFactory.cacheKey("product", request, ACCEPT);
+    }
+
+    @Test
+    void queryParameterOrderAndEncodingDoNotSplitEntries() {
+        String a = key(MockServerHttpRequest.get("/api/products?category=tools&page=2&q=hand%20saw").build());
+        String b = key(MockServerHttpRequest.get("/api/products?q=hand%20saw&page=2&category=tools").build());
+        String c = key(MockServerHttpRequest.get("/api/products?page=%32&category=tools&q=hand%20saw").build());
+
+        assertThat(b).isEqualTo(a);
+        assertThat(c).isEqualTo(a);
+    }
+
+    @Test
+    void escapedDelimitersDoNotCollideWithRealOnes() {
+        String escaped = key(MockServerHttpRequest.get("/api/products?a=1%26b%3D2").build());
+        String split = key(MockServerHttpRequest.get("/api/products?a=1&b=2").build());
+        String escapedName = key(MockServerHttpRequest.get("/api/products?a%3D1").build());
+        String plain = key(MockServerHttpRequest.get("/api/products?a=1").build());
+        String sortedByDecodedName = key(MockServerHttpRequest.get("/api/products?%62=2&a=1").build());
+
+        assertThat(escaped).isNotEqualTo(split);
+        assertThat(escapedName).isNotEqualTo(plain);
+        assertThat(sortedByDecodedName).isEqualTo(split);
+    }
+
+    @Test
+    void repeatedParametersKeepTheirOrder() {
+        String a = key(MockServerHttpRequest.get("/api/products?id=1&id=2").build());
+        String b = key(MockServerHttpRequest.get("/api/products?id=2&id=1").build());
+
+        assertThat(a).isNotEqualTo(b);
+    }
+
+    @Test
+    void keyHeadersAndPathSeparateEntries() {
+        String json = key(MockServerHttpRequest.get("/api/products/1").header("Accept", "application/json").build());
+        String any = key(MockServerHttpRequest.get("/api/products/1").header("Accept", "*/*").build());
+        String none = key(MockServerHttpRequest.get("/api/products/1").build());
+        String other = key(MockServerHttpRequest.get("/api/products/2").header("Accept", "application/json").build());
+        String unlisted = key(MockServerHttpRequest.get("/api/products/1").header("Accept", "application/json")
+                .header("User-Agent", "curl").build());
+
+        assertThat(List.of(json, any, none, other)).doesNotHaveDuplicates();
+        assertThat(unlisted).isEqualTo(json);
+    }
+
+    @Test
+    void routeIsPartOfTheKey() {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/x").build();
+        assertThat(ResponseCacheGatewayFilterFactory.cacheKey("a", request, ACCEPT))
+                .isNotEqualTo(ResponseCacheGatewayFilterFactory.cacheKey("b", request, ACCEPT));
+    }
+}
@@ -0,0 +1,79 @@
+package com.sparkage.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCaptureTest {
+
+    private static final DefaultDataBufferFactory buffers = new DefaultDataBufferFactory();
+
+    private static Flux<DataBuffer> body(String... chunks) {
+        return Flux.fromArray(chunks).map(chunk -> buffers.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(DataBuffer buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void keepsUpstreamHeadersOnly() {
+        HttpHeaders response = new HttpHeaders();
+        response.add("Content-Type", "application/json");
+        response.add("ETag", "\"v1\"");
+        response.add("Access-Control-Allow-Origin", "https://a.example.com");
+        response.add("Access-Control-Allow-Credentials", "true");
+        response.add("Vary", "Origin, Access-Control-Request-Method");
+        response.add("Vary", "Accept-Encoding");
+        response.add("X-Cache", "MISS");
+        response.add("Transfer-Encoding", "chunked");
+
+        HttpHeaders captured = new ResponseCapture(response, 1024).getHeaders();
+
+        assertThat(captured.keySet()).containsExactlyInAnyOrder("Content-Type", "ETag", "Vary");
+        assertThat(captured.getVary()).containsExactly("Accept-Encoding");
+    }
+
+    @Test
+    void replayAddsVaryTokensToTheRequestsOwn() {
+        HttpHeaders captured = new HttpHeaders();
+        captured.add("Content-Type", "application/json");
+        captured.add("Vary", "Accept-Encoding");
+        HttpHeaders target = new HttpHeaders();
+        target.add("Vary", "Origin");
+        target.add("Vary", "accept-encoding");
+
+        ResponseCapture.replay(captured, target);
+
+        assertThat(target.getFirst("Content-Type")).isEqualTo("application/json");
+        assertThat(target.getVary()).containsExactly("Origin", "accept-encoding");
+    }
+
+    @Test
+    void copiesTheBodyWithoutConsumingIt() {
+        ResponseCapture capture = new ResponseCapture(new HttpHeaders(), 1024);
+
+        List<String> written = capture.tee(body("{\"id\":", "1}")).map(ResponseCaptureTest::read).collectList().block();
+
+        assertThat(written).containsExactly("{\"id\":", "1}");
+        assertThat(capture.isComplete()).isTrue();
+        assertThat(new String(capture.getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void stopsCopyingPastMaxSizeButPassesEverythingOn() {
+        ResponseCapture capture = new ResponseCapture(new HttpHeaders(), 4);
+
+        List<String> written = capture.tee(body("abc", "def")).map(ResponseCaptureTest::read).collectList().block();
+
+        assertThat(written).containsExactly("abc", "def");
+        assertThat(capture.isComplete()).isFalse();
+    }
+}
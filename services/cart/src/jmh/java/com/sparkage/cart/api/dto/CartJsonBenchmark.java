@@ -0,0 +1,62 @@
+package com.sparkage.cart.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the cart endpoints: writing a {@link CartResponse} of {@code items} lines and
+ * reading an {@link AddCartItemRequest}, with the mapper configured the way Spring Boot builds it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartJsonBenchmark {
+
+    @Param({"5", "50"})
+    int items;
+
+    private ObjectMapper mapper;
+    private CartResponse cart;
+    private byte[] addItemJson;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        List<CartItemResponse> lines = new ArrayList<>();
+        for (long id = 1; id <= items; id++) {
+            lines.add(new CartItemResponse(id, (int) (id % 5) + 1));
+        }
+        cart = new CartResponse(42L, lines);
+        addItemJson = "{\"productId\":1234,\"quantity\":3}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] writeCart() throws Exception {
+        return mapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public AddCartItemRequest readAddItem() throws Exception {
+        return mapper.readValue(addItemJson, AddCartItemRequest.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.sparkage.cart.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Cart#addOrUpdateItem} on a cart of {@code items} lines: bumping the quantity of an existing
+ * line (the last one, so the whole list is scanned) and adding a new line, which is removed again
+ * in the same operation so the cart keeps its size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"5", "50"})
+    int items;
+
+    private Cart cart;
+    private Long lastProductId;
+    private Long newProductId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cart = new Cart(1L);
+        for (long id = 1; id <= items; id++) {
+            cart.addOrUpdateItem(id, 1);
+        }
+        // boxed outside the measured code, as the controller hands them over
+        lastProductId = (long) items;
+        newProductId = (long) items + 1;
+    }
+
+    @Benchmark
+    public Cart updateExisting() {
+        cart.addOrUpdateItem(lastProductId, 1);
+        return cart;
+    }
+
+    @Benchmark
+    public Cart addNew() {
+        cart.addOrUpdateItem(newProductId, 1);
+        List<CartItem> lines = cart.getItems();
+        lines.remove(lines.size() - 1);
+        return cart;
+    }
+}
@@ -7,67 +7,106 @@ import org.springframework.stereotype.Service;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class CartService {
+    // Carts are mutated under a per-user lock stripe rather than one service-wide monitor: updates to
+    // different carts no longer queue behind each other, and a j.u.c. lock does not pin a virtual
+    // thread to its carrier while it waits.
+    private static final int LOCK_STRIPES = 64;
+
     private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public CartService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
 
     public static class NotFoundException extends RuntimeException {
         public NotFoundException(String message) { super(message); }
     }
 
-    public synchronized Cart addItem(Long userId, Long productId, int quantity) {
+    public Cart addItem(Long userId, Long productId, int quantity) {
         if (userId == null) throw new IllegalArgumentException("userId cannot be null");
         if (productId == null) throw new IllegalArgumentException("productId cannot be null");
         if (quantity < 1) throw new IllegalArgumentException("quantity must be >= 1");
 
-        Cart cart = carts.computeIfAbsent(userId, Cart::new);
-        cart.addOrUpdateItem(productId, quantity);
-        return cart;
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            Cart cart = carts.computeIfAbsent(userId, Cart::new);
+            cart.addOrUpdateItem(productId, quantity);
+            return cart;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized Cart updateItemQuantity(Long userId, Long productId, int quantity) {
+    public Cart updateItemQuantity(Long userId, Long productId, int quantity) {
         if (userId == null) throw new IllegalArgumentException("userId cannot be null");
         if (productId == null) throw new IllegalArgumentException("productId cannot be null");
         if (quantity < 1) throw new IllegalArgumentException("quantity must be >= 1");
 
-        Cart cart = carts.get(userId);
-        if (cart == null) throw new NotFoundException("Cart not found for userId=" + userId);
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getProductId().equals(productId))
-                .findFirst()
-                .orElse(null);
-        if (item == null) throw new NotFoundException("Item not found in cart: productId=" + productId);
-        item.setQuantity(quantity);
-        return cart;
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            Cart cart = carts.get(userId);
+            if (cart == null) throw new NotFoundException("Cart not found for userId=" + userId);
+            CartItem item = cart.getItems().stream()
+                    .filter(i -> i.getProductId().equals(productId))
+                    .findFirst()
+                    .orElse(null);
+            if (item == null) throw new NotFoundException("Item not found in cart: productId=" + productId);
+            item.setQuantity(quantity);
+            return cart;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized Cart removeItem(Long userId, Long productId) {
+    public Cart removeItem(Long userId, Long productId) {
         if (userId == null) throw new IllegalArgumentException("userId cannot be null");
         if (productId == null) throw new IllegalArgumentException("productId cannot be null");
-        Cart cart = carts.get(userId);
-        if (cart == null) throw new NotFoundException("Cart not found for userId=" + userId);
-        boolean removed = false;
-        Iterator<CartItem> it = cart.getItems().iterator();
-        while (it.hasNext()) {
-            if (productId.equals(it.next().getProductId())) {
-                it.remove();
-                removed = true;
-                break;
+
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            Cart cart = carts.get(userId);
+            if (cart == null) throw new NotFoundException("Cart not found for userId=" + userId);
+            boolean removed = false;
+            Iterator<CartItem> it = cart.getItems().iterator();
+            while (it.hasNext()) {
+                if (productId.equals(it.next().getProductId())) {
+                    it.remove();
+                    removed = true;
+                    break;
+                }
             }
+            if (!removed) throw new NotFoundException("Item not found in cart: productId=" + productId);
+            return cart;
+        } finally {
+            lock.unlock();
         }
-        if (!removed) throw new NotFoundException("Item not found in cart: productId=" + productId);
-        return cart;
     }
 
-    public synchronized Cart clearCart(Long userId) {
+    public Cart clearCart(Long userId) {
         if (userId == null) throw new IllegalArgumentException("userId cannot be null");
-        Cart cart = carts.get(userId);
-        if (cart == null) {
-            return new Cart(userId);
+
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            Cart cart = carts.get(userId);
+            if (cart == null) {
+                return new Cart(userId);
+            }
+            cart.getItems().clear();
+            return cart;
+        } finally {
+            lock.unlock();
         }
-        cart.getItems().clear();
-        return cart;
     }
 
     public Cart getCart(Long userId) {
@@ -77,4 +116,8 @@ public class CartService {
     public void clearAll() {
         carts.clear();
     }
+
+    private ReentrantLock lockFor(Long userId) {
+        return locks[Math.floorMod(userId.hashCode(), LOCK_STRIPES)];
+    }
 }
\ No newline at end of file
@@ -1,9 +1,17 @@
 package com.sparkage.cart.service;
 
 import com.sparkage.cart.model.Cart;
+import com.sparkage.cart.model.CartItem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CartServiceTest {
@@ -73,4 +81,35 @@ class CartServiceTest {
         assertEquals(6L, clearedMissing.getUserId());
         assertEquals(0, clearedMissing.getItems().size());
     }
+
+    @Test
+    void concurrentUpdates_toSameAndDifferentCarts_loseNothing() throws Exception {
+        int threads = 16;
+        int addsPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long ownUser = 1_000L + t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < addsPerThread; i++) {
+                        cartService.addItem(1L, 100L + i % 5, 1);
+                        cartService.addItem(ownUser, 200L, 2);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Cart shared = cartService.getCart(1L);
+        assertEquals(5, shared.getItems().size());
+        assertEquals(threads * addsPerThread, shared.getItems().stream().mapToInt(CartItem::getQuantity).sum());
+        for (int t = 0; t < threads; t++) {
+            assertEquals(2 * addsPerThread, cartService.getCart(1_000L + t).getItems().get(0).getQuantity());
+        }
+    }
 }
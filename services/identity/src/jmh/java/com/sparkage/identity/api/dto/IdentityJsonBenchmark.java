@@ -0,0 +1,57 @@
+package com.sparkage.identity.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the login endpoint: reading a {@link LoginRequest} and writing the
+ * {@link LoginResponse} with its token, with the mapper configured the way Spring Boot builds it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentityJsonBenchmark {
+
+    private ObjectMapper mapper;
+    private byte[] loginJson;
+    private LoginResponse login;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        loginJson = "{\"usernameOrEmail\":\"benchmark@example.com\",\"password\":\"correct horse battery staple\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        UserResponse user = new UserResponse(UUID.randomUUID(), "benchmark-user", "benchmark@example.com", Instant.now());
+        // a signed HS256 token is about this long
+        login = new LoginResponse("eyJhbGciOiJIUzI1NiJ9." + "x".repeat(180) + "." + "y".repeat(43), user);
+    }
+
+    @Benchmark
+    public LoginRequest readLogin() throws Exception {
+        return mapper.readValue(loginJson, LoginRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeLogin() throws Exception {
+        return mapper.writeValueAsBytes(login);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sparkage.identity.service;
+
+import com.sparkage.identity.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of the login path outside the database: hashing the submitted password
+ * ({@link UserService#hashPassword}) and signing the session token ({@link JwtService#createToken}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentityServiceBenchmark {
+
+    private UserService userService;
+    private JwtService jwtService;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // hashing never touches the repository
+        userService = new UserService(null);
+        jwtService = new JwtService("changeme-please-ensure-32-bytes-min", "identity-service", 3600);
+        user = new User(UUID.randomUUID(), "benchmark-user", "benchmark@example.com", null, Instant.now());
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return userService.hashPassword("correct horse battery staple");
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtService.createToken(user);
+    }
+}
@@ -77,7 +77,7 @@ public class UserService {
         return repo.save(user);
     }
 
-    private String hashPassword(String password) {
+    String hashPassword(String password) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] bytes = digest.digest(password.getBytes(StandardCharsets.UTF_8));
@@ -0,0 +1,74 @@
+package com.sparkage.order.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the order endpoints: reading a {@link CreateOrderRequest}, and writing the
+ * {@code GET /orders/user/{userId}} list of {@code orders} {@link OrderResponse} entries, with the
+ * mapper configured the way Spring Boot builds it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJsonBenchmark {
+
+    private ObjectMapper mapper;
+    private byte[] createJson;
+
+    @State(Scope.Thread)
+    public static class History {
+        @Param({"1", "50"})
+        int orders;
+
+        List<OrderResponse> items;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            items = new ArrayList<>();
+            Instant createdAt = Instant.parse("2024-01-15T10:00:00Z");
+            for (long id = 1; id <= orders; id++) {
+                items.add(new OrderResponse(id, 42L, 100 + id, "CARD", "1 Main Street, Springfield", "PAID",
+                        createdAt.plusSeconds(id * 3600)));
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        createJson = "{\"userId\":42,\"cartId\":1042,\"paymentInfo\":\"CARD\",\"shippingAddress\":\"1 Main Street, Springfield\"}"
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CreateOrderRequest readCreate() throws Exception {
+        return mapper.readValue(createJson, CreateOrderRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeHistory(History history) throws Exception {
+        return mapper.writeValueAsBytes(history.items);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sparkage.order.api;
+
+import com.sparkage.client.ServiceClientException;
+import com.sparkage.order.api.dto.CheckoutRequest;
+import com.sparkage.order.api.dto.CheckoutResponse;
+import com.sparkage.order.api.dto.OrderResponse;
+import com.sparkage.order.model.Order;
+import com.sparkage.order.service.CheckoutService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping(path = "/orders")
+public class CheckoutController {
+
+    private final CheckoutService checkoutService;
+
+    public CheckoutController(CheckoutService checkoutService) {
+        this.checkoutService = checkoutService;
+    }
+
+    /**
+     * Checks out the user's cart in one call (see {@link CheckoutService}). The servlet thread is
+     * released while the downstream calls are in flight. Retries that send the same
+     * {@code Idempotency-Key} resume or replay the same order instead of placing a new one.
+     */
+    @PostMapping(path = "/checkout", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<CheckoutResponse>> checkout(@Valid @RequestBody CheckoutRequest request,
+                                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return checkoutService.checkout(request, idempotencyKey).thenApply(result -> {
+            Order o = result.getOrder();
+            OrderResponse order = new OrderResponse(o.getId(), o.getUserId(), o.getCartId(), o.getPaymentInfo(),
+                    o.getShippingAddress(), o.getStatus(), o.getCreatedAt());
+            CheckoutResponse body = new CheckoutResponse(order, result.getAmount(), result.getReservationId(),
+                    result.getPayment().getTransactionId());
+            return ResponseEntity.created(URI.create("/orders/" + o.getId())).body(body);
+        });
+    }
+
+    @ExceptionHandler(CheckoutService.EmptyCartException.class)
+    public ResponseEntity<Map<String, Object>> handleEmptyCart(CheckoutService.EmptyCartException ex) {
+        return ResponseEntity.unprocessableEntity().body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(CheckoutService.InsufficientStockException.class)
+    public ResponseEntity<Map<String, Object>> handleInsufficientStock(CheckoutService.InsufficientStockException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(CheckoutService.PaymentDeclinedException.class)
+    public ResponseEntity<Map<String, Object>> handlePaymentDeclined(CheckoutService.PaymentDeclinedException ex) {
+        return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED)
+                .body(Map.of("error", ex.getMessage(), "orderId", ex.getOrderId()));
+    }
+
+    /** Accepted, but not settled: the client may retry with the same Idempotency-Key or poll the order. */
+    @ExceptionHandler(CheckoutService.PaymentUnknownException.class)
+    public ResponseEntity<Map<String, Object>> handlePaymentUnknown(CheckoutService.PaymentUnknownException ex) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/orders/" + ex.getOrderId()))
+                .body(Map.of("error", ex.getMessage(), "orderId", ex.getOrderId(), "status", "PAYMENT_UNKNOWN"));
+    }
+
+    @ExceptionHandler(CheckoutService.CheckoutInProgressException.class)
+    public ResponseEntity<Map<String, Object>> handleInProgress(CheckoutService.CheckoutInProgressException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(CheckoutService.PaymentFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePaymentFailed(CheckoutService.PaymentFailedException ex) {
+        return ResponseEntity.status(ex.isTimeout() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY)
+                .body(Map.of("error", "payment " + (ex.isTimeout() ? "timed out" : "failed"), "orderId", ex.getOrderId()));
+    }
+
+    @ExceptionHandler(ServiceClientException.class)
+    public ResponseEntity<Map<String, Object>> handleDownstream(ServiceClientException ex) {
+        return ResponseEntity.status(ex.isTimeout() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY)
+                .body(Map.of("error", ex.getService() + (ex.isTimeout() ? " timed out" : " unavailable")));
+    }
+}
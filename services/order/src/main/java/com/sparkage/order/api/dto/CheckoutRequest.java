@@ -0,0 +1,32 @@
+package com.sparkage.order.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public class CheckoutRequest {
+    @NotNull
+    private Long userId;
+
+    @NotBlank
+    private String paymentMethod; // e.g., "CARD", "WALLET", "COD"
+
+    @NotBlank
+    private String paymentDetails;
+
+    @NotBlank
+    private String shippingAddress;
+
+    public CheckoutRequest() {}
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public String getPaymentDetails() { return paymentDetails; }
+    public void setPaymentDetails(String paymentDetails) { this.paymentDetails = paymentDetails; }
+
+    public String getShippingAddress() { return shippingAddress; }
+    public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
+}
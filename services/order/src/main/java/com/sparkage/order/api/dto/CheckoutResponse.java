@@ -0,0 +1,31 @@
+package com.sparkage.order.api.dto;
+
+import java.math.BigDecimal;
+
+public class CheckoutResponse {
+    private OrderResponse order;
+    private BigDecimal amount;
+    private String reservationId;
+    private String transactionId;
+
+    public CheckoutResponse() {}
+
+    public CheckoutResponse(OrderResponse order, BigDecimal amount, String reservationId, String transactionId) {
+        this.order = order;
+        this.amount = amount;
+        this.reservationId = reservationId;
+        this.transactionId = transactionId;
+    }
+
+    public OrderResponse getOrder() { return order; }
+    public void setOrder(OrderResponse order) { this.order = order; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+}
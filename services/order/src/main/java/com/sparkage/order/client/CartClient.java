@@ -0,0 +1,32 @@
+package com.sparkage.order.client;
+
+import com.sparkage.client.ServiceClient;
+import com.sparkage.client.ServiceClients;
+import com.sparkage.client.ServiceRequest;
+import com.sparkage.order.client.dto.CartResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class CartClient {
+
+    private final ServiceClient http;
+
+    public CartClient(ServiceClients clients,
+                      @Value("${checkout.cart.uri:http://localhost:9002}") URI baseUri,
+                      @Value("${checkout.cart.timeout-ms:2000}") long timeoutMillis) {
+        this.http = clients.create("cart", baseUri, client -> client.timeout(Duration.ofMillis(timeoutMillis)));
+    }
+
+    public CompletableFuture<CartResponse> getCart(Long userId) {
+        return http.sendAsync(ServiceRequest.get("carts.get", "/carts/" + userId), CartResponse.class);
+    }
+
+    public CompletableFuture<Void> clearCart(Long userId) {
+        return http.sendAsync(ServiceRequest.post("carts.clear", "/carts/" + userId + "/clear"), Void.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.sparkage.order.client;
+
+import com.sparkage.client.ServiceClient;
+import com.sparkage.client.ServiceClients;
+import com.sparkage.client.ServiceRequest;
+import com.sparkage.order.client.dto.PaymentRequest;
+import com.sparkage.order.client.dto.PaymentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class PaymentClient {
+
+    private final ServiceClient http;
+
+    public PaymentClient(ServiceClients clients,
+                         @Value("${checkout.payment.uri:http://localhost:9004}") URI baseUri,
+                         @Value("${checkout.payment.timeout-ms:5000}") long timeoutMillis,
+                         @Value("${checkout.payment.lookup-timeout-ms:1000}") long lookupTimeoutMillis) {
+        this.http = clients.create("payment", baseUri, client -> client.timeout(Duration.ofMillis(timeoutMillis))
+                .routeTimeout("payments.find", Duration.ofMillis(lookupTimeoutMillis)));
+    }
+
+    /** The payment service replays the first result for a repeated {@code idempotencyKey}. */
+    public CompletableFuture<PaymentResponse> pay(PaymentRequest request, String idempotencyKey) {
+        return http.sendAsync(ServiceRequest.post("payments.create", "/payments")
+                .header("Idempotency-Key", idempotencyKey)
+                .body(request), PaymentResponse.class);
+    }
+
+    /** Every payment recorded for the order, including ones the payment service has not written yet. */
+    public CompletableFuture<List<PaymentResponse>> findByOrder(Long orderId) {
+        return http.sendAsync(ServiceRequest.get("payments.find", "/payments?orderId=" + orderId), PaymentResponse[].class)
+                .thenApply(Arrays::asList);
+    }
+}
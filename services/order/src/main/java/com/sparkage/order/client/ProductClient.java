@@ -0,0 +1,46 @@
+package com.sparkage.order.client;
+
+import com.sparkage.client.ServiceClient;
+import com.sparkage.client.ServiceClients;
+import com.sparkage.client.ServiceRequest;
+import com.sparkage.order.client.dto.LineItem;
+import com.sparkage.order.client.dto.ProductResponse;
+import com.sparkage.order.client.dto.ReservationRequest;
+import com.sparkage.order.client.dto.ReservationResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class ProductClient {
+
+    private final ServiceClient http;
+
+    public ProductClient(ServiceClients clients,
+                         @Value("${checkout.product.uri:http://localhost:9001}") URI baseUri,
+                         @Value("${checkout.product.timeout-ms:2000}") long timeoutMillis) {
+        this.http = clients.create("product", baseUri, client -> client.timeout(Duration.ofMillis(timeoutMillis)));
+    }
+
+    public CompletableFuture<ProductResponse> getProduct(Long productId) {
+        return http.sendAsync(ServiceRequest.get("products.get", "/products/" + productId), ProductResponse.class);
+    }
+
+    /** All-or-nothing hold on the lines' stock; answers 409 when any line is short. */
+    public CompletableFuture<ReservationResponse> reserve(List<LineItem> items, long ttlSeconds) {
+        return http.sendAsync(ServiceRequest.post("reservations.create", "/products/reservations")
+                .body(new ReservationRequest(items, ttlSeconds)), ReservationResponse.class);
+    }
+
+    public CompletableFuture<Void> commit(String reservationId) {
+        return http.sendAsync(ServiceRequest.post("reservations.commit", "/products/reservations/" + reservationId + "/commit"), Void.class);
+    }
+
+    public CompletableFuture<Void> release(String reservationId) {
+        return http.sendAsync(ServiceRequest.delete("reservations.release", "/products/reservations/" + reservationId), Void.class);
+    }
+}
@@ -0,0 +1,22 @@
+package com.sparkage.order.client.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CartResponse {
+    private Long userId;
+    private List<LineItem> items = new ArrayList<>();
+
+    public CartResponse() {}
+
+    public CartResponse(Long userId, List<LineItem> items) {
+        this.userId = userId;
+        this.items = items;
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public List<LineItem> getItems() { return items; }
+    public void setItems(List<LineItem> items) { this.items = items; }
+}
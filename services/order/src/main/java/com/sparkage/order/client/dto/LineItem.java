@@ -0,0 +1,20 @@
+package com.sparkage.order.client.dto;
+
+/** A product and quantity, as both the cart and the product reservation API send them. */
+public class LineItem {
+    private Long productId;
+    private int quantity;
+
+    public LineItem() {}
+
+    public LineItem(Long productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+}
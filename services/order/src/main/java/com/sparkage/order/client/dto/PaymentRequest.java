@@ -0,0 +1,31 @@
+package com.sparkage.order.client.dto;
+
+import java.math.BigDecimal;
+
+public class PaymentRequest {
+    private Long orderId;
+    private String paymentMethod;
+    private BigDecimal amount;
+    private String paymentDetails;
+
+    public PaymentRequest() {}
+
+    public PaymentRequest(Long orderId, String paymentMethod, BigDecimal amount, String paymentDetails) {
+        this.orderId = orderId;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+        this.paymentDetails = paymentDetails;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getPaymentDetails() { return paymentDetails; }
+    public void setPaymentDetails(String paymentDetails) { this.paymentDetails = paymentDetails; }
+}
@@ -0,0 +1,22 @@
+package com.sparkage.order.client.dto;
+
+import java.math.BigDecimal;
+
+/** The fields of the product service's ProductDetails that checkout needs. */
+public class ProductResponse {
+    private Long id;
+    private BigDecimal price;
+
+    public ProductResponse() {}
+
+    public ProductResponse(Long id, BigDecimal price) {
+        this.id = id;
+        this.price = price;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+}
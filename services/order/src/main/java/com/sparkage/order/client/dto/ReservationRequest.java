@@ -0,0 +1,22 @@
+package com.sparkage.order.client.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReservationRequest {
+    private List<LineItem> items = new ArrayList<>();
+    private Long ttlSeconds;
+
+    public ReservationRequest() {}
+
+    public ReservationRequest(List<LineItem> items, Long ttlSeconds) {
+        this.items = items;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public List<LineItem> getItems() { return items; }
+    public void setItems(List<LineItem> items) { this.items = items; }
+
+    public Long getTtlSeconds() { return ttlSeconds; }
+    public void setTtlSeconds(Long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+}
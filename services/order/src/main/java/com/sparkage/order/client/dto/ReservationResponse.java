@@ -0,0 +1,19 @@
+package com.sparkage.order.client.dto;
+
+public class ReservationResponse {
+    private String reservationId;
+    private String status;
+
+    public ReservationResponse() {}
+
+    public ReservationResponse(String reservationId, String status) {
+        this.reservationId = reservationId;
+        this.status = status;
+    }
+
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
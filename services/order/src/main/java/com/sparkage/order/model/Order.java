@@ -1,10 +1,11 @@
 package com.sparkage.order.model;
 
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "checkout_key"}))
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,6 +29,22 @@ public class Order {
     @Column(nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
+    // Set by checkout: the client's Idempotency-Key, the stock hold and what was charged
+    @Column(length = 200, updatable = false)
+    private String checkoutKey;
+
+    @Column(length = 64)
+    private String reservationId;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 64)
+    private String transactionId;
+
+    // When the current checkout attempt saved the order as PENDING
+    private Instant attemptedAt;
+
     public Order() {}
 
     public Long getId() { return id; }
@@ -50,4 +67,19 @@ public class Order {
 
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getAttemptedAt() { return attemptedAt; }
+    public void setAttemptedAt(Instant attemptedAt) { this.attemptedAt = attemptedAt; }
+
+    public String getCheckoutKey() { return checkoutKey; }
+    public void setCheckoutKey(String checkoutKey) { this.checkoutKey = checkoutKey; }
+
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
 }
@@ -0,0 +1,376 @@
+package com.sparkage.order.service;
+
+import com.sparkage.client.ServiceClientException;
+import com.sparkage.order.api.dto.CheckoutRequest;
+import com.sparkage.order.client.CartClient;
+import com.sparkage.order.client.PaymentClient;
+import com.sparkage.order.client.ProductClient;
+import com.sparkage.order.client.dto.CartResponse;
+import com.sparkage.order.client.dto.LineItem;
+import com.sparkage.order.client.dto.PaymentRequest;
+import com.sparkage.order.client.dto.PaymentResponse;
+import com.sparkage.order.client.dto.ProductResponse;
+import com.sparkage.order.client.dto.ReservationResponse;
+import com.sparkage.order.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Server-side checkout, so a client makes one call instead of one per service:
+ * <ol>
+ *   <li>fetch the user's cart;</li>
+ *   <li>reserve stock for every line and look up every line's price, all in parallel;</li>
+ *   <li>save the order as PENDING and take payment for it;</li>
+ *   <li>mark it PAID, then commit the reservation and clear the cart, in parallel.</li>
+ * </ol>
+ * Each downstream call has its own timeout (see the clients). Compensation on failure: a stock
+ * hold is released when pricing fails or payment is refused, and the order is kept with status
+ * PAYMENT_DECLINED or PAYMENT_FAILED. Compensating calls that fail are only logged, since
+ * reservations also expire on their own.
+ * Commit and cart-clear failures after a successful payment do not fail the checkout; they are
+ * logged with the reservation id for reconciliation.
+ * <p>
+ * A payment that times out or fails with a 5xx may still have been taken: the payment service
+ * acknowledges before its write lands. So the order's payments are looked up, and if there are
+ * none the payment is sent once more under the same Idempotency-Key. If the outcome is still not
+ * known, the order is saved as PAYMENT_UNKNOWN and the hold is kept for reconciliation.
+ * <p>
+ * A client Idempotency-Key ties retries to one order: the key is stored on the order, the payment
+ * key is derived from it, and a retry resumes that order (or replays its result) instead of
+ * creating a new order and charging again. Without one, payment is keyed by the order id.
+ * A retry that finds the order still PENDING within {@code checkout.budget-ms} of its attempt is
+ * answered with {@link CheckoutInProgressException}: that attempt's payment may be in flight and
+ * not recorded yet, so looking it up would find nothing and send it a second time.
+ */
+@Service
+public class CheckoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutService.class);
+
+    private final OrderRepository repository;
+    private final CartClient cartClient;
+    private final ProductClient productClient;
+    private final PaymentClient paymentClient;
+    private final long reservationTtlSeconds;
+    private final Duration budget;
+
+    public CheckoutService(OrderRepository repository,
+                           CartClient cartClient,
+                           ProductClient productClient,
+                           PaymentClient paymentClient,
+                           @Value("${checkout.reservation-ttl-seconds:600}") long reservationTtlSeconds,
+                           @Value("${checkout.budget-ms:17000}") long budgetMillis) {
+        this.repository = repository;
+        this.cartClient = cartClient;
+        this.productClient = productClient;
+        this.paymentClient = paymentClient;
+        this.reservationTtlSeconds = reservationTtlSeconds;
+        this.budget = Duration.ofMillis(budgetMillis);
+    }
+
+    public static class Result {
+        private final Order order;
+        private final BigDecimal amount;
+        private final String reservationId;
+        private final PaymentResponse payment;
+
+        Result(Order order, BigDecimal amount, String reservationId, PaymentResponse payment) {
+            this.order = order;
+            this.amount = amount;
+            this.reservationId = reservationId;
+            this.payment = payment;
+        }
+
+        public Order getOrder() { return order; }
+        public BigDecimal getAmount() { return amount; }
+        public String getReservationId() { return reservationId; }
+        public PaymentResponse getPayment() { return payment; }
+    }
+
+    public static final int MAX_KEY_LENGTH = 200;
+
+    /**
+     * @param checkoutKey the client's Idempotency-Key, or null
+     * @throws IllegalArgumentException if the key is blank or longer than {@value #MAX_KEY_LENGTH}
+     */
+    public CompletableFuture<Result> checkout(CheckoutRequest request, String checkoutKey) {
+        if (checkoutKey != null && (checkoutKey.isBlank() || checkoutKey.length() > MAX_KEY_LENGTH)) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        Order existing = checkoutKey == null ? null
+                : repository.findByUserIdAndCheckoutKey(request.getUserId(), checkoutKey).orElse(null);
+        if (existing == null) {
+            return checkout(request, checkoutKey, null);
+        }
+        switch (existing.getStatus()) {
+            case "PAID":
+                return CompletableFuture.completedFuture(new Result(existing, existing.getAmount(), existing.getReservationId(),
+                        new PaymentResponse("APPROVED", existing.getTransactionId(), existing.getAmount())));
+            case "PAYMENT_DECLINED":
+                return CompletableFuture.failedFuture(new PaymentDeclinedException(existing.getId()));
+            case "PAYMENT_FAILED":
+                // Nothing was charged and the hold is gone: start over on the same order
+                return checkout(request, checkoutKey, existing);
+            case "PENDING":
+                if (existing.getAttemptedAt() != null && existing.getAttemptedAt().plus(budget).isAfter(Instant.now())) {
+                    return CompletableFuture.failedFuture(
+                            new CheckoutInProgressException("checkout with this Idempotency-Key is already in progress"));
+                }
+                // Falls through: the attempt outlived its budget without settling (its instance died)
+            default:
+                // PAYMENT_UNKNOWN or a stale PENDING: the hold is still there, settle the payment
+                Hold hold = new Hold(existing.getReservationId(), existing.getAmount());
+                return reconcile(existing, hold, request, paymentRequest(existing, request, hold));
+        }
+    }
+
+    private CompletableFuture<Result> checkout(CheckoutRequest request, String checkoutKey, Order existing) {
+        return cartClient.getCart(request.getUserId())
+                .handle((cart, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = unwrap(failure);
+                        if (cause instanceof ServiceClientException && ((ServiceClientException) cause).getStatus() == 404) {
+                            throw new EmptyCartException("cart is empty");
+                        }
+                        throw propagate(cause);
+                    }
+                    if (cart.getItems() == null || cart.getItems().isEmpty()) {
+                        throw new EmptyCartException("cart is empty");
+                    }
+                    return cart;
+                })
+                .thenCompose(cart -> hold(cart.getItems())
+                        .thenCompose(hold -> placeAndPay(request, checkoutKey, existing, cart, hold)));
+    }
+
+    private static class Hold {
+        final String reservationId;
+        final BigDecimal amount;
+
+        Hold(String reservationId, BigDecimal amount) {
+            this.reservationId = reservationId;
+            this.amount = amount;
+        }
+    }
+
+    /** Stock reservation and price lookups are independent, so they go out together. */
+    private CompletableFuture<Hold> hold(List<LineItem> items) {
+        CompletableFuture<ReservationResponse> reservation = productClient.reserve(items, reservationTtlSeconds);
+        Map<Long, CompletableFuture<ProductResponse>> prices = new LinkedHashMap<>();
+        for (LineItem item : items) {
+            prices.computeIfAbsent(item.getProductId(), productClient::getProduct);
+        }
+        CompletableFuture<BigDecimal> amount = CompletableFuture.allOf(prices.values().toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    BigDecimal total = BigDecimal.ZERO;
+                    for (LineItem item : items) {
+                        BigDecimal price = prices.get(item.getProductId()).join().getPrice();
+                        total = total.add(price.multiply(BigDecimal.valueOf(item.getQuantity())));
+                    }
+                    return total;
+                });
+
+        // allOf waits for both, so the reservation's outcome is known before deciding to compensate
+        return CompletableFuture.allOf(reservation, amount).handle((v, failure) -> {
+            if (failure == null) {
+                return new Hold(reservation.join().getReservationId(), amount.join());
+            }
+            if (!reservation.isCompletedExceptionally()) {
+                release(reservation.join().getReservationId(), "pricing failed");
+            }
+            Throwable cause = unwrap(reservation.isCompletedExceptionally() ? reservation.handle((r, e) -> e).join() : failure);
+            if (cause instanceof ServiceClientException && ((ServiceClientException) cause).getStatus() == 409) {
+                throw new InsufficientStockException("insufficient stock");
+            }
+            throw propagate(cause);
+        });
+    }
+
+    private CompletableFuture<Result> placeAndPay(CheckoutRequest request, String checkoutKey, Order existing,
+                                                  CartResponse cart, Hold hold) {
+        Order order = existing != null ? existing : new Order();
+        order.setUserId(request.getUserId());
+        order.setCartId(cart.getUserId() != null ? cart.getUserId() : request.getUserId()); // carts are keyed by user
+        order.setPaymentInfo(request.getPaymentMethod());
+        order.setShippingAddress(request.getShippingAddress());
+        order.setCheckoutKey(checkoutKey);
+        order.setReservationId(hold.reservationId);
+        order.setAmount(hold.amount);
+        order.setStatus("PENDING");
+        order.setAttemptedAt(Instant.now());
+        Order saved;
+        try {
+            saved = repository.save(order);
+        } catch (DataIntegrityViolationException e) {
+            // Another request with the same key got there first
+            release(hold.reservationId, "duplicate checkout");
+            throw new CheckoutInProgressException("checkout with this Idempotency-Key is already in progress");
+        }
+
+        PaymentRequest payment = paymentRequest(saved, request, hold);
+        return paymentClient.pay(payment, paymentKey(saved))
+                .handle((response, failure) -> {
+                    if (failure == null) {
+                        return settled(saved, hold, request, response);
+                    }
+                    Throwable cause = unwrap(failure);
+                    if (cause instanceof ServiceClientException && mayHaveCharged((ServiceClientException) cause)) {
+                        log.warn("Payment for order {} did not complete ({}), reconciling", saved.getId(), cause.getMessage());
+                        return reconcile(saved, hold, request, payment);
+                    }
+                    release(hold.reservationId, "payment failed");
+                    saved.setStatus("PAYMENT_FAILED");
+                    repository.save(saved);
+                    if (cause instanceof ServiceClientException) {
+                        throw new PaymentFailedException(saved.getId(), (ServiceClientException) cause);
+                    }
+                    throw propagate(cause);
+                })
+                .thenCompose(result -> result);
+    }
+
+    /**
+     * Finds out whether a payment that got no definite answer was taken: first from the payments
+     * recorded for the order, then by sending it once more under the same key, which the payment
+     * service either replays or processes for the first time. Anything short of an answer leaves
+     * the order PAYMENT_UNKNOWN with its hold in place.
+     */
+    private CompletableFuture<Result> reconcile(Order order, Hold hold, CheckoutRequest request, PaymentRequest payment) {
+        return paymentClient.findByOrder(order.getId())
+                .thenCompose(payments -> {
+                    PaymentResponse found = outcome(payments);
+                    if (found != null) {
+                        return settled(order, hold, request, found);
+                    }
+                    return paymentClient.pay(payment, paymentKey(order))
+                            .thenCompose(response -> settled(order, hold, request, response));
+                })
+                .exceptionally(failure -> {
+                    Throwable cause = unwrap(failure);
+                    if (cause instanceof PaymentDeclinedException) {
+                        throw (PaymentDeclinedException) cause;
+                    }
+                    log.warn("Payment outcome of order {} is unknown, keeping reservation {}: {}", order.getId(), hold.reservationId, cause.getMessage());
+                    order.setStatus("PAYMENT_UNKNOWN");
+                    repository.save(order);
+                    throw new PaymentUnknownException(order.getId());
+                });
+    }
+
+    /** An approved payment wins over a declined one; null when there is neither. */
+    private static PaymentResponse outcome(List<PaymentResponse> payments) {
+        PaymentResponse declined = null;
+        for (PaymentResponse payment : payments) {
+            if ("APPROVED".equals(payment.getStatus())) {
+                return payment;
+            }
+            if ("DECLINED".equals(payment.getStatus())) {
+                declined = payment;
+            }
+        }
+        return declined;
+    }
+
+    private CompletableFuture<Result> settled(Order order, Hold hold, CheckoutRequest request, PaymentResponse response) {
+        if (!"APPROVED".equals(response.getStatus())) {
+            release(hold.reservationId, "payment declined");
+            order.setStatus("PAYMENT_DECLINED");
+            repository.save(order);
+            throw new PaymentDeclinedException(order.getId());
+        }
+        order.setStatus("PAID");
+        order.setTransactionId(response.getTransactionId());
+        Order paid = repository.save(order);
+        CompletableFuture<Void> commit = productClient.commit(hold.reservationId).exceptionally(e -> {
+            log.warn("Order {} is paid but reservation {} was not committed: {}", paid.getId(), hold.reservationId, unwrap(e).getMessage());
+            return null;
+        });
+        CompletableFuture<Void> clear = cartClient.clearCart(request.getUserId()).exceptionally(e -> {
+            log.warn("Order {} is paid but the cart of user {} was not cleared: {}", paid.getId(), request.getUserId(), unwrap(e).getMessage());
+            return null;
+        });
+        return CompletableFuture.allOf(commit, clear)
+                .thenApply(v -> new Result(paid, hold.amount, hold.reservationId, response));
+    }
+
+    private static PaymentRequest paymentRequest(Order order, CheckoutRequest request, Hold hold) {
+        return new PaymentRequest(order.getId(), request.getPaymentMethod(), hold.amount, request.getPaymentDetails());
+    }
+
+    private static String paymentKey(Order order) {
+        return order.getCheckoutKey() != null
+                ? "checkout-" + order.getUserId() + "-" + order.getCheckoutKey()
+                : "checkout-" + order.getId();
+    }
+
+    /** Timeouts and 5xx can come after the payment service took the payment; 4xx cannot. */
+    private static boolean mayHaveCharged(ServiceClientException e) {
+        return e.isTimeout() || e.getStatus() == 0 || e.getStatus() >= 500;
+    }
+
+    private void release(String reservationId, String reason) {
+        productClient.release(reservationId).whenComplete((v, e) -> {
+            if (e != null) {
+                log.warn("Could not release reservation {} after {} (it will expire): {}", reservationId, reason, unwrap(e).getMessage());
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+    }
+
+    public static class EmptyCartException extends RuntimeException {
+        public EmptyCartException(String message) { super(message); }
+    }
+
+    public static class InsufficientStockException extends RuntimeException {
+        public InsufficientStockException(String message) { super(message); }
+    }
+
+    public static class PaymentDeclinedException extends RuntimeException {
+        private final Long orderId;
+        public PaymentDeclinedException(Long orderId) { super("payment declined"); this.orderId = orderId; }
+        public Long getOrderId() { return orderId; }
+    }
+
+    /** Whether payment was taken is not known yet; the order is kept as PAYMENT_UNKNOWN with its hold. */
+    public static class PaymentUnknownException extends RuntimeException {
+        private final Long orderId;
+        public PaymentUnknownException(Long orderId) { super("payment outcome unknown"); this.orderId = orderId; }
+        public Long getOrderId() { return orderId; }
+    }
+
+    public static class CheckoutInProgressException extends RuntimeException {
+        public CheckoutInProgressException(String message) { super(message); }
+    }
+
+    /** Payment refused the request; the order is kept as PAYMENT_FAILED. */
+    public static class PaymentFailedException extends RuntimeException {
+        private final Long orderId;
+        private final boolean timeout;
+        public PaymentFailedException(Long orderId, ServiceClientException cause) {
+            super(cause.getMessage(), cause);
+            this.orderId = orderId;
+            this.timeout = cause.isTimeout();
+        }
+        public Long getOrderId() { return orderId; }
+        public boolean isTimeout() { return timeout; }
+    }
+}
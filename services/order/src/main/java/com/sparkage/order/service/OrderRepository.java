@@ -4,7 +4,10 @@ import com.sparkage.order.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    Optional<Order> findByUserIdAndCheckoutKey(Long userId, String checkoutKey);
 }
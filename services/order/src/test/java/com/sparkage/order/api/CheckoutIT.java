@@ -0,0 +1,390 @@
+package com.sparkage.order.api;
+
+import com.sparkage.order.model.Order;
+import com.sparkage.order.service.OrderRepository;
+import com.sparkage.order.test.StubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * POST /orders/checkout against in-process stubs of the cart, product and payment APIs.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CheckoutIT extends com.sparkage.order.test.BaseIntegrationTest {
+
+    private static final StubServer cart = StubServer.start();
+    private static final StubServer product = StubServer.start();
+    private static final StubServer payment = StubServer.start();
+
+    private static final String CHECKOUT = "{" +
+            "\"userId\":7," +
+            "\"paymentMethod\":\"CARD\"," +
+            "\"paymentDetails\":\"tok_4242\"," +
+            "\"shippingAddress\":\"10 Downing St\"" +
+            "}";
+
+    @DynamicPropertySource
+    static void downstreams(DynamicPropertyRegistry registry) {
+        registry.add("checkout.cart.uri", cart::uri);
+        registry.add("checkout.product.uri", product::uri);
+        registry.add("checkout.payment.uri", payment::uri);
+        registry.add("checkout.payment.timeout-ms", () -> 500);
+        registry.add("checkout.payment.lookup-timeout-ms", () -> 500);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @AfterAll
+    static void stopStubs() {
+        cart.close();
+        product.close();
+        payment.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        orderRepository.deleteAll();
+        cart.reset();
+        product.reset();
+        payment.reset();
+        // 2 x 10.50 + 1 x 4.00
+        cart.on("GET", "/carts/7", 200, "{\"userId\":7,\"items\":[{\"productId\":1,\"quantity\":2},{\"productId\":2,\"quantity\":1}]}")
+                .on("POST", "/carts/7/clear", 200, "{\"userId\":7,\"items\":[]}");
+        product.on("GET", "/products/1", 200, "{\"id\":1,\"name\":\"Hammer\",\"price\":10.50,\"stock\":9}")
+                .on("GET", "/products/2", 200, "{\"id\":2,\"name\":\"Nails\",\"price\":4.00,\"stock\":90}")
+                .on("POST", "/products/reservations", 201, "{\"reservationId\":\"r-1\",\"status\":\"RESERVED\",\"items\":[]}")
+                .on("POST", "/products/reservations/r-1/commit", 200, "{\"reservationId\":\"r-1\",\"status\":\"COMMITTED\"}")
+                .on("DELETE", "/products/reservations/r-1", 200, "{\"reservationId\":\"r-1\",\"status\":\"RELEASED\"}");
+        payment.on("POST", "/payments", 200, "{\"status\":\"APPROVED\",\"transactionId\":\"tx-1\",\"amount\":25.00}");
+    }
+
+    private ResultActions checkout(String json) throws Exception {
+        return checkout(json, null);
+    }
+
+    private ResultActions checkout(String json, String idempotencyKey) throws Exception {
+        MockHttpServletRequestBuilder request = post("/orders/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult(10_000);
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    private static void awaitCall(StubServer stub, String method, String path) throws InterruptedException {
+        for (int i = 0; i < 100 && stub.calls(method, path).isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertThat(stub.calls(method, path)).as(method + " " + path).hasSize(1);
+    }
+
+    @Test
+    void checkout_paysCommitsAndClearsCart_returns201() throws Exception {
+        checkout(CHECKOUT)
+                .andExpect(status().isCreated())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.order.id").exists())
+                .andExpect(jsonPath("$.order.status").value("PAID"))
+                .andExpect(jsonPath("$.order.userId").value(7))
+                .andExpect(jsonPath("$.amount").value(25.00))
+                .andExpect(jsonPath("$.reservationId").value("r-1"))
+                .andExpect(jsonPath("$.transactionId").value("tx-1"));
+
+        Order saved = orderRepository.findAll().get(0);
+        assertThat(saved.getStatus()).isEqualTo("PAID");
+        List<StubServer.Call> payments = payment.calls("POST", "/payments");
+        assertThat(payments).hasSize(1);
+        assertThat(payments.get(0).getBody()).contains("\"amount\":25.00").contains("\"orderId\":" + saved.getId());
+        assertThat(payments.get(0).header("Idempotency-Key")).isEqualTo("checkout-" + saved.getId());
+        assertThat(product.calls("POST", "/products/reservations").get(0).getBody())
+                .contains("{\"productId\":1,\"quantity\":2}").contains("\"ttlSeconds\":600");
+        assertThat(product.calls("POST", "/products/reservations/r-1/commit")).hasSize(1);
+        assertThat(cart.calls("POST", "/carts/7/clear")).hasSize(1);
+        assertThat(product.calls("DELETE", "/products/reservations/r-1")).isEmpty();
+    }
+
+    @Test
+    void checkout_reservesStockWhilePricesAreLookedUp() throws Exception {
+        // each handler blocks until the other one is in flight too, which only happens if they run in parallel
+        CyclicBarrier bothInFlight = new CyclicBarrier(2);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+        product.on("POST", "/products/reservations", call -> {
+            try {
+                bothInFlight.await(1, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                overlapped.set(false);
+            }
+            return new StubServer.Reply(201, "{\"reservationId\":\"r-1\",\"status\":\"RESERVED\"}");
+        });
+        product.on("GET", "/products/1", call -> {
+            try {
+                bothInFlight.await(1, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                overlapped.set(false);
+            }
+            return new StubServer.Reply(200, "{\"id\":1,\"price\":10.50}");
+        });
+
+        checkout(CHECKOUT).andExpect(status().isCreated());
+
+        assertThat(overlapped).isTrue();
+    }
+
+    @Test
+    void checkout_insufficientStock_returns409_withoutOrderOrPayment() throws Exception {
+        product.on("POST", "/products/reservations", 409, "{\"error\":\"insufficient stock\",\"productIds\":[1]}");
+
+        checkout(CHECKOUT)
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("insufficient stock"));
+
+        assertThat(orderRepository.count()).isZero();
+        assertThat(payment.calls("POST", "/payments")).isEmpty();
+    }
+
+    @Test
+    void checkout_pricingFails_releasesReservation_returns502() throws Exception {
+        product.on("GET", "/products/2", 503, "");
+
+        checkout(CHECKOUT)
+                .andExpect(status().isBadGateway())
+                .andExpect(jsonPath("$.error").value("product unavailable"));
+
+        awaitCall(product, "DELETE", "/products/reservations/r-1");
+        assertThat(orderRepository.count()).isZero();
+        assertThat(payment.calls("POST", "/payments")).isEmpty();
+    }
+
+    @Test
+    void checkout_paymentDeclined_releasesReservation_keepsOrder_returns402() throws Exception {
+        payment.on("POST", "/payments", 200, "{\"status\":\"DECLINED\",\"transactionId\":\"tx-2\",\"amount\":25.00}");
+
+        checkout(CHECKOUT)
+                .andExpect(status().isPaymentRequired())
+                .andExpect(jsonPath("$.error").value("payment declined"))
+                .andExpect(jsonPath("$.orderId").exists());
+
+        awaitCall(product, "DELETE", "/products/reservations/r-1");
+        assertThat(orderRepository.findAll()).extracting(Order::getStatus).containsExactly("PAYMENT_DECLINED");
+        assertThat(product.calls("POST", "/products/reservations/r-1/commit")).isEmpty();
+        assertThat(cart.calls("POST", "/carts/7/clear")).isEmpty();
+    }
+
+    @Test
+    void checkout_paymentRejected_releasesReservation_returns502() throws Exception {
+        payment.on("POST", "/payments", 422, "{\"error\":\"Idempotency-Key was used for a different request\"}");
+
+        checkout(CHECKOUT)
+                .andExpect(status().isBadGateway())
+                .andExpect(jsonPath("$.error").value("payment failed"))
+                .andExpect(jsonPath("$.orderId").exists());
+
+        awaitCall(product, "DELETE", "/products/reservations/r-1");
+        assertThat(orderRepository.findAll()).extracting(Order::getStatus).containsExactly("PAYMENT_FAILED");
+        assertThat(payment.calls("GET", "/payments")).isEmpty();
+    }
+
+    @Test
+    void checkout_paymentTimesOut_butWasTaken_findsItByOrder_returns201() throws Exception {
+        payment.on("POST", "/payments", call -> {
+            Thread.sleep(2_000);
+            return new StubServer.Reply(200, "{\"status\":\"APPROVED\",\"transactionId\":\"tx-late\"}");
+        });
+        payment.on("GET", "/payments", 200, "[{\"status\":\"APPROVED\",\"transactionId\":\"tx-late\",\"amount\":25.00}]");
+
+        checkout(CHECKOUT)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.order.status").value("PAID"))
+                .andExpect(jsonPath("$.transactionId").value("tx-late"));
+
+        Order saved = orderRepository.findAll().get(0);
+        assertThat(saved.getTransactionId()).isEqualTo("tx-late");
+        assertThat(payment.calls("GET", "/payments")).hasSize(1);
+        assertThat(payment.calls("POST", "/payments")).hasSize(1);
+        assertThat(product.calls("POST", "/products/reservations/r-1/commit")).hasSize(1);
+        assertThat(product.calls("DELETE", "/products/reservations/r-1")).isEmpty();
+    }
+
+    @Test
+    void checkout_payment5xx_andNothingRecorded_retriesOnceWithTheSameKey() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        payment.on("POST", "/payments", call -> attempts.incrementAndGet() == 1
+                ? new StubServer.Reply(503, "")
+                : new StubServer.Reply(200, "{\"status\":\"APPROVED\",\"transactionId\":\"tx-1\",\"amount\":25.00}"));
+        payment.on("GET", "/payments", 200, "[]");
+
+        checkout(CHECKOUT)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.order.status").value("PAID"));
+
+        List<StubServer.Call> payments = payment.calls("POST", "/payments");
+        assertThat(payments).hasSize(2);
+        assertThat(payments.get(1).header("Idempotency-Key")).isEqualTo(payments.get(0).header("Idempotency-Key"));
+    }
+
+    @Test
+    void checkout_paymentOutcomeUnknown_keepsReservationAndOrder_returns202() throws Exception {
+        payment.on("POST", "/payments", call -> {
+            Thread.sleep(2_000);
+            return new StubServer.Reply(200, "{\"status\":\"APPROVED\",\"transactionId\":\"tx-late\"}");
+        });
+        payment.on("GET", "/payments", 200, "[]");
+
+        checkout(CHECKOUT)
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.status").value("PAYMENT_UNKNOWN"))
+                .andExpect(jsonPath("$.orderId").exists());
+
+        Order saved = orderRepository.findAll().get(0);
+        assertThat(saved.getStatus()).isEqualTo("PAYMENT_UNKNOWN");
+        assertThat(saved.getReservationId()).isEqualTo("r-1");
+        assertThat(payment.calls("POST", "/payments")).hasSize(2);
+        assertThat(product.calls("DELETE", "/products/reservations/r-1")).isEmpty();
+        assertThat(product.calls("POST", "/products/reservations/r-1/commit")).isEmpty();
+    }
+
+    @Test
+    void checkout_retriedWithTheSameIdempotencyKey_resumesTheSameOrder_andNeverChargesTwice() throws Exception {
+        payment.on("POST", "/payments", 503, "");
+        payment.on("GET", "/payments", 503, "");
+
+        checkout(CHECKOUT, "k-1").andExpect(status().isAccepted());
+        Long orderId = orderRepository.findAll().get(0).getId();
+
+        // The payment went through after all, and the client retries
+        payment.on("GET", "/payments", 200, "[{\"status\":\"APPROVED\",\"transactionId\":\"tx-1\",\"amount\":25.00}]");
+        checkout(CHECKOUT, "k-1")
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.order.id").value(orderId))
+                .andExpect(jsonPath("$.order.status").value("PAID"))
+                .andExpect(jsonPath("$.transactionId").value("tx-1"));
+
+        // Once paid, a retry replays the result without calling anything
+        int calls = payment.calls("POST", "/payments").size() + payment.calls("GET", "/payments").size();
+        checkout(CHECKOUT, "k-1")
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.order.id").value(orderId))
+                .andExpect(jsonPath("$.amount").value(25.00))
+                .andExpect(jsonPath("$.reservationId").value("r-1"))
+                .andExpect(jsonPath("$.transactionId").value("tx-1"));
+
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(product.calls("POST", "/products/reservations")).hasSize(1);
+        assertThat(payment.calls("POST", "/payments").size() + payment.calls("GET", "/payments").size()).isEqualTo(calls);
+        assertThat(payment.calls("POST", "/payments")).extracting(c -> c.header("Idempotency-Key")).containsOnly("checkout-7-k-1");
+    }
+
+    @Test
+    void checkout_retriedWhileThePaymentIsInFlight_returns409_withoutPayingAgain() throws Exception {
+        payment.on("POST", "/payments", call -> {
+            Thread.sleep(300);
+            return new StubServer.Reply(200, "{\"status\":\"APPROVED\",\"transactionId\":\"tx-1\",\"amount\":25.00}");
+        });
+        CompletableFuture<ResultActions> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return checkout(CHECKOUT, "k-2");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        awaitCall(payment, "POST", "/payments");
+
+        checkout(CHECKOUT, "k-2")
+                .andExpect(status().isConflict())
+                .andExpect(header().exists("Retry-After"));
+
+        first.get(10, TimeUnit.SECONDS).andExpect(status().isCreated());
+        assertThat(payment.calls("POST", "/payments")).hasSize(1);
+        assertThat(payment.calls("GET", "/payments")).isEmpty();
+    }
+
+    @Test
+    void checkout_retriedAfterAnAttemptOutlivedItsBudget_reconcilesThePendingOrder() throws Exception {
+        Order stuck = new Order();
+        stuck.setUserId(7L);
+        stuck.setCartId(7L);
+        stuck.setCheckoutKey("k-3");
+        stuck.setReservationId("r-1");
+        stuck.setAmount(new BigDecimal("25.00"));
+        stuck.setAttemptedAt(Instant.now().minusSeconds(60));
+        Long orderId = orderRepository.save(stuck).getId();
+        payment.on("GET", "/payments", 200, "[{\"status\":\"APPROVED\",\"transactionId\":\"tx-9\",\"amount\":25.00}]");
+
+        checkout(CHECKOUT, "k-3")
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.order.id").value(orderId))
+                .andExpect(jsonPath("$.transactionId").value("tx-9"));
+
+        assertThat(payment.calls("POST", "/payments")).isEmpty();
+        assertThat(product.calls("POST", "/products/reservations")).isEmpty();
+    }
+
+    @Test
+    void checkout_blankOrOversizedIdempotencyKey_returns400() throws Exception {
+        mockMvc.perform(post("/orders/checkout").contentType(MediaType.APPLICATION_JSON).content(CHECKOUT)
+                        .header("Idempotency-Key", "x".repeat(201)))
+                .andExpect(status().isBadRequest());
+
+        assertThat(cart.calls("GET", "/carts/7")).isEmpty();
+    }
+
+    @Test
+    void checkout_emptyOrMissingCart_returns422() throws Exception {
+        cart.on("GET", "/carts/7", 200, "{\"userId\":7,\"items\":[]}");
+        checkout(CHECKOUT).andExpect(status().isUnprocessableEntity());
+
+        cart.on("GET", "/carts/7", 404, "");
+        checkout(CHECKOUT).andExpect(status().isUnprocessableEntity());
+
+        assertThat(product.calls("POST", "/products/reservations")).isEmpty();
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void checkout_validationError_returns400() throws Exception {
+        mockMvc.perform(post("/orders/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":null,\"paymentMethod\":\"\"}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(cart.calls("GET", "/carts/7")).isEmpty();
+    }
+}
@@ -0,0 +1,134 @@
+package com.sparkage.order.test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * In-process stand-in for another service's HTTP API: canned or computed JSON replies per
+ * method and path, with every request recorded. Unmatched requests get 404.
+ */
+public class StubServer implements AutoCloseable {
+
+    public static class Call {
+        private final String method;
+        private final String path;
+        private final String body;
+        private final Map<String, List<String>> headers;
+
+        Call(String method, String path, String body, Map<String, List<String>> headers) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+            this.headers = headers;
+        }
+
+        public String getMethod() { return method; }
+        public String getPath() { return path; }
+        public String getBody() { return body; }
+        public String header(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+    }
+
+    public static class Reply {
+        final int status;
+        final String body;
+
+        public Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        Reply handle(Call call) throws Exception;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Handler> routes = new ConcurrentHashMap<>();
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+
+    private StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::dispatch);
+        server.start();
+    }
+
+    public static StubServer start() {
+        try {
+            return new StubServer();
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot start stub server", e);
+        }
+    }
+
+    public String uri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public StubServer on(String method, String path, int status, String body) {
+        return on(method, path, call -> new Reply(status, body));
+    }
+
+    public StubServer on(String method, String path, Handler handler) {
+        routes.put(method + " " + path, handler);
+        return this;
+    }
+
+    public List<Call> calls(String method, String path) {
+        return calls.stream()
+                .filter(c -> c.getMethod().equals(method) && c.getPath().equals(path))
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        routes.clear();
+        calls.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Call call = new Call(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8),
+                    exchange.getRequestHeaders());
+            calls.add(call);
+            Handler handler = routes.get(call.getMethod() + " " + call.getPath());
+            Reply reply;
+            try {
+                reply = handler != null ? handler.handle(call) : new Reply(404, "");
+            } catch (Exception e) {
+                reply = new Reply(500, "{\"error\":\"" + e + "\"}");
+            }
+            byte[] body = reply.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(reply.status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+}
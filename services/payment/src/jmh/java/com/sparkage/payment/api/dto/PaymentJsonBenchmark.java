@@ -0,0 +1,75 @@
+package com.sparkage.payment.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost per payment: reading a {@link PaymentRequest} and writing the {@link PaymentResponse}
+ * as {@code POST /payments} does, and one {@code POST /payments/batch} line in each direction through
+ * the prepared reader and writer the batch pipeline uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentJsonBenchmark {
+
+    private ObjectMapper mapper;
+    private ObjectReader batchReader;
+    private ObjectWriter batchWriter;
+    private byte[] requestJson;
+    private PaymentResponse response;
+    private BatchPaymentResult batchResult;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        batchReader = mapper.readerFor(PaymentRequest.class);
+        batchWriter = mapper.writerFor(BatchPaymentResult.class);
+        requestJson = "{\"orderId\":1042,\"paymentMethod\":\"CARD\",\"amount\":149.90,\"paymentDetails\":\"tok_4242\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        response = new PaymentResponse("APPROVED", "7d0c3c52-5b8e-4a0e-9b43-1f0f6d1f2c11", 1042L, "CARD",
+                new BigDecimal("149.90"), Instant.parse("2024-01-15T10:00:00Z"));
+        batchResult = BatchPaymentResult.ok(17, response);
+    }
+
+    @Benchmark
+    public PaymentRequest readRequest() throws Exception {
+        return mapper.readValue(requestJson, PaymentRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws Exception {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public PaymentRequest readBatchLine() throws Exception {
+        return batchReader.readValue(requestJson);
+    }
+
+    @Benchmark
+    public byte[] writeBatchLine() throws Exception {
+        return batchWriter.writeValueAsBytes(batchResult);
+    }
+}
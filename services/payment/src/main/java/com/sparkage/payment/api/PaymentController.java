@@ -2,31 +2,66 @@ package com.sparkage.payment.api;
 
 import com.sparkage.payment.api.dto.PaymentRequest;
 import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.processor.IsolatedProcessor;
+import com.sparkage.payment.service.IdempotencyService;
+import com.sparkage.payment.service.PaymentBatchService;
 import com.sparkage.payment.service.PaymentProcessorService;
+import com.sparkage.payment.service.PaymentStore;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/payments")
 public class PaymentController {
 
     private final PaymentProcessorService processorService;
+    private final PaymentBatchService batchService;
 
-    public PaymentController() {
-        // simple manual wiring to avoid extra configuration
-        this.processorService = new PaymentProcessorService();
-    }
-
-    // Alternative constructor for testing/DI if needed
-    public PaymentController(PaymentProcessorService processorService) {
+    public PaymentController(PaymentProcessorService processorService, PaymentBatchService batchService) {
         this.processorService = processorService;
+        this.batchService = batchService;
     }
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    static final String NDJSON = "application/x-ndjson";
+
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public PaymentResponse process(@RequestBody @jakarta.validation.Valid PaymentRequest request) {
-        return processorService.process(request);
+    public ResponseEntity<PaymentResponse> process(@RequestBody @jakarta.validation.Valid PaymentRequest request,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        IdempotencyService.Outcome outcome = processorService.process(request, idempotencyKey);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (outcome.isReplayed()) {
+            response.header(IDEMPOTENT_REPLAYED, "true");
+        }
+        return response.body(outcome.getResponse());
+    }
+
+    /**
+     * Processes one payment per NDJSON line and streams one result line back per input line, in the
+     * same order, as each becomes available. Invalid lines get an error result; the rest of the
+     * batch is still processed.
+     */
+    @PostMapping(path = "/batch", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> processBatch(InputStream body) {
+        PaymentBatchService.Batch batch = batchService.open();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(out -> batch.run(body, out));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<PaymentResponse> findByOrder(@RequestParam("orderId") Long orderId) {
+        return processorService.findByOrderId(orderId);
     }
 
     @GetMapping(value = "/{paymentId}", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -34,4 +69,42 @@ public class PaymentController {
         return processorService.getById(paymentId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "payment not found"));
     }
+
+    @ExceptionHandler(IdempotencyService.KeyReuseException.class)
+    public ResponseEntity<Map<String, Object>> handleKeyReuse(IdempotencyService.KeyReuseException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyService.InProgressException.class)
+    public ResponseEntity<Map<String, Object>> handleInProgress(IdempotencyService.InProgressException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IsolatedProcessor.ProcessorUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleProcessorUnavailable(IsolatedProcessor.ProcessorUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(PaymentBatchService.TooManyBatchesException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyBatches(PaymentBatchService.TooManyBatchesException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(PaymentStore.StoreBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleStoreBusy(PaymentStore.StoreBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
 }
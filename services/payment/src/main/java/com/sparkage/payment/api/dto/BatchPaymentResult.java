@@ -0,0 +1,39 @@
+package com.sparkage.payment.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of a {@code POST /payments/batch} response: the payment created for input line
+ * {@code index} (zero-based), or the reason that line was rejected.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPaymentResult {
+    private long index;
+    private PaymentResponse payment;
+    private String error;
+
+    public BatchPaymentResult() {}
+
+    public BatchPaymentResult(long index, PaymentResponse payment, String error) {
+        this.index = index;
+        this.payment = payment;
+        this.error = error;
+    }
+
+    public static BatchPaymentResult ok(long index, PaymentResponse payment) {
+        return new BatchPaymentResult(index, payment, null);
+    }
+
+    public static BatchPaymentResult failed(long index, String error) {
+        return new BatchPaymentResult(index, null, error);
+    }
+
+    public long getIndex() { return index; }
+    public void setIndex(long index) { this.index = index; }
+
+    public PaymentResponse getPayment() { return payment; }
+    public void setPayment(PaymentResponse payment) { this.payment = payment; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
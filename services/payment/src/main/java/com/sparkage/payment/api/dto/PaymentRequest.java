@@ -8,10 +8,12 @@ public class PaymentRequest {
     private Long orderId;
 
     @NotBlank
+    @Size(max = 32) // payments.payment_method
     private String paymentMethod; // e.g., "CARD", "WALLET", "COD"
 
     @NotNull
     @DecimalMin(value = "0.01", inclusive = true, message = "amount must be greater than 0")
+    @Digits(integer = 10, fraction = 2) // payments.amount NUMERIC(12,2)
     private BigDecimal amount;
 
     // Simplify payment details as opaque string (e.g., token or masked card)
@@ -0,0 +1,83 @@
+package com.sparkage.payment.config;
+
+import com.sparkage.payment.processor.CircuitBreaker;
+import com.sparkage.payment.processor.IsolatedProcessor;
+import com.sparkage.payment.processor.LatencyDistribution;
+import com.sparkage.payment.processor.PaymentMethodProcessor;
+import com.sparkage.payment.processor.PaymentMethodRegistry;
+import com.sparkage.payment.processor.SimulatedPaymentMethodProcessor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+@EnableConfigurationProperties(PaymentProcessorProperties.class)
+public class PaymentProcessorConfig {
+
+    @Bean
+    public PaymentMethodRegistry paymentMethodRegistry(PaymentProcessorProperties properties,
+                                                       ObjectProvider<PaymentMethodProcessor> providers,
+                                                       ObjectProvider<MeterRegistry> meterRegistry,
+                                                       Environment environment) {
+        // With spring.threads.virtual.enabled the provider calls block virtual threads too, not a platform pool
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+        Map<String, PaymentMethodProcessor> byMethod = new LinkedHashMap<>();
+        providers.orderedStream().forEach(p -> byMethod.put(p.method().toUpperCase(), p));
+        Map<String, PaymentProcessorProperties.Method> settings = new LinkedHashMap<>();
+        properties.getMethods().forEach((method, s) -> settings.put(method.toUpperCase(), s));
+        byMethod.keySet().forEach(method -> settings.putIfAbsent(method, new PaymentProcessorProperties.Method()));
+
+        List<IsolatedProcessor> processors = new ArrayList<>();
+        settings.forEach((method, s) -> {
+            PaymentMethodProcessor provider = byMethod.get(method);
+            if (provider == null) {
+                PaymentProcessorProperties.Simulation sim = s.getSimulation();
+                provider = new SimulatedPaymentMethodProcessor(method,
+                        LatencyDistribution.ofMillis(sim.getLatencyMedianMs(), sim.getLatencyP99Ms()),
+                        sim.getDeclineRate(), sim.getFailureRate());
+            }
+            PaymentProcessorProperties.Breaker b = s.getBreaker();
+            CircuitBreaker breaker = new CircuitBreaker(b.getWindowSize(), b.getMinimumCalls(), b.getFailureRatePercent(),
+                    Duration.ofMillis(b.getOpenMs()), b.getHalfOpenCalls());
+            processors.add(new IsolatedProcessor(provider, s.getMaxConcurrent(), s.getQueueCapacity(),
+                    Duration.ofMillis(s.getTimeoutMs()), breaker,
+                    virtual ? new VirtualThreadTaskExecutor(IsolatedProcessor.threadPrefix(method)).getVirtualThreadFactory() : null));
+        });
+        PaymentMethodRegistry registry = new PaymentMethodRegistry(processors);
+        meterRegistry.ifAvailable(meters -> registry.processors().forEach(p -> bind(p, meters)));
+        return registry;
+    }
+
+    private static void bind(IsolatedProcessor p, MeterRegistry meters) {
+        Gauge.builder("payment.processor.active", p, IsolatedProcessor::activeCalls)
+                .tag("method", p.method()).register(meters);
+        Gauge.builder("payment.processor.queued", p, IsolatedProcessor::queuedCalls)
+                .tag("method", p.method()).register(meters);
+        Gauge.builder("payment.processor.breaker.open", p, x -> x.breakerState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("method", p.method()).register(meters);
+        calls(meters, p, "success", IsolatedProcessor::succeededCalls);
+        calls(meters, p, "failure", IsolatedProcessor::failedCalls);
+        calls(meters, p, "timeout", IsolatedProcessor::timedOutCalls);
+        calls(meters, p, "rejected", IsolatedProcessor::rejectedCalls);
+        calls(meters, p, "short_circuited", IsolatedProcessor::shortCircuitedCalls);
+    }
+
+    private static void calls(MeterRegistry meters, IsolatedProcessor p, String outcome, ToDoubleFunction<IsolatedProcessor> count) {
+        FunctionCounter.builder("payment.processor.calls", p, count)
+                .tag("method", p.method()).tag("outcome", outcome).register(meters);
+    }
+}
@@ -0,0 +1,85 @@
+package com.sparkage.payment.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-method provider settings under {@code payment.processors.methods.<METHOD>}. Every method
+ * listed here is accepted; methods without a {@code PaymentMethodProcessor} bean are served by the
+ * simulated provider configured in {@code simulation}.
+ */
+@ConfigurationProperties(prefix = "payment.processors")
+public class PaymentProcessorProperties {
+
+    private Map<String, Method> methods = new LinkedHashMap<>();
+
+    public Map<String, Method> getMethods() { return methods; }
+    public void setMethods(Map<String, Method> methods) { this.methods = methods; }
+
+    public static class Method {
+        private int maxConcurrent = 32;
+        private int queueCapacity = 0;
+        private long timeoutMs = 2000;
+        private Breaker breaker = new Breaker();
+        private Simulation simulation = new Simulation();
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+        public Breaker getBreaker() { return breaker; }
+        public void setBreaker(Breaker breaker) { this.breaker = breaker; }
+
+        public Simulation getSimulation() { return simulation; }
+        public void setSimulation(Simulation simulation) { this.simulation = simulation; }
+    }
+
+    public static class Breaker {
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private double failureRatePercent = 50;
+        private long openMs = 10000;
+        private int halfOpenCalls = 3;
+
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+
+        public int getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+
+        public double getFailureRatePercent() { return failureRatePercent; }
+        public void setFailureRatePercent(double failureRatePercent) { this.failureRatePercent = failureRatePercent; }
+
+        public long getOpenMs() { return openMs; }
+        public void setOpenMs(long openMs) { this.openMs = openMs; }
+
+        public int getHalfOpenCalls() { return halfOpenCalls; }
+        public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+    }
+
+    public static class Simulation {
+        private double latencyMedianMs = 0;
+        private double latencyP99Ms = 0;
+        private double declineRate = 0;
+        private double failureRate = 0;
+
+        public double getLatencyMedianMs() { return latencyMedianMs; }
+        public void setLatencyMedianMs(double latencyMedianMs) { this.latencyMedianMs = latencyMedianMs; }
+
+        public double getLatencyP99Ms() { return latencyP99Ms; }
+        public void setLatencyP99Ms(double latencyP99Ms) { this.latencyP99Ms = latencyP99Ms; }
+
+        public double getDeclineRate() { return declineRate; }
+        public void setDeclineRate(double declineRate) { this.declineRate = declineRate; }
+
+        public double getFailureRate() { return failureRate; }
+        public void setFailureRate(double failureRate) { this.failureRate = failureRate; }
+    }
+}
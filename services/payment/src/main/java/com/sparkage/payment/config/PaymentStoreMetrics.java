@@ -0,0 +1,31 @@
+package com.sparkage.payment.config;
+
+import com.sparkage.payment.service.PaymentStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind health of {@link PaymentStore}. {@code payment.store.lost} counts payments that were
+ * acknowledged but never stored, so alert on any increase: those payments are gone from
+ * {@code GET /payments/{id}} and from idempotent replays.
+ */
+@Component
+public class PaymentStoreMetrics implements MeterBinder {
+
+    private final PaymentStore store;
+
+    public PaymentStoreMetrics(PaymentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meters) {
+        FunctionCounter.builder("payment.store.lost", store, PaymentStore::failedWrites)
+                .description("Payments acknowledged but not written").register(meters);
+        Gauge.builder("payment.store.queued", store, PaymentStore::queuedWrites)
+                .description("Payments acknowledged and waiting to be written").register(meters);
+    }
+}
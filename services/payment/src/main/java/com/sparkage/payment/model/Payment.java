@@ -0,0 +1,79 @@
+package com.sparkage.payment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Entity
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_idempotency_key", columnList = "idempotency_key"),
+        @Index(name = "idx_payments_order_id", columnList = "order_id")
+})
+public class Payment {
+
+    @Id
+    @Column(name = "transaction_id", length = 36, nullable = false, updatable = false)
+    private String transactionId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "payment_method", length = 32, nullable = false)
+    private String paymentMethod;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 16, nullable = false)
+    private String status;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+
+    // Client-supplied Idempotency-Key and a hash of the request it was first used with
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    public Payment() {}
+
+    public Payment(String transactionId, Long orderId, String paymentMethod, BigDecimal amount, String status, Instant processedAt) {
+        this.transactionId = transactionId;
+        this.orderId = orderId;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+        this.status = status;
+        this.processedAt = processedAt;
+    }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Instant getProcessedAt() { return processedAt; }
+    public void setProcessedAt(Instant processedAt) { this.processedAt = processedAt; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+}
@@ -0,0 +1,153 @@
+package com.sparkage.payment.processor;
+
+import com.sparkage.payment.api.dto.PaymentRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs one {@link PaymentMethodProcessor} behind its own bulkhead, timeout and circuit breaker.
+ * <p>
+ * Provider calls execute on a pool of {@code maxConcurrent} threads owned by this method, with at
+ * most {@code queueCapacity} calls waiting. A caller waits for at most {@code timeout}, and gets a
+ * {@link ProcessorUnavailableException} straight away when the pool and queue are full or the
+ * breaker is open. A slow or failing provider therefore holds at most its own concurrency plus
+ * queue worth of request threads, for at most the timeout, and other methods keep their capacity.
+ * The pool's threads come from the given factory, so in virtual-thread mode a wide bulkhead costs
+ * no platform threads.
+ */
+public class IsolatedProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(IsolatedProcessor.class);
+
+    private final PaymentMethodProcessor delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final CircuitBreaker breaker;
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+
+    public IsolatedProcessor(PaymentMethodProcessor delegate, int maxConcurrent, int queueCapacity, Duration timeout,
+                             CircuitBreaker breaker) {
+        this(delegate, maxConcurrent, queueCapacity, timeout, breaker, null);
+    }
+
+    /** @param threadFactory creates the pool's threads, or null for daemon platform threads */
+    public IsolatedProcessor(PaymentMethodProcessor delegate, int maxConcurrent, int queueCapacity, Duration timeout,
+                             CircuitBreaker breaker, ThreadFactory threadFactory) {
+        this.delegate = delegate;
+        this.timeoutNanos = timeout.toNanos();
+        this.breaker = breaker;
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, queue,
+                threadFactory != null ? threadFactory : platformThreads(threadPrefix(delegate.method())));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Name prefix of the provider call threads of a payment method. */
+    public static String threadPrefix(String method) {
+        return "payment-" + method.toLowerCase() + "-";
+    }
+
+    private static ThreadFactory platformThreads(String prefix) {
+        AtomicInteger threadIds = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public String method() {
+        return delegate.method();
+    }
+
+    /**
+     * @return the provider's decision, {@code APPROVED} or {@code DECLINED}
+     * @throws ProcessorUnavailableException if the call was not attempted, timed out or failed
+     */
+    public String authorize(PaymentRequest request) {
+        if (!breaker.tryAcquire()) {
+            shortCircuited.increment();
+            throw new ProcessorUnavailableException(method(), "circuit breaker is open");
+        }
+        Future<String> call;
+        try {
+            call = executor.submit(() -> delegate.authorize(request));
+        } catch (RejectedExecutionException e) {
+            breaker.release();
+            rejected.increment();
+            throw new ProcessorUnavailableException(method(), "too many concurrent requests");
+        }
+        try {
+            String status = call.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            breaker.onSuccess();
+            succeeded.increment();
+            return status;
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            breaker.onFailure();
+            timedOut.increment();
+            throw new ProcessorUnavailableException(method(), "provider timed out");
+        } catch (ExecutionException e) {
+            breaker.onFailure();
+            failed.increment();
+            log.warn("{} provider call failed: {}", method(), e.getCause().toString());
+            throw new ProcessorUnavailableException(method(), "provider error");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.cancel(true);
+            breaker.release();
+            throw new ProcessorUnavailableException(method(), "interrupted");
+        }
+    }
+
+    public CircuitBreaker.State breakerState() {
+        return breaker.state();
+    }
+
+    public int activeCalls() {
+        return executor.getActiveCount();
+    }
+
+    public int queuedCalls() {
+        return executor.getQueue().size();
+    }
+
+    public long succeededCalls() { return succeeded.sum(); }
+    public long failedCalls() { return failed.sum(); }
+    public long timedOutCalls() { return timedOut.sum(); }
+    public long rejectedCalls() { return rejected.sum(); }
+    public long shortCircuitedCalls() { return shortCircuited.sum(); }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static class ProcessorUnavailableException extends RuntimeException {
+        private final String method;
+
+        public ProcessorUnavailableException(String method, String reason) {
+            super(method + " payments are temporarily unavailable: " + reason);
+            this.method = method;
+        }
+
+        public String getMethod() { return method; }
+    }
+}
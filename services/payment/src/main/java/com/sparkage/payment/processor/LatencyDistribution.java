@@ -0,0 +1,41 @@
+package com.sparkage.payment.processor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal response-time model fitted to a median and a 99th percentile, which is close to how
+ * real provider latencies look: most calls near the median and a long right tail.
+ */
+public final class LatencyDistribution {
+
+    private static final double Z_99 = 2.3263;
+
+    private final double mu;
+    private final double sigma;
+    private final long medianMicros;
+
+    private LatencyDistribution(long medianMicros, long p99Micros) {
+        this.medianMicros = medianMicros;
+        this.mu = medianMicros > 0 ? Math.log(medianMicros) : 0;
+        this.sigma = p99Micros > medianMicros && medianMicros > 0 ? Math.log((double) p99Micros / medianMicros) / Z_99 : 0;
+    }
+
+    public static LatencyDistribution none() {
+        return new LatencyDistribution(0, 0);
+    }
+
+    /** A fixed latency when {@code p99Millis <= medianMillis}; no latency at all when the median is 0. */
+    public static LatencyDistribution ofMillis(double medianMillis, double p99Millis) {
+        return new LatencyDistribution(Math.round(medianMillis * 1000), Math.round(p99Millis * 1000));
+    }
+
+    public long sampleMicros() {
+        if (medianMicros == 0) {
+            return 0;
+        }
+        if (sigma == 0) {
+            return medianMicros;
+        }
+        return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+}
@@ -0,0 +1,24 @@
+package com.sparkage.payment.processor;
+
+import com.sparkage.payment.api.dto.PaymentRequest;
+
+/**
+ * Provider integration for one payment method. Implementations are plain blocking calls; the
+ * {@link PaymentMethodRegistry} runs each method behind its own bulkhead, timeout and circuit
+ * breaker, so an implementation does not need to protect itself.
+ * <p>
+ * Declare an implementation as a bean to replace the simulated provider for its method.
+ */
+public interface PaymentMethodProcessor {
+
+    /** Upper-case method name as sent in {@code PaymentRequest.paymentMethod}, e.g. {@code CARD}. */
+    String method();
+
+    /**
+     * Asks the provider to authorize the payment.
+     *
+     * @return {@code APPROVED} or {@code DECLINED}
+     * @throws Exception if the provider could not be reached or failed; counts against the circuit breaker
+     */
+    String authorize(PaymentRequest request) throws Exception;
+}
@@ -0,0 +1,40 @@
+package com.sparkage.payment.processor;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The payment methods this service accepts, each with its isolated processor. A method that is not
+ * registered is declined.
+ */
+public class PaymentMethodRegistry {
+
+    private final Map<String, IsolatedProcessor> processors = new LinkedHashMap<>();
+
+    public PaymentMethodRegistry(Collection<IsolatedProcessor> processors) {
+        for (IsolatedProcessor processor : processors) {
+            if (this.processors.putIfAbsent(processor.method(), processor) != null) {
+                throw new IllegalStateException("Duplicate processor for payment method " + processor.method());
+            }
+        }
+    }
+
+    public Optional<IsolatedProcessor> find(String method) {
+        return Optional.ofNullable(processors.get(method));
+    }
+
+    public Set<String> methods() {
+        return processors.keySet();
+    }
+
+    public Collection<IsolatedProcessor> processors() {
+        return processors.values();
+    }
+
+    public void shutdown() {
+        processors.values().forEach(IsolatedProcessor::shutdown);
+    }
+}
@@ -0,0 +1,47 @@
+package com.sparkage.payment.processor;
+
+import com.sparkage.payment.api.dto.PaymentRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in provider that sleeps for a sampled latency and then approves, or randomly declines or
+ * fails at the configured rates. Used for every method without a real integration, and for load
+ * testing the bulkheads offline.
+ */
+public class SimulatedPaymentMethodProcessor implements PaymentMethodProcessor {
+
+    private final String method;
+    private final LatencyDistribution latency;
+    private final double declineRate;
+    private final double failureRate;
+
+    public SimulatedPaymentMethodProcessor(String method, LatencyDistribution latency, double declineRate, double failureRate) {
+        this.method = method;
+        this.latency = latency;
+        this.declineRate = declineRate;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public String method() {
+        return method;
+    }
+
+    @Override
+    public String authorize(PaymentRequest request) throws Exception {
+        long micros = latency.sampleMicros();
+        if (micros > 0) {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            throw new IllegalStateException("simulated " + method + " provider failure");
+        }
+        if (declineRate > 0 && random.nextDouble() < declineRate) {
+            return "DECLINED";
+        }
+        return "APPROVED";
+    }
+}
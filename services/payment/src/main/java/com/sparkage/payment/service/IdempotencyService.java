@@ -0,0 +1,189 @@
+package com.sparkage.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.model.Payment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates payment requests carrying the same {@code Idempotency-Key}.
+ * <ul>
+ *   <li>While the first request for a key is being processed, later requests with that key wait for
+ *   its outcome (up to {@code wait-timeout-ms}) instead of processing again.</li>
+ *   <li>Completed outcomes are kept in a bounded local cache for {@code ttl-hours}.</li>
+ *   <li>Behind the cache, the key is stored on the payment row itself, so replays keep working after
+ *   a restart or a cache eviction for the same TTL.</li>
+ * </ul>
+ * A key is bound to the request it was first used with; reusing it with a different request is
+ * rejected. Deduplication of concurrent first attempts is per instance; requests racing on two
+ * replicas are only deduplicated once one of them has been committed.
+ */
+@Component
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final PaymentStore store;
+    private final Duration ttl;
+    private final long waitTimeoutMillis;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, Completed> completed;
+
+    public IdempotencyService(PaymentStore store,
+                              @Value("${payment.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${payment.idempotency.max-cached-keys:100000}") long maxCachedKeys,
+                              @Value("${payment.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this.store = store;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxCachedKeys)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code processor} at most once per key and request hash within the TTL and returns its
+     * result, marking results that were served from an earlier execution as replayed.
+     *
+     * @throws KeyReuseException   if the key was first used with a different request
+     * @throws InProgressException if the first request for the key did not finish within the wait timeout
+     */
+    public Outcome execute(String key, String requestHash, Supplier<PaymentResponse> processor) {
+        validate(key);
+        Completed done = completed.getIfPresent(key);
+        if (done != null) {
+            return replay(done, requestHash);
+        }
+        InFlight mine = new InFlight(requestHash);
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            if (!running.requestHash.equals(requestHash)) {
+                throw new KeyReuseException();
+            }
+            return new Outcome(await(running), true);
+        }
+        try {
+            // Re-check under ownership: the key may have completed here or on another instance
+            Completed earlier = lookup(key);
+            if (earlier != null) {
+                mine.result.complete(earlier.response);
+                return replay(earlier, requestHash);
+            }
+            PaymentResponse response = processor.get();
+            completed.put(key, new Completed(requestHash, response));
+            mine.result.complete(response);
+            return new Outcome(response, false);
+        } catch (RuntimeException | Error e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Drops locally cached outcomes; the durable copies are unaffected. */
+    public void clearCache() {
+        completed.invalidateAll();
+    }
+
+    private Completed lookup(String key) {
+        Completed done = completed.getIfPresent(key);
+        if (done != null) {
+            return done;
+        }
+        Optional<Payment> row = store.findByIdempotencyKey(key, Instant.now().minus(ttl));
+        if (row.isEmpty()) {
+            return null;
+        }
+        done = new Completed(row.get().getRequestHash(), PaymentStore.toResponse(row.get()));
+        completed.put(key, done);
+        return done;
+    }
+
+    private Outcome replay(Completed done, String requestHash) {
+        if (done.requestHash != null && !done.requestHash.equals(requestHash)) {
+            throw new KeyReuseException();
+        }
+        return new Outcome(done.response, true);
+    }
+
+    private PaymentResponse await(InFlight running) {
+        try {
+            return running.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new InProgressException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InProgressException();
+        } catch (ExecutionException e) {
+            // The first attempt failed; surface the same error so the client can retry the key
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void validate(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    public static final class Outcome {
+        private final PaymentResponse response;
+        private final boolean replayed;
+
+        public Outcome(PaymentResponse response, boolean replayed) {
+            this.response = response;
+            this.replayed = replayed;
+        }
+
+        public PaymentResponse getResponse() { return response; }
+        public boolean isReplayed() { return replayed; }
+    }
+
+    private static final class InFlight {
+        final String requestHash;
+        final CompletableFuture<PaymentResponse> result = new CompletableFuture<>();
+
+        InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static final class Completed {
+        final String requestHash;
+        final PaymentResponse response;
+
+        Completed(String requestHash, PaymentResponse response) {
+            this.requestHash = requestHash;
+            this.response = response;
+        }
+    }
+
+    public static class KeyReuseException extends RuntimeException {
+        public KeyReuseException() {
+            super("Idempotency-Key was already used with a different request");
+        }
+    }
+
+    public static class InProgressException extends RuntimeException {
+        public InProgressException() {
+            super("A request with this Idempotency-Key is still being processed");
+        }
+    }
+}
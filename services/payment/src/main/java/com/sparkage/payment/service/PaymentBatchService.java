@@ -0,0 +1,239 @@
+package com.sparkage.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sparkage.payment.api.dto.BatchPaymentResult;
+import com.sparkage.payment.api.dto.PaymentRequest;
+import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.processor.IsolatedProcessor;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Processes a stream of NDJSON payment requests on a bounded parallel pipeline and writes one
+ * {@link BatchPaymentResult} line per request, in input order.
+ * <p>
+ * Each line goes through three stages on the shared worker pool: parse and validate, method
+ * dispatch ({@link PaymentProcessorService#authorize}), and persistence ({@link PaymentStore#save}).
+ * The calling thread reads ahead at most {@code window} lines and writes results as the oldest one
+ * completes, so a batch holds a fixed amount of memory however long it is, and a slow line only
+ * delays the output behind it, not the work. An invalid line yields an error result and does not
+ * stop the batch.
+ * <p>
+ * Lines are read and written with dedicated Jackson readers/writers rather than through a controller
+ * signature, so the two types are registered for binding explicitly for native images.
+ */
+@Component
+@RegisterReflectionForBinding({PaymentRequest.class, BatchPaymentResult.class})
+public class PaymentBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentBatchService.class);
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final PaymentProcessorService processorService;
+    private final PaymentStore store;
+    private final Validator validator;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final ExecutorService workers;
+    private final Semaphore batches;
+    private final int maxConcurrentBatches;
+    private final int window;
+    private final long maxItems;
+
+    public PaymentBatchService(PaymentProcessorService processorService,
+                               PaymentStore store,
+                               Validator validator,
+                               ObjectMapper objectMapper,
+                               @Value("${payment.batch.parallelism:8}") int parallelism,
+                               @Value("${payment.batch.window:256}") int window,
+                               @Value("${payment.batch.max-items:100000}") long maxItems,
+                               @Value("${payment.batch.max-concurrent:4}") int maxConcurrentBatches) {
+        this.processorService = processorService;
+        this.store = store;
+        this.validator = validator;
+        this.requestReader = objectMapper.readerFor(PaymentRequest.class);
+        this.resultWriter = objectMapper.writerFor(BatchPaymentResult.class);
+        this.window = window;
+        this.maxItems = maxItems;
+        this.maxConcurrentBatches = maxConcurrentBatches;
+        this.batches = new Semaphore(maxConcurrentBatches);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "payment-batch-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Reserves a batch slot. Must be followed by {@link Batch#run}, which releases it.
+     *
+     * @throws TooManyBatchesException if {@code max-concurrent} batches are already running
+     */
+    public Batch open() {
+        if (!batches.tryAcquire()) {
+            throw new TooManyBatchesException(maxConcurrentBatches + " payment batches are already running");
+        }
+        return new Batch();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public final class Batch {
+
+        private Batch() {
+        }
+
+        public void run(InputStream in, OutputStream out) throws IOException {
+            ArrayDeque<Slot> inFlight = new ArrayDeque<>(window);
+            long started = System.nanoTime();
+            long index = 0;
+            long failed = 0;
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                boolean eof = false;
+                while (!eof || !inFlight.isEmpty()) {
+                    while (!eof && inFlight.size() < window) {
+                        String line = reader.readLine();
+                        if (line == null) {
+                            eof = true;
+                        } else if (index >= maxItems) {
+                            inFlight.add(Slot.done(BatchPaymentResult.failed(index, "batch exceeds " + maxItems + " payments; remaining lines were not processed")));
+                            eof = true;
+                        } else if (!line.isBlank()) {
+                            inFlight.add(submit(index++, line));
+                        }
+                    }
+                    Slot head = inFlight.poll();
+                    if (head == null) {
+                        continue;
+                    }
+                    BatchPaymentResult result = head.result.join();
+                    if (result.getError() != null) {
+                        failed++;
+                    }
+                    out.write(resultWriter.writeValueAsBytes(result));
+                    out.write(NEWLINE);
+                    // Coalesce writes while results are already waiting, flush as soon as the pipeline catches up
+                    Slot next = inFlight.peek();
+                    if (next == null || !next.result.isDone()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Client went away or the input broke off: do not start payments nobody will see the result of
+                inFlight.forEach(Slot::cancel);
+                throw e;
+            } finally {
+                batches.release();
+                log.info("Payment batch: {} payments, {} rejected in {} ms", index, failed, (System.nanoTime() - started) / 1_000_000);
+            }
+        }
+    }
+
+    private Slot submit(long index, String line) {
+        CompletableFuture<PaymentRequest> validated = CompletableFuture.supplyAsync(() -> parse(line), workers);
+        CompletableFuture<BatchPaymentResult> result = validated
+                .thenApply(processorService::authorize)
+                .thenApply(this::persist)
+                .handle((payment, error) -> payment != null
+                        ? BatchPaymentResult.ok(index, payment)
+                        : BatchPaymentResult.failed(index, describe(index, error)));
+        return new Slot(validated, result);
+    }
+
+    private PaymentRequest parse(String line) {
+        PaymentRequest request;
+        try {
+            request = requestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new InvalidLineException("malformed JSON");
+        }
+        if (request == null) {
+            throw new InvalidLineException("expected a payment object");
+        }
+        Set<ConstraintViolation<PaymentRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new InvalidLineException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return request;
+    }
+
+    private PaymentResponse persist(PaymentResponse payment) {
+        store.save(payment);
+        return payment;
+    }
+
+    private static String describe(long index, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof InvalidLineException || cause instanceof PaymentStore.StoreBusyException
+                || cause instanceof IsolatedProcessor.ProcessorUnavailableException) {
+            return cause.getMessage();
+        }
+        log.error("Payment batch line {} failed", index, cause);
+        return "internal error";
+    }
+
+    private static final class Slot {
+        final CompletableFuture<?> first;
+        final CompletableFuture<BatchPaymentResult> result;
+
+        Slot(CompletableFuture<?> first, CompletableFuture<BatchPaymentResult> result) {
+            this.first = first;
+            this.result = result;
+        }
+
+        static Slot done(BatchPaymentResult result) {
+            CompletableFuture<BatchPaymentResult> completed = CompletableFuture.completedFuture(result);
+            return new Slot(completed, completed);
+        }
+
+        // Cancelling the first stage keeps a queued line from running at all
+        void cancel() {
+            first.cancel(false);
+        }
+    }
+
+    static class InvalidLineException extends RuntimeException {
+        InvalidLineException(String message) {
+            super(message);
+        }
+    }
+
+    public static class TooManyBatchesException extends RuntimeException {
+        public TooManyBatchesException(String message) {
+            super(message);
+        }
+    }
+}
@@ -2,35 +2,92 @@ package com.sparkage.payment.service;
 
 import com.sparkage.payment.api.dto.PaymentRequest;
 import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.processor.IsolatedProcessor;
+import com.sparkage.payment.processor.PaymentMethodRegistry;
+import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
-import java.util.Map;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
+@Service
 public class PaymentProcessorService {
 
-    private static final Set<String> SUPPORTED_METHODS = Set.of("CARD", "WALLET", "UPI", "NETBANKING", "COD");
+    private final PaymentStore store;
+    private final IdempotencyService idempotency;
+    private final PaymentMethodRegistry methods;
 
-    // In-memory store of processed payments keyed by transactionId
-    private final Map<String, PaymentResponse> store = new ConcurrentHashMap<>();
+    public PaymentProcessorService(PaymentStore store, IdempotencyService idempotency, PaymentMethodRegistry methods) {
+        this.store = store;
+        this.idempotency = idempotency;
+        this.methods = methods;
+    }
 
     public PaymentResponse process(PaymentRequest req) {
-        // Simple deterministic logic for demo/testing purposes
+        PaymentResponse resp = authorize(req);
+        store.save(resp, null, null);
+        return resp;
+    }
+
+    /**
+     * Processes {@code req} once per {@code idempotencyKey}; retries with the same key and request get
+     * the original result back. Without a key this is the same as {@link #process(PaymentRequest)}.
+     */
+    public IdempotencyService.Outcome process(PaymentRequest req, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return new IdempotencyService.Outcome(process(req), false);
+        }
+        String hash = requestHash(req);
+        return idempotency.execute(idempotencyKey, hash, () -> {
+            PaymentResponse resp = authorize(req);
+            store.save(resp, idempotencyKey, hash);
+            return resp;
+        });
+    }
+
+    public Optional<PaymentResponse> getById(String paymentId) {
+        return store.find(paymentId);
+    }
+
+    public List<PaymentResponse> findByOrderId(Long orderId) {
+        return store.findByOrderId(orderId);
+    }
+
+    /**
+     * Decides the outcome of a payment without storing it; callers persist the result through
+     * {@link PaymentStore}. Unknown methods and non-positive amounts are declined without asking a
+     * provider.
+     *
+     * @throws IsolatedProcessor.ProcessorUnavailableException if the method's provider could not give an answer
+     */
+    public PaymentResponse authorize(PaymentRequest req) {
         String method = req.getPaymentMethod() == null ? "" : req.getPaymentMethod().toUpperCase();
-        boolean methodSupported = SUPPORTED_METHODS.contains(method);
         boolean amountValid = req.getAmount() != null && req.getAmount().signum() > 0;
+        Optional<IsolatedProcessor> processor = methods.find(method);
 
-        String status = (methodSupported && amountValid) ? "APPROVED" : "DECLINED";
+        String status = processor.isPresent() && amountValid ? processor.get().authorize(req) : "DECLINED";
         String txId = UUID.randomUUID().toString();
-        PaymentResponse resp = new PaymentResponse(status, txId, req.getOrderId(), method, req.getAmount(), Instant.now());
-        store.put(txId, resp);
-        return resp;
+        return new PaymentResponse(status, txId, req.getOrderId(), method, req.getAmount(), Instant.now());
     }
 
-    public Optional<PaymentResponse> getById(String paymentId) {
-        return Optional.ofNullable(store.get(paymentId));
+    // SHA-256 over the fields that define the charge; equal amounts hash equally whatever their scale
+    static String requestHash(PaymentRequest req) {
+        BigDecimal amount = req.getAmount();
+        String canonical = req.getOrderId() + "\n"
+                + (req.getPaymentMethod() == null ? "" : req.getPaymentMethod().toUpperCase()) + "\n"
+                + (amount == null ? "" : amount.stripTrailingZeros().toPlainString()) + "\n"
+                + req.getPaymentDetails();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
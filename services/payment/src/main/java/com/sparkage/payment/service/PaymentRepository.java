@@ -0,0 +1,15 @@
+package com.sparkage.payment.service;
+
+import com.sparkage.payment.model.Payment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentRepository extends JpaRepository<Payment, String> {
+
+    List<Payment> findByOrderId(Long orderId);
+
+    Optional<Payment> findFirstByIdempotencyKeyAndProcessedAtAfterOrderByProcessedAtAsc(String idempotencyKey, Instant notBefore);
+}
@@ -0,0 +1,340 @@
+package com.sparkage.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.model.Payment;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind store for processed payments.
+ * <p>
+ * {@link #save} only enqueues; a single writer thread drains the queue and inserts whatever has
+ * accumulated in one JDBC batch per transaction, so under load the batches grow by themselves and
+ * the database sees a few large commits instead of one commit per payment. The queue is bounded:
+ * when the writer falls behind, callers wait up to {@code enqueue-timeout-ms} and then get a
+ * {@link StoreBusyException} rather than piling up memory.
+ * <p>
+ * Payments are readable immediately: queued rows are served from the pending map until they are
+ * committed, then from a bounded cache of recent payments, then from the database. Lookups by
+ * order combine the {@code order_id} index in the database with an in-memory index of the
+ * payments still queued, so they see the same payments as {@link #find}.
+ */
+@Component
+public class PaymentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentStore.class);
+
+    static final String INSERT_SQL = "INSERT INTO payments (transaction_id, order_id, payment_method, amount, status, processed_at, "
+            + "idempotency_key, request_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final PaymentRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long enqueueTimeoutMillis;
+    private final long drainTimeoutMillis;
+    private final BlockingQueue<PendingWrite> queue;
+    private final ConcurrentHashMap<String, PaymentResponse> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<String>> pendingByOrder = new ConcurrentHashMap<>();
+    private final Cache<String, PaymentResponse> recent;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public PaymentStore(PaymentRepository repository,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${payment.store.batch-size:500}") int batchSize,
+                        @Value("${payment.store.queue-capacity:20000}") int queueCapacity,
+                        @Value("${payment.store.enqueue-timeout-ms:1000}") long enqueueTimeoutMillis,
+                        @Value("${payment.store.drain-timeout-ms:10000}") long drainTimeoutMillis,
+                        @Value("${payment.cache.max-size:100000}") long cacheMaxSize,
+                        @Value("${payment.cache.ttl-minutes:10}") long cacheTtlMinutes) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .build();
+        this.writer = new Thread(this::drain, "payment-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a payment for insertion. The payment is visible to {@link #find} as soon as this returns.
+     *
+     * @throws StoreBusyException if the write queue stays full for longer than the enqueue timeout
+     */
+    public void save(PaymentResponse payment) {
+        save(payment, null, null);
+    }
+
+    /**
+     * As {@link #save(PaymentResponse)}, recording the Idempotency-Key the payment was created under
+     * in the same row, so the key becomes durable exactly when the payment does.
+     */
+    public void save(PaymentResponse payment, String idempotencyKey, String requestHash) {
+        if (!running) {
+            throw new StoreBusyException("payment store is shutting down");
+        }
+        pending.put(payment.getTransactionId(), payment);
+        indexPending(payment);
+        boolean queued;
+        try {
+            queued = queue.offer(new PendingWrite(payment, idempotencyKey, requestHash), enqueueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            unindexPending(payment);
+            pending.remove(payment.getTransactionId());
+            throw new StoreBusyException("payment write queue is full");
+        }
+        enqueued.incrementAndGet();
+    }
+
+    public Optional<PaymentResponse> find(String transactionId) {
+        PaymentResponse payment = pending.get(transactionId);
+        if (payment == null) {
+            payment = recent.getIfPresent(transactionId);
+        }
+        if (payment == null) {
+            payment = repository.findById(transactionId).map(PaymentStore::toResponse).orElse(null);
+            if (payment != null) {
+                recent.put(transactionId, payment);
+            }
+        }
+        return Optional.ofNullable(payment);
+    }
+
+    /**
+     * All payments for {@code orderId}, oldest first, including ones not yet written.
+     */
+    public List<PaymentResponse> findByOrderId(Long orderId) {
+        // Snapshot the queued ones before querying: a payment committed in between then shows up in
+        // both (and is deduplicated) instead of in neither
+        List<PaymentResponse> queued = new ArrayList<>();
+        Set<String> ids = pendingByOrder.get(orderId);
+        if (ids != null) {
+            for (String id : ids) {
+                PaymentResponse payment = pending.get(id);
+                if (payment != null) {
+                    queued.add(payment);
+                }
+            }
+        }
+        Map<String, PaymentResponse> byId = new LinkedHashMap<>();
+        for (Payment row : repository.findByOrderId(orderId)) {
+            byId.put(row.getTransactionId(), toResponse(row));
+        }
+        queued.forEach(p -> byId.putIfAbsent(p.getTransactionId(), p));
+        List<PaymentResponse> payments = new ArrayList<>(byId.values());
+        payments.sort(Comparator.comparing(PaymentResponse::getProcessedAt).thenComparing(PaymentResponse::getTransactionId));
+        return payments;
+    }
+
+    /**
+     * The stored payment first created under {@code idempotencyKey} at or after {@code notBefore}.
+     * Only committed rows are visible here.
+     */
+    public Optional<Payment> findByIdempotencyKey(String idempotencyKey, Instant notBefore) {
+        return repository.findFirstByIdempotencyKeyAndProcessedAtAfterOrderByProcessedAtAsc(idempotencyKey, notBefore);
+    }
+
+    /**
+     * Waits until every payment queued before this call has been written (or has failed).
+     *
+     * @return {@code false} if the timeout elapsed first
+     */
+    public boolean flush(Duration timeout) {
+        long target = enqueued.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (processed.get() < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(1_000_000L);
+        }
+        return true;
+    }
+
+    public int queuedWrites() {
+        return queue.size();
+    }
+
+    /** Payments acknowledged to the caller whose row could not be written, since startup. */
+    public long failedWrites() {
+        return failed.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(drainTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Payment store stopped with {} unwritten payments", queue.size());
+        }
+    }
+
+    private void drain() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Payment writer failed on a batch of {}", batch.size(), e);
+                Set<String> ids = new HashSet<>();
+                batch.forEach(w -> ids.add(w.payment.getTransactionId()));
+                release(batch, ids);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        Set<String> failedIds = Set.of();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, toArgs(batch)));
+        } catch (DataAccessException e) {
+            log.warn("Batch insert of {} payments failed, retrying row by row: {}", batch.size(), e.getMessage());
+            failedIds = new HashSet<>();
+            for (PendingWrite write : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, toArgs(write));
+                } catch (DuplicateKeyException duplicate) {
+                    // the row is already there; nothing to do
+                } catch (DataAccessException rowError) {
+                    failedIds.add(write.payment.getTransactionId());
+                    log.error("Could not persist payment {}; it was acknowledged and is now lost", write.payment.getTransactionId(), rowError);
+                }
+            }
+        }
+        release(batch, failedIds);
+    }
+
+    // Cache first, then drop from pending, so a concurrent find never falls through to the database.
+    // Failed rows are not cached: they must not be served as if they had been stored.
+    private void release(List<PendingWrite> batch, Set<String> failedIds) {
+        for (PendingWrite write : batch) {
+            PaymentResponse payment = write.payment;
+            if (!failedIds.contains(payment.getTransactionId())) {
+                recent.put(payment.getTransactionId(), payment);
+            }
+            unindexPending(payment);
+            pending.remove(payment.getTransactionId());
+        }
+        failed.addAndGet(failedIds.size());
+        processed.addAndGet(batch.size());
+    }
+
+    // Add and remove under the map's bin lock, so a set emptied by a concurrent removal is never reused
+    private void indexPending(PaymentResponse payment) {
+        if (payment.getOrderId() == null) {
+            return;
+        }
+        pendingByOrder.compute(payment.getOrderId(), (orderId, ids) -> {
+            Set<String> set = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            set.add(payment.getTransactionId());
+            return set;
+        });
+    }
+
+    private void unindexPending(PaymentResponse payment) {
+        if (payment.getOrderId() == null) {
+            return;
+        }
+        pendingByOrder.computeIfPresent(payment.getOrderId(), (orderId, ids) -> {
+            ids.remove(payment.getTransactionId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static List<Object[]> toArgs(List<PendingWrite> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            args.add(toArgs(write));
+        }
+        return args;
+    }
+
+    private static Object[] toArgs(PendingWrite w) {
+        PaymentResponse p = w.payment;
+        return new Object[]{p.getTransactionId(), p.getOrderId(), p.getPaymentMethod(), p.getAmount(), p.getStatus(),
+                OffsetDateTime.ofInstant(p.getProcessedAt(), ZoneOffset.UTC), w.idempotencyKey, w.requestHash};
+    }
+
+    static PaymentResponse toResponse(Payment p) {
+        return new PaymentResponse(p.getStatus(), p.getTransactionId(), p.getOrderId(), p.getPaymentMethod(),
+                p.getAmount(), p.getProcessedAt());
+    }
+
+    private static final class PendingWrite {
+        final PaymentResponse payment;
+        final String idempotencyKey;
+        final String requestHash;
+
+        PendingWrite(PaymentResponse payment, String idempotencyKey, String requestHash) {
+            this.payment = payment;
+            this.idempotencyKey = idempotencyKey;
+            this.requestHash = requestHash;
+        }
+    }
+
+    public static class StoreBusyException extends RuntimeException {
+        public StoreBusyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package com.sparkage.payment;
 
+import com.sparkage.payment.test.BaseIntegrationTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
-class PaymentServiceApplicationTests {
+class PaymentServiceApplicationTests extends BaseIntegrationTest {
 
     @Test
     void contextLoads() {
@@ -0,0 +1,115 @@
+package com.sparkage.payment.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkage.payment.service.PaymentRepository;
+import com.sparkage.payment.service.PaymentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@AutoConfigureMockMvc
+class PaymentBatchIT extends com.sparkage.payment.test.BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentStore store;
+
+    @Autowired
+    private PaymentRepository repository;
+
+    @BeforeEach
+    void setup() {
+        store.flush(Duration.ofSeconds(5));
+        repository.deleteAll();
+    }
+
+    @Test
+    void resultsStreamBackInInputOrder() throws Exception {
+        int count = 2_000;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(line(i)).append('\n');
+        }
+
+        List<JsonNode> results = batch(body.toString());
+
+        assertThat(results).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            JsonNode result = results.get(i);
+            assertThat(result.get("index").asLong()).isEqualTo(i);
+            assertThat(result.get("payment").get("orderId").asLong()).isEqualTo(50_000L + i);
+            assertThat(result.get("payment").get("status").asText()).isEqualTo("APPROVED");
+            assertThat(result.has("error")).isFalse();
+        }
+        assertThat(store.flush(Duration.ofSeconds(10))).isTrue();
+        assertThat(repository.count()).isEqualTo(count);
+    }
+
+    @Test
+    void invalidLinesAreReportedWithoutStoppingTheBatch() throws Exception {
+        String body = line(0) + "\n"
+                + "{\"orderId\": 2, \"paymentMethod\": \"CARD\", \"amount\": 0, \"paymentDetails\": \"tok\"}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"orderId\": 4, \"paymentMethod\": \"BITCOIN\", \"amount\": 5.00, \"paymentDetails\": \"tok\"}\n"
+                + line(4);
+
+        List<JsonNode> results = batch(body);
+
+        assertThat(results).hasSize(5);
+        assertThat(results.get(0).get("payment").get("status").asText()).isEqualTo("APPROVED");
+        assertThat(results.get(1).get("error").asText()).contains("amount");
+        assertThat(results.get(1).has("payment")).isFalse();
+        assertThat(results.get(2).get("error").asText()).isEqualTo("malformed JSON");
+        // Well-formed but unsupported methods are declined, not rejected, exactly as on POST /payments
+        assertThat(results.get(3).get("payment").get("status").asText()).isEqualTo("DECLINED");
+        assertThat(results.get(4).get("index").asLong()).isEqualTo(4);
+        assertThat(results.get(4).get("payment").get("orderId").asLong()).isEqualTo(50_004L);
+    }
+
+    @Test
+    void emptyBatchReturnsEmptyStream() throws Exception {
+        assertThat(batch("")).isEmpty();
+    }
+
+    private List<JsonNode> batch(String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/payments/batch")
+                        .contentType(PaymentController.NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult done = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PaymentController.NDJSON))
+                .andReturn();
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : done.getResponse().getContentAsString().split("\n")) {
+            if (!line.isEmpty()) {
+                results.add(objectMapper.readTree(line));
+            }
+        }
+        return results;
+    }
+
+    private static String line(int i) {
+        return "{\"orderId\": " + (50_000L + i) + ", \"paymentMethod\": \"CARD\", \"amount\": 12.50, \"paymentDetails\": \"tok_" + i + "\"}";
+    }
+}
@@ -0,0 +1,179 @@
+package com.sparkage.payment.api;
+
+import com.sparkage.payment.service.PaymentBatchService;
+import com.sparkage.payment.service.PaymentRepository;
+import com.sparkage.payment.service.PaymentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Submits the same payments once as individual {@code POST /payments} calls from a pool of
+ * clients and once as a single {@code POST /payments/batch}, and logs throughput for both plus
+ * per-payment latency: for single calls the request latency, for the batch the time from the
+ * start of the batch until that payment's result line was written.
+ * <p>
+ * Runs in-process through MockMvc, so it shows the server-side cost per payment; the network
+ * round trips a batch saves come on top (see {@code scripts/bench_payment_batch.sh}). Size with
+ * {@code -Dpayment.batch.bench.count}.
+ */
+@AutoConfigureMockMvc
+class PaymentBatchThroughputIT extends com.sparkage.payment.test.BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentBatchThroughputIT.class);
+    private static final int COUNT = Integer.getInteger("payment.batch.bench.count", 20_000);
+    private static final int CLIENTS = 32;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentBatchService batchService;
+
+    @Autowired
+    private PaymentStore store;
+
+    @Autowired
+    private PaymentRepository repository;
+
+    @BeforeEach
+    void setup() {
+        store.flush(Duration.ofSeconds(5));
+        repository.deleteAll();
+    }
+
+    @Test
+    void batchVersusSingleCalls() throws Exception {
+        // Warm both paths so the comparison is not dominated by JIT and first-use costs
+        singleCalls(2_000);
+        batchCall(2_000);
+        store.flush(Duration.ofSeconds(10));
+
+        long[] singleLatencies = new long[COUNT];
+        long start = System.nanoTime();
+        singleCalls(COUNT, singleLatencies);
+        double singleRate = COUNT / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        batchCall(COUNT);
+        double batchRate = COUNT / ((System.nanoTime() - start) / 1e9);
+
+        long[] batchLatencies = streamedLatencies(COUNT);
+
+        assertThat(store.flush(Duration.ofSeconds(30))).isTrue();
+        assertThat(store.failedWrites()).isZero();
+        assertThat(repository.count()).isEqualTo(2_000 + 2_000 + 3L * COUNT);
+
+        Arrays.sort(singleLatencies);
+        Arrays.sort(batchLatencies);
+        log.info("{} payments: single calls ({} clients) {}/s p50={}ms p99={}ms | batch {}/s, result after p50={}ms p99={}ms max={}ms",
+                COUNT, CLIENTS, String.format("%.0f", singleRate), millis(singleLatencies, 0.50), millis(singleLatencies, 0.99),
+                String.format("%.0f", batchRate), millis(batchLatencies, 0.50), millis(batchLatencies, 0.99),
+                millis(batchLatencies, 1.0));
+    }
+
+    private void singleCalls(int count) throws Exception {
+        singleCalls(count, new long[count]);
+    }
+
+    private void singleCalls(int count, long[] latencies) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        long begin = System.nanoTime();
+                        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON).content(line(i)))
+                                .andExpect(status().isOk());
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void batchCall(int count) throws Exception {
+        MvcResult started = mockMvc.perform(post("/payments/batch")
+                        .contentType(PaymentController.NDJSON)
+                        .content(ndjson(count)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+    }
+
+    // MockMvc buffers the streamed body, so per-line timing is taken on the service directly
+    private long[] streamedLatencies(int count) throws Exception {
+        long[] latencies = new long[count];
+        long start = System.nanoTime();
+        OutputStream timing = new OutputStream() {
+            int lines;
+
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    latencies[lines++] = System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                for (int i = off; i < off + len; i++) {
+                    write(b[i]);
+                }
+            }
+        };
+        batchService.open().run(new ByteArrayInputStream(ndjson(count).getBytes(StandardCharsets.UTF_8)), timing);
+        return latencies;
+    }
+
+    private static String ndjson(int count) {
+        StringBuilder body = new StringBuilder(count * 96);
+        for (int i = 0; i < count; i++) {
+            body.append(line(i)).append('\n');
+        }
+        return body.toString();
+    }
+
+    private static String line(int i) {
+        return "{\"orderId\": " + (70_000L + i) + ", \"paymentMethod\": \"" + (i % 2 == 0 ? "CARD" : "UPI")
+                + "\", \"amount\": 19.99, \"paymentDetails\": \"tok_" + i + "\"}";
+    }
+
+    private static String millis(long[] sorted, double quantile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+        return String.format("%.2f", sorted[Math.max(0, index)] / 1e6);
+    }
+}
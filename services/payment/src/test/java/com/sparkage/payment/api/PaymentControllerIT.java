@@ -11,6 +11,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -62,6 +64,60 @@ class PaymentControllerIT extends com.sparkage.payment.test.BaseIntegrationTest
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void process_payment_methodLongerThanItsColumn_returns400() throws Exception {
+        String json = "{" +
+                "\"orderId\": 1002," +
+                "\"paymentMethod\": \"" + "X".repeat(33) + "\"," +
+                "\"amount\": 5.00," +
+                "\"paymentDetails\": \"tok_test_124\"" +
+                "}";
+
+        mockMvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void process_payment_amountOutsideItsColumn_returns400() throws Exception {
+        for (String amount : new String[]{"12345678901.00", "10.005"}) {
+            String json = "{" +
+                    "\"orderId\": 1003," +
+                    "\"paymentMethod\": \"CARD\"," +
+                    "\"amount\": " + amount + "," +
+                    "\"paymentDetails\": \"tok_test_125\"" +
+                    "}";
+
+            mockMvc.perform(post("/payments")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void batch_amountOutsideItsColumn_isReportedAsInvalidLine() throws Exception {
+        String body = "{\"orderId\": 1004, \"paymentMethod\": \"CARD\", \"amount\": 12345678901.00, \"paymentDetails\": \"tok\"}\n"
+                + "{\"orderId\": 1005, \"paymentMethod\": \"CARD\", \"amount\": 10.005, \"paymentDetails\": \"tok\"}\n";
+
+        MvcResult started = mockMvc.perform(post("/payments/batch")
+                        .contentType(PaymentController.NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertThat(lines).hasSize(2);
+        for (String line : lines) {
+            JsonNode result = objectMapper.readTree(line);
+            assertThat(result.get("error").asText()).contains("amount");
+            assertThat(result.has("payment")).isFalse();
+        }
+    }
+
     @Test
     void get_payment_by_id_returns_details_after_post() throws Exception {
         String json = "{" +
@@ -95,4 +151,31 @@ class PaymentControllerIT extends com.sparkage.payment.test.BaseIntegrationTest
         mockMvc.perform(get("/payments/unknown-id"))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void get_payments_by_order_returns_all_payments_for_that_order() throws Exception {
+        for (String method : new String[]{"CARD", "BITCOIN"}) {
+            String json = "{" +
+                    "\"orderId\": 2003," +
+                    "\"paymentMethod\": \"" + method + "\"," +
+                    "\"amount\": 5.00," +
+                    "\"paymentDetails\": \"tok_order\"" +
+                    "}";
+            mockMvc.perform(post("/payments")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/payments").param("orderId", "2003").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].orderId").value(2003))
+                .andExpect(jsonPath("$[0].status").value("APPROVED"))
+                .andExpect(jsonPath("$[1].status").value("DECLINED"));
+
+        mockMvc.perform(get("/payments").param("orderId", "2004"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+}
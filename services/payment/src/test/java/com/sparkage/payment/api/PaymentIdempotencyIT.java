@@ -0,0 +1,137 @@
+package com.sparkage.payment.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkage.payment.service.IdempotencyService;
+import com.sparkage.payment.service.PaymentRepository;
+import com.sparkage.payment.service.PaymentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@AutoConfigureMockMvc
+class PaymentIdempotencyIT extends com.sparkage.payment.test.BaseIntegrationTest {
+
+    private static final String BODY = "{\"orderId\": 3003, \"paymentMethod\": \"CARD\", \"amount\": 75.00, \"paymentDetails\": \"tok_idem\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentStore store;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PaymentRepository repository;
+
+    @BeforeEach
+    void setup() {
+        store.flush(Duration.ofSeconds(5));
+        repository.deleteAll();
+    }
+
+    @Test
+    void hundredParallelRetriesChargeOnce() throws Exception {
+        int retries = 100;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(retries);
+        List<Future<MvcResult>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < retries; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/payments")
+                                    .header(PaymentController.IDEMPOTENCY_KEY, "retry-storm-1")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(BODY))
+                            .andReturn();
+                }));
+            }
+            start.countDown();
+
+            Set<String> transactionIds = new HashSet<>();
+            int replayed = 0;
+            for (Future<MvcResult> result : results) {
+                MvcResult mvc = result.get(30, TimeUnit.SECONDS);
+                assertThat(mvc.getResponse().getStatus()).isEqualTo(200);
+                transactionIds.add(objectMapper.readTree(mvc.getResponse().getContentAsString()).get("transactionId").asText());
+                if ("true".equals(mvc.getResponse().getHeader(PaymentController.IDEMPOTENT_REPLAYED))) replayed++;
+            }
+            assertThat(transactionIds).hasSize(1);
+            assertThat(replayed).isEqualTo(retries - 1);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void replayWorksFromTheDatabaseAfterTheCacheIsGone() throws Exception {
+        String first = charge("durable-1", BODY).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PaymentController.IDEMPOTENT_REPLAYED))
+                .andReturn().getResponse().getContentAsString();
+        store.flush(Duration.ofSeconds(5));
+        idempotencyService.clearCache();
+
+        String second = charge("durable-1", BODY).andExpect(status().isOk())
+                .andExpect(header().string(PaymentController.IDEMPOTENT_REPLAYED, "true"))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode a = objectMapper.readTree(first);
+        JsonNode b = objectMapper.readTree(second);
+        assertThat(b.get("transactionId").asText()).isEqualTo(a.get("transactionId").asText());
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        charge("mismatch-1", BODY).andExpect(status().isOk());
+
+        charge("mismatch-1", BODY.replace("75.00", "76.00"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void requestsWithoutKeyAreNotDeduplicated() throws Exception {
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON).content(BODY)).andExpect(status().isOk());
+        mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON).content(BODY)).andExpect(status().isOk());
+
+        store.flush(Duration.ofSeconds(5));
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    private ResultActions charge(String key, String body) throws Exception {
+        return mockMvc.perform(post("/payments")
+                .header(PaymentController.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+}
@@ -0,0 +1,113 @@
+package com.sparkage.payment.api;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * A saturated, slow CARD provider must not slow down WALLET payments: CARD overflow is rejected
+ * with 503 straight away instead of queueing on request threads. The checks are relative to the
+ * one-second CARD latency rather than absolute, so GC and JIT noise on a small runner do not
+ * decide the outcome; the logged percentiles are the interesting part.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "payment.processors.methods.CARD.max-concurrent=4",
+        "payment.processors.methods.CARD.queue-capacity=0",
+        "payment.processors.methods.CARD.timeout-ms=3000",
+        "payment.processors.methods.CARD.simulation.latency-median-ms=1000",
+        "payment.processors.methods.WALLET.max-concurrent=8",
+        "payment.processors.methods.WALLET.simulation.latency-median-ms=2"
+})
+class PaymentMethodIsolationIT extends com.sparkage.payment.test.BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentMethodIsolationIT.class);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void slowMethodDoesNotStarveOthers() throws Exception {
+        int cardClients = 16;
+        int walletPayments = 200;
+        for (int i = 0; i < 50; i++) {
+            pay("WALLET");
+        }
+        AtomicInteger cardOk = new AtomicInteger();
+        AtomicInteger cardRejected = new AtomicInteger();
+        AtomicLong slowestRejection = new AtomicLong();
+        long[] walletLatencies = new long[walletPayments];
+        ExecutorService pool = Executors.newFixedThreadPool(cardClients + 4);
+        try {
+            long until = System.nanoTime() + 3_000_000_000L;
+            List<Future<?>> cards = new ArrayList<>();
+            for (int c = 0; c < cardClients; c++) {
+                cards.add(pool.submit(() -> {
+                    while (System.nanoTime() < until) {
+                        long begin = System.nanoTime();
+                        if (pay("CARD") == 200) {
+                            cardOk.incrementAndGet();
+                        } else {
+                            cardRejected.incrementAndGet();
+                            slowestRejection.accumulateAndGet(System.nanoTime() - begin, Math::max);
+                            Thread.sleep(50);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            AtomicInteger next = new AtomicInteger();
+            List<Future<?>> wallets = new ArrayList<>();
+            for (int c = 0; c < 4; c++) {
+                wallets.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < walletPayments) {
+                        long begin = System.nanoTime();
+                        assertThat(pay("WALLET")).isEqualTo(200);
+                        walletLatencies[i] = System.nanoTime() - begin;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : wallets) f.get();
+            for (Future<?> f : cards) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        Arrays.sort(walletLatencies);
+        double walletP50 = walletLatencies[walletPayments / 2] / 1e6;
+        double walletP99 = walletLatencies[(int) (walletPayments * 0.99) - 1] / 1e6;
+        double rejectionMax = slowestRejection.get() / 1e6;
+        log.info("CARD: {} approved, {} rejected (slowest rejection {}ms); WALLET p50={}ms p99={}ms", cardOk.get(),
+                cardRejected.get(), String.format("%.2f", rejectionMax),
+                String.format("%.2f", walletP50), String.format("%.2f", walletP99));
+        assertThat(cardOk.get()).isPositive();
+        assertThat(cardRejected.get()).isPositive();
+        assertThat(rejectionMax).isLessThan(500);
+        assertThat(walletP50).isLessThan(250);
+    }
+
+    private int pay(String method) throws Exception {
+        String body = "{\"orderId\": 4242, \"paymentMethod\": \"" + method + "\", \"amount\": 10.00, \"paymentDetails\": \"tok\"}";
+        return mockMvc.perform(post("/payments").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn().getResponse().getStatus();
+    }
+}
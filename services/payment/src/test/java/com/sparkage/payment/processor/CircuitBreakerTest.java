@@ -0,0 +1,95 @@
+package com.sparkage.payment.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 50, Duration.ofSeconds(5), 2, now::get);
+
+    @Test
+    void stays_closed_below_minimum_calls() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void opens_at_failure_rate_and_rejects_until_open_duration_elapses() {
+        succeed(2);
+        fail(2);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    @Test
+    void old_failures_slide_out_of_the_window() {
+        fail(1);
+        succeed(9);
+        succeed(1);
+        fail(4);
+        // window: 6 successes, 4 failures -> 40%
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void half_open_closes_after_trial_successes_and_limits_trials() {
+        fail(4);
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        // the window starts over: three failures are below the minimum
+        fail(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void half_open_failure_reopens() {
+        fail(4);
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void released_trial_frees_its_slot() {
+        fail(4);
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void succeed(int n) {
+        for (int i = 0; i < n; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess();
+        }
+    }
+
+    private void fail(int n) {
+        for (int i = 0; i < n; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+}
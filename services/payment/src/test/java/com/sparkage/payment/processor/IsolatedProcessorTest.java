@@ -0,0 +1,133 @@
+package com.sparkage.payment.processor;
+
+import com.sparkage.payment.api.dto.PaymentRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsolatedProcessorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private IsolatedProcessor processor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (processor != null) {
+            processor.shutdown();
+        }
+    }
+
+    @Test
+    void returns_provider_decision() {
+        processor = isolated(new SimulatedPaymentMethodProcessor("CARD", LatencyDistribution.none(), 1.0, 0), 2, 0, 1000);
+        assertEquals("DECLINED", processor.authorize(request()));
+        assertEquals(1, processor.succeededCalls());
+    }
+
+    @Test
+    void rejects_immediately_when_bulkhead_is_full() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        processor = isolated(blocking(started), 2, 0, 5000);
+        Future<String> first = callers.submit(() -> processor.authorize(request()));
+        Future<String> second = callers.submit(() -> processor.authorize(request()));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        long begin = System.nanoTime();
+        IsolatedProcessor.ProcessorUnavailableException ex =
+                assertThrows(IsolatedProcessor.ProcessorUnavailableException.class, () -> processor.authorize(request()));
+        assertTrue(System.nanoTime() - begin < TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(ex.getMessage().contains("too many concurrent requests"));
+        assertEquals(1, processor.rejectedCalls());
+
+        release.countDown();
+        assertEquals("APPROVED", first.get(5, TimeUnit.SECONDS));
+        assertEquals("APPROVED", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void times_out_slow_provider_and_opens_breaker() {
+        processor = isolated(blocking(new CountDownLatch(0)), 4, 0, 50);
+        for (int i = 0; i < 2; i++) {
+            IsolatedProcessor.ProcessorUnavailableException ex =
+                    assertThrows(IsolatedProcessor.ProcessorUnavailableException.class, () -> processor.authorize(request()));
+            assertTrue(ex.getMessage().contains("timed out"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, processor.breakerState());
+        IsolatedProcessor.ProcessorUnavailableException ex =
+                assertThrows(IsolatedProcessor.ProcessorUnavailableException.class, () -> processor.authorize(request()));
+        assertTrue(ex.getMessage().contains("circuit breaker is open"));
+        assertEquals(2, processor.timedOutCalls());
+        assertEquals(1, processor.shortCircuitedCalls());
+    }
+
+    @Test
+    void provider_errors_count_as_failures() {
+        processor = isolated(new SimulatedPaymentMethodProcessor("UPI", LatencyDistribution.none(), 0, 1.0), 2, 0, 1000);
+        assertThrows(IsolatedProcessor.ProcessorUnavailableException.class, () -> processor.authorize(request()));
+        assertEquals(1, processor.failedCalls());
+    }
+
+    @Test
+    void provider_calls_run_on_threads_from_the_given_factory() {
+        PaymentMethodProcessor threadName = new PaymentMethodProcessor() {
+            @Override
+            public String method() {
+                return "WALLET";
+            }
+
+            @Override
+            public String authorize(PaymentRequest request) {
+                return Thread.currentThread().getName();
+            }
+        };
+        processor = new IsolatedProcessor(threadName, 2, 0, Duration.ofSeconds(1),
+                new CircuitBreaker(10, 2, 50, Duration.ofMinutes(1), 1), r -> new Thread(r, "custom"));
+        assertEquals("custom", processor.authorize(request()));
+
+        processor.shutdown();
+        processor = isolated(threadName, 2, 0, 1000);
+        assertEquals("payment-wallet-1", processor.authorize(request()));
+    }
+
+    private PaymentMethodProcessor blocking(CountDownLatch started) {
+        return new PaymentMethodProcessor() {
+            @Override
+            public String method() {
+                return "CARD";
+            }
+
+            @Override
+            public String authorize(PaymentRequest request) throws Exception {
+                started.countDown();
+                release.await();
+                return "APPROVED";
+            }
+        };
+    }
+
+    private static IsolatedProcessor isolated(PaymentMethodProcessor delegate, int maxConcurrent, int queue, long timeoutMs) {
+        return new IsolatedProcessor(delegate, maxConcurrent, queue, Duration.ofMillis(timeoutMs),
+                new CircuitBreaker(10, 2, 50, Duration.ofMinutes(1), 1));
+    }
+
+    private static PaymentRequest request() {
+        PaymentRequest req = new PaymentRequest();
+        req.setOrderId(1L);
+        req.setPaymentMethod("CARD");
+        req.setAmount(new BigDecimal("10.00"));
+        req.setPaymentDetails("tok");
+        return req;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sparkage.payment.service;
+
+import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.model.Payment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisabledInNativeImage
+class IdempotencyServiceTest {
+
+    private final PaymentStore store = mock(PaymentStore.class);
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstResult() throws Exception {
+        when(store.findByIdempotencyKey(any(), any())).thenReturn(Optional.empty());
+        IdempotencyService service = new IdempotencyService(store, 24, 1000, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        PaymentResponse charged = payment("tx-1");
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<IdempotencyService.Outcome>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> service.execute("key-1", "hash", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return charged;
+                })));
+            }
+            Thread.sleep(100); // let the duplicates queue up behind the first attempt
+            release.countDown();
+
+            int replayed = 0;
+            for (Future<IdempotencyService.Outcome> result : results) {
+                IdempotencyService.Outcome outcome = result.get(5, TimeUnit.SECONDS);
+                assertSame(charged, outcome.getResponse());
+                if (outcome.isReplayed()) replayed++;
+            }
+            assertEquals(1, executions.get());
+            assertEquals(7, replayed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void reusingAKeyWithAnotherRequestIsRejected() {
+        when(store.findByIdempotencyKey(any(), any())).thenReturn(Optional.empty());
+        IdempotencyService service = new IdempotencyService(store, 24, 1000, 5000);
+        service.execute("key-2", "hash-a", () -> payment("tx-2"));
+
+        assertThrows(IdempotencyService.KeyReuseException.class,
+                () -> service.execute("key-2", "hash-b", () -> payment("tx-3")));
+    }
+
+    @Test
+    void failedAttemptsCanBeRetried() {
+        when(store.findByIdempotencyKey(any(), any())).thenReturn(Optional.empty());
+        IdempotencyService service = new IdempotencyService(store, 24, 1000, 5000);
+
+        assertThrows(PaymentStore.StoreBusyException.class, () -> service.execute("key-3", "hash", () -> {
+            throw new PaymentStore.StoreBusyException("full");
+        }));
+        IdempotencyService.Outcome retry = service.execute("key-3", "hash", () -> payment("tx-4"));
+
+        assertEquals("tx-4", retry.getResponse().getTransactionId());
+        assertFalse(retry.isReplayed());
+    }
+
+    @Test
+    void fallsBackToTheDurableCopy() {
+        Payment row = new Payment("tx-5", 9L, "CARD", new BigDecimal("3.00"), "APPROVED", Instant.now());
+        row.setIdempotencyKey("key-4");
+        row.setRequestHash("hash");
+        when(store.findByIdempotencyKey(eq("key-4"), any())).thenReturn(Optional.of(row));
+        IdempotencyService service = new IdempotencyService(store, 24, 1000, 5000);
+
+        IdempotencyService.Outcome outcome = service.execute("key-4", "hash", () -> fail("must not process again"));
+
+        assertTrue(outcome.isReplayed());
+        assertEquals("tx-5", outcome.getResponse().getTransactionId());
+    }
+
+    @Test
+    void rejectsOverlongKeys() {
+        IdempotencyService service = new IdempotencyService(store, 24, 1000, 5000);
+        assertThrows(IllegalArgumentException.class,
+                () -> service.execute("k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1), "hash", () -> payment("tx")));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static PaymentResponse payment(String txId) {
+        return new PaymentResponse("APPROVED", txId, 1L, "CARD", new BigDecimal("1.00"), Instant.now());
+    }
+}
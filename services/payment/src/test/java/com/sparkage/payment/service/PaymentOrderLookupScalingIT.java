@@ -0,0 +1,109 @@
+package com.sparkage.payment.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Grows the payments table in steps and times {@link PaymentStore#findByOrderId} at each size,
+ * checking that lookups stay flat as the table grows, which only holds while the query uses the
+ * {@code order_id} index. Every order has two payments.
+ * <p>
+ * The default sizes keep the run short on H2; use {@code -Dpayment.lookup.bench.sizes=...} for
+ * other steps, and {@code scripts/bench_payment_order_lookup.sh} for 10M rows on PostgreSQL.
+ */
+class PaymentOrderLookupScalingIT extends com.sparkage.payment.test.BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentOrderLookupScalingIT.class);
+    private static final int[] SIZES = Arrays.stream(System.getProperty("payment.lookup.bench.sizes", "10000,100000,400000")
+            .split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    private static final int LOOKUPS = 2_000;
+    private static final int CHUNK = 10_000;
+
+    @Autowired
+    private PaymentStore store;
+
+    @Autowired
+    private PaymentRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setup() {
+        store.flush(Duration.ofSeconds(5));
+        repository.deleteAll();
+    }
+
+    // The in-memory database outlives this context; leave it small for the next test class
+    @AfterAll
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM payments WHERE transaction_id LIKE 'bench-%'");
+    }
+
+    @Test
+    void lookupTimeStaysFlatAsTheTableGrows() {
+        Integer indexes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.indexes WHERE LOWER(index_name) = 'idx_payments_order_id'", Integer.class);
+        assertThat(indexes).isPositive();
+
+        List<double[]> results = new ArrayList<>();
+        int rows = 0;
+        for (int size : SIZES) {
+            insert(rows, size);
+            rows = size;
+            lookups(rows, 3_000);
+            long[] latencies = lookups(rows, LOOKUPS);
+            Arrays.sort(latencies);
+            double p50 = latencies[LOOKUPS / 2] / 1e3;
+            double p99 = latencies[(int) (LOOKUPS * 0.99)] / 1e3;
+            results.add(new double[]{size, p50, p99});
+            log.info("findByOrderId with {} payments: p50={}us p99={}us", size, String.format("%.1f", p50), String.format("%.1f", p99));
+        }
+        double smallest = results.get(0)[1];
+        double largest = results.get(results.size() - 1)[1];
+        // A scan would grow with the table (40x between the default steps); an index lookup barely moves
+        assertThat(largest).isLessThan(smallest * 3 + 200);
+    }
+
+    private long[] lookups(int rows, int count) {
+        long[] latencies = new long[count];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int orders = rows / 2;
+        for (int i = 0; i < count; i++) {
+            long orderId = 1_000_000L + random.nextInt(orders);
+            long begin = System.nanoTime();
+            int found = store.findByOrderId(orderId).size();
+            latencies[i] = System.nanoTime() - begin;
+            assertThat(found).isEqualTo(2);
+        }
+        return latencies;
+    }
+
+    private void insert(int from, int to) {
+        Timestamp processedAt = Timestamp.from(Instant.parse("2024-01-01T00:00:00Z"));
+        BigDecimal amount = new BigDecimal("10.00");
+        for (int start = from; start < to; start += CHUNK) {
+            List<Object[]> args = new ArrayList<>(CHUNK);
+            for (int i = start; i < Math.min(to, start + CHUNK); i++) {
+                args.add(new Object[]{"bench-" + i, 1_000_000L + i / 2, "CARD", amount, "APPROVED", processedAt, null, null});
+            }
+            jdbcTemplate.batchUpdate(PaymentStore.INSERT_SQL, args);
+        }
+    }
+}
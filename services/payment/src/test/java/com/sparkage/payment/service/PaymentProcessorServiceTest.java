@@ -2,18 +2,40 @@ package com.sparkage.payment.service;
 
 import com.sparkage.payment.api.dto.PaymentRequest;
 import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.processor.CircuitBreaker;
+import com.sparkage.payment.processor.IsolatedProcessor;
+import com.sparkage.payment.processor.LatencyDistribution;
+import com.sparkage.payment.processor.PaymentMethodRegistry;
+import com.sparkage.payment.processor.SimulatedPaymentMethodProcessor;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.mockito.ArgumentCaptor;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
 
+@DisabledInNativeImage
 class PaymentProcessorServiceTest {
 
+    private final PaymentStore store = mock(PaymentStore.class);
+    private final IdempotencyService idempotency = mock(IdempotencyService.class);
+    private final PaymentMethodRegistry methods = new PaymentMethodRegistry(List.of(
+            simulated("CARD", 0), simulated("WALLET", 0), simulated("UPI", 1.0)));
+
+    private static IsolatedProcessor simulated(String method, double failureRate) {
+        return new IsolatedProcessor(new SimulatedPaymentMethodProcessor(method, LatencyDistribution.none(), 0, failureRate),
+                4, 0, Duration.ofSeconds(1), new CircuitBreaker(10, 5, 50, Duration.ofSeconds(10), 1));
+    }
+
     @Test
     void approves_valid_supported_method_and_positive_amount() {
-        PaymentProcessorService svc = new PaymentProcessorService();
+        PaymentProcessorService svc = new PaymentProcessorService(store, idempotency, methods);
         PaymentRequest req = new PaymentRequest();
         req.setOrderId(123L);
         req.setPaymentMethod("CARD");
@@ -31,7 +53,7 @@ class PaymentProcessorServiceTest {
 
     @Test
     void declines_unsupported_method() {
-        PaymentProcessorService svc = new PaymentProcessorService();
+        PaymentProcessorService svc = new PaymentProcessorService(store, idempotency, methods);
         PaymentRequest req = new PaymentRequest();
         req.setOrderId(1L);
         req.setPaymentMethod("BITCOIN");
@@ -44,7 +66,7 @@ class PaymentProcessorServiceTest {
 
     @Test
     void declines_non_positive_amount() {
-        PaymentProcessorService svc = new PaymentProcessorService();
+        PaymentProcessorService svc = new PaymentProcessorService(store, idempotency, methods);
         PaymentRequest req = new PaymentRequest();
         req.setOrderId(1L);
         req.setPaymentMethod("CARD");
@@ -56,8 +78,8 @@ class PaymentProcessorServiceTest {
     }
 
     @Test
-    void getById_returnsStoredResponse_afterProcess() {
-        PaymentProcessorService svc = new PaymentProcessorService();
+    void process_savesResponse_andGetByIdReadsFromStore() {
+        PaymentProcessorService svc = new PaymentProcessorService(store, idempotency, methods);
         PaymentRequest req = new PaymentRequest();
         req.setOrderId(77L);
         req.setPaymentMethod("WALLET");
@@ -65,6 +87,11 @@ class PaymentProcessorServiceTest {
         req.setPaymentDetails("tok");
 
         PaymentResponse resp = svc.process(req);
+        ArgumentCaptor<PaymentResponse> saved = ArgumentCaptor.forClass(PaymentResponse.class);
+        verify(store).save(saved.capture(), isNull(), isNull());
+        assertSame(resp, saved.getValue());
+
+        when(store.find(resp.getTransactionId())).thenReturn(Optional.of(resp));
         Optional<PaymentResponse> found = svc.getById(resp.getTransactionId());
         assertTrue(found.isPresent());
         assertEquals(resp.getTransactionId(), found.get().getTransactionId());
@@ -73,7 +100,41 @@ class PaymentProcessorServiceTest {
 
     @Test
     void getById_unknown_returnsEmpty() {
-        PaymentProcessorService svc = new PaymentProcessorService();
+        PaymentProcessorService svc = new PaymentProcessorService(store, idempotency, methods);
+        when(store.find("does-not-exist")).thenReturn(Optional.empty());
         assertTrue(svc.getById("does-not-exist").isEmpty());
     }
+
+    @Test
+    void requestHash_ignoresAmountScaleAndMethodCase_butNotTheCharge() {
+        PaymentRequest a = new PaymentRequest();
+        a.setOrderId(5L);
+        a.setPaymentMethod("card");
+        a.setAmount(new BigDecimal("10.5"));
+        a.setPaymentDetails("tok");
+        PaymentRequest b = new PaymentRequest();
+        b.setOrderId(5L);
+        b.setPaymentMethod("CARD");
+        b.setAmount(new BigDecimal("10.50"));
+        b.setPaymentDetails("tok");
+
+        assertEquals(PaymentProcessorService.requestHash(a), PaymentProcessorService.requestHash(b));
+        b.setAmount(new BigDecimal("10.51"));
+        assertNotEquals(PaymentProcessorService.requestHash(a), PaymentProcessorService.requestHash(b));
+    }
+
+    @Test
+    void failing_provider_is_reported_and_nothing_is_saved() {
+        PaymentProcessorService svc = new PaymentProcessorService(store, idempotency, methods);
+        PaymentRequest req = new PaymentRequest();
+        req.setOrderId(5L);
+        req.setPaymentMethod("upi");
+        req.setAmount(new BigDecimal("15.00"));
+        req.setPaymentDetails("vpa");
+
+        IsolatedProcessor.ProcessorUnavailableException ex =
+                assertThrows(IsolatedProcessor.ProcessorUnavailableException.class, () -> svc.process(req));
+        assertEquals("UPI", ex.getMethod());
+        verifyNoInteractions(store);
+    }
 }
@@ -0,0 +1,149 @@
+package com.sparkage.payment.service;
+
+import com.sparkage.payment.api.dto.PaymentResponse;
+import com.sparkage.payment.config.PaymentStoreMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentStoreIT extends com.sparkage.payment.test.BaseIntegrationTest {
+
+    @Autowired
+    private PaymentStore store;
+
+    @Autowired
+    private PaymentRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        store.flush(Duration.ofSeconds(5));
+        repository.deleteAll();
+    }
+
+    @Test
+    void savedPaymentsAreReadableBeforeAndAfterTheyAreWritten() {
+        PaymentResponse payment = payment(501L);
+        store.save(payment);
+        assertThat(store.find(payment.getTransactionId())).containsSame(payment);
+
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        assertThat(repository.findById(payment.getTransactionId())).hasValueSatisfying(row -> {
+            assertThat(row.getOrderId()).isEqualTo(501L);
+            assertThat(row.getAmount()).isEqualByComparingTo("12.34");
+            assertThat(row.getProcessedAt()).isEqualTo(payment.getProcessedAt());
+        });
+        assertThat(store.find(payment.getTransactionId())).containsSame(payment);
+    }
+
+    @Test
+    void paymentsSurviveARestartOfTheStore() {
+        PaymentResponse payment = payment(502L);
+        store.save(payment);
+        store.flush(Duration.ofSeconds(5));
+
+        // a fresh store has an empty cache, as after a restart, and must load from the table
+        PaymentStore restarted = new PaymentStore(repository, jdbcTemplate, transactionManager,
+                100, 100, 100, 1000, 100, 10);
+        try {
+            assertThat(restarted.find(payment.getTransactionId())).hasValueSatisfying(found -> {
+                assertThat(found.getStatus()).isEqualTo("APPROVED");
+                assertThat(found.getOrderId()).isEqualTo(502L);
+                assertThat(found.getPaymentMethod()).isEqualTo("CARD");
+            });
+            assertThat(restarted.find("missing")).isEmpty();
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void manyPaymentsAreWrittenInBatches() {
+        for (int i = 0; i < 2_000; i++) {
+            store.save(payment(600L + i));
+        }
+        assertThat(store.flush(Duration.ofSeconds(10))).isTrue();
+
+        assertThat(repository.count()).isEqualTo(2_000);
+        assertThat(store.failedWrites()).isZero();
+        assertThat(store.queuedWrites()).isZero();
+    }
+
+    @Test
+    void paymentsForAnOrderIncludeQueuedAndWrittenOnes() {
+        PaymentResponse first = payment(700L);
+        PaymentResponse second = payment(700L);
+        store.save(first);
+        store.save(payment(701L));
+        store.save(second);
+        assertThat(store.findByOrderId(700L)).extracting(PaymentResponse::getTransactionId)
+                .containsExactlyInAnyOrder(first.getTransactionId(), second.getTransactionId());
+
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        PaymentResponse third = new PaymentResponse("DECLINED", UUID.randomUUID().toString(), 700L, "UPI",
+                new BigDecimal("1.00"), first.getProcessedAt().plusSeconds(60));
+        store.save(third);
+
+        assertThat(store.findByOrderId(700L)).extracting(PaymentResponse::getTransactionId)
+                .hasSize(3)
+                .endsWith(third.getTransactionId())
+                .contains(first.getTransactionId(), second.getTransactionId());
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        assertThat(store.findByOrderId(700L)).hasSize(3);
+        assertThat(store.findByOrderId(999L)).isEmpty();
+    }
+
+    @Test
+    void rowsThatCannotBeWrittenAreCountedAsLost() {
+        PaymentStore own = new PaymentStore(repository, jdbcTemplate, transactionManager,
+                100, 100, 100, 1000, 100, 10);
+        MeterRegistry meters = new SimpleMeterRegistry();
+        new PaymentStoreMetrics(own).bindTo(meters);
+        try {
+            PaymentResponse tooLong = new PaymentResponse("APPROVED", UUID.randomUUID().toString(), 800L,
+                    "M".repeat(40), new BigDecimal("1.00"), Instant.now());
+            own.save(tooLong);
+            own.save(payment(801L));
+            assertThat(own.flush(Duration.ofSeconds(5))).isTrue();
+
+            assertThat(own.failedWrites()).isEqualTo(1);
+            assertThat(meters.get("payment.store.lost").functionCounter().count()).isEqualTo(1);
+            assertThat(own.find(tooLong.getTransactionId())).isEmpty();
+            assertThat(repository.count()).isEqualTo(1);
+        } finally {
+            own.shutdown();
+        }
+    }
+
+    @Test
+    void saveFailsFastOnceShutDown() {
+        PaymentStore stopped = new PaymentStore(repository, jdbcTemplate, transactionManager,
+                100, 100, 100, 1000, 100, 10);
+        stopped.shutdown();
+
+        assertThatThrownBy(() -> stopped.save(payment(1L))).isInstanceOf(PaymentStore.StoreBusyException.class);
+    }
+
+    private static PaymentResponse payment(long orderId) {
+        return new PaymentResponse("APPROVED", UUID.randomUUID().toString(), orderId, "CARD",
+                new BigDecimal("12.34"), Instant.now().truncatedTo(ChronoUnit.MICROS));
+    }
+}
@@ -0,0 +1,109 @@
+package com.sparkage.payment.service;
+
+import com.sparkage.payment.api.dto.PaymentRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives {@link PaymentProcessorService} at a fixed arrival rate (2k payments/s by default) for a
+ * few seconds against H2 and checks that the write-behind store keeps up: every payment ends up in
+ * the table, and the achieved rate stays within 10% of the target. Latency is measured from each
+ * payment's scheduled start, so a stalled caller shows up in the percentiles instead of silently
+ * lowering the rate.
+ * <p>
+ * Tunable with {@code -Dpayment.store.bench.rate} and {@code -Dpayment.store.bench.seconds}.
+ */
+class PaymentStoreThroughputIT extends com.sparkage.payment.test.BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentStoreThroughputIT.class);
+    private static final int RATE = Integer.getInteger("payment.store.bench.rate", 2_000);
+    private static final int SECONDS = Integer.getInteger("payment.store.bench.seconds", 5);
+    private static final int THREADS = 32;
+
+    @Autowired
+    private PaymentProcessorService processorService;
+
+    @Autowired
+    private PaymentStore store;
+
+    @Autowired
+    private PaymentRepository repository;
+
+    @BeforeEach
+    void setup() {
+        store.flush(Duration.ofSeconds(5));
+        repository.deleteAll();
+    }
+
+    @Test
+    void sustainsTargetRate() throws Exception {
+        int total = RATE * SECONDS;
+        long intervalNanos = 1_000_000_000L / RATE;
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime() + 50_000_000L;
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < total) {
+                        long scheduled = start + i * intervalNanos;
+                        long wait = scheduled - System.nanoTime();
+                        if (wait > 0) LockSupport.parkNanos(wait);
+                        processorService.process(request(i));
+                        latencies[i] = System.nanoTime() - scheduled;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        assertThat(store.flush(Duration.ofSeconds(30))).isTrue();
+        double drainedSeconds = (System.nanoTime() - start) / 1e9;
+
+        assertThat(repository.count()).isEqualTo(total);
+        assertThat(store.failedWrites()).isZero();
+        double rate = total / elapsedSeconds;
+        Arrays.sort(latencies);
+        log.info("Payments: {} at target {}/s -> achieved {}/s, all persisted after {}s; latency p50={}ms p99={}ms p99.9={}ms max={}ms",
+                total, RATE, String.format("%.0f", rate), String.format("%.2f", drainedSeconds),
+                millis(latencies, 0.50), millis(latencies, 0.99), millis(latencies, 0.999), millis(latencies, 1.0));
+        assertThat(rate).isGreaterThan(RATE * 0.9);
+    }
+
+    private static String millis(long[] sorted, double quantile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1);
+        return String.format("%.2f", sorted[Math.max(0, index)] / 1e6);
+    }
+
+    private static PaymentRequest request(int i) {
+        PaymentRequest req = new PaymentRequest();
+        req.setOrderId(10_000L + i);
+        req.setPaymentMethod(i % 2 == 0 ? "CARD" : "UPI");
+        req.setAmount(new BigDecimal("25.00"));
+        req.setPaymentDetails("tok_" + i);
+        return req;
+    }
+}
@@ -0,0 +1,91 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /products} query building: {@link ProductController#buildSpecification} on its own, and
+ * turned into a Hibernate criteria predicate the way the repository does for every list request.
+ * Hibernate runs against an empty in-memory H2 database; no query is executed.
+ * <p>
+ * {@code query} selects the request shape: no parameters, {@code search} only, {@code filter} only,
+ * or both with an ignored filter key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSpecificationBenchmark {
+
+    @Param({"none", "search", "filter", "search+filter"})
+    String query;
+
+    private String filter;
+    private String search;
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private EntityManager entityManager;
+    private CriteriaBuilder cb;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        search = query.contains("search") ? "Hand Saw" : null;
+        filter = query.equals("filter") ? "category:tools"
+                : query.equals("search+filter") ? "category: tools, brand:acme" : null;
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:spec-benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.sparkage.product.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "none"));
+        factoryBean.afterPropertiesSet();
+        EntityManagerFactory emf = factoryBean.getObject();
+        entityManager = emf.createEntityManager();
+        cb = entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        factoryBean.destroy();
+    }
+
+    @Benchmark
+    public Specification<Product> build() {
+        return ProductController.buildSpecification(filter, search);
+    }
+
+    @Benchmark
+    public Predicate toPredicate() {
+        CriteriaQuery<Product> criteria = cb.createQuery(Product.class);
+        Root<Product> root = criteria.from(Product.class);
+        return ProductController.buildSpecification(filter, search).toPredicate(root, criteria, cb);
+    }
+}
@@ -0,0 +1,72 @@
+package com.sparkage.product.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the catalog reads: a {@code GET /products} page of {@code pageSize}
+ * {@link ProductSummary} entries and a single {@link ProductDetails}, with the mapper configured the
+ * way Spring Boot builds it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    private ObjectMapper mapper;
+    private ProductDetails details;
+
+    @State(Scope.Thread)
+    public static class Page {
+        @Param({"20", "100"})
+        int pageSize;
+
+        List<ProductSummary> items;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            items = new ArrayList<>();
+            for (long id = 1; id <= pageSize; id++) {
+                items.add(new ProductSummary(id, "Product " + id, "category-" + id % 8, BigDecimal.valueOf(1999 + id, 2)));
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        details = new ProductDetails(7L, "Hand saw", "Fine-tooth hand saw for hardwood, 500 mm blade",
+                "tools", new BigDecimal("24.99"), 120, Instant.parse("2024-01-15T10:00:00Z"));
+    }
+
+    @Benchmark
+    public byte[] writePage(Page page) throws Exception {
+        return mapper.writeValueAsBytes(page.items);
+    }
+
+    @Benchmark
+    public byte[] writeDetails() throws Exception {
+        return mapper.writeValueAsBytes(details);
+    }
+}
@@ -0,0 +1,107 @@
+package com.sparkage.product.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the metrics filter on {@code GET /products/{id}} over {@code distinctIds}
+ * product ids. {@code rawUri} reproduces the previous behaviour (tag by request URI, registry lookup
+ * and tag allocation per request) as a baseline. Run with {@code -prof gc} (the default in the
+ * {@code jmh} profile) to compare allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMetricsFilterBenchmark {
+
+    @Param({"100", "10000"})
+    int distinctIds;
+
+    private MockHttpServletRequest[] requests;
+    private MockHttpServletResponse response;
+    private OncePerRequestFilter templated;
+    private OncePerRequestFilter rawUri;
+    private FilterChain chain;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        requests = new MockHttpServletRequest[distinctIds];
+        for (int i = 0; i < distinctIds; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products/" + (i + 1));
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/products/{productId}");
+            requests[i] = request;
+        }
+        response = new MockHttpServletResponse();
+        templated = new ProductMetricsConfig.ProductMetricsFilter(new SimpleMeterRegistry());
+        rawUri = new RawUriFilter(new SimpleMeterRegistry());
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public void templated() throws Exception {
+        templated.doFilter(nextRequest(), response, chain);
+    }
+
+    @Benchmark
+    public void rawUri() throws Exception {
+        rawUri.doFilter(nextRequest(), response, chain);
+    }
+
+    private MockHttpServletRequest nextRequest() {
+        MockHttpServletRequest request = requests[next];
+        next = next + 1 == requests.length ? 0 : next + 1;
+        return request;
+    }
+
+    /** The filter as it was before route-template tagging. */
+    static final class RawUriFilter extends OncePerRequestFilter {
+        private final MeterRegistry meterRegistry;
+
+        RawUriFilter(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws java.io.IOException, jakarta.servlet.ServletException {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                String method = request.getMethod();
+                String uri = request.getRequestURI();
+                String status = String.valueOf(response.getStatus());
+                sample.stop(meterRegistry.timer("product_service_request_duration_seconds", "method", method, "uri", uri, "status", status));
+                meterRegistry.counter("product_service_requests_total", "method", method, "uri", uri, "status", status).increment();
+                String operation = method.equals("GET") && uri.matches(".*/products/\\d+") ? "get_product" : "unknown";
+                meterRegistry.counter("product_operations_total", "operation", operation).increment();
+            }
+        }
+    }
+}
@@ -1,26 +1,38 @@
 package com.sparkage.product.api;
 
+import com.sparkage.product.api.dto.BulkUpdateProductsRequest;
+import com.sparkage.product.api.dto.BulkUpdateProductsResponse;
 import com.sparkage.product.api.dto.CreateProductRequest;
 import com.sparkage.product.api.dto.ProductDetails;
+import com.sparkage.product.api.dto.ProductPatch;
 import com.sparkage.product.api.dto.ProductSummary;
 import com.sparkage.product.api.dto.UpdateProductRequest;
 import com.sparkage.product.model.Product;
+import com.sparkage.product.service.CatalogStampCache;
 import com.sparkage.product.service.ProductRepository;
+import com.sparkage.product.service.ProductStockStore;
+import com.sparkage.product.service.ProductUpdateService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
 import java.net.URI;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -28,32 +40,81 @@ import java.util.stream.Collectors;
 public class ProductController {
 
     private final ProductRepository repository;
+    private final CatalogStampCache catalogStamp;
+    private final ProductStockStore stockStore;
+    private final ProductUpdateService updateService;
+    private final String listCacheControl;
+    private final String detailCacheControl;
 
-    public ProductController(ProductRepository repository) {
+    public ProductController(ProductRepository repository,
+                             CatalogStampCache catalogStamp,
+                             ProductStockStore stockStore,
+                             ProductUpdateService updateService,
+                             @Value("${product.http.cache-control.list-products:no-cache}") String listCacheControl,
+                             @Value("${product.http.cache-control.get-product:no-cache}") String detailCacheControl) {
         this.repository = repository;
+        this.catalogStamp = catalogStamp;
+        this.stockStore = stockStore;
+        this.updateService = updateService;
+        this.listCacheControl = listCacheControl;
+        this.detailCacheControl = detailCacheControl;
     }
 
     @GetMapping
-    public List<ProductSummary> listProducts(
+    public ResponseEntity<List<ProductSummary>> listProducts(
             @RequestParam(value = "filter", required = false) String filter,
             @RequestParam(value = "search", required = false) String search,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
-            @RequestParam(value = "sort", required = false) String sort
+            @RequestParam(value = "sort", required = false) String sort,
+            WebRequest webRequest
     ) {
+        CatalogStampCache.Stamp stamp = catalogStamp.get();
+        if (stamp != null && webRequest.checkNotModified(stamp.getEtag(), stamp.getLastModified().toEpochMilli())) {
+            return notModified(stamp.getEtag(), listCacheControl);
+        }
         Pageable pageable = toPageable(page, size, sort);
         Specification<Product> spec = buildSpecification(filter, search);
         Page<Product> result = repository.findAll(spec, pageable);
-        return result.getContent().stream()
+        List<ProductSummary> body = result.getContent().stream()
                 .map(p -> new ProductSummary(p.getId(), p.getName(), p.getCategory(), p.getPrice()))
                 .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder ok = withCacheControl(ResponseEntity.ok(), listCacheControl);
+        if (stamp != null) {
+            ok.eTag(stamp.getEtag()).lastModified(stamp.getLastModified());
+        }
+        return ok.body(body);
     }
 
     @GetMapping("/{productId}")
-    public ProductDetails getProduct(@PathVariable("productId") Long productId) {
+    public ResponseEntity<ProductDetails> getProduct(@PathVariable("productId") Long productId, WebRequest webRequest) {
+        if (isConditional(webRequest)) {
+            // Answer revalidations from the version column alone; only fall through to the full row on a miss
+            ProductRepository.VersionInfo v = repository.findVersionById(productId).orElse(null);
+            if (v != null && v.getVersion() != null) {
+                boolean sharded = v.getStockShards() != null && v.getStockShards() > 0;
+                // Sharded stock changes never touch the product row, so the slot total is part of the tag
+                Integer shardedStock = sharded ? shardedStock(productId) : null;
+                String etag = productEtag(productId, v.getVersion(), shardedStock);
+                long lastModified = sharded ? -1 : v.getUpdatedAt().toEpochMilli();
+                if (webRequest.checkNotModified(etag, lastModified)) {
+                    return notModified(etag, detailCacheControl);
+                }
+            }
+        }
         Product p = repository.findById(productId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "product not found"));
-        return new ProductDetails(p.getId(), p.getName(), p.getDescription(), p.getCategory(), p.getPrice(), p.getStock(), p.getCreatedAt());
+        Integer shardedStock = p.isStockSharded() ? shardedStock(productId) : null;
+        Integer stock = shardedStock != null ? shardedStock : p.getStock();
+        ProductDetails body = new ProductDetails(p.getId(), p.getName(), p.getDescription(), p.getCategory(), p.getPrice(), stock, p.getCreatedAt());
+        ResponseEntity.BodyBuilder ok = withCacheControl(ResponseEntity.ok(), detailCacheControl);
+        if (p.getVersion() != null) {
+            ok.eTag(productEtag(p.getId(), p.getVersion(), shardedStock));
+        }
+        if (p.getUpdatedAt() != null && shardedStock == null) {
+            ok.lastModified(p.getUpdatedAt());
+        }
+        return ok.body(body);
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -61,19 +122,129 @@ public class ProductController {
         Product p = new Product(req.getName(), req.getDescription(), req.getCategory(), req.getPrice());
         p.setStock(req.getStock());
         Product saved = repository.save(p);
+        catalogStamp.invalidate();
         ProductDetails body = new ProductDetails(saved.getId(), saved.getName(), saved.getDescription(), saved.getCategory(), saved.getPrice(), saved.getStock(), saved.getCreatedAt());
         return ResponseEntity.created(URI.create("/products/" + saved.getId())).body(body);
     }
 
+    /**
+     * Partial update: absent fields are left untouched. Send the ETag from a previous GET in
+     * {@code If-Match} to have the update rejected with 412 if the product changed in between.
+     */
+    @PutMapping(path = "/{productId}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductDetails> updateProduct(@PathVariable("productId") Long productId,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                        @RequestBody UpdateProductRequest req) {
+        validate(req, "");
+        Product p = updateService.update(productId, req, expectedVersion(productId, ifMatch));
+        catalogStamp.invalidate();
+        Integer shardedStock = p.isStockSharded() ? shardedStock(productId) : null;
+        Integer stock = shardedStock != null ? shardedStock : p.getStock();
+        ProductDetails body = new ProductDetails(p.getId(), p.getName(), p.getDescription(), p.getCategory(), p.getPrice(), stock, p.getCreatedAt());
+        return ResponseEntity.ok().eTag(productEtag(p.getId(), p.getVersion(), shardedStock)).body(body);
+    }
+
+    /**
+     * Bulk partial update for catalog syncs. Lines are applied in JDBC batches; missing products and
+     * version mismatches are listed in the response rather than failing the request.
+     */
+    @PatchMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public BulkUpdateProductsResponse bulkUpdateProducts(@RequestBody @jakarta.validation.Valid BulkUpdateProductsRequest req) {
+        List<ProductPatch> items = req.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            validate(items.get(i), "items[" + i + "].");
+        }
+        ProductUpdateService.BulkResult result = updateService.bulkUpdate(items);
+        catalogStamp.invalidate();
+        return new BulkUpdateProductsResponse(items.size(), result.getUpdated(), result.getNotFound(), result.getConflicts());
+    }
+
     @DeleteMapping("/{productId}")
     public ResponseEntity<Void> deleteProduct(@PathVariable("productId") Long productId) {
         if (!repository.existsById(productId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "product not found");
         }
         repository.deleteById(productId);
+        catalogStamp.invalidate();
         return ResponseEntity.noContent().build();
     }
 
+    @ExceptionHandler(ProductUpdateService.NotFoundException.class)
+    public ResponseEntity<Void> handleNotFound(ProductUpdateService.NotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    @ExceptionHandler(ProductUpdateService.PreconditionFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePreconditionFailed(ProductUpdateService.PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(ObjectOptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "product was modified concurrently"));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    private static void validate(UpdateProductRequest req, String prefix) {
+        if (req.getName() != null && !StringUtils.hasText(req.getName())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, prefix + "name must not be blank");
+        }
+        if (req.getPrice() != null && req.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, prefix + "price must be >= 0.00");
+        }
+        if (req.getStock() != null && req.getStock() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, prefix + "stock must be >= 0");
+        }
+    }
+
+    // ETags are "<id>-<version>[-s<stock>]"; only the version part is a precondition for writes
+    private static Long expectedVersion(Long productId, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        tag = tag.replace("\"", "");
+        String[] parts = tag.split("-");
+        if (parts.length >= 2 && parts[0].equals(String.valueOf(productId))) {
+            try {
+                return Long.parseLong(parts[1]);
+            } catch (NumberFormatException ignored) {
+                // fall through
+            }
+        }
+        throw new ProductUpdateService.PreconditionFailedException("If-Match does not match this product");
+    }
+
+    private int shardedStock(Long productId) {
+        return stockStore.shardedTotals(List.of(productId)).getOrDefault(productId, 0);
+    }
+
+    private static String productEtag(Long productId, Long version, Integer shardedStock) {
+        String tag = productId + "-" + version;
+        return "\"" + (shardedStock == null ? tag : tag + "-s" + shardedStock) + "\"";
+    }
+
+    private static boolean isConditional(WebRequest webRequest) {
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag, String cacheControl) {
+        return withCacheControl(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cacheControl).eTag(etag).build();
+    }
+
+    private static ResponseEntity.BodyBuilder withCacheControl(ResponseEntity.BodyBuilder builder, String cacheControl) {
+        if (StringUtils.hasText(cacheControl)) {
+            builder.header(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return builder;
+    }
+
     private Pageable toPageable(int page, int size, String sort) {
         if (size <= 0) size = 20;
         if (page < 0) page = 0;
@@ -87,7 +258,7 @@ public class ProductController {
         return PageRequest.of(page, size, Sort.by(dir, property));
     }
 
-    private Specification<Product> buildSpecification(String filter, String search) {
+    static Specification<Product> buildSpecification(String filter, String search) {
         Specification<Product> spec = Specification.where(null);
         if (StringUtils.hasText(search)) {
             String q = search.toLowerCase(Locale.ROOT);
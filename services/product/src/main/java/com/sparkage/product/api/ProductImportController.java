@@ -0,0 +1,80 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.api.dto.ProductImportResponse;
+import com.sparkage.product.service.ProductImportFormat;
+import com.sparkage.product.service.ProductImportJob;
+import com.sparkage.product.service.ProductImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk catalog onboarding from supplier feeds. Uploads are accepted as CSV (header row with at
+ * least name, price and stock) or NDJSON (one product object per line) and imported asynchronously;
+ * poll the returned location for progress and row errors.
+ */
+@RestController
+@RequestMapping(path = "/products/imports", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProductImportController {
+
+    private final ProductImportService importService;
+
+    public ProductImportController(ProductImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResponse> startImport(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                             InputStream body) throws IOException {
+        ProductImportJob job = importService.start(body, ProductImportFormat.fromContentType(contentType));
+        return ResponseEntity.accepted()
+                .location(URI.create("/products/imports/" + job.getId()))
+                .body(toResponse(job));
+    }
+
+    @GetMapping("/{importId}")
+    public ProductImportResponse getImport(@PathVariable("importId") String importId) {
+        return toResponse(importService.get(importId));
+    }
+
+    @ExceptionHandler(ProductImportService.NotFoundException.class)
+    public ResponseEntity<Void> handleNotFound(ProductImportService.NotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    @ExceptionHandler(ProductImportService.TooManyImportsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooMany(ProductImportService.TooManyImportsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    private static ProductImportResponse toResponse(ProductImportJob job) {
+        ProductImportResponse r = new ProductImportResponse();
+        r.setImportId(job.getId());
+        r.setStatus(job.getStatus());
+        r.setFormat(job.getFormat().name());
+        r.setRowsRead(job.getRowsRead());
+        r.setRowsImported(job.getRowsImported());
+        r.setRowsFailed(job.getRowsFailed());
+        r.setCreatedAt(job.getCreatedAt());
+        r.setStartedAt(job.getStartedAt());
+        r.setFinishedAt(job.getFinishedAt());
+        r.setFailure(job.getFailure());
+        r.setErrors(job.getErrors().stream()
+                .map(e -> new ProductImportResponse.RowError(e.getRow(), e.getMessage()))
+                .collect(Collectors.toList()));
+        return r;
+    }
+}
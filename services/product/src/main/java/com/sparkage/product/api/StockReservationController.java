@@ -0,0 +1,95 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.api.dto.BatchReservationRequest;
+import com.sparkage.product.api.dto.ReservationLine;
+import com.sparkage.product.api.dto.ReservationResponse;
+import com.sparkage.product.api.dto.ReserveStockRequest;
+import com.sparkage.product.model.StockReservation;
+import com.sparkage.product.service.StockReservationService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping(path = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
+public class StockReservationController {
+
+    private final StockReservationService reservationService;
+
+    public StockReservationController(StockReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @PostMapping(path = "/{productId}/reservations", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ReservationResponse> reserve(@PathVariable("productId") Long productId,
+                                                       @Valid @RequestBody ReserveStockRequest request) {
+        List<StockReservation> lines = reservationService.reserve(Map.of(productId, request.getQuantity()), request.getTtlSeconds());
+        return created(lines);
+    }
+
+    @PostMapping(path = "/reservations", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ReservationResponse> reserveBatch(@Valid @RequestBody BatchReservationRequest request) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (ReservationLine line : request.getItems()) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return created(reservationService.reserve(quantities, request.getTtlSeconds()));
+    }
+
+    @GetMapping(path = "/reservations/{reservationId}")
+    public ReservationResponse getReservation(@PathVariable("reservationId") String reservationId) {
+        return toResponse(reservationService.get(reservationId));
+    }
+
+    @PostMapping(path = "/reservations/{reservationId}/commit")
+    public ReservationResponse commit(@PathVariable("reservationId") String reservationId) {
+        return toResponse(reservationService.commit(reservationId));
+    }
+
+    @DeleteMapping(path = "/reservations/{reservationId}")
+    public ReservationResponse release(@PathVariable("reservationId") String reservationId) {
+        return toResponse(reservationService.release(reservationId));
+    }
+
+    @ExceptionHandler(StockReservationService.NotFoundException.class)
+    public ResponseEntity<Void> handleNotFound(StockReservationService.NotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    @ExceptionHandler(StockReservationService.InsufficientStockException.class)
+    public ResponseEntity<Map<String, Object>> handleInsufficientStock(StockReservationService.InsufficientStockException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "insufficient stock", "productIds", ex.getProductIds()));
+    }
+
+    @ExceptionHandler(StockReservationService.InvalidStateException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidState(StockReservationService.InvalidStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    private ResponseEntity<ReservationResponse> created(List<StockReservation> lines) {
+        ReservationResponse body = toResponse(lines);
+        return ResponseEntity.created(URI.create("/products/reservations/" + body.getReservationId())).body(body);
+    }
+
+    private ReservationResponse toResponse(List<StockReservation> lines) {
+        StockReservation first = lines.get(0);
+        List<ReservationLine> items = lines.stream()
+                .map(l -> new ReservationLine(l.getProductId(), l.getQuantity()))
+                .collect(Collectors.toList());
+        return new ReservationResponse(first.getReservationId(), first.getStatus(), first.getExpiresAt(), items);
+    }
+}
@@ -0,0 +1,44 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.api.dto.StockShardingRequest;
+import com.sparkage.product.api.dto.StockShardingResponse;
+import com.sparkage.product.service.CatalogStampCache;
+import com.sparkage.product.service.StockShardingService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping(path = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
+public class StockShardingController {
+
+    private final StockShardingService shardingService;
+    private final CatalogStampCache catalogStamp;
+
+    public StockShardingController(StockShardingService shardingService, CatalogStampCache catalogStamp) {
+        this.shardingService = shardingService;
+        this.catalogStamp = catalogStamp;
+    }
+
+    @PutMapping(path = "/{productId}/stock-shards", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public StockShardingResponse configure(@PathVariable("productId") Long productId,
+                                           @Valid @RequestBody StockShardingRequest request) {
+        int stock = shardingService.configure(productId, request.getShards());
+        catalogStamp.invalidate();
+        return new StockShardingResponse(productId, request.getShards(), stock);
+    }
+
+    @ExceptionHandler(StockShardingService.NotFoundException.class)
+    public ResponseEntity<Void> handleNotFound(StockShardingService.NotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+}
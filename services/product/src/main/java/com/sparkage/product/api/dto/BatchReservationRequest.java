@@ -0,0 +1,23 @@
+package com.sparkage.product.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchReservationRequest {
+    @NotEmpty
+    @Valid
+    private List<ReservationLine> items = new ArrayList<>();
+
+    private Long ttlSeconds; // optional; server default applies when absent
+
+    public BatchReservationRequest() {}
+
+    public List<ReservationLine> getItems() { return items; }
+    public void setItems(List<ReservationLine> items) { this.items = items; }
+
+    public Long getTtlSeconds() { return ttlSeconds; }
+    public void setTtlSeconds(Long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+}
@@ -0,0 +1,18 @@
+package com.sparkage.product.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkUpdateProductsRequest {
+    @NotEmpty
+    @Valid
+    private List<ProductPatch> items = new ArrayList<>();
+
+    public BulkUpdateProductsRequest() {}
+
+    public List<ProductPatch> getItems() { return items; }
+    public void setItems(List<ProductPatch> items) { this.items = items; }
+}
@@ -0,0 +1,32 @@
+package com.sparkage.product.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkUpdateProductsResponse {
+    private int requested;
+    private int updated;
+    private List<Long> notFound = new ArrayList<>();
+    private List<Long> conflicts = new ArrayList<>();
+
+    public BulkUpdateProductsResponse() {}
+
+    public BulkUpdateProductsResponse(int requested, int updated, List<Long> notFound, List<Long> conflicts) {
+        this.requested = requested;
+        this.updated = updated;
+        this.notFound = notFound;
+        this.conflicts = conflicts;
+    }
+
+    public int getRequested() { return requested; }
+    public void setRequested(int requested) { this.requested = requested; }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public List<Long> getNotFound() { return notFound; }
+    public void setNotFound(List<Long> notFound) { this.notFound = notFound; }
+
+    public List<Long> getConflicts() { return conflicts; }
+    public void setConflicts(List<Long> conflicts) { this.conflicts = conflicts; }
+}
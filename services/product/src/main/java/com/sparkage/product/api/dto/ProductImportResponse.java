@@ -0,0 +1,72 @@
+package com.sparkage.product.api.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportResponse {
+    private String importId;
+    private String status;
+    private String format;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String failure;
+    private List<RowError> errors = new ArrayList<>();
+
+    public ProductImportResponse() {}
+
+    public static class RowError {
+        private long row;
+        private String message;
+
+        public RowError() {}
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() { return row; }
+        public void setRow(long row) { this.row = row; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public String getImportId() { return importId; }
+    public void setImportId(String importId) { this.importId = importId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public long getRowsRead() { return rowsRead; }
+    public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getRowsImported() { return rowsImported; }
+    public void setRowsImported(long rowsImported) { this.rowsImported = rowsImported; }
+
+    public long getRowsFailed() { return rowsFailed; }
+    public void setRowsFailed(long rowsFailed) { this.rowsFailed = rowsFailed; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public String getFailure() { return failure; }
+    public void setFailure(String failure) { this.failure = failure; }
+
+    public List<RowError> getErrors() { return errors; }
+    public void setErrors(List<RowError> errors) { this.errors = errors; }
+}
@@ -0,0 +1,22 @@
+package com.sparkage.product.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One line of a bulk update: the product id, the fields to change and, optionally, the version the
+ * caller last saw. Lines carrying a version are only applied if the product still has that version.
+ */
+public class ProductPatch extends UpdateProductRequest {
+    @NotNull
+    private Long id;
+
+    private Long version;
+
+    public ProductPatch() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
@@ -0,0 +1,33 @@
+package com.sparkage.product.api.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReservationResponse {
+    private String reservationId;
+    private String status;
+    private Instant expiresAt;
+    private List<ReservationLine> items = new ArrayList<>();
+
+    public ReservationResponse() {}
+
+    public ReservationResponse(String reservationId, String status, Instant expiresAt, List<ReservationLine> items) {
+        this.reservationId = reservationId;
+        this.status = status;
+        this.expiresAt = expiresAt;
+        this.items = items;
+    }
+
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public List<ReservationLine> getItems() { return items; }
+    public void setItems(List<ReservationLine> items) { this.items = items; }
+}
@@ -0,0 +1,20 @@
+package com.sparkage.product.api.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class ReserveStockRequest {
+    @NotNull
+    @Min(1)
+    private Integer quantity;
+
+    private Long ttlSeconds; // optional; server default applies when absent
+
+    public ReserveStockRequest() {}
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public Long getTtlSeconds() { return ttlSeconds; }
+    public void setTtlSeconds(Long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+}
@@ -0,0 +1,15 @@
+package com.sparkage.product.api.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class StockShardingRequest {
+    @NotNull
+    @Min(0)
+    private Integer shards; // 0 disables sharded mode
+
+    public StockShardingRequest() {}
+
+    public Integer getShards() { return shards; }
+    public void setShards(Integer shards) { this.shards = shards; }
+}
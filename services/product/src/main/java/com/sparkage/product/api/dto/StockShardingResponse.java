@@ -0,0 +1,24 @@
+package com.sparkage.product.api.dto;
+
+public class StockShardingResponse {
+    private Long productId;
+    private int shards;
+    private int stock;
+
+    public StockShardingResponse() {}
+
+    public StockShardingResponse(Long productId, int shards, int stock) {
+        this.productId = productId;
+        this.shards = shards;
+        this.stock = stock;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public int getShards() { return shards; }
+    public void setShards(int shards) { this.shards = shards; }
+
+    public int getStock() { return stock; }
+    public void setStock(int stock) { this.stock = stock; }
+}
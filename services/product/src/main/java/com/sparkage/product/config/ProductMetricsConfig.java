@@ -4,9 +4,9 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.Gauge;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.context.annotation.Bean;
 
 // Updated to Jakarta namespace for Spring Boot 3+
@@ -15,29 +15,65 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Configuration
 public class ProductMetricsConfig {
 
-    @Autowired
-    private MeterRegistry meterRegistry;
-
-    private final AtomicInteger activeRequests = new AtomicInteger(0);
-
     @Bean
-    public OncePerRequestFilter productMetricsFilter() {
-        return new ProductMetricsFilter();
+    public OncePerRequestFilter productMetricsFilter(MeterRegistry meterRegistry) {
+        return new ProductMetricsFilter(meterRegistry);
     }
 
-    public class ProductMetricsFilter extends OncePerRequestFilter {
-
-        // Keep a base timer name; counters with dynamic tags will be resolved per-request
-        private final String requestCounterName = "product_service_requests_total";
-        private final String requestTimerName = "product_service_request_duration_seconds";
-        private final String productOperationCounterName = "product_operations_total";
-
-        public ProductMetricsFilter() {
+    /**
+     * Per-request timer and counters tagged with the matched route template ({@code /products/{productId}})
+     * rather than the raw URI, so the number of meters is bounded by routes x methods x statuses.
+     * Resolved meters are cached per (method, template, status); the hot path does no registry lookups
+     * and allocates nothing of its own once a combination has been seen.
+     */
+    public static class ProductMetricsFilter extends OncePerRequestFilter {
+
+        static final String REQUEST_COUNTER = "product_service_requests_total";
+        static final String REQUEST_TIMER = "product_service_request_duration_seconds";
+        static final String OPERATION_COUNTER = "product_operations_total";
+
+        // Same fallbacks as Spring's own http.server.requests tags
+        static final String NOT_FOUND = "NOT_FOUND";
+        static final String REDIRECTION = "REDIRECTION";
+        static final String UNKNOWN = "UNKNOWN";
+
+        private static final String FILTERED_ATTRIBUTE = ProductMetricsFilter.class.getName() + ".FILTERED";
+
+        private static final Set<String> KNOWN_METHODS = Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+        private static final Map<String, String> OPERATIONS = Map.ofEntries(
+                Map.entry("GET /products", "list_products"),
+                Map.entry("GET /products/{productId}", "get_product"),
+                Map.entry("POST /products", "create_product"),
+                Map.entry("PUT /products/{productId}", "update_product"),
+                Map.entry("PATCH /products", "bulk_update_products"),
+                Map.entry("DELETE /products/{productId}", "delete_product"),
+                Map.entry("POST /products/imports", "import_products"),
+                Map.entry("GET /products/imports/{importId}", "get_import"),
+                Map.entry("PUT /products/{productId}/stock-shards", "configure_stock_shards"),
+                Map.entry("POST /products/{productId}/reservations", "reserve_stock"),
+                Map.entry("POST /products/reservations", "reserve_stock"),
+                Map.entry("GET /products/reservations/{reservationId}", "get_reservation"),
+                Map.entry("POST /products/reservations/{reservationId}/commit", "commit_reservation"),
+                Map.entry("DELETE /products/reservations/{reservationId}", "release_reservation"));
+
+        private final MeterRegistry meterRegistry;
+        private final AtomicInteger activeRequests = new AtomicInteger(0);
+        // template -> method -> meters by status
+        private final ConcurrentHashMap<String, ConcurrentHashMap<String, RouteMeters>> routes = new ConcurrentHashMap<>();
+
+        public ProductMetricsFilter(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
             // Register gauge for active requests (object + value function)
             Gauge.builder("product_service_active_requests", activeRequests, AtomicInteger::get)
                     .description("Active requests to product service")
@@ -48,45 +84,90 @@ public class ProductMetricsConfig {
         protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                       FilterChain filterChain) throws ServletException, IOException {
 
-            Timer.Sample sample = Timer.start(meterRegistry);
+            long start = System.nanoTime();
             activeRequests.incrementAndGet();
 
             try {
                 filterChain.doFilter(request, response);
             } finally {
-                String method = request.getMethod();
-                String uri = request.getRequestURI();
-                String status = String.valueOf(response.getStatus());
+                int status = response.getStatus();
+                RouteMeters route = routeMeters(request.getMethod(), template(request, status));
+                Meters meters = route.forStatus(status);
+                meters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                meters.requests.increment();
+                if (route.operation != null) {
+                    route.operation.increment();
+                }
+                activeRequests.decrementAndGet();
+            }
+        }
 
-                // Record timer with tags
-                sample.stop(meterRegistry.timer(requestTimerName, "method", method, "uri", uri, "status", status));
+        // The default builds this name by string concatenation on every request
+        @Override
+        protected String getAlreadyFilteredAttributeName() {
+            return FILTERED_ATTRIBUTE;
+        }
 
-                // Increment request counter with tags
-                meterRegistry.counter(requestCounterName, "method", method, "uri", uri, "status", status).increment();
+        private RouteMeters routeMeters(String method, String template) {
+            String m = KNOWN_METHODS.contains(method) ? method : "OTHER";
+            ConcurrentHashMap<String, RouteMeters> byMethod = routes.get(template);
+            if (byMethod == null) {
+                byMethod = routes.computeIfAbsent(template, t -> new ConcurrentHashMap<>());
+            }
+            RouteMeters route = byMethod.get(m);
+            if (route == null) {
+                route = byMethod.computeIfAbsent(m, k -> new RouteMeters(k, template));
+            }
+            return route;
+        }
 
-                // Track specific product operations
-                if (uri.contains("/products")) {
-                    String operation = getOperationType(method, uri);
-                    meterRegistry.counter(productOperationCounterName, "operation", operation).increment();
-                }
+        private static String template(HttpServletRequest request, int status) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern instanceof String s) {
+                return s;
+            }
+            if (status == 404) return NOT_FOUND;
+            if (status >= 300 && status < 400) return REDIRECTION;
+            return UNKNOWN;
+        }
 
-                activeRequests.decrementAndGet();
+        private final class RouteMeters {
+            private final String method;
+            private final String template;
+            private final Counter operation;
+            // index = HTTP status (100-599); slot 0 collects anything outside that range
+            private final AtomicReferenceArray<Meters> byStatus = new AtomicReferenceArray<>(600);
+
+            RouteMeters(String method, String template) {
+                this.method = method;
+                this.template = template;
+                String op = template.startsWith("/products") ? OPERATIONS.getOrDefault(method + " " + template, "unknown") : null;
+                this.operation = op == null ? null : meterRegistry.counter(OPERATION_COUNTER, "operation", op);
+            }
+
+            Meters forStatus(int status) {
+                int slot = status >= 100 && status < 600 ? status : 0;
+                Meters meters = byStatus.get(slot);
+                if (meters == null) {
+                    String tag = slot == 0 ? UNKNOWN : String.valueOf(status);
+                    // registry lookups are idempotent, so a lost race only costs a duplicate lookup
+                    meters = new Meters(
+                            meterRegistry.timer(REQUEST_TIMER, "method", method, "uri", template, "status", tag),
+                            meterRegistry.counter(REQUEST_COUNTER, "method", method, "uri", template, "status", tag));
+                    byStatus.compareAndSet(slot, null, meters);
+                }
+                return meters;
             }
         }
 
-        private String getOperationType(String method, String uri) {
-            if (method.equals("GET") && uri.matches(".*/products/\\d+")) {
-                return "get_product";
-            } else if (method.equals("GET") && uri.equals("/products")) {
-                return "list_products";
-            } else if (method.equals("POST")) {
-                return "create_product";
-            } else if (method.equals("PUT")) {
-                return "update_product";
-            } else if (method.equals("DELETE")) {
-                return "delete_product";
+        private static final class Meters {
+            final Timer timer;
+            final Counter requests;
+
+            Meters(Timer timer, Counter requests) {
+                this.timer = timer;
+                this.requests = requests;
             }
-            return "unknown";
         }
     }
 }
@@ -1,14 +1,20 @@
 package com.sparkage.product.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
 @Table(name = "products")
+@DynamicUpdate
 public class Product {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sequence ids (allocated in blocks) let Hibernate batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = Product.ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -29,6 +35,15 @@ public class Product {
     @Column(nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    // > 0 when stock lives in product_stock_shards instead of the stock column (hot-SKU mode)
+    private Integer stockShards;
+
     public Product() {}
 
     public Product(String name, String description, String category, BigDecimal price) {
@@ -58,4 +73,20 @@ public class Product {
 
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    public Integer getStockShards() { return stockShards; }
+    public void setStockShards(Integer stockShards) { this.stockShards = stockShards; }
+
+    public boolean isStockSharded() { return stockShards != null && stockShards > 0; }
+
+    @PreUpdate
+    void touchUpdatedAt() {
+        this.updatedAt = Instant.now();
+    }
 }
@@ -0,0 +1,39 @@
+package com.sparkage.product.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One counter slot of a sharded product's stock. The product's available stock is the sum of its
+ * slots; decrements spread over slots so concurrent buyers do not queue on a single row lock.
+ */
+@Entity
+@Table(name = "product_stock_shards", uniqueConstraints =
+        @UniqueConstraint(name = "uk_product_stock_shards_product_slot", columnNames = {"productId", "slot"}))
+public class ProductStockShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Integer stock = 0;
+
+    public ProductStockShard() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Integer getSlot() { return slot; }
+    public void setSlot(Integer slot) { this.slot = slot; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+}
@@ -0,0 +1,72 @@
+package com.sparkage.product.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One line of a stock reservation. Lines created by the same request share a {@code reservationId}
+ * and always change status together.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_reservation_id", columnList = "reservationId"),
+        @Index(name = "idx_stock_reservations_status_expires_at", columnList = "status,expiresAt")
+})
+public class StockReservation {
+    public static final String ACTIVE = "ACTIVE";
+    public static final String COMMITTED = "COMMITTED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String reservationId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(length = 20, nullable = false)
+    private String status = ACTIVE;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt = Instant.now();
+
+    public StockReservation() {}
+
+    public StockReservation(String reservationId, Long productId, Integer quantity, Instant expiresAt) {
+        this.reservationId = reservationId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,67 @@
+package com.sparkage.product.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Caches a fingerprint of the whole catalog (row count + latest update time) so that conditional
+ * list requests can be answered without running the page and count queries.
+ * <p>
+ * Writes made through this instance invalidate the cached stamp immediately; writes made by other
+ * replicas become visible once the TTL expires.
+ */
+@Component
+public class CatalogStampCache {
+
+    private final ProductRepository repository;
+    private final long ttlNanos;
+    private volatile Stamp current;
+
+    public CatalogStampCache(ProductRepository repository,
+                             @Value("${product.http.catalog-stamp-ttl-ms:1000}") long ttlMillis) {
+        this.repository = repository;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Returns the current catalog stamp, or {@code null} when it cannot be determined.
+     */
+    public Stamp get() {
+        Stamp stamp = current;
+        long now = System.nanoTime();
+        if (stamp != null && now - stamp.loadedAtNanos < ttlNanos) {
+            return stamp;
+        }
+        ProductRepository.CatalogStamp row = repository.findCatalogStamp();
+        if (row == null) {
+            return null;
+        }
+        Instant lastModified = row.getLastModified() == null ? Instant.EPOCH : row.getLastModified();
+        stamp = new Stamp(row.getCount(), lastModified, now);
+        current = stamp;
+        return stamp;
+    }
+
+    public void invalidate() {
+        current = null;
+    }
+
+    public static final class Stamp {
+        private final String etag;
+        private final Instant lastModified;
+        private final long loadedAtNanos;
+
+        Stamp(long count, Instant lastModified, long loadedAtNanos) {
+            long micros = ChronoUnit.MICROS.between(Instant.EPOCH, lastModified);
+            this.etag = "\"c" + count + "-" + Long.toString(micros, 36) + "\"";
+            this.lastModified = lastModified;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+
+        public String getEtag() { return etag; }
+        public Instant getLastModified() { return lastModified; }
+    }
+}
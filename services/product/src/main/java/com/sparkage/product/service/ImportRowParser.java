@@ -0,0 +1,194 @@
+package com.sparkage.product.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkage.product.model.Product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns one import record (a CSV record or an NDJSON line) into a validated, unsaved {@link Product}.
+ * Instances are immutable after construction and safe to share between validation threads.
+ */
+final class ImportRowParser {
+
+    static final int MAX_NAME = 255, MAX_DESCRIPTION = 2000, MAX_CATEGORY = 100;
+
+    private final ProductImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Integer> columns;
+
+    private ImportRowParser(ProductImportFormat format, ObjectMapper objectMapper, Map<String, Integer> columns) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.columns = columns;
+    }
+
+    static ImportRowParser ndjson(ObjectMapper objectMapper) {
+        return new ImportRowParser(ProductImportFormat.NDJSON, objectMapper, Map.of());
+    }
+
+    /**
+     * CSV parser for the given header record; column names are matched case-insensitively and
+     * unknown columns are ignored.
+     */
+    static ImportRowParser csv(String headerRecord) {
+        if (headerRecord == null) {
+            throw new IllegalArgumentException("CSV header row is missing");
+        }
+        if (headerRecord.startsWith("\uFEFF")) headerRecord = headerRecord.substring(1);
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(headerRecord);
+        for (int i = 0; i < names.size(); i++) {
+            columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "price", "stock")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing required column '" + required + "'");
+            }
+        }
+        return new ImportRowParser(ProductImportFormat.CSV, null, columns);
+    }
+
+    /**
+     * Reads the next record, or {@code null} at end of input. CSV records may span several lines
+     * when a quoted field contains line breaks.
+     */
+    static String nextRecord(BufferedReader reader, ProductImportFormat format) throws IOException {
+        String line = reader.readLine();
+        if (line == null || format != ProductImportFormat.CSV || quotesBalanced(line)) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        String next;
+        while (!quotesBalanced(record) && (next = reader.readLine()) != null) {
+            record.append('\n').append(next);
+        }
+        return record.toString();
+    }
+
+    Product parse(String record) throws RowException {
+        String name, description, category, price, stock;
+        if (format == ProductImportFormat.CSV) {
+            List<String> fields = splitCsv(record);
+            name = field(fields, "name");
+            description = field(fields, "description");
+            category = field(fields, "category");
+            price = field(fields, "price");
+            stock = field(fields, "stock");
+        } else {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(record);
+            } catch (IOException e) {
+                throw new RowException("malformed JSON");
+            }
+            if (node == null || !node.isObject()) throw new RowException("expected a JSON object");
+            name = text(node, "name");
+            description = text(node, "description");
+            category = text(node, "category");
+            price = text(node, "price");
+            stock = text(node, "stock");
+        }
+        return validate(name, description, category, price, stock);
+    }
+
+    private static Product validate(String name, String description, String category, String price, String stock)
+            throws RowException {
+        if (name == null || name.isBlank()) throw new RowException("name must not be blank");
+        if (name.length() > MAX_NAME) throw new RowException("name is longer than " + MAX_NAME);
+        if (description != null && description.length() > MAX_DESCRIPTION) {
+            throw new RowException("description is longer than " + MAX_DESCRIPTION);
+        }
+        if (category != null && category.length() > MAX_CATEGORY) {
+            throw new RowException("category is longer than " + MAX_CATEGORY);
+        }
+        BigDecimal parsedPrice;
+        int parsedStock;
+        try {
+            parsedPrice = new BigDecimal(require(price, "price").trim());
+        } catch (NumberFormatException e) {
+            throw new RowException("price is not a number");
+        }
+        if (parsedPrice.signum() < 0) throw new RowException("price must be >= 0.00");
+        if (parsedPrice.scale() > 2) throw new RowException("price has more than 2 decimals");
+        try {
+            parsedStock = Integer.parseInt(require(stock, "stock").trim());
+        } catch (NumberFormatException e) {
+            throw new RowException("stock is not an integer");
+        }
+        if (parsedStock < 0) throw new RowException("stock must be >= 0");
+
+        Product p = new Product(name.trim(), emptyToNull(description), emptyToNull(category), parsedPrice);
+        p.setStock(parsedStock);
+        return p;
+    }
+
+    static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String require(String value, String field) throws RowException {
+        if (value == null || value.isBlank()) throw new RowException(field + " is required");
+        return value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static boolean quotesBalanced(CharSequence s) {
+        int quotes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') quotes++;
+        }
+        return quotes % 2 == 0;
+    }
+
+    static class RowException extends Exception {
+        RowException(String message) { super(message); }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.model.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Products used to get IDENTITY ids. On databases created before the switch to {@code products_seq}
+ * the new sequence starts below the existing ids, so it is moved past them once at startup.
+ */
+@Component
+public class ProductIdSequenceAligner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdSequenceAligner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depending on the EntityManagerFactory makes sure schema generation has created the sequence
+    public ProductIdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void align() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM products", Long.class);
+            Long next = jdbcTemplate.queryForObject("SELECT nextval('products_seq')", Long.class);
+            if (maxId == null || next == null || next > maxId) {
+                return;
+            }
+            // The pooled optimizer hands out (value - allocationSize, value], so skip a whole block
+            long restart = maxId + Product.ID_ALLOCATION_SIZE + 1;
+            jdbcTemplate.execute("ALTER SEQUENCE products_seq RESTART WITH " + restart);
+            log.info("Moved products_seq from {} to {} past existing product ids", next, restart);
+        } catch (DataAccessException e) {
+            log.warn("Could not align products_seq with existing product ids: {}", e.getMessage());
+        }
+    }
+}
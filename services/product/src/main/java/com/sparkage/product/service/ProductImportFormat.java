@@ -0,0 +1,28 @@
+package com.sparkage.product.service;
+
+import org.springframework.http.MediaType;
+
+public enum ProductImportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    ProductImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() { return mediaType; }
+
+    public static ProductImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType type = MediaType.parseMediaType(contentType);
+            for (ProductImportFormat format : values()) {
+                if (type.isCompatibleWith(MediaType.parseMediaType(format.mediaType))) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("unsupported import content type: " + contentType);
+    }
+}
@@ -0,0 +1,97 @@
+package com.sparkage.product.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one catalog import. Counters are updated by the import pipeline while it runs and can
+ * be read at any time.
+ */
+public class ProductImportJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private final String id = UUID.randomUUID().toString();
+    private final ProductImportFormat format;
+    private final int maxErrors;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<RowError> errors = new ArrayList<>();
+    private volatile String status = QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    ProductImportJob(ProductImportFormat format, int maxErrors) {
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() { return row; }
+        public String getMessage() { return message; }
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = RUNNING;
+    }
+
+    void finished(String failureMessage) {
+        failure = failureMessage;
+        finishedAt = Instant.now();
+        status = failureMessage == null ? COMPLETED : FAILED;
+    }
+
+    void rowsRead(long count) { rowsRead.addAndGet(count); }
+
+    void imported(long count) { rowsImported.addAndGet(count); }
+
+    void rejected(long row, String message) {
+        rowsFailed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) errors.add(new RowError(row, message));
+        }
+    }
+
+    public boolean isFinished() {
+        String s = status;
+        return COMPLETED.equals(s) || FAILED.equals(s);
+    }
+
+    public String getId() { return id; }
+    public ProductImportFormat getFormat() { return format; }
+    public String getStatus() { return status; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getFailure() { return failure; }
+    public long getRowsRead() { return rowsRead.get(); }
+    public long getRowsImported() { return rowsImported.get(); }
+    public long getRowsFailed() { return rowsFailed.get(); }
+
+    /**
+     * The first {@code product.import.max-errors} row errors, in the order they were found.
+     */
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+}
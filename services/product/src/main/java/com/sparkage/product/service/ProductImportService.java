@@ -0,0 +1,270 @@
+package com.sparkage.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkage.product.model.Product;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming catalog import. The upload is spooled to a temp file and processed in the background:
+ * one reader thread splits records off the file, chunks of records are parsed and validated in
+ * parallel, and the writer persists valid rows chunk by chunk in input order. Only
+ * {@code max-in-flight-chunks} chunks are held in memory at a time, whatever the file size.
+ * <p>
+ * Products use sequence ids, so each chunk goes out as batched inserts
+ * ({@code hibernate.jdbc.batch_size}) in its own transaction.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final ProductRepository products;
+    private final CatalogStampCache catalogStamp;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService validationExecutor;
+    private final Map<String, ProductImportJob> jobs = new ConcurrentHashMap<>();
+    private final int chunkSize;
+    private final int maxInFlightChunks;
+    private final int maxActiveJobs;
+    private final int maxErrors;
+    private final int retainedJobs;
+
+    public ProductImportService(ProductRepository products,
+                                CatalogStampCache catalogStamp,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${product.import.chunk-size:500}") int chunkSize,
+                                @Value("${product.import.validation-threads:0}") int validationThreads,
+                                @Value("${product.import.max-in-flight-chunks:0}") int maxInFlightChunks,
+                                @Value("${product.import.max-active-jobs:2}") int maxActiveJobs,
+                                @Value("${product.import.max-errors:1000}") int maxErrors,
+                                @Value("${product.import.retained-jobs:100}") int retainedJobs) {
+        this.products = products;
+        this.catalogStamp = catalogStamp;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int threads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxInFlightChunks = maxInFlightChunks > 0 ? maxInFlightChunks : threads * 2;
+        this.maxActiveJobs = Math.max(1, maxActiveJobs);
+        this.maxErrors = maxErrors;
+        this.retainedJobs = retainedJobs;
+        this.jobExecutor = Executors.newFixedThreadPool(this.maxActiveJobs, named("product-import-"));
+        this.validationExecutor = Executors.newFixedThreadPool(threads, named("product-import-validate-"));
+    }
+
+    public static class NotFoundException extends RuntimeException {
+        public NotFoundException(String message) { super(message); }
+    }
+
+    public static class TooManyImportsException extends RuntimeException {
+        public TooManyImportsException(String message) { super(message); }
+    }
+
+    /**
+     * Spools {@code body} to disk and queues the import. Returns once the upload has been stored.
+     */
+    public ProductImportJob start(InputStream body, ProductImportFormat format) throws IOException {
+        long active = jobs.values().stream().filter(j -> !j.isFinished()).count();
+        if (active >= maxActiveJobs) {
+            throw new TooManyImportsException(active + " imports are already running");
+        }
+        Path spool = Files.createTempFile("product-import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        ProductImportJob job = new ProductImportJob(format, maxErrors);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        jobExecutor.execute(() -> run(job, spool));
+        return job;
+    }
+
+    public ProductImportJob get(String jobId) {
+        ProductImportJob job = jobs.get(jobId);
+        if (job == null) throw new NotFoundException("import not found");
+        return job;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        validationExecutor.shutdownNow();
+    }
+
+    private void run(ProductImportJob job, Path spool) {
+        job.started();
+        String failure = null;
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            importRecords(job, reader);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = "import interrupted";
+        } catch (Exception e) {
+            failure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            log.warn("Product import {} failed", job.getId(), e);
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Could not delete import spool file {}", spool);
+            }
+            job.finished(failure);
+            catalogStamp.invalidate();
+        }
+        log.info("Product import {} {}: read={} imported={} failed={}", job.getId(), job.getStatus(),
+                job.getRowsRead(), job.getRowsImported(), job.getRowsFailed());
+    }
+
+    private void importRecords(ProductImportJob job, BufferedReader reader) throws Exception {
+        ProductImportFormat format = job.getFormat();
+        ImportRowParser parser = format == ProductImportFormat.CSV
+                ? ImportRowParser.csv(ImportRowParser.nextRecord(reader, format))
+                : ImportRowParser.ndjson(objectMapper);
+        Deque<Future<List<ParsedRow>>> inFlight = new ArrayDeque<>();
+        try {
+            List<RawRow> chunk = new ArrayList<>(chunkSize);
+            long row = 0;
+            String record;
+            while ((record = ImportRowParser.nextRecord(reader, format)) != null) {
+                row++;
+                if (record.isBlank()) continue;
+                chunk.add(new RawRow(row, record));
+                if (chunk.size() == chunkSize) {
+                    inFlight.add(submit(parser, chunk));
+                    job.rowsRead(chunk.size());
+                    chunk = new ArrayList<>(chunkSize);
+                    // the writer keeps pace with validation, bounding memory to the in-flight chunks
+                    if (inFlight.size() >= maxInFlightChunks) write(job, inFlight.poll().get());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inFlight.add(submit(parser, chunk));
+                job.rowsRead(chunk.size());
+            }
+            while (!inFlight.isEmpty()) {
+                write(job, inFlight.poll().get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            inFlight.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private Future<List<ParsedRow>> submit(ImportRowParser parser, List<RawRow> chunk) {
+        return validationExecutor.submit(() -> {
+            List<ParsedRow> parsed = new ArrayList<>(chunk.size());
+            for (RawRow raw : chunk) {
+                try {
+                    parsed.add(new ParsedRow(raw.row, parser.parse(raw.record), null));
+                } catch (ImportRowParser.RowException e) {
+                    parsed.add(new ParsedRow(raw.row, null, e.getMessage()));
+                }
+            }
+            return parsed;
+        });
+    }
+
+    private void write(ProductImportJob job, List<ParsedRow> chunk) {
+        List<ParsedRow> valid = new ArrayList<>(chunk.size());
+        for (ParsedRow row : chunk) {
+            if (row.error != null) {
+                job.rejected(row.row, row.error);
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) return;
+        try {
+            transactionTemplate.executeWithoutResult(status -> products.saveAll(valid.stream().map(r -> r.product).toList()));
+            job.imported(valid.size());
+        } catch (DataAccessException e) {
+            // One bad row fails the whole batch; retry row by row to pin it down
+            for (ParsedRow row : valid) {
+                row.product.setId(null);
+                row.product.setVersion(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> products.save(row.product));
+                    job.imported(1);
+                } catch (DataAccessException rowError) {
+                    job.rejected(row.row, "could not be stored: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        catalogStamp.invalidate();
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < retainedJobs) return;
+        jobs.values().stream()
+                .filter(ProductImportJob::isFinished)
+                .sorted(Comparator.comparing(ProductImportJob::getCreatedAt))
+                .limit(jobs.size() - retainedJobs + 1L)
+                .forEach(j -> jobs.remove(j.getId()));
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread t = new Thread(runnable, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static final class RawRow {
+        final long row;
+        final String record;
+
+        RawRow(long row, String record) {
+            this.row = row;
+            this.record = record;
+        }
+    }
+
+    private static final class ParsedRow {
+        final long row;
+        final Product product;
+        final String error;
+
+        ParsedRow(long row, Product product, String error) {
+            this.row = row;
+            this.product = product;
+            this.error = error;
+        }
+    }
+}
@@ -3,6 +3,30 @@ package com.sparkage.product.service;
 import com.sparkage.product.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    @Query("select p.version as version, p.updatedAt as updatedAt, p.stockShards as stockShards from Product p where p.id = :id")
+    Optional<VersionInfo> findVersionById(@Param("id") Long id);
+
+    @Query("select count(p) as count, max(p.updatedAt) as lastModified from Product p")
+    CatalogStamp findCatalogStamp();
+
+    /** Lightweight projection used to answer conditional GETs without loading the full row. */
+    interface VersionInfo {
+        Long getVersion();
+        Instant getUpdatedAt();
+        Integer getStockShards();
+    }
+
+    /** Row count and latest modification time of the whole catalog. */
+    interface CatalogStamp {
+        long getCount();
+        Instant getLastModified();
+    }
 }
@@ -0,0 +1,202 @@
+package com.sparkage.product.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Single-statement stock mutations. Decrements are conditional ({@code WHERE stock >= ?}) so
+ * concurrent buyers never read-modify-write and can never oversell.
+ * <p>
+ * Products opted into sharded mode keep {@code products.stock} at zero and hold their stock in
+ * {@code product_stock_shards} slots instead. A decrement on such a product fails on the main row and
+ * is retried against a random slot, falling back to the other slots, so buyers of one hot SKU spread
+ * over several row locks instead of serializing on one.
+ */
+@Repository
+public class ProductStockStore {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock = stock - ?, version = version + 1, updated_at = ? WHERE id = ? AND stock >= ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET stock = stock + ?, version = version + 1, updated_at = ? WHERE id = ?";
+    private static final String SHARDS_OF_SQL =
+            "SELECT id, stock_shards FROM products WHERE stock_shards > 0 AND id IN (:ids)";
+    private static final String SHARD_DECREMENT_SQL =
+            "UPDATE product_stock_shards SET stock = stock - ? WHERE product_id = ? AND slot = ? AND stock >= ?";
+    private static final String SHARD_INCREMENT_SQL =
+            "UPDATE product_stock_shards SET stock = stock + ? WHERE product_id = ? AND slot = ?";
+    private static final String SHARDS_FOR_UPDATE_SQL =
+            "SELECT slot, stock FROM product_stock_shards WHERE product_id = ? ORDER BY slot FOR UPDATE";
+    private static final String SHARD_TOTALS_SQL =
+            "SELECT product_id, SUM(stock) AS total FROM product_stock_shards WHERE product_id IN (:ids) GROUP BY product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public ProductStockStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Decrements stock for every entry and returns the product ids whose condition failed (missing
+     * row or not enough stock). Unsharded products go out in one JDBC batch. Callers must roll back
+     * on a non-empty result.
+     */
+    public List<Long> decrementAll(Map<Long, Integer> quantitiesByProduct) {
+        OffsetDateTime now = now();
+        List<Object[]> args = new ArrayList<>(quantitiesByProduct.size());
+        List<Long> ids = new ArrayList<>(quantitiesByProduct.size());
+        quantitiesByProduct.forEach((productId, qty) -> {
+            args.add(new Object[]{qty, now, productId, qty});
+            ids.add(productId);
+        });
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        List<Long> missed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                missed.add(ids.get(i));
+            }
+        }
+        if (missed.isEmpty()) {
+            return missed;
+        }
+        Map<Long, Integer> shardCounts = shardCounts(missed);
+        List<Long> failed = new ArrayList<>();
+        for (Long productId : missed) {
+            Integer shards = shardCounts.get(productId);
+            if (shards == null || !decrementSharded(productId, quantitiesByProduct.get(productId), shards)) {
+                failed.add(productId);
+            }
+        }
+        return failed;
+    }
+
+    public void incrementAll(Map<Long, Integer> quantitiesByProduct) {
+        Map<Long, Integer> shardCounts = shardCounts(quantitiesByProduct.keySet());
+        OffsetDateTime now = now();
+        List<Object[]> rowArgs = new ArrayList<>(quantitiesByProduct.size());
+        List<Object[]> shardArgs = new ArrayList<>();
+        quantitiesByProduct.forEach((productId, qty) -> {
+            Integer shards = shardCounts.get(productId);
+            if (shards == null) {
+                rowArgs.add(new Object[]{qty, now, productId});
+            } else {
+                shardArgs.add(new Object[]{qty, productId, ThreadLocalRandom.current().nextInt(shards)});
+            }
+        });
+        if (!rowArgs.isEmpty()) jdbcTemplate.batchUpdate(INCREMENT_SQL, rowArgs);
+        if (!shardArgs.isEmpty()) jdbcTemplate.batchUpdate(SHARD_INCREMENT_SQL, shardArgs);
+    }
+
+    /**
+     * Sum of the slot counters per sharded product; products without slots are absent from the map.
+     */
+    public Map<Long, Integer> shardedTotals(Collection<Long> productIds) {
+        Map<Long, Integer> totals = new HashMap<>();
+        if (productIds.isEmpty()) return totals;
+        namedJdbcTemplate.query(SHARD_TOTALS_SQL, new MapSqlParameterSource("ids", productIds),
+                rs -> { totals.put(rs.getLong("product_id"), rs.getInt("total")); });
+        return totals;
+    }
+
+    /**
+     * Moves a product's whole stock into {@code shards} evenly filled slots, or back onto the
+     * product row when {@code shards} is 0. Must run inside a transaction; both the product row and
+     * its slots are locked while the stock is redistributed.
+     *
+     * @return the product's total stock after redistribution, or -1 if the product does not exist
+     */
+    public int reshard(Long productId, int shards) {
+        List<Integer> rowStock = jdbcTemplate.queryForList(
+                "SELECT stock FROM products WHERE id = ? FOR UPDATE", Integer.class, productId);
+        if (rowStock.isEmpty()) return -1;
+        // A product created without stock has none to spread
+        Integer rowTotal = rowStock.get(0);
+        int total = rowTotal != null ? rowTotal : 0;
+        for (int[] slot : lockShards(productId)) {
+            total += slot[1];
+        }
+        fillShards(productId, total, shards);
+        jdbcTemplate.update("UPDATE products SET stock = ?, stock_shards = ?, version = version + 1, updated_at = ? WHERE id = ?",
+                shards > 0 ? 0 : total, shards > 0 ? shards : null, now(), productId);
+        return total;
+    }
+
+    /**
+     * Overwrites the total stock of a sharded product, spreading {@code total} evenly over its
+     * {@code shards} slots. The product row itself is not touched. Must run inside a transaction.
+     */
+    public void replaceShardedStock(Long productId, int total, int shards) {
+        lockShards(productId);
+        fillShards(productId, total, shards);
+    }
+
+    /**
+     * Slot count per sharded product; unsharded or missing products are absent from the map.
+     */
+    public Map<Long, Integer> shardCounts(Collection<Long> productIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (productIds.isEmpty()) return counts;
+        namedJdbcTemplate.query(SHARDS_OF_SQL, new MapSqlParameterSource("ids", productIds),
+                rs -> { counts.put(rs.getLong("id"), rs.getInt("stock_shards")); });
+        return counts;
+    }
+
+    private void fillShards(Long productId, int total, int shards) {
+        jdbcTemplate.update("DELETE FROM product_stock_shards WHERE product_id = ?", productId);
+        if (shards <= 0) return;
+        List<Object[]> inserts = new ArrayList<>(shards);
+        for (int slot = 0; slot < shards; slot++) {
+            int share = total / shards + (slot < total % shards ? 1 : 0);
+            inserts.add(new Object[]{productId, slot, share});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product_stock_shards (product_id, slot, stock) VALUES (?, ?, ?)", inserts);
+    }
+
+    private boolean decrementSharded(Long productId, int qty, int shards) {
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            int slot = (start + i) % shards;
+            if (jdbcTemplate.update(SHARD_DECREMENT_SQL, qty, productId, slot, qty) == 1) {
+                return true;
+            }
+        }
+        // No single slot holds enough: lock all slots and drain them in order
+        List<int[]> slots = lockShards(productId);
+        int available = slots.stream().mapToInt(s -> s[1]).sum();
+        if (available < qty) {
+            return false;
+        }
+        int remaining = qty;
+        for (int[] slot : slots) {
+            if (remaining == 0) break;
+            int take = Math.min(slot[1], remaining);
+            if (take > 0) {
+                jdbcTemplate.update(SHARD_DECREMENT_SQL, take, productId, slot[0], take);
+                remaining -= take;
+            }
+        }
+        return true;
+    }
+
+    private List<int[]> lockShards(Long productId) {
+        return jdbcTemplate.query(SHARDS_FOR_UPDATE_SQL, (rs, i) -> new int[]{rs.getInt("slot"), rs.getInt("stock")}, productId);
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,252 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.api.dto.ProductPatch;
+import com.sparkage.product.api.dto.UpdateProductRequest;
+import com.sparkage.product.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partial product updates. Single updates go through JPA, so only dirty columns are written
+ * ({@code @DynamicUpdate}) and the {@code @Version} check rejects lost updates. Bulk updates bypass
+ * the persistence context and go out in ascending id order, one JDBC batch per run of lines with
+ * the same column set, committing every {@code product.bulk-update.batch-size} lines.
+ */
+@Service
+public class ProductUpdateService {
+
+    private static final int NAME = 1, DESCRIPTION = 2, CATEGORY = 4, PRICE = 8, ROW_STOCK = 16, VERSION = 32;
+    private static final String[] BULK_SQL = new String[64];
+
+    static {
+        for (int mask = 0; mask < BULK_SQL.length; mask++) {
+            StringBuilder sql = new StringBuilder("UPDATE products SET ");
+            if ((mask & NAME) != 0) sql.append("name = ?, ");
+            if ((mask & DESCRIPTION) != 0) sql.append("description = ?, ");
+            if ((mask & CATEGORY) != 0) sql.append("category = ?, ");
+            if ((mask & PRICE) != 0) sql.append("price = ?, ");
+            if ((mask & ROW_STOCK) != 0) sql.append("stock = ?, ");
+            sql.append("version = version + 1, updated_at = ? WHERE id = ?");
+            // a product switched to sharded stock after the lookup must not get row stock
+            if ((mask & ROW_STOCK) != 0) sql.append(" AND stock_shards IS NULL");
+            if ((mask & VERSION) != 0) sql.append(" AND version = ?");
+            BULK_SQL[mask] = sql.toString();
+        }
+    }
+
+    private final ProductRepository products;
+    private final ProductStockStore stockStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRetries;
+    private final int batchSize;
+    private final int maxItems;
+
+    public ProductUpdateService(ProductRepository products,
+                                ProductStockStore stockStore,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${product.update.max-retries:3}") int maxRetries,
+                                @Value("${product.bulk-update.batch-size:1000}") int batchSize,
+                                @Value("${product.bulk-update.max-items:100000}") int maxItems) {
+        this.products = products;
+        this.stockStore = stockStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxRetries = Math.max(1, maxRetries);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxItems = maxItems;
+    }
+
+    public static class NotFoundException extends RuntimeException {
+        public NotFoundException(String message) { super(message); }
+    }
+
+    public static class PreconditionFailedException extends RuntimeException {
+        public PreconditionFailedException(String message) { super(message); }
+    }
+
+    public static class BulkResult {
+        private final int updated;
+        private final List<Long> notFound;
+        private final List<Long> conflicts;
+
+        public BulkResult(int updated, List<Long> notFound, List<Long> conflicts) {
+            this.updated = updated;
+            this.notFound = notFound;
+            this.conflicts = conflicts;
+        }
+
+        public int getUpdated() { return updated; }
+        public List<Long> getNotFound() { return notFound; }
+        public List<Long> getConflicts() { return conflicts; }
+    }
+
+    /**
+     * Applies the non-null fields of {@code request}. With {@code expectedVersion} the update only
+     * goes through if the product still has that version; without it, a concurrent write (e.g. a
+     * stock reservation bumping the version) is retried up to {@code product.update.max-retries} times.
+     */
+    public Product update(Long productId, UpdateProductRequest request, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> applyUpdate(productId, request, expectedVersion));
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (expectedVersion != null || attempt >= maxRetries) throw e;
+            }
+        }
+    }
+
+    /**
+     * Applies every patch line, one transaction per batch. Lines without any field are ignored; lines
+     * whose product is gone or whose version no longer matches are reported instead of failing the batch.
+     */
+    public BulkResult bulkUpdate(List<ProductPatch> patches) {
+        if (patches.size() > maxItems) {
+            throw new IllegalArgumentException("at most " + maxItems + " items per request");
+        }
+        Set<Long> seen = new HashSet<>();
+        for (ProductPatch patch : patches) {
+            if (!seen.add(patch.getId())) {
+                throw new IllegalArgumentException("duplicate product id " + patch.getId());
+            }
+        }
+        int updated = 0;
+        List<Long> notFound = new ArrayList<>();
+        List<Long> conflicts = new ArrayList<>();
+        for (int from = 0; from < patches.size(); from += batchSize) {
+            List<ProductPatch> chunk = patches.subList(from, Math.min(from + batchSize, patches.size()));
+            BulkResult r = transactionTemplate.execute(status -> applyChunk(chunk));
+            updated += r.getUpdated();
+            notFound.addAll(r.getNotFound());
+            conflicts.addAll(r.getConflicts());
+        }
+        return new BulkResult(updated, notFound, conflicts);
+    }
+
+    private Product applyUpdate(Long productId, UpdateProductRequest request, Long expectedVersion) {
+        Product p = products.findById(productId).orElseThrow(() -> new NotFoundException("product not found"));
+        if (expectedVersion != null && !expectedVersion.equals(p.getVersion())) {
+            throw new PreconditionFailedException("product has been modified");
+        }
+        if (request.getName() != null) p.setName(request.getName());
+        if (request.getDescription() != null) p.setDescription(request.getDescription());
+        if (request.getCategory() != null) p.setCategory(request.getCategory());
+        if (request.getPrice() != null) p.setPrice(request.getPrice());
+        boolean shardedStock = request.getStock() != null && p.isStockSharded();
+        if (request.getStock() != null && !shardedStock) p.setStock(request.getStock());
+        Product saved = products.saveAndFlush(p);
+        if (shardedStock) {
+            stockStore.replaceShardedStock(productId, request.getStock(), p.getStockShards());
+        }
+        return saved;
+    }
+
+    private BulkResult applyChunk(List<ProductPatch> chunk) {
+        List<Long> stockIds = new ArrayList<>();
+        for (ProductPatch patch : chunk) {
+            if (patch.getStock() != null) stockIds.add(patch.getId());
+        }
+        Map<Long, Integer> shardCounts = stockStore.shardCounts(stockIds);
+        OffsetDateTime now = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+
+        List<ProductPatch> lines = new ArrayList<>(chunk.size());
+        for (ProductPatch patch : chunk) {
+            boolean sharded = shardCounts.containsKey(patch.getId());
+            if ((maskOf(patch, sharded) & ~VERSION) == 0 && !sharded) continue;
+            lines.add(patch);
+        }
+        // Locks are taken as reservations take them: every product row in ascending id order, then
+        // the stock slots in ascending product id order, so a sync never deadlocks with checkouts
+        lines.sort(Comparator.comparing(ProductPatch::getId));
+        int[] masks = new int[lines.size()];
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = maskOf(lines.get(i), shardCounts.containsKey(lines.get(i).getId()));
+        }
+
+        int updated = 0;
+        List<Long> misses = new ArrayList<>();
+        List<ProductPatch> shardedStock = new ArrayList<>();
+        // Each run of consecutive lines with the same columns is one JDBC batch
+        int from = 0;
+        while (from < lines.size()) {
+            int mask = masks[from];
+            int to = from + 1;
+            while (to < lines.size() && masks[to] == mask) to++;
+            List<ProductPatch> run = lines.subList(from, to);
+            List<Object[]> args = new ArrayList<>(run.size());
+            for (ProductPatch line : run) {
+                args.add(argsOf(line, mask, now));
+            }
+            int[] counts = jdbcTemplate.batchUpdate(BULK_SQL[mask], args);
+            for (int i = 0; i < counts.length; i++) {
+                ProductPatch line = run.get(i);
+                if (counts[i] == 0) {
+                    misses.add(line.getId());
+                    continue;
+                }
+                updated++;
+                if (line.getStock() != null && shardCounts.containsKey(line.getId())) {
+                    shardedStock.add(line);
+                }
+            }
+            from = to;
+        }
+        for (ProductPatch line : shardedStock) {
+            stockStore.replaceShardedStock(line.getId(), line.getStock(), shardCounts.get(line.getId()));
+        }
+
+        List<Long> notFound = new ArrayList<>();
+        List<Long> conflicts = new ArrayList<>();
+        if (!misses.isEmpty()) {
+            Set<Long> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                    "SELECT id FROM products WHERE id IN (:ids)", new MapSqlParameterSource("ids", misses), Long.class));
+            for (Long id : misses) {
+                (existing.contains(id) ? conflicts : notFound).add(id);
+            }
+        }
+        return new BulkResult(updated, notFound, conflicts);
+    }
+
+    private static int maskOf(ProductPatch patch, boolean sharded) {
+        int mask = 0;
+        if (patch.getName() != null) mask |= NAME;
+        if (patch.getDescription() != null) mask |= DESCRIPTION;
+        if (patch.getCategory() != null) mask |= CATEGORY;
+        if (patch.getPrice() != null) mask |= PRICE;
+        if (patch.getStock() != null && !sharded) mask |= ROW_STOCK;
+        if (patch.getVersion() != null) mask |= VERSION;
+        return mask;
+    }
+
+    private static Object[] argsOf(ProductPatch patch, int mask, OffsetDateTime now) {
+        List<Object> args = new ArrayList<>(8);
+        if ((mask & NAME) != 0) args.add(patch.getName());
+        if ((mask & DESCRIPTION) != 0) args.add(patch.getDescription());
+        if ((mask & CATEGORY) != 0) args.add(patch.getCategory());
+        if ((mask & PRICE) != 0) args.add(patch.getPrice());
+        if ((mask & ROW_STOCK) != 0) args.add(patch.getStock());
+        args.add(now);
+        args.add(patch.getId());
+        if ((mask & VERSION) != 0) args.add(patch.getVersion());
+        return args.toArray();
+    }
+}
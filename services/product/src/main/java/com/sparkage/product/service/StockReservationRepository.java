@@ -0,0 +1,32 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.model.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByReservationIdOrderByProductId(String reservationId);
+
+    @Query("select distinct r.reservationId from StockReservation r where r.status = 'ACTIVE' and r.expiresAt < :now")
+    List<String> findExpiredReservationIds(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Moves every ACTIVE line of a reservation to {@code status}. Returns 0 when another transaction
+     * (commit, release or the expiry sweep) already moved it.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update StockReservation r set r.status = :status where r.reservationId = :reservationId and r.status = 'ACTIVE'")
+    int transitionActive(@Param("reservationId") String reservationId, @Param("status") String status);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update StockReservation r set r.status = 'COMMITTED' " +
+            "where r.reservationId = :reservationId and r.status = 'ACTIVE' and r.expiresAt > :now")
+    int commitActive(@Param("reservationId") String reservationId, @Param("now") Instant now);
+}
@@ -0,0 +1,176 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.model.StockReservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final StockReservationRepository reservations;
+    private final ProductRepository products;
+    private final ProductStockStore stockStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int sweepBatchSize;
+
+    public StockReservationService(StockReservationRepository reservations,
+                                   ProductRepository products,
+                                   ProductStockStore stockStore,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${product.reservations.default-ttl-seconds:900}") long defaultTtlSeconds,
+                                   @Value("${product.reservations.max-ttl-seconds:3600}") long maxTtlSeconds,
+                                   @Value("${product.reservations.sweep-batch-size:500}") int sweepBatchSize) {
+        this.reservations = reservations;
+        this.products = products;
+        this.stockStore = stockStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtl = Duration.ofSeconds(defaultTtlSeconds);
+        this.maxTtl = Duration.ofSeconds(maxTtlSeconds);
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public static class NotFoundException extends RuntimeException {
+        public NotFoundException(String message) { super(message); }
+    }
+
+    public static class InsufficientStockException extends RuntimeException {
+        private final List<Long> productIds;
+
+        public InsufficientStockException(List<Long> productIds) {
+            super("insufficient stock for products " + productIds);
+            this.productIds = productIds;
+        }
+
+        public List<Long> getProductIds() { return productIds; }
+    }
+
+    public static class InvalidStateException extends RuntimeException {
+        public InvalidStateException(String message) { super(message); }
+    }
+
+    /**
+     * Reserves all lines atomically: either every product is decremented or none is. Lines for the
+     * same product are merged and rows are locked in product id order to avoid deadlocks between carts.
+     */
+    @Transactional
+    public List<StockReservation> reserve(Map<Long, Integer> quantitiesByProduct, Long ttlSeconds) {
+        if (quantitiesByProduct == null || quantitiesByProduct.isEmpty()) {
+            throw new IllegalArgumentException("at least one line is required");
+        }
+        Map<Long, Integer> ordered = new TreeMap<>();
+        quantitiesByProduct.forEach((productId, qty) -> {
+            if (productId == null) throw new IllegalArgumentException("productId cannot be null");
+            if (qty == null || qty < 1) throw new IllegalArgumentException("quantity must be >= 1");
+            ordered.merge(productId, qty, Integer::sum);
+        });
+
+        List<Long> failed = stockStore.decrementAll(ordered);
+        if (!failed.isEmpty()) {
+            // Throwing rolls back the decrements of this batch that did succeed
+            List<Long> missing = failed.stream().filter(id -> !products.existsById(id)).toList();
+            if (!missing.isEmpty()) {
+                throw new NotFoundException("product not found: " + missing);
+            }
+            throw new InsufficientStockException(failed);
+        }
+
+        Instant expiresAt = Instant.now().plus(resolveTtl(ttlSeconds));
+        String reservationId = UUID.randomUUID().toString();
+        List<StockReservation> lines = new ArrayList<>(ordered.size());
+        ordered.forEach((productId, qty) -> lines.add(new StockReservation(reservationId, productId, qty, expiresAt)));
+        return reservations.saveAll(lines);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockReservation> get(String reservationId) {
+        List<StockReservation> lines = reservations.findByReservationIdOrderByProductId(reservationId);
+        if (lines.isEmpty()) throw new NotFoundException("reservation not found");
+        return lines;
+    }
+
+    /**
+     * Confirms a reservation; the stock stays decremented. Fails if it was released or has expired.
+     */
+    @Transactional
+    public List<StockReservation> commit(String reservationId) {
+        List<StockReservation> lines = get(reservationId);
+        if (reservations.commitActive(reservationId, Instant.now()) == 0) {
+            throw new InvalidStateException("reservation is " + currentStatus(lines) + " or expired");
+        }
+        lines.forEach(l -> l.setStatus(StockReservation.COMMITTED));
+        return lines;
+    }
+
+    /**
+     * Releases an active reservation and returns its quantities to stock.
+     */
+    @Transactional
+    public List<StockReservation> release(String reservationId) {
+        List<StockReservation> lines = get(reservationId);
+        if (!releaseLines(reservationId, lines, StockReservation.RELEASED)) {
+            throw new InvalidStateException("reservation is " + currentStatus(lines));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the stock of expired reservations. Each reservation is released in its own transaction;
+     * the conditional status update makes concurrent sweeps on other replicas harmless.
+     */
+    @Scheduled(fixedDelayString = "${product.reservations.sweep-interval-ms:30000}")
+    public int releaseExpired() {
+        List<String> expired = reservations.findExpiredReservationIds(Instant.now(), PageRequest.of(0, sweepBatchSize));
+        int released = 0;
+        for (String reservationId : expired) {
+            Boolean done = transactionTemplate.execute(status -> releaseLines(
+                    reservationId, reservations.findByReservationIdOrderByProductId(reservationId), StockReservation.EXPIRED));
+            if (Boolean.TRUE.equals(done)) released++;
+        }
+        if (released > 0) {
+            log.info("Released {} expired stock reservations", released);
+        }
+        return released;
+    }
+
+    private boolean releaseLines(String reservationId, List<StockReservation> lines, String status) {
+        if (reservations.transitionActive(reservationId, status) == 0) {
+            return false;
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservation line : lines) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+            line.setStatus(status);
+        }
+        stockStore.incrementAll(quantities);
+        return true;
+    }
+
+    private Duration resolveTtl(Long ttlSeconds) {
+        if (ttlSeconds == null || ttlSeconds <= 0) return defaultTtl;
+        Duration requested = Duration.ofSeconds(ttlSeconds);
+        return requested.compareTo(maxTtl) > 0 ? maxTtl : requested;
+    }
+
+    private static String currentStatus(List<StockReservation> lines) {
+        return lines.get(0).getStatus();
+    }
+}
@@ -0,0 +1,38 @@
+package com.sparkage.product.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class StockShardingService {
+
+    private final ProductStockStore stockStore;
+    private final int maxShards;
+
+    public StockShardingService(ProductStockStore stockStore,
+                                @Value("${product.stock-sharding.max-shards:64}") int maxShards) {
+        this.stockStore = stockStore;
+        this.maxShards = maxShards;
+    }
+
+    public static class NotFoundException extends RuntimeException {
+        public NotFoundException(String message) { super(message); }
+    }
+
+    /**
+     * Switches a product to sharded stock with {@code shards} slots (0 switches it back to the
+     * single stock column). The current total is preserved and spread evenly over the slots.
+     *
+     * @return the product's total stock
+     */
+    @Transactional
+    public int configure(Long productId, int shards) {
+        if (shards < 0 || shards > maxShards) {
+            throw new IllegalArgumentException("shards must be between 0 and " + maxShards);
+        }
+        int total = stockStore.reshard(productId, shards);
+        if (total < 0) throw new NotFoundException("product not found");
+        return total;
+    }
+}
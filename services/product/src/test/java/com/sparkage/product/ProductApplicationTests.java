@@ -1,15 +1,30 @@
 package com.sparkage.product;
 
+import com.sparkage.instrumentation.HttpRouteMetrics;
+import com.sparkage.product.config.ProductMetricsConfig;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class ProductApplicationTests {
 
+    @Autowired
+    private ApplicationContext context;
+
     @Test
     void contextLoads() {
         // Basic test to verify Spring context loads
     }
+
+    @Test
+    void requestsAreTimedByOneFilterOnly() {
+        assertThat(context.getBeansOfType(ProductMetricsConfig.ProductMetricsFilter.class)).hasSize(1);
+        assertThat(context.getBeansOfType(HttpRouteMetrics.class)).isEmpty();
+    }
 }
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,6 +18,9 @@ import java.math.BigDecimal;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
@@ -156,4 +160,111 @@ class ProductControllerIT extends com.sparkage.product.test.BaseIntegrationTest
         mockMvc.perform(delete("/products/99999999"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void getProduct_revalidationWithEtag_returns304() throws Exception {
+        String etag = mockMvc.perform(get("/products/" + existingId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/products/" + existingId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void listProducts_etagChangesAfterCatalogWrite() throws Exception {
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(delete("/products/" + existingId))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void put_partialUpdate_changesOnlyGivenFields() throws Exception {
+        Product before = productRepository.findById(existingId).orElseThrow();
+
+        mockMvc.perform(put("/products/" + existingId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1199.00,\"stock\":12}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + existingId + "-" + (before.getVersion() + 1) + "\""))
+                .andExpect(jsonPath("$.name").value("Laptop Pro"))
+                .andExpect(jsonPath("$.price").value(1199.00))
+                .andExpect(jsonPath("$.stock").value(12));
+
+        Product after = productRepository.findById(existingId).orElseThrow();
+        assertThat(after.getDescription()).isEqualTo("High-end laptop");
+        assertThat(after.getCategory()).isEqualTo("Computers");
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+    }
+
+    @Test
+    void put_withStaleIfMatch_returns412_andCurrentEtagSucceeds() throws Exception {
+        String etag = mockMvc.perform(get("/products/" + existingId))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/products/" + existingId)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Laptop Pro 2\"}"))
+                .andExpect(status().isOk());
+
+        // second writer still holds the old tag
+        mockMvc.perform(put("/products/" + existingId)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Laptop Pro X\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(productRepository.findById(existingId).orElseThrow().getName()).isEqualTo("Laptop Pro 2");
+    }
+
+    @Test
+    void put_unknownProduct_returns404() throws Exception {
+        mockMvc.perform(put("/products/999999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":1}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patch_bulkUpdate_appliesLines_andReportsMisses() throws Exception {
+        Product laptop = productRepository.findById(existingId).orElseThrow();
+        Product mug = productRepository.findAll().stream().filter(p -> p.getName().equals("Coffee Mug")).findFirst().orElseThrow();
+        String body = "{\"items\":["
+                + "{\"id\":" + laptop.getId() + ",\"price\":999.00,\"version\":" + laptop.getVersion() + "},"
+                + "{\"id\":" + mug.getId() + ",\"stock\":40,\"version\":" + (mug.getVersion() + 5) + "},"
+                + "{\"id\":999999,\"category\":\"Gone\"}]}";
+
+        mockMvc.perform(patch("/products").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(3))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.conflicts[0]").value(mug.getId()))
+                .andExpect(jsonPath("$.notFound[0]").value(999999));
+
+        Product updated = productRepository.findById(laptop.getId()).orElseThrow();
+        assertThat(updated.getPrice()).isEqualByComparingTo("999.00");
+        assertThat(updated.getName()).isEqualTo("Laptop Pro");
+        assertThat(updated.getVersion()).isEqualTo(laptop.getVersion() + 1);
+        assertThat(productRepository.findById(mug.getId()).orElseThrow().getStock()).isZero();
+    }
+
+    @Test
+    void patch_duplicateIds_returns400() throws Exception {
+        mockMvc.perform(patch("/products").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"id\":" + existingId + ",\"price\":1},{\"id\":" + existingId + ",\"price\":2}]}"))
+                .andExpect(status().isBadRequest());
+    }
 }
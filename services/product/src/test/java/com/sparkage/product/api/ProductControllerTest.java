@@ -1,31 +1,44 @@
 package com.sparkage.product.api;
 
 import com.sparkage.product.model.Product;
+import com.sparkage.product.service.CatalogStampCache;
 import com.sparkage.product.service.ProductRepository;
+import com.sparkage.product.service.ProductStockStore;
+import com.sparkage.product.service.ProductUpdateService;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProductController.class)
+@Import(CatalogStampCache.class)
 class ProductControllerTest {
 
     @Autowired
@@ -34,6 +47,12 @@ class ProductControllerTest {
     @MockBean
     private ProductRepository productRepository;
 
+    @MockBean
+    private ProductStockStore stockStore;
+
+    @MockBean
+    private ProductUpdateService updateService;
+
     @Test
     void listProducts_returnsProductSummaries() throws Exception {
         Product p = new Product("Phone X", "Great phone", "Electronics", new BigDecimal("799.99"));
@@ -169,4 +188,161 @@ class ProductControllerTest {
         mockMvc.perform(delete("/products/999").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void getProduct_setsStrongEtagAndCacheControl() throws Exception {
+        Product p = new Product("Laptop Pro", "High-end laptop", "Computers", new BigDecimal("1299.00"));
+        p.setId(42L);
+        p.setVersion(3L);
+        Mockito.when(productRepository.findById(eq(42L))).thenReturn(Optional.of(p));
+
+        mockMvc.perform(get("/products/42").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"42-3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void getProduct_matchingIfNoneMatch_returns304WithoutLoadingRow() throws Exception {
+        ProductRepository.VersionInfo v = Mockito.mock(ProductRepository.VersionInfo.class);
+        Mockito.when(v.getVersion()).thenReturn(3L);
+        Mockito.when(v.getUpdatedAt()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        Mockito.when(productRepository.findVersionById(eq(42L))).thenReturn(Optional.of(v));
+
+        mockMvc.perform(get("/products/42").header(HttpHeaders.IF_NONE_MATCH, "\"42-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"42-3\""))
+                .andExpect(content().string(""));
+
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void getProduct_staleIfNoneMatch_returnsFullBody() throws Exception {
+        ProductRepository.VersionInfo v = Mockito.mock(ProductRepository.VersionInfo.class);
+        Mockito.when(v.getVersion()).thenReturn(4L);
+        Mockito.when(v.getUpdatedAt()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        Mockito.when(productRepository.findVersionById(eq(42L))).thenReturn(Optional.of(v));
+        Product p = new Product("Laptop Pro", "High-end laptop", "Computers", new BigDecimal("1299.00"));
+        p.setId(42L);
+        p.setVersion(4L);
+        Mockito.when(productRepository.findById(eq(42L))).thenReturn(Optional.of(p));
+
+        mockMvc.perform(get("/products/42").header(HttpHeaders.IF_NONE_MATCH, "\"42-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"42-4\""))
+                .andExpect(jsonPath("$.id").value(42));
+    }
+
+    @Test
+    void listProducts_matchingIfNoneMatch_returns304WithoutQueryingPage() throws Exception {
+        ProductRepository.CatalogStamp stamp = Mockito.mock(ProductRepository.CatalogStamp.class);
+        Mockito.when(stamp.getCount()).thenReturn(4L);
+        Mockito.when(stamp.getLastModified()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        Mockito.when(productRepository.findCatalogStamp()).thenReturn(stamp);
+        Mockito.when(productRepository.findAll(any(org.springframework.data.jpa.domain.Specification.class), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(Collections.emptyList(), invocation.getArgument(1), 0));
+
+        String etag = mockMvc.perform(get("/products").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assert etag != null;
+
+        Mockito.clearInvocations(productRepository);
+        mockMvc.perform(get("/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        verify(productRepository, never()).findAll(any(org.springframework.data.jpa.domain.Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void updateProduct_returnsUpdatedDetailsWithEtag() throws Exception {
+        Product p = new Product("Phone X2", "Great phone", "Electronics", new BigDecimal("749.00"));
+        p.setId(42L);
+        p.setStock(5);
+        p.setVersion(7L);
+        Mockito.when(updateService.update(eq(42L), any(), isNull())).thenReturn(p);
+
+        mockMvc.perform(put("/products/42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Phone X2\",\"price\":749.00}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"42-7\""))
+                .andExpect(jsonPath("$.name").value("Phone X2"))
+                .andExpect(jsonPath("$.stock").value(5));
+    }
+
+    @Test
+    void updateProduct_passesIfMatchVersion() throws Exception {
+        Product p = new Product("Phone X", null, null, BigDecimal.ONE);
+        p.setId(42L);
+        p.setVersion(4L);
+        Mockito.when(updateService.update(eq(42L), any(), eq(3L))).thenReturn(p);
+
+        mockMvc.perform(put("/products/42")
+                        .header(HttpHeaders.IF_MATCH, "\"42-3-s10\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Phones\"}"))
+                .andExpect(status().isOk());
+        verify(updateService).update(eq(42L), any(), eq(3L));
+    }
+
+    @Test
+    void updateProduct_foreignIfMatch_returns412() throws Exception {
+        mockMvc.perform(put("/products/42")
+                        .header(HttpHeaders.IF_MATCH, "\"41-3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"category\":\"Phones\"}"))
+                .andExpect(status().isPreconditionFailed());
+        verify(updateService, never()).update(any(), any(), any());
+    }
+
+    @Test
+    void updateProduct_invalidFields_returns400() throws Exception {
+        mockMvc.perform(put("/products/42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"  \"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/products/42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\":-1}"))
+                .andExpect(status().isBadRequest());
+        verify(updateService, never()).update(any(), any(), any());
+    }
+
+    @Test
+    void updateProduct_errorsMapToStatus() throws Exception {
+        Mockito.when(updateService.update(eq(1L), any(), any()))
+                .thenThrow(new ProductUpdateService.NotFoundException("product not found"));
+        Mockito.when(updateService.update(eq(2L), any(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 2L));
+
+        mockMvc.perform(put("/products/1").contentType(MediaType.APPLICATION_JSON).content("{\"price\":1}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/products/2").contentType(MediaType.APPLICATION_JSON).content("{\"price\":1}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void bulkUpdate_returnsSummary() throws Exception {
+        Mockito.when(updateService.bulkUpdate(anyList()))
+                .thenReturn(new ProductUpdateService.BulkResult(1, List.of(9L), List.of()));
+
+        mockMvc.perform(patch("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"id\":1,\"price\":5},{\"id\":9,\"stock\":3}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(2))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.notFound[0]").value(9));
+    }
+
+    @Test
+    void bulkUpdate_itemWithoutId_returns400() throws Exception {
+        mockMvc.perform(patch("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"price\":5}]}"))
+                .andExpect(status().isBadRequest());
+    }
 }
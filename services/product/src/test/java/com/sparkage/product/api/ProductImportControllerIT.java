@@ -0,0 +1,127 @@
+package com.sparkage.product.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkage.product.model.Product;
+import com.sparkage.product.service.ProductRepository;
+import com.sparkage.product.service.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductImportControllerIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    // small chunks so the fixtures span several batches
+    @DynamicPropertySource
+    static void importProps(DynamicPropertyRegistry registry) {
+        registry.add("product.import.chunk-size", () -> "3");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_stock_shards");
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void csvImport_storesValidRows_andReportsRowErrors() throws Exception {
+        String csv = "name,description,category,price,stock\n"
+                + "Desk Lamp,LED,Home,19.90,10\n"
+                + ",missing name,Home,1.00,1\n"
+                + "\"Mug, large\",\"Ceramic\nwith handle\",Home,4.50,3\n"
+                + "Chair,,Home,-5,1\n"
+                + "Table,,Home,120,2\n"
+                + "Shelf,,Home,45,abc\n"
+                + "Rug,,Home,60,4\n";
+
+        JsonNode done = runImport("text/csv", csv);
+
+        assertThat(done.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(done.get("rowsRead").asLong()).isEqualTo(7);
+        assertThat(done.get("rowsImported").asLong()).isEqualTo(4);
+        assertThat(done.get("rowsFailed").asLong()).isEqualTo(3);
+        assertThat(done.get("errors").findValuesAsText("row")).containsExactly("2", "4", "6");
+        assertThat(done.get("errors").get(1).get("message").asText()).isEqualTo("price must be >= 0.00");
+
+        List<Product> stored = productRepository.findAll();
+        assertThat(stored).extracting(Product::getName).containsExactlyInAnyOrder("Desk Lamp", "Mug, large", "Table", "Rug");
+        assertThat(stored).filteredOn(p -> p.getName().equals("Mug, large"))
+                .extracting(Product::getDescription).containsExactly("Ceramic\nwith handle");
+    }
+
+    @Test
+    void ndjsonImport_storesProducts() throws Exception {
+        String ndjson = "{\"name\":\"Cable\",\"price\":3.5,\"stock\":100}\n"
+                + "\n"
+                + "{\"name\":\"Charger\",\"price\":\"25.00\",\"stock\":20,\"category\":\"Electronics\"}\n"
+                + "not json\n";
+
+        JsonNode done = runImport("application/x-ndjson", ndjson);
+
+        assertThat(done.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(done.get("rowsImported").asLong()).isEqualTo(2);
+        assertThat(done.get("errors").get(0).get("row").asLong()).isEqualTo(4);
+        assertThat(productRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void csvWithoutRequiredColumns_failsJob() throws Exception {
+        JsonNode done = runImport("text/csv", "name,description\nLamp,LED\n");
+
+        assertThat(done.get("status").asText()).isEqualTo("FAILED");
+        assertThat(done.get("failure").asText()).contains("price");
+        assertThat(productRepository.count()).isZero();
+    }
+
+    private JsonNode runImport(String contentType, String body) throws Exception {
+        String location = mockMvc.perform(post("/products/imports").contentType(contentType).content(body))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            String json = mockMvc.perform(get(location)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode node = objectMapper.readTree(json);
+            String status = node.get("status").asText();
+            if (status.equals("COMPLETED") || status.equals("FAILED")) {
+                return node;
+            }
+            assertThat(System.currentTimeMillis()).as("import finished in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.service.ProductImportFormat;
+import com.sparkage.product.service.ProductImportJob;
+import com.sparkage.product.service.ProductImportService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ProductImportController.class)
+class ProductImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductImportService importService;
+
+    @Test
+    void startImport_csv_returns202WithLocation() throws Exception {
+        ProductImportJob job = Mockito.mock(ProductImportJob.class);
+        Mockito.when(job.getId()).thenReturn("job-1");
+        Mockito.when(job.getStatus()).thenReturn(ProductImportJob.QUEUED);
+        Mockito.when(job.getFormat()).thenReturn(ProductImportFormat.CSV);
+        Mockito.when(importService.start(any(), eq(ProductImportFormat.CSV))).thenReturn(job);
+
+        mockMvc.perform(post("/products/imports")
+                        .contentType("text/csv; charset=utf-8")
+                        .content("name,price,stock\nLamp,10,1\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/products/imports/job-1"))
+                .andExpect(jsonPath("$.importId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void startImport_unsupportedContentType_returns415() throws Exception {
+        mockMvc.perform(post("/products/imports")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<products/>"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void startImport_whenBusy_returns429() throws Exception {
+        Mockito.when(importService.start(any(), any()))
+                .thenThrow(new ProductImportService.TooManyImportsException("2 imports are already running"));
+
+        mockMvc.perform(post("/products/imports")
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\":\"Lamp\",\"price\":1,\"stock\":1}\n"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void getImport_unknown_returns404() throws Exception {
+        Mockito.when(importService.get("missing")).thenThrow(new ProductImportService.NotFoundException("import not found"));
+
+        mockMvc.perform(get("/products/imports/missing"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,172 @@
+package com.sparkage.product.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkage.product.model.Product;
+import com.sparkage.product.model.StockReservation;
+import com.sparkage.product.service.ProductRepository;
+import com.sparkage.product.service.StockReservationRepository;
+import com.sparkage.product.service.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockReservationControllerIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long phoneId;
+    private Long mugId;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        productRepository.deleteAll();
+        phoneId = saveProduct("Phone X", 5);
+        mugId = saveProduct("Coffee Mug", 1);
+    }
+
+    private Long saveProduct(String name, int stock) {
+        Product p = new Product(name, name, "Test", new BigDecimal("10.00"));
+        p.setStock(stock);
+        return productRepository.save(p).getId();
+    }
+
+    private int stockOf(Long id) {
+        return productRepository.findById(id).orElseThrow().getStock();
+    }
+
+    private String reserve(Long productId, int quantity) throws Exception {
+        String body = mockMvc.perform(post("/products/" + productId + "/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":" + quantity + "}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode node = objectMapper.readTree(body);
+        return node.get("reservationId").asText();
+    }
+
+    @Test
+    void reserve_decrementsStock_andRejectsOversell() throws Exception {
+        reserve(phoneId, 3);
+        assertThat(stockOf(phoneId)).isEqualTo(2);
+
+        mockMvc.perform(post("/products/" + phoneId + "/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":3}"))
+                .andExpect(status().isConflict());
+        assertThat(stockOf(phoneId)).isEqualTo(2);
+    }
+
+    @Test
+    void reserve_unknownProduct_returns404() throws Exception {
+        mockMvc.perform(post("/products/99999999/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":1}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reserveBatch_isAllOrNothing() throws Exception {
+        String json = "{\"items\":[{\"productId\":" + phoneId + ",\"quantity\":2},{\"productId\":" + mugId + ",\"quantity\":2}]}";
+        mockMvc.perform(post("/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.productIds[0]").value(mugId));
+
+        // the successful phone decrement in the same batch must have been rolled back
+        assertThat(stockOf(phoneId)).isEqualTo(5);
+        assertThat(stockOf(mugId)).isEqualTo(1);
+        assertThat(reservationRepository.count()).isZero();
+
+        String ok = "{\"items\":[{\"productId\":" + phoneId + ",\"quantity\":2},{\"productId\":" + mugId + ",\"quantity\":1}]}";
+        mockMvc.perform(post("/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ok))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.items.length()").value(2));
+        assertThat(stockOf(phoneId)).isEqualTo(3);
+        assertThat(stockOf(mugId)).isZero();
+    }
+
+    @Test
+    void release_restoresStock_andCannotBeCommittedAfterwards() throws Exception {
+        String id = reserve(phoneId, 4);
+        assertThat(stockOf(phoneId)).isEqualTo(1);
+
+        mockMvc.perform(delete("/products/reservations/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RELEASED"));
+        assertThat(stockOf(phoneId)).isEqualTo(5);
+
+        mockMvc.perform(post("/products/reservations/" + id + "/commit"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(delete("/products/reservations/" + id))
+                .andExpect(status().isConflict());
+        assertThat(stockOf(phoneId)).isEqualTo(5);
+    }
+
+    @Test
+    void commit_keepsStockDecremented_andIsNotSweptLater() throws Exception {
+        String id = reserve(phoneId, 2);
+        mockMvc.perform(post("/products/reservations/" + id + "/commit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMMITTED"));
+
+        forceExpiry(id);
+        assertThat(reservationService.releaseExpired()).isZero();
+        assertThat(stockOf(phoneId)).isEqualTo(3);
+    }
+
+    @Test
+    void expiredReservations_areReturnedToStockBySweep() throws Exception {
+        String id = reserve(phoneId, 5);
+        assertThat(stockOf(phoneId)).isZero();
+
+        forceExpiry(id);
+        assertThat(reservationService.releaseExpired()).isEqualTo(1);
+        assertThat(stockOf(phoneId)).isEqualTo(5);
+        assertThat(reservationRepository.findByReservationIdOrderByProductId(id))
+                .allMatch(r -> StockReservation.EXPIRED.equals(r.getStatus()));
+
+        mockMvc.perform(post("/products/reservations/" + id + "/commit"))
+                .andExpect(status().isConflict());
+    }
+
+    private void forceExpiry(String reservationId) {
+        reservationRepository.findByReservationIdOrderByProductId(reservationId).forEach(r -> {
+            r.setExpiresAt(Instant.now().minusSeconds(1));
+            reservationRepository.save(r);
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.model.StockReservation;
+import com.sparkage.product.service.StockReservationService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StockReservationController.class)
+class StockReservationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StockReservationService reservationService;
+
+    private static StockReservation line(String reservationId, long productId, int qty) {
+        StockReservation r = new StockReservation(reservationId, productId, qty, Instant.parse("2025-01-01T00:15:00Z"));
+        r.setId(productId);
+        return r;
+    }
+
+    @Test
+    void reserve_success_returns201AndLocation() throws Exception {
+        Mockito.when(reservationService.reserve(eq(Map.of(7L, 2)), eq(60L)))
+                .thenReturn(List.of(line("res-1", 7L, 2)));
+
+        mockMvc.perform(post("/products/7/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":2,\"ttlSeconds\":60}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/products/reservations/res-1"))
+                .andExpect(jsonPath("$.reservationId").value("res-1"))
+                .andExpect(jsonPath("$.status").value("ACTIVE"))
+                .andExpect(jsonPath("$.items[0].productId").value(7))
+                .andExpect(jsonPath("$.items[0].quantity").value(2));
+    }
+
+    @Test
+    void reserve_insufficientStock_returns409WithProductIds() throws Exception {
+        Mockito.when(reservationService.reserve(any(), any()))
+                .thenThrow(new StockReservationService.InsufficientStockException(List.of(7L)));
+
+        mockMvc.perform(post("/products/7/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":5}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.productIds[0]").value(7));
+    }
+
+    @Test
+    void reserve_invalidQuantity_returns400() throws Exception {
+        mockMvc.perform(post("/products/7/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":0}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void reserveBatch_mergesDuplicateLines() throws Exception {
+        Mockito.when(reservationService.reserve(eq(Map.of(1L, 3, 2L, 1)), any()))
+                .thenReturn(List.of(line("res-2", 1L, 3), line("res-2", 2L, 1)));
+
+        mockMvc.perform(post("/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"productId\":1,\"quantity\":1},{\"productId\":2,\"quantity\":1},{\"productId\":1,\"quantity\":2}]}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.items.length()").value(2));
+
+        verify(reservationService).reserve(eq(Map.of(1L, 3, 2L, 1)), any());
+    }
+
+    @Test
+    void reserveBatch_emptyItems_returns400() throws Exception {
+        mockMvc.perform(post("/products/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void release_unknownReservation_returns404() throws Exception {
+        Mockito.when(reservationService.release("nope"))
+                .thenThrow(new StockReservationService.NotFoundException("reservation not found"));
+
+        mockMvc.perform(delete("/products/reservations/nope"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void commit_alreadyReleased_returns409() throws Exception {
+        Mockito.when(reservationService.commit("res-3"))
+                .thenThrow(new StockReservationService.InvalidStateException("reservation is RELEASED or expired"));
+
+        mockMvc.perform(post("/products/reservations/res-3/commit"))
+                .andExpect(status().isConflict());
+    }
+}
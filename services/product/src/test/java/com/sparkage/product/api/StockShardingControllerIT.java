@@ -0,0 +1,188 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.model.Product;
+import com.sparkage.product.service.ProductRepository;
+import com.sparkage.product.service.ProductStockStore;
+import com.sparkage.product.service.StockReservationRepository;
+import com.sparkage.product.service.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockShardingControllerIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ProductStockStore stockStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long hotSku;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_stock_shards");
+        productRepository.deleteAll();
+        Product p = new Product("Flash Sale Console", "Limited run", "Gaming", new BigDecimal("499.00"));
+        p.setStock(10);
+        hotSku = productRepository.save(p).getId();
+    }
+
+    private void shard(int shards) throws Exception {
+        mockMvc.perform(put("/products/" + hotSku + "/stock-shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\":" + shards + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(10));
+    }
+
+    private int shardedTotal() {
+        return stockStore.shardedTotals(List.of(hotSku)).getOrDefault(hotSku, 0);
+    }
+
+    @Test
+    void enablingSharding_movesStockIntoSlots_andReadsAggregate() throws Exception {
+        shard(4);
+
+        Product row = productRepository.findById(hotSku).orElseThrow();
+        assertThat(row.getStock()).isZero();
+        assertThat(row.getStockShards()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForList("SELECT stock FROM product_stock_shards WHERE product_id = ? ORDER BY slot", Integer.class, hotSku))
+                .containsExactly(3, 3, 2, 2);
+
+        mockMvc.perform(get("/products/" + hotSku))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(10));
+    }
+
+    @Test
+    void shardingProductWithoutStock_startsFromZero() throws Exception {
+        // ddl-auto: update never adds NOT NULL to a column it created earlier, so older tables allow it
+        jdbcTemplate.execute("ALTER TABLE products ALTER COLUMN stock SET NULL");
+        try {
+            jdbcTemplate.update("UPDATE products SET stock = NULL WHERE id = ?", hotSku);
+
+            mockMvc.perform(put("/products/" + hotSku + "/stock-shards")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"shards\":2}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stock").value(0));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE products ALTER COLUMN stock SET NOT NULL");
+        }
+        assertThat(productRepository.findById(hotSku).orElseThrow().getStock()).isZero();
+        assertThat(shardedTotal()).isZero();
+    }
+
+    @Test
+    void reservationsOnShardedProduct_neverOversell_andFallBackAcrossSlots() throws Exception {
+        shard(4);
+
+        // no single slot holds 5 units, so this drains several slots
+        reservationService.reserve(Map.of(hotSku, 5), null);
+        assertThat(shardedTotal()).isEqualTo(5);
+
+        reservationService.reserve(Map.of(hotSku, 5), null);
+        assertThat(shardedTotal()).isZero();
+
+        assertThatThrownBy(() -> reservationService.reserve(Map.of(hotSku, 1), null))
+                .isInstanceOf(StockReservationService.InsufficientStockException.class);
+    }
+
+    @Test
+    void releasingShardedReservation_returnsStockToSlots() throws Exception {
+        shard(2);
+        String reservationId = reservationService.reserve(Map.of(hotSku, 7), null).get(0).getReservationId();
+        assertThat(shardedTotal()).isEqualTo(3);
+
+        reservationService.release(reservationId);
+        assertThat(shardedTotal()).isEqualTo(10);
+    }
+
+    @Test
+    void disablingSharding_movesStockBackToRow() throws Exception {
+        shard(4);
+        reservationService.reserve(Map.of(hotSku, 4), null);
+
+        mockMvc.perform(put("/products/" + hotSku + "/stock-shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\":0}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(6));
+
+        Product row = productRepository.findById(hotSku).orElseThrow();
+        assertThat(row.getStock()).isEqualTo(6);
+        assertThat(row.isStockSharded()).isFalse();
+        assertThat(shardedTotal()).isZero();
+    }
+
+    @Test
+    void etagOfShardedProduct_changesWhenSlotsChange() throws Exception {
+        shard(4);
+        String etag = mockMvc.perform(get("/products/" + hotSku))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/products/" + hotSku).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        reservationService.reserve(Map.of(hotSku, 1), null);
+
+        mockMvc.perform(get("/products/" + hotSku).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(9));
+    }
+
+    @Test
+    void updatingStockOfShardedProduct_rewritesSlots() throws Exception {
+        shard(4);
+
+        mockMvc.perform(put("/products/" + hotSku)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\":40}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(40));
+        assertThat(productRepository.findById(hotSku).orElseThrow().getStock()).isZero();
+        assertThat(shardedTotal()).isEqualTo(40);
+
+        mockMvc.perform(patch("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":[{\"id\":" + hotSku + ",\"stock\":8}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+        assertThat(productRepository.findById(hotSku).orElseThrow().getStock()).isZero();
+        assertThat(shardedTotal()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,70 @@
+package com.sparkage.product.api;
+
+import com.sparkage.product.service.CatalogStampCache;
+import com.sparkage.product.service.StockShardingService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StockShardingController.class)
+class StockShardingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StockShardingService shardingService;
+
+    @MockBean
+    private CatalogStampCache catalogStamp;
+
+    @Test
+    void configure_returnsShardsAndTotalStock() throws Exception {
+        Mockito.when(shardingService.configure(5L, 8)).thenReturn(120);
+
+        mockMvc.perform(put("/products/5/stock-shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\":8}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productId").value(5))
+                .andExpect(jsonPath("$.shards").value(8))
+                .andExpect(jsonPath("$.stock").value(120));
+    }
+
+    @Test
+    void configure_unknownProduct_returns404() throws Exception {
+        Mockito.when(shardingService.configure(9L, 4))
+                .thenThrow(new StockShardingService.NotFoundException("product not found"));
+
+        mockMvc.perform(put("/products/9/stock-shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\":4}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void configure_negativeShards_returns400() throws Exception {
+        mockMvc.perform(put("/products/5/stock-shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\":-1}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void configure_aboveLimit_returns400() throws Exception {
+        Mockito.when(shardingService.configure(5L, 1000))
+                .thenThrow(new IllegalArgumentException("shards must be between 0 and 64"));
+
+        mockMvc.perform(put("/products/5/stock-shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\":1000}"))
+                .andExpect(status().isBadRequest());
+    }
+}
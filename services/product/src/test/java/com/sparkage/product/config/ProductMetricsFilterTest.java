@@ -0,0 +1,98 @@
+package com.sparkage.product.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductMetricsFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private ProductMetricsConfig.ProductMetricsFilter filter;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        filter = new ProductMetricsConfig.ProductMetricsFilter(registry);
+    }
+
+    private void perform(String method, String uri, String pattern, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            if (pattern != null) req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+            ((MockHttpServletResponse) res).setStatus(status);
+        };
+        filter.doFilter(request, response, chain);
+    }
+
+    @Test
+    void tagsByRouteTemplate_soMeterCountStaysBounded() throws Exception {
+        for (int id = 1; id <= 500; id++) {
+            perform("GET", "/products/" + id, "/products/{productId}", 200);
+        }
+
+        Timer timer = registry.find(ProductMetricsConfig.ProductMetricsFilter.REQUEST_TIMER)
+                .tags("method", "GET", "uri", "/products/{productId}", "status", "200").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(500);
+        assertThat(registry.find(ProductMetricsConfig.ProductMetricsFilter.REQUEST_COUNTER).counters()).hasSize(1);
+        assertThat(registry.get(ProductMetricsConfig.ProductMetricsFilter.OPERATION_COUNTER)
+                .tag("operation", "get_product").counter().count()).isEqualTo(500);
+    }
+
+    @Test
+    void separatesMeters_byMethodAndStatus() throws Exception {
+        perform("GET", "/products/1", "/products/{productId}", 200);
+        perform("GET", "/products/2", "/products/{productId}", 404);
+        perform("PUT", "/products/1", "/products/{productId}", 200);
+
+        assertThat(registry.find(ProductMetricsConfig.ProductMetricsFilter.REQUEST_COUNTER).counters()).hasSize(3);
+        assertThat(registry.get(ProductMetricsConfig.ProductMetricsFilter.OPERATION_COUNTER)
+                .tag("operation", "update_product").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void statusLookups_haveTheirOwnOperations() throws Exception {
+        perform("GET", "/products/reservations/r-1", "/products/reservations/{reservationId}", 200);
+        perform("GET", "/products/imports/i-1", "/products/imports/{importId}", 200);
+
+        assertThat(registry.get(ProductMetricsConfig.ProductMetricsFilter.OPERATION_COUNTER)
+                .tag("operation", "get_reservation").counter().count()).isEqualTo(1);
+        assertThat(registry.get(ProductMetricsConfig.ProductMetricsFilter.OPERATION_COUNTER)
+                .tag("operation", "get_import").counter().count()).isEqualTo(1);
+        assertThat(registry.find(ProductMetricsConfig.ProductMetricsFilter.OPERATION_COUNTER)
+                .tag("operation", "unknown").counter()).isNull();
+    }
+
+    @Test
+    void unmatchedRequests_useFixedFallbackTags() throws Exception {
+        perform("GET", "/nope/123", null, 404);
+        perform("GET", "/nope/456", null, 404);
+        perform("GET", "/boom", null, 500);
+        perform("BREW", "/products", "/products", 405);
+
+        Counter notFound = registry.find(ProductMetricsConfig.ProductMetricsFilter.REQUEST_COUNTER)
+                .tags("uri", "NOT_FOUND", "status", "404").counter();
+        assertThat(notFound).isNotNull();
+        assertThat(notFound.count()).isEqualTo(2);
+        assertThat(registry.find(ProductMetricsConfig.ProductMetricsFilter.REQUEST_COUNTER)
+                .tags("uri", "UNKNOWN", "status", "500").counter()).isNotNull();
+        assertThat(registry.find(ProductMetricsConfig.ProductMetricsFilter.REQUEST_COUNTER)
+                .tags("method", "OTHER", "uri", "/products").counter()).isNotNull();
+    }
+
+    @Test
+    void activeRequestsGauge_returnsToZero() throws Exception {
+        perform("GET", "/products", "/products", 200);
+
+        assertThat(registry.get("product_service_active_requests").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,76 @@
+package com.sparkage.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sparkage.product.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImportRowParserTest {
+
+    @Test
+    void csv_mapsColumnsByHeaderName() throws Exception {
+        ImportRowParser parser = ImportRowParser.csv("\uFEFFSKU,Stock,Name,Price,Category");
+
+        Product p = parser.parse("A-1,12,Desk Lamp,19.90,Home");
+
+        assertThat(p.getName()).isEqualTo("Desk Lamp");
+        assertThat(p.getPrice()).isEqualByComparingTo("19.90");
+        assertThat(p.getStock()).isEqualTo(12);
+        assertThat(p.getCategory()).isEqualTo("Home");
+        assertThat(p.getDescription()).isNull();
+        assertThat(p.getId()).isNull();
+    }
+
+    @Test
+    void csv_quotedFieldsMayContainCommasQuotesAndLineBreaks() throws Exception {
+        BufferedReader reader = new BufferedReader(new StringReader(
+                "name,description,price,stock\n\"Mug, large\",\"Says \"\"hi\"\"\nand more\",4.50,3\nPlate,,2,1\n"));
+        ImportRowParser parser = ImportRowParser.csv(ImportRowParser.nextRecord(reader, ProductImportFormat.CSV));
+
+        Product mug = parser.parse(ImportRowParser.nextRecord(reader, ProductImportFormat.CSV));
+        Product plate = parser.parse(ImportRowParser.nextRecord(reader, ProductImportFormat.CSV));
+
+        assertThat(mug.getName()).isEqualTo("Mug, large");
+        assertThat(mug.getDescription()).isEqualTo("Says \"hi\"\nand more");
+        assertThat(plate.getName()).isEqualTo("Plate");
+        assertThat(plate.getDescription()).isNull();
+        assertThat(ImportRowParser.nextRecord(reader, ProductImportFormat.CSV)).isNull();
+    }
+
+    @Test
+    void csv_headerWithoutRequiredColumn_isRejected() {
+        assertThatThrownBy(() -> ImportRowParser.csv("name,description,stock"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("price");
+    }
+
+    @Test
+    void invalidRows_reportReason() {
+        ImportRowParser parser = ImportRowParser.csv("name,price,stock");
+
+        assertThatThrownBy(() -> parser.parse(" ,1,1")).hasMessage("name must not be blank");
+        assertThatThrownBy(() -> parser.parse("A,abc,1")).hasMessage("price is not a number");
+        assertThatThrownBy(() -> parser.parse("A,-1,1")).hasMessage("price must be >= 0.00");
+        assertThatThrownBy(() -> parser.parse("A,1.999,1")).hasMessage("price has more than 2 decimals");
+        assertThatThrownBy(() -> parser.parse("A,1,-2")).hasMessage("stock must be >= 0");
+        assertThatThrownBy(() -> parser.parse("A,1")).hasMessage("stock is required");
+    }
+
+    @Test
+    void ndjson_parsesObjects_andRejectsMalformedLines() throws Exception {
+        ImportRowParser parser = ImportRowParser.ndjson(new ObjectMapper());
+
+        Product p = parser.parse("{\"name\":\"Cable\",\"price\":3.5,\"stock\":100,\"category\":\"Electronics\"}");
+
+        assertThat(p.getName()).isEqualTo("Cable");
+        assertThat(p.getPrice()).isEqualByComparingTo("3.50");
+        assertThat(p.getStock()).isEqualTo(100);
+        assertThatThrownBy(() -> parser.parse("{\"name\":")).hasMessage("malformed JSON");
+        assertThatThrownBy(() -> parser.parse("[1,2]")).hasMessage("expected a JSON object");
+    }
+}
@@ -0,0 +1,77 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.api.dto.ProductPatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catalog-sync sized bulk update: 100k SKUs get a new price and stock through the batched path.
+ * The logged rate comes from H2 and is only indicative.
+ */
+class ProductBulkUpdateThroughputIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBulkUpdateThroughputIT.class);
+    private static final int SKUS = 100_000;
+
+    @Autowired
+    private ProductUpdateService updateService;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_stock_shards");
+        productRepository.deleteAll();
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(SKUS);
+        for (int i = 0; i < SKUS; i++) {
+            rows.add(new Object[]{"SKU-" + i, "Bulk", new BigDecimal("10.00"), 1, now, 0L, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (id, name, category, price, stock, created_at, version, updated_at) "
+                + "VALUES (nextval('products_seq'), ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void updates100kSkus() {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id", Long.class);
+        List<ProductPatch> patches = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductPatch patch = new ProductPatch();
+            patch.setId(id);
+            patch.setPrice(new BigDecimal("12.50"));
+            patch.setStock(7);
+            patches.add(patch);
+        }
+
+        long t0 = System.nanoTime();
+        ProductUpdateService.BulkResult result = updateService.bulkUpdate(patches);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+
+        assertThat(result.getUpdated()).isEqualTo(SKUS);
+        assertThat(result.getNotFound()).isEmpty();
+        assertThat(result.getConflicts()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE stock = 7 AND price = 12.50 AND version = 1", Integer.class))
+                .isEqualTo(SKUS);
+        log.info("Bulk update: {} SKUs in {} s ({} rows/s)", SKUS, String.format("%.2f", seconds), String.format("%.0f", SKUS / seconds));
+    }
+}
@@ -0,0 +1,49 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductIdSequenceAlignerIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    @Autowired
+    private ProductIdSequenceAligner aligner;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_stock_shards");
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void sequenceIsMovedPastRowsInsertedWithLegacyIds() {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.update("INSERT INTO products (id, name, price, stock, created_at, version, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                500_000L, "Legacy", BigDecimal.ONE, 1, now, 0L, now);
+
+        aligner.align();
+
+        for (int i = 0; i < Product.ID_ALLOCATION_SIZE + 5; i++) {
+            Product saved = productRepository.save(new Product("New " + i, null, null, BigDecimal.TEN));
+            assertThat(saved.getId()).isGreaterThan(500_000L);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.sparkage.product.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports a generated supplier feed (default 100k rows; {@code -Dproduct.import.bench.rows=500000}
+ * for the full feed size) and logs rows/s. One row in a thousand is invalid. H2 numbers are
+ * indicative only.
+ */
+class ProductImportThroughputIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportThroughputIT.class);
+    private static final int ROWS = Integer.getInteger("product.import.bench.rows", 100_000);
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_stock_shards");
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void importsSupplierFeed() throws Exception {
+        Path feed = Files.createTempFile("supplier-feed-", ".csv");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(feed, StandardCharsets.UTF_8)) {
+                out.write("sku,name,description,category,price,stock\n");
+                for (int i = 1; i <= ROWS; i++) {
+                    String price = i % 1000 == 0 ? "n/a" : (i % 500) + ".99";
+                    out.write("SKU-" + i + ",Product " + i + ",\"Generated, row " + i + "\",Category " + (i % 50) + "," + price + "," + (i % 200) + "\n");
+                }
+            }
+
+            long t0 = System.nanoTime();
+            ProductImportJob job;
+            try (InputStream in = Files.newInputStream(feed)) {
+                job = importService.start(in, ProductImportFormat.CSV);
+            }
+            while (!job.isFinished()) {
+                Thread.sleep(50);
+            }
+            double seconds = (System.nanoTime() - t0) / 1e9;
+
+            assertThat(job.getStatus()).isEqualTo(ProductImportJob.COMPLETED);
+            assertThat(job.getRowsRead()).isEqualTo(ROWS);
+            assertThat(job.getRowsFailed()).isEqualTo(ROWS / 1000);
+            assertThat(job.getRowsImported()).isEqualTo(ROWS - ROWS / 1000);
+            assertThat(productRepository.count()).isEqualTo(ROWS - ROWS / 1000);
+            log.info("Catalog import: {} rows in {} s ({} rows/s)", ROWS, String.format("%.2f", seconds),
+                    String.format("%.0f", ROWS / seconds));
+        } finally {
+            Files.deleteIfExists(feed);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress test: 500 concurrent buyers race for a hot SKU with only 100 units in stock.
+ */
+class StockReservationServiceIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    private static final int BUYERS = 500;
+    private static final int STOCK = 100;
+
+    @DynamicPropertySource
+    static void poolProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "32");
+    }
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Long hotSku;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        productRepository.deleteAll();
+        Product p = new Product("Flash Sale Console", "Limited run", "Gaming", new BigDecimal("499.00"));
+        p.setStock(STOCK);
+        hotSku = productRepository.save(p).getId();
+    }
+
+    @Test
+    void concurrentBuyers_neverOversell() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < BUYERS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        reservationService.reserve(Map.of(hotSku, 1), null);
+                        sold.incrementAndGet();
+                    } catch (StockReservationService.InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(sold.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(BUYERS - STOCK);
+        assertThat(productRepository.findById(hotSku).orElseThrow().getStock()).isZero();
+        assertThat(reservationRepository.count()).isEqualTo(STOCK);
+    }
+}
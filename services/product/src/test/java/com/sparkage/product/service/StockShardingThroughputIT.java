@@ -0,0 +1,114 @@
+package com.sparkage.product.service;
+
+import com.sparkage.product.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput comparison of 1k concurrent single-unit reservations on one hot SKU, single-row stock
+ * versus sharded stock. Both runs must sell exactly the available units; the measured rates are
+ * logged. H2 only approximates Postgres row locking, so treat the numbers as relative.
+ */
+class StockShardingThroughputIT extends com.sparkage.product.test.BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockShardingThroughputIT.class);
+    private static final int DECREMENTS = 1000;
+    private static final int THREADS = 64;
+
+    @DynamicPropertySource
+    static void poolProps(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "32");
+    }
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private StockShardingService shardingService;
+
+    @Autowired
+    private StockReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockStore stockStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        reservationRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM product_stock_shards");
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void singleRowVersusSharded() throws Exception {
+        Long single = createSku();
+        double singleRate = run(single);
+        assertThat(productRepository.findById(single).orElseThrow().getStock()).isZero();
+
+        Long sharded = createSku();
+        shardingService.configure(sharded, 16);
+        double shardedRate = run(sharded);
+        assertThat(stockStore.shardedTotals(List.of(sharded)).get(sharded)).isZero();
+
+        log.info("Hot-SKU decrements: single-row {} ops/s, sharded(16) {} ops/s",
+                String.format("%.0f", singleRate), String.format("%.0f", shardedRate));
+    }
+
+    private Long createSku() {
+        Product p = new Product("Hot SKU", "Flash sale", "Gaming", new BigDecimal("10.00"));
+        p.setStock(DECREMENTS);
+        return productRepository.save(p).getId();
+    }
+
+    private double run(Long productId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(DECREMENTS);
+        try {
+            for (int i = 0; i < DECREMENTS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    reservationService.reserve(Map.of(productId, 1), null);
+                    sold.incrementAndGet();
+                    return null;
+                }));
+            }
+            long t0 = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(120, TimeUnit.SECONDS);
+            }
+            long elapsed = System.nanoTime() - t0;
+            assertThat(sold.get()).isEqualTo(DECREMENTS);
+            return DECREMENTS / (elapsed / 1e9);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
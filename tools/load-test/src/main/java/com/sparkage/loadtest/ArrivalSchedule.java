@@ -0,0 +1,43 @@
+package com.sparkage.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Inter-arrival gaps for an open-loop workload: sessions arrive on this schedule whether or not
+ * earlier ones have finished, so a slow system sees the queue build up instead of the generator
+ * politely slowing down with it.
+ */
+public abstract class ArrivalSchedule {
+
+    public abstract long nextGapNanos();
+
+    public static ArrivalSchedule of(String model, double ratePerSecond, long seed) {
+        double meanGapNanos = 1_000_000_000.0 / ratePerSecond;
+        switch (model) {
+            case "constant":
+                return new ArrivalSchedule() {
+                    private double carry;
+
+                    @Override
+                    public long nextGapNanos() {
+                        // keep the fractional nanos so the long-run rate is exact
+                        carry += meanGapNanos;
+                        long gap = (long) carry;
+                        carry -= gap;
+                        return gap;
+                    }
+                };
+            case "poisson":
+                SplittableRandom random = new SplittableRandom(seed);
+                return new ArrivalSchedule() {
+                    @Override
+                    public long nextGapNanos() {
+                        // exponential gaps: independent arrivals, bursts included
+                        return (long) (-Math.log(1.0 - random.nextDouble()) * meanGapNanos);
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("arrivals must be poisson or constant but was " + model);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.sparkage.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products and user accounts created through the gateway before the run, so that every session
+ * works on rows that exist.
+ */
+public class Catalog {
+
+    static final String PASSWORD = "load-test-password";
+
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<BigDecimal> prices = new ArrayList<>();
+    private final List<String> usernames = new ArrayList<>();
+
+    public static Catalog seed(GatewayClient client, LoadTestOptions options) {
+        Catalog catalog = new Catalog();
+        for (int i = 1; i <= options.getProducts(); i++) {
+            BigDecimal price = BigDecimal.valueOf(499 + (i * 371L) % 20_000, 2);
+            JsonNode created = client.send("POST", "/api/products/products", Map.of(
+                    "name", "Load test product " + i,
+                    "description", "Seeded by the load test",
+                    "category", "load-test-" + i % 5,
+                    "price", price,
+                    "stock", 1_000_000), -1);
+            catalog.productIds.add(created.get("id").asLong());
+            catalog.prices.add(price);
+        }
+        for (int i = 1; i <= options.getUsers(); i++) {
+            String username = "load-test-" + i;
+            // 400 is "already taken": left over from an earlier run against the same database
+            client.send("POST", "/api/identity/users/register", Map.of(
+                    "username", username,
+                    "email", username + "@example.com",
+                    "password", PASSWORD), 400);
+            catalog.usernames.add(username);
+        }
+        return catalog;
+    }
+
+    public int productCount() {
+        return productIds.size();
+    }
+
+    public long productId(int index) {
+        return productIds.get(index);
+    }
+
+    public BigDecimal price(int index) {
+        return prices.get(index);
+    }
+
+    public String username(int index) {
+        return usernames.get(index % usernames.size());
+    }
+}
@@ -0,0 +1,117 @@
+package com.sparkage.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous JSON calls through the API gateway, timed into a {@link RouteStats}.
+ * A non-2xx response or transport failure completes the returned future with a
+ * {@link StepFailedException} so the rest of the session is skipped.
+ */
+public class GatewayClient {
+
+    private final HttpClient http;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final URI gateway;
+    private final String apiKey;
+    private final Duration timeout;
+
+    public GatewayClient(LoadTestOptions options, Executor executor) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.getTimeout())
+                .executor(executor)
+                .build();
+        this.gateway = options.getGateway();
+        this.apiKey = options.getApiKey();
+        this.timeout = options.getTimeout();
+    }
+
+    public static class StepFailedException extends RuntimeException {
+        public StepFailedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    public CompletableFuture<JsonNode> call(RouteStats stats, long intendedStartNanos, String method, String path, Object body) {
+        HttpRequest request = request(method, path, body);
+        long sentNanos = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    long endNanos = System.nanoTime();
+                    String outcome = failure != null ? failureKind(failure)
+                            : response.statusCode() / 100 == 2 ? null : Integer.toString(response.statusCode());
+                    stats.record(intendedStartNanos, sentNanos, endNanos, outcome);
+                    if (outcome != null) {
+                        throw new StepFailedException(method + " " + path + " failed: " + outcome);
+                    }
+                    return parse(response.body());
+                });
+    }
+
+    /** Blocking call for seeding; returns {@code null} when the status is {@code allowedStatus}. */
+    public JsonNode send(String method, String path, Object body, int allowedStatus) {
+        try {
+            HttpResponse<byte[]> response = http.send(request(method, path, body), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == allowedStatus) {
+                return null;
+            }
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException(method + " " + path + " returned " + response.statusCode()
+                        + ": " + new String(response.body()));
+            }
+            return parse(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException(method + " " + path + " failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+
+    private HttpRequest request(String method, String path, Object body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(gateway.resolve(path))
+                .timeout(timeout)
+                .header("X-API-Key", apiKey)
+                .header("Accept", "application/json");
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        try {
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("cannot serialize request body", e);
+        }
+    }
+
+    private JsonNode parse(byte[] body) {
+        if (body.length == 0) {
+            return MissingNode.getInstance();
+        }
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            throw new StepFailedException("response is not JSON: " + e.getMessage());
+        }
+    }
+
+    private static String failureKind(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof HttpTimeoutException ? "timeout" : "io";
+    }
+}
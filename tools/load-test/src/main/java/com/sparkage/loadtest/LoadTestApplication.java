@@ -0,0 +1,102 @@
+package com.sparkage.loadtest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of the whole system through the API gateway. Sessions start on an
+ * {@link ArrivalSchedule} at {@code --rate} per second regardless of how many are still running,
+ * and run the {@link ShopperScenario} funnel. After {@code --warmup}, every request is recorded for
+ * {@code --duration}; then in-flight sessions are given {@code --timeout} to finish and the
+ * {@link LoadTestReport} is printed and written to {@code --out}.
+ * <p>
+ * Exit code: 0 when the run completed with at least one successful request, 1 otherwise,
+ * 2 for bad options.
+ */
+public class LoadTestApplication {
+
+    private static final long PROGRESS_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LoadTestOptions options;
+
+    public LoadTestApplication(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERR] " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(new LoadTestApplication(options).run());
+    }
+
+    public int run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2), r -> {
+            Thread t = new Thread(r, "load-test");
+            t.setDaemon(true);
+            return t;
+        });
+        GatewayClient client = new GatewayClient(options, executor);
+
+        System.out.printf("[INFO] Seeding %d products and %d users through %s%n", options.getProducts(), options.getUsers(), options.getGateway());
+        Catalog catalog = Catalog.seed(client, options);
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.getWarmup().toNanos();
+        long end = measureFrom + options.getDuration().toNanos();
+        ShopperScenario scenario = new ShopperScenario(client, catalog, options, executor, measureFrom);
+        ArrivalSchedule schedule = ArrivalSchedule.of(options.getArrivals(), options.getRate(), options.getSeed());
+        AtomicInteger inFlight = new AtomicInteger();
+        long started = 0;
+        long shed = 0;
+
+        System.out.printf("[INFO] Warming up for %ds, then measuring for %ds at %.1f sessions/s%n",
+                options.getWarmup().toSeconds(), options.getDuration().toSeconds(), options.getRate());
+        long nextProgress = start + PROGRESS_NANOS;
+        for (long next = start; next < end; next += schedule.nextGapNanos()) {
+            long now;
+            while ((now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(next - now);
+            }
+            boolean measured = next >= measureFrom;
+            if (inFlight.get() >= options.getMaxSessions()) {
+                if (measured) shed++;
+            } else {
+                inFlight.incrementAndGet();
+                // the session is stamped with its slot, not with now: if this loop fell behind, that wait is latency too
+                scenario.run(next).whenComplete((r, e) -> inFlight.decrementAndGet());
+                if (measured) started++;
+            }
+            if (now >= nextProgress) {
+                System.out.printf("[INFO] %3ds %s: %d sessions in flight%n", TimeUnit.NANOSECONDS.toSeconds(now - start),
+                        now < measureFrom ? "warm-up" : "measuring", inFlight.get());
+                nextProgress += PROGRESS_NANOS;
+            }
+        }
+
+        long drainDeadline = System.nanoTime() + options.getTimeout().toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        if (inFlight.get() > 0) {
+            System.out.printf("[WARN] %d sessions still in flight after %ds; their open requests are not in the report%n",
+                    inFlight.get(), options.getTimeout().toSeconds());
+        }
+
+        LoadTestReport report = new LoadTestReport(options, scenario.stats(), started, shed);
+        report.print(System.out);
+        report.write(options.getOut());
+        System.out.println("[INFO] Report written to " + options.getOut());
+        executor.shutdownNow();
+        long ok = scenario.stats().values().stream().mapToLong(RouteStats::okCount).sum();
+        return ok > 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.sparkage.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options, given as {@code --name=value}. Durations accept {@code ms}, {@code s} and
+ * {@code m} suffixes; a bare number is seconds.
+ */
+public class LoadTestOptions {
+
+    static final Set<String> NAMES = Set.of("gateway", "api-key", "rate", "arrivals", "warmup", "duration",
+            "think-time", "timeout", "products", "users", "cart-ratio", "checkout-ratio", "max-sessions", "seed", "out");
+
+    private final URI gateway;
+    private final String apiKey;
+    private final double rate;
+    private final String arrivals;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration thinkTime;
+    private final Duration timeout;
+    private final int products;
+    private final int users;
+    private final double cartRatio;
+    private final double checkoutRatio;
+    private final int maxSessions;
+    private final long seed;
+    private final String out;
+
+    LoadTestOptions(Map<String, String> values) {
+        this.gateway = URI.create(values.getOrDefault("gateway", "http://localhost:8080"));
+        this.apiKey = values.getOrDefault("api-key", "dev-key-change-me");
+        this.rate = Double.parseDouble(values.getOrDefault("rate", "20"));
+        this.arrivals = values.getOrDefault("arrivals", "poisson");
+        this.warmup = parseDuration(values.getOrDefault("warmup", "15s"));
+        this.duration = parseDuration(values.getOrDefault("duration", "60s"));
+        this.thinkTime = parseDuration(values.getOrDefault("think-time", "100ms"));
+        this.timeout = parseDuration(values.getOrDefault("timeout", "10s"));
+        this.products = Integer.parseInt(values.getOrDefault("products", "50"));
+        this.users = Integer.parseInt(values.getOrDefault("users", "20"));
+        this.cartRatio = Double.parseDouble(values.getOrDefault("cart-ratio", "0.5"));
+        this.checkoutRatio = Double.parseDouble(values.getOrDefault("checkout-ratio", "0.5"));
+        this.maxSessions = Integer.parseInt(values.getOrDefault("max-sessions", "5000"));
+        this.seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        this.out = values.getOrDefault("out", "target/load-test-report.json");
+        if (rate <= 0) throw new IllegalArgumentException("rate must be positive");
+        if (products < 1 || users < 1) throw new IllegalArgumentException("products and users must be at least 1");
+        if (cartRatio < 0 || cartRatio > 1 || checkoutRatio < 0 || checkoutRatio > 1) {
+            throw new IllegalArgumentException("cart-ratio and checkout-ratio must be between 0 and 1");
+        }
+    }
+
+    public static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("unknown option --" + name + "; known options: " + NAMES);
+            }
+            values.put(name, arg.substring(eq + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.endsWith("ms")) return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        if (v.endsWith("s")) return Duration.ofMillis(Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 1000));
+        if (v.endsWith("m")) return Duration.ofSeconds(Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 60));
+        return Duration.ofMillis(Math.round(Double.parseDouble(v) * 1000));
+    }
+
+    /** Base URL of the API gateway; every request goes through it. */
+    public URI getGateway() { return gateway; }
+    public String getApiKey() { return apiKey; }
+    /** Shopper sessions started per second. */
+    public double getRate() { return rate; }
+    /** {@code poisson} or {@code constant} inter-arrival times. */
+    public String getArrivals() { return arrivals; }
+    public Duration getWarmup() { return warmup; }
+    public Duration getDuration() { return duration; }
+    public Duration getThinkTime() { return thinkTime; }
+    public Duration getTimeout() { return timeout; }
+    public int getProducts() { return products; }
+    public int getUsers() { return users; }
+    /** Share of browsing sessions that add an item to the cart. */
+    public double getCartRatio() { return cartRatio; }
+    /** Share of sessions with a cart that go on to log in, order and pay. */
+    public double getCheckoutRatio() { return checkoutRatio; }
+    /** Sessions in flight above which new arrivals are shed (and counted) rather than started. */
+    public int getMaxSessions() { return maxSessions; }
+    public long getSeed() { return seed; }
+    public String getOut() { return out; }
+}
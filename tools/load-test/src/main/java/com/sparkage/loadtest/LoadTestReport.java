@@ -0,0 +1,105 @@
+package com.sparkage.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-route summary of a run: a table on stdout and the same numbers as JSON. Percentiles are in
+ * milliseconds and coordinated-omission corrected; {@code sent p99} is the uncorrected p99, so a
+ * wide gap between the two means requests waited before they could be sent.
+ */
+public class LoadTestReport {
+
+    static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LoadTestOptions options;
+    private final List<Map<String, Object>> routes = new ArrayList<>();
+    private final long started;
+    private final long shed;
+
+    public LoadTestReport(LoadTestOptions options, Map<String, RouteStats> stats, long started, long shed) {
+        this.options = options;
+        this.started = started;
+        this.shed = shed;
+        double seconds = options.getDuration().toMillis() / 1000.0;
+        for (RouteStats route : stats.values()) {
+            Histogram corrected = route.correctedHistogram();
+            Histogram uncorrected = route.uncorrectedHistogram();
+            if (corrected.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("route", route.route());
+            row.put("ok", route.okCount());
+            row.put("errors", route.errors());
+            row.put("throughput", round(corrected.getTotalCount() / seconds));
+            row.put("latencyMs", percentiles(corrected));
+            row.put("sentLatencyMs", percentiles(uncorrected));
+            routes.add(row);
+        }
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> out = new LinkedHashMap<>();
+        for (double p : PERCENTILES) {
+            out.put("p" + (p == Math.rint(p) ? Integer.toString((int) p) : Double.toString(p)),
+                    round(histogram.getValueAtPercentile(p) / 1000.0));
+        }
+        out.put("max", round(histogram.getMaxValue() / 1000.0));
+        return out;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void print(PrintStream out) {
+        out.printf("%n%-16s %8s %7s %8s %9s %9s %9s %9s %9s %10s%n",
+                "route", "ok", "errors", "req/s", "p50", "p90", "p99", "p99.9", "max", "sent p99");
+        for (Map<String, Object> row : routes) {
+            Map<String, Double> latency = (Map<String, Double>) row.get("latencyMs");
+            Map<String, Double> sent = (Map<String, Double>) row.get("sentLatencyMs");
+            Map<String, Long> errors = (Map<String, Long>) row.get("errors");
+            out.printf("%-16s %8d %7d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f %10.2f%n",
+                    row.get("route"), (Long) row.get("ok"), errors.values().stream().mapToLong(Long::longValue).sum(),
+                    (Double) row.get("throughput"), latency.get("p50"), latency.get("p90"), latency.get("p99"),
+                    latency.get("p99.9"), latency.get("max"), sent.get("p99"));
+        }
+        for (Map<String, Object> row : routes) {
+            Map<String, Long> errors = (Map<String, Long>) row.get("errors");
+            if (!errors.isEmpty()) {
+                out.printf("[WARN] %s errors: %s%n", row.get("route"), errors);
+            }
+        }
+        out.printf("%nSessions started: %d at %.1f/s target (%s arrivals); shed at the in-flight limit: %d%n",
+                started, options.getRate(), options.getArrivals(), shed);
+        out.println("Latency in ms from each request's intended start (coordinated-omission corrected);"
+                + " 'sent p99' is measured from when it was actually sent.");
+    }
+
+    public void write(String path) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("gateway", options.getGateway().toString());
+        report.put("rate", options.getRate());
+        report.put("arrivals", options.getArrivals());
+        report.put("durationSeconds", options.getDuration().toSeconds());
+        report.put("sessionsStarted", started);
+        report.put("sessionsShed", shed);
+        report.put("routes", routes);
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+}
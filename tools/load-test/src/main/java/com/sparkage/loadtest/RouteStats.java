@@ -0,0 +1,94 @@
+package com.sparkage.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcomes of one route, measured two ways:
+ * <ul>
+ *   <li>from the time the request was <em>intended</em> to start, i.e. its slot in the arrival
+ *   schedule (or the end of the previous step plus think time). This is the coordinated-omission
+ *   corrected latency a user would see: time spent queued behind a stalled generator or a saturated
+ *   connection pool counts;</li>
+ *   <li>from the time it was actually sent, which is what the server-side timers report.</li>
+ * </ul>
+ * Requests intended to start before {@code measureFromNanos} are warm-up and only counted in
+ * {@link #warmupCount()}.
+ */
+public class RouteStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final String route;
+    private final long measureFromNanos;
+    private final Recorder corrected = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder uncorrected = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder warmup = new LongAdder();
+
+    public RouteStats(String route, long measureFromNanos) {
+        this.route = route;
+        this.measureFromNanos = measureFromNanos;
+    }
+
+    /**
+     * @param outcome {@code null} for a 2xx response, otherwise the status code or failure kind
+     */
+    public void record(long intendedStartNanos, long sentNanos, long endNanos, String outcome) {
+        if (intendedStartNanos < measureFromNanos) {
+            warmup.increment();
+            return;
+        }
+        corrected.recordValue(clamp(endNanos - intendedStartNanos));
+        uncorrected.recordValue(clamp(endNanos - sentNanos));
+        if (outcome == null) {
+            ok.increment();
+        } else {
+            errors.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+        }
+    }
+
+    private static long clamp(long nanos) {
+        return Math.max(0, Math.min(nanos / 1_000, HIGHEST_TRACKABLE_MICROS));
+    }
+
+    public String route() {
+        return route;
+    }
+
+    public long okCount() {
+        return ok.sum();
+    }
+
+    public long warmupCount() {
+        return warmup.sum();
+    }
+
+    /** Failures by status code or failure kind ({@code timeout}, {@code io}). */
+    public Map<String, Long> errors() {
+        Map<String, Long> out = new TreeMap<>();
+        errors.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    public long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /** Everything recorded since the last call; values in microseconds. Call once, after the run. */
+    public Histogram correctedHistogram() {
+        return corrected.getIntervalHistogram();
+    }
+
+    /** Everything recorded since the last call; values in microseconds. Call once, after the run. */
+    public Histogram uncorrectedHistogram() {
+        return uncorrected.getIntervalHistogram();
+    }
+}
@@ -0,0 +1,108 @@
+package com.sparkage.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One shopper session, as a funnel:
+ * <ol>
+ *   <li>every session browses: a catalog page, then one product;</li>
+ *   <li>{@code cart-ratio} of them add it to their cart and view the cart;</li>
+ *   <li>{@code checkout-ratio} of those log in, place the order, pay for it and clear the cart.</li>
+ * </ol>
+ * Steps run one after the other with {@code think-time} in between. Each step's intended start is
+ * the end of the previous one plus the think time (the first step's is the session's arrival
+ * slot), so a late timer or a backlog in the client is charged to the step's latency. A failed
+ * step ends the session, since later steps need its result.
+ */
+public class ShopperScenario {
+
+    static final List<String> ROUTES = List.of("products.list", "products.get", "cart.add", "cart.get",
+            "identity.login", "orders.create", "payments.create", "cart.clear");
+
+    private static final int PAGE_SIZE = 20;
+
+    private final GatewayClient client;
+    private final Catalog catalog;
+    private final LoadTestOptions options;
+    private final Executor executor;
+    private final Map<String, RouteStats> stats = new LinkedHashMap<>();
+    private final long thinkNanos;
+    // cart and order ids are per shopper; a fresh one per session keeps sessions from sharing a cart
+    private final AtomicLong shoppers = new AtomicLong(1_000_000);
+
+    public ShopperScenario(GatewayClient client, Catalog catalog, LoadTestOptions options, Executor executor, long measureFromNanos) {
+        this.client = client;
+        this.catalog = catalog;
+        this.options = options;
+        this.executor = executor;
+        this.thinkNanos = options.getThinkTime().toNanos();
+        for (String route : ROUTES) {
+            stats.put(route, new RouteStats(route, measureFromNanos));
+        }
+    }
+
+    public Map<String, RouteStats> stats() {
+        return stats;
+    }
+
+    public CompletableFuture<Void> run(long arrivalNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int product = random.nextInt(catalog.productCount());
+        int page = random.nextInt(Math.max(1, catalog.productCount() / PAGE_SIZE));
+        long productId = catalog.productId(product);
+
+        CompletableFuture<JsonNode> session = client.call(stats.get("products.list"), arrivalNanos,
+                        "GET", "/api/products/products?page=" + page + "&size=" + PAGE_SIZE, null)
+                .thenCompose(r -> step("products.get", "GET", "/api/products/products/" + productId, null));
+        if (random.nextDouble() >= options.getCartRatio()) {
+            return session.thenApply(r -> null);
+        }
+
+        long shopper = shoppers.incrementAndGet();
+        int quantity = 1 + random.nextInt(3);
+        session = session
+                .thenCompose(r -> step("cart.add", "POST", "/api/cart/carts/" + shopper + "/items",
+                        Map.of("productId", productId, "quantity", quantity)))
+                .thenCompose(r -> step("cart.get", "GET", "/api/cart/carts/" + shopper, null));
+        if (random.nextDouble() >= options.getCheckoutRatio()) {
+            return session.thenApply(r -> null);
+        }
+
+        String username = catalog.username(random.nextInt(options.getUsers()));
+        BigDecimal amount = catalog.price(product).multiply(BigDecimal.valueOf(quantity));
+        return session
+                .thenCompose(r -> step("identity.login", "POST", "/api/identity/users/login",
+                        Map.of("usernameOrEmail", username, "password", Catalog.PASSWORD)))
+                .thenCompose(r -> step("orders.create", "POST", "/api/orders/orders", Map.of(
+                        "userId", shopper,
+                        "cartId", shopper,
+                        "paymentInfo", "CARD",
+                        "shippingAddress", "1 Load Test Lane, Springfield")))
+                .thenCompose(order -> step("payments.create", "POST", "/api/payments/payments", Map.of(
+                        "orderId", order.get("id").asLong(),
+                        "paymentMethod", "CARD",
+                        "amount", amount,
+                        "paymentDetails", "tok_load_test")))
+                .thenCompose(r -> step("cart.clear", "POST", "/api/cart/carts/" + shopper + "/clear", null))
+                .thenApply(r -> null);
+    }
+
+    private CompletableFuture<JsonNode> step(String route, String method, String path, Object body) {
+        long intended = System.nanoTime() + thinkNanos;
+        if (thinkNanos == 0) {
+            return client.call(stats.get(route), intended, method, path, body);
+        }
+        return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(thinkNanos, TimeUnit.NANOSECONDS, executor))
+                .thenCompose(v -> client.call(stats.get(route), intended, method, path, body));
+    }
+}
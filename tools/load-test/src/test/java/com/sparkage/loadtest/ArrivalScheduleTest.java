@@ -0,0 +1,44 @@
+package com.sparkage.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrivalScheduleTest {
+
+    @Test
+    void constantGapsKeepTheExactLongRunRate() {
+        ArrivalSchedule schedule = ArrivalSchedule.of("constant", 3, 1);
+
+        long total = 0;
+        for (int i = 0; i < 3_000; i++) {
+            long gap = schedule.nextGapNanos();
+            assertTrue(gap == 333_333_333L || gap == 333_333_334L, "gap " + gap);
+            total += gap;
+        }
+        assertEquals(1_000_000_000_000L, total, 1);
+    }
+
+    @Test
+    void poissonGapsAverageToTheRateAndVary() {
+        ArrivalSchedule schedule = ArrivalSchedule.of("poisson", 100, 7);
+
+        long total = 0;
+        long shortGaps = 0;
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            long gap = schedule.nextGapNanos();
+            assertTrue(gap >= 0);
+            total += gap;
+            if (gap < 10_000_000L) shortGaps++;
+        }
+        assertEquals(10_000_000.0, (double) total / n, 10_000_000.0 * 0.02);
+        // exponential: P(gap < mean) = 1 - 1/e
+        assertEquals(0.632, (double) shortGaps / n, 0.01);
+    }
+
+    @Test
+    void rejectsUnknownModels() {
+        assertThrows(IllegalArgumentException.class, () -> ArrivalSchedule.of("closed", 10, 1));
+    }
+}
@@ -0,0 +1,37 @@
+package com.sparkage.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadTestOptionsTest {
+
+    @Test
+    void parsesOptionsOverDefaults() {
+        LoadTestOptions options = LoadTestOptions.parse("--rate=150", "--duration=2m", "--think-time=0", "--arrivals=constant");
+
+        assertEquals(150.0, options.getRate());
+        assertEquals(Duration.ofMinutes(2), options.getDuration());
+        assertEquals(Duration.ZERO, options.getThinkTime());
+        assertEquals("constant", options.getArrivals());
+        assertEquals("http://localhost:8080", options.getGateway().toString());
+        assertEquals(Duration.ofSeconds(15), options.getWarmup());
+    }
+
+    @Test
+    void parsesDurations() {
+        assertEquals(Duration.ofMillis(250), LoadTestOptions.parseDuration("250ms"));
+        assertEquals(Duration.ofMillis(1500), LoadTestOptions.parseDuration("1.5s"));
+        assertEquals(Duration.ofSeconds(90), LoadTestOptions.parseDuration("1.5m"));
+        assertEquals(Duration.ofSeconds(30), LoadTestOptions.parseDuration("30"));
+    }
+
+    @Test
+    void rejectsUnknownAndMalformedOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--connections=10"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("rate=10"));
+        assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse("--cart-ratio=1.5"));
+    }
+}
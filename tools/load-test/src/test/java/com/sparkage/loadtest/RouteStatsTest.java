@@ -0,0 +1,53 @@
+package com.sparkage.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteStatsTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void correctedLatencyIsMeasuredFromTheIntendedStart() {
+        RouteStats stats = new RouteStats("cart.add", 0);
+
+        // intended at 100ms, only sent at 400ms because the client was backed up, done at 420ms
+        stats.record(100 * MS, 400 * MS, 420 * MS, null);
+
+        Histogram corrected = stats.correctedHistogram();
+        Histogram uncorrected = stats.uncorrectedHistogram();
+        assertEquals(320.0, corrected.getMaxValue() / 1000.0, 1.0);
+        assertEquals(20.0, uncorrected.getMaxValue() / 1000.0, 0.1);
+        assertEquals(1, stats.okCount());
+    }
+
+    @Test
+    void warmupRequestsAreCountedButNotRecorded() {
+        RouteStats stats = new RouteStats("products.list", 1_000 * MS);
+
+        stats.record(999 * MS, 999 * MS, 1_100 * MS, null);
+        stats.record(1_000 * MS, 1_000 * MS, 1_010 * MS, null);
+
+        assertEquals(1, stats.warmupCount());
+        assertEquals(1, stats.okCount());
+        assertEquals(1, stats.correctedHistogram().getTotalCount());
+    }
+
+    @Test
+    void failuresAreGroupedByOutcomeAndStillTimed() {
+        RouteStats stats = new RouteStats("payments.create", 0);
+
+        stats.record(0, 0, 5 * MS, "503");
+        stats.record(0, 0, 6 * MS, "503");
+        stats.record(0, 0, 10_000 * MS, "timeout");
+
+        assertEquals(Map.of("503", 2L, "timeout", 1L), stats.errors());
+        assertEquals(3, stats.errorCount());
+        assertEquals(0, stats.okCount());
+        assertEquals(3, stats.correctedHistogram().getTotalCount());
+    }
+}